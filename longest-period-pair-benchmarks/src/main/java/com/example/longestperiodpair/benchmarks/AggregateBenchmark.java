@@ -0,0 +1,96 @@
+package com.example.longestperiodpair.benchmarks;
+
+import com.example.longestperiodpair.application.model.WorkingPair;
+import com.example.longestperiodpair.application.service.aggregate.PairCollector;
+import com.example.longestperiodpair.application.service.aggregate.PairTotalsAggregator;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.ProjectGroups;
+import com.example.longestperiodpair.application.service.overlap.OverlapEngine;
+import com.example.longestperiodpair.application.service.overlap.SweepLineOverlapEngine;
+import com.example.longestperiodpair.application.service.store.ArrayPairRecords;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the selection of the longest working pairs from the totals, and
+ * the collection of the overlaps with and without keeping the pair records.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregateBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"1000"})
+    private int projects;
+
+    @Param({"0.0", "0.5"})
+    private double skew;
+
+    private AssignmentTable table;
+    private ProjectGroups groups;
+    private OverlapEngine engine;
+    private PairTotalsAggregator totals;
+
+    @Setup
+    public void setUp() {
+        table = SyntheticAssignments.generate(rows, projects, skew, 0.01, 42)
+                                    .toTable();
+        engine = new SweepLineOverlapEngine();
+        groups = table.groupByProject();
+        totals = new PairTotalsAggregator(table);
+        for (int project = 0; project < groups.projectCount(); project++) {
+            groups.sortByStart(table, project);
+            engine.findOverlaps(table, groups.getRows(), groups.start(project),
+                                groups.end(project), totals);
+        }
+    }
+
+    @Benchmark
+    public Optional<WorkingPair> findLongest() {
+        return totals.findLongest();
+    }
+
+    @Benchmark
+    public List<WorkingPair> findTop100() {
+        return totals.findTop(100);
+    }
+
+    @Benchmark
+    public PairTotalsAggregator collectTotals() {
+        return collect(false).getTotals();
+    }
+
+    @Benchmark
+    public ArrayPairRecords collectRecords() {
+        return collect(true).buildRecords();
+    }
+
+    private PairCollector collect(boolean retainPairs) {
+        PairCollector collector = new PairCollector(table, retainPairs);
+        for (int project = 0; project < groups.projectCount(); project++) {
+            engine.findOverlaps(table, groups.getRows(), groups.start(project),
+                                groups.end(project), collector);
+        }
+        return collector;
+    }
+}
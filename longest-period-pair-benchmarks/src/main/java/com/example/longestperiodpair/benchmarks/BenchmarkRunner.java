@@ -0,0 +1,39 @@
+package com.example.longestperiodpair.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Runs the benchmarks selected with the usual JMH command line options,
+ * always with the GC profiler for the allocation rates, and writes the
+ * results as JSON for the comparison between runs.
+ */
+public final class BenchmarkRunner {
+
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException,
+            CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine).addProfiler(GCProfiler.class);
+        if (commandLine.getResult().hasValue()
+            || commandLine.getResultFormat().hasValue()) {
+            new Runner(builder.build()).run();
+            return;
+        }
+        Options options = builder.resultFormat(ResultFormatType.JSON)
+                                 .result(RESULT_FILE).build();
+        new Runner(options).run();
+    }
+}
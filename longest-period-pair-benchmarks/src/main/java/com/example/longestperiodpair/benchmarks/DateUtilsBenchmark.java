@@ -0,0 +1,92 @@
+package com.example.longestperiodpair.benchmarks;
+
+import com.example.longestperiodpair.application.util.DateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures {@link DateUtils#findIntervalOverlapInDays} on {@link LocalDate}s
+ * against {@link DateUtils#overlapDays(int, int, int, int)} on the epoch days
+ * the overlap engines use, over the same pairs of intervals.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilsBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"0.01", "0.1"})
+    private double overlap;
+
+    private LocalDate[] datesFrom;
+    private LocalDate[] datesTo;
+    private int[] epochDaysFrom;
+    private int[] epochDaysTo;
+
+    @Setup
+    public void setUp() {
+        SyntheticAssignments assignments = SyntheticAssignments.generate(
+            rows, 1, 0.0, overlap, 42);
+        datesFrom = new LocalDate[rows];
+        datesTo = new LocalDate[rows];
+        epochDaysFrom = new int[rows];
+        epochDaysTo = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            epochDaysFrom[i] = assignments.dateFrom(i);
+            epochDaysTo[i] = assignments.dateTo(i) < 0
+                             ? epochDaysFrom[i] + 1 : assignments.dateTo(i);
+            datesFrom[i] = LocalDate.ofEpochDay(epochDaysFrom[i]);
+            datesTo[i] = LocalDate.ofEpochDay(epochDaysTo[i]);
+        }
+    }
+
+    /**
+     * Sums the overlaps of every interval with the next one.
+     */
+    @Benchmark
+    public long findIntervalOverlapInDays() {
+        long total = 0;
+        for (int i = 1; i < rows; i++) {
+            if (DateUtils.checkIfIntervalsOverlap(datesFrom[i - 1],
+                                                  datesTo[i - 1],
+                                                  datesFrom[i], datesTo[i])) {
+                total += DateUtils.findIntervalOverlapInDays(
+                    datesFrom[i - 1], datesTo[i - 1], datesFrom[i],
+                    datesTo[i]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sums the same overlaps as {@link #findIntervalOverlapInDays()}.
+     */
+    @Benchmark
+    public long overlapDays() {
+        long total = 0;
+        for (int i = 1; i < rows; i++) {
+            total += DateUtils.overlapDays(epochDaysFrom[i - 1],
+                                           epochDaysTo[i - 1],
+                                           epochDaysFrom[i], epochDaysTo[i]);
+        }
+        return total;
+    }
+}
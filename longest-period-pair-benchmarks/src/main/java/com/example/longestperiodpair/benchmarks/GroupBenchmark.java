@@ -0,0 +1,62 @@
+package com.example.longestperiodpair.benchmarks;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.ProjectGroups;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the grouping of the rows by project and the sorting of every group
+ * by start date, as done before the sweep line.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"1000"})
+    private int projects;
+
+    @Param({"0.0", "0.5"})
+    private double skew;
+
+    private AssignmentTable table;
+
+    @Setup
+    public void setUp() {
+        table = SyntheticAssignments.generate(rows, projects, skew, 0.01, 42)
+                                    .toTable();
+    }
+
+    @Benchmark
+    public ProjectGroups groupByProject() {
+        return table.groupByProject();
+    }
+
+    @Benchmark
+    public ProjectGroups groupAndSortByStart() {
+        ProjectGroups groups = table.groupByProject();
+        for (int project = 0; project < groups.projectCount(); project++) {
+            groups.sortByStart(table, project);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.longestperiodpair.benchmarks;
+
+import com.example.longestperiodpair.application.service.aggregate.PairTotalsAggregator;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.ProjectGroups;
+import com.example.longestperiodpair.application.service.overlap.OverlapEngine;
+import com.example.longestperiodpair.application.service.overlap.OverlapEngineType;
+import com.example.longestperiodpair.application.service.overlap.ParallelOverlapExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the computation of the overlapping pairs of every project, the
+ * overlaps being consumed by a {@link Blackhole} or folded into the totals of
+ * the pairs. The nested loop engine is quadratic per project, so the rows are
+ * kept lower than in the other benchmarks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OverlapBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"1000"})
+    private int projects;
+
+    @Param({"0.0", "0.5"})
+    private double skew;
+
+    @Param({"0.01", "0.1"})
+    private double overlap;
+
+    @Param({"SWEEP_LINE", "NESTED_LOOP"})
+    private OverlapEngineType engineType;
+
+    private AssignmentTable table;
+    private ProjectGroups groups;
+    private OverlapEngine engine;
+    private ParallelOverlapExecutor executor;
+
+    @Setup
+    public void setUp() {
+        table = SyntheticAssignments.generate(rows, projects, skew, overlap,
+                                              42).toTable();
+        engine = engineType.getEngine();
+        groups = table.groupByProject();
+        if (engine.requiresRowsSortedByStart()) {
+            for (int project = 0; project < groups.projectCount();
+                 project++) {
+                groups.sortByStart(table, project);
+            }
+        }
+        executor = new ParallelOverlapExecutor(0, 20_000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void findOverlaps(Blackhole blackhole) {
+        for (int project = 0; project < groups.projectCount(); project++) {
+            engine.findOverlaps(table, groups.getRows(), groups.start(project),
+                                groups.end(project),
+                                (first, second, days) -> {
+                                    blackhole.consume(first);
+                                    blackhole.consume(second);
+                                    blackhole.consume(days);
+                                });
+        }
+    }
+
+    @Benchmark
+    public PairTotalsAggregator findAndAggregateOverlaps() {
+        PairTotalsAggregator totals = new PairTotalsAggregator(table);
+        for (int project = 0; project < groups.projectCount(); project++) {
+            engine.findOverlaps(table, groups.getRows(), groups.start(project),
+                                groups.end(project), totals);
+        }
+        return totals;
+    }
+
+    @Benchmark
+    public PairTotalsAggregator findAndAggregateOverlapsInParallel() {
+        List<PairTotalsAggregator> consumers = executor.execute(
+            table, groups, engine, () -> new PairTotalsAggregator(table));
+        PairTotalsAggregator totals = consumers.get(0);
+        for (int i = 1; i < consumers.size(); i++) {
+            totals.merge(consumers.get(i));
+        }
+        return totals;
+    }
+}
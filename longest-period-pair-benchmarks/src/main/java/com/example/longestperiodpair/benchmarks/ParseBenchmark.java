@@ -0,0 +1,69 @@
+package com.example.longestperiodpair.benchmarks;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentRowParser;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.CsvScanner;
+import com.example.longestperiodpair.application.service.ingest.DateParserRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the parsing of a CSV file into an {@link AssignmentTable}, with
+ * the date pattern known upfront and detected from the first rows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    private static final String PATTERN = "yyyy-MM-dd";
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"1000"})
+    private int projects;
+
+    private byte[] csv;
+    private DateParserRegistry parsers;
+
+    @Setup
+    public void setUp() {
+        csv = SyntheticAssignments.generate(rows, projects, 0.0, 0.01, 42)
+                                  .toCsv();
+        parsers = new DateParserRegistry();
+    }
+
+    @Benchmark
+    public AssignmentTable parse() throws IOException {
+        AssignmentTable table = new AssignmentTable();
+        new CsvScanner(new AssignmentRowParser(table, parsers, PATTERN, false))
+            .scan(new ByteArrayInputStream(csv));
+        return table;
+    }
+
+    @Benchmark
+    public AssignmentTable parseDetectingPattern() throws IOException {
+        AssignmentTable table = new AssignmentTable();
+        new CsvScanner(new AssignmentRowParser(table, parsers, PATTERN, true))
+            .scan(new ByteArrayInputStream(csv));
+        return table;
+    }
+}
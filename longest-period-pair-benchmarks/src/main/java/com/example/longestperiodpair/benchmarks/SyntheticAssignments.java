@@ -0,0 +1,143 @@
+package com.example.longestperiodpair.benchmarks;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Random;
+
+
+/**
+ * Generates synthetic assignments for the benchmarks, deterministically for
+ * the same parameters.
+ * <ul>
+ * <li>{@code rows} - the number of assignments</li>
+ * <li>{@code projects} - the number of projects</li>
+ * <li>{@code skew} - the share of the rows, from 0 to 1, falling into a few
+ * giant projects, the rest is spread uniformly over all projects</li>
+ * <li>{@code overlap} - the mean length of an assignment as a share of the
+ * covered period, from 0 to 1, so higher values mean more overlapping
+ * pairs</li>
+ * </ul>
+ */
+public final class SyntheticAssignments {
+
+    /**
+     * The number of the giant projects receiving the skewed rows.
+     */
+    public static final int GIANT_PROJECTS = 3;
+
+    /**
+     * The share of the assignments without an end date.
+     */
+    private static final double OPEN_ENDED_SHARE = 0.05;
+
+    private static final int PERIOD_START = (int) LocalDate.of(2010, 1, 1)
+                                                           .toEpochDay();
+    private static final int PERIOD_DAYS = 12 * 365;
+
+    private final int[] employees;
+    private final int[] projects;
+    private final int[] datesFrom;
+    private final int[] datesTo;
+
+    private SyntheticAssignments(int rows) {
+        employees = new int[rows];
+        projects = new int[rows];
+        datesFrom = new int[rows];
+        datesTo = new int[rows];
+    }
+
+    /**
+     * Generates the assignments. Open ended assignments have a negative end
+     * date.
+     *
+     * @param rows     the number of assignments
+     * @param projects the number of projects
+     * @param skew     the share of the rows in the giant projects
+     * @param overlap  the mean length of an assignment as a share of the
+     *                 period
+     * @param seed     the seed of the random generator
+     * @return the assignments
+     */
+    public static SyntheticAssignments generate(int rows, int projects,
+                                                double skew, double overlap,
+                                                long seed) {
+        Random random = new Random(seed);
+        SyntheticAssignments assignments = new SyntheticAssignments(rows);
+        int employeeCount = Math.max(rows / 4, 2);
+        int meanLength = Math.max((int) (overlap * PERIOD_DAYS), 1);
+        for (int i = 0; i < rows; i++) {
+            assignments.employees[i] = random.nextInt(employeeCount);
+            assignments.projects[i] = random.nextDouble() < skew
+                                      ? random.nextInt(Math.min(GIANT_PROJECTS,
+                                                                projects))
+                                      : random.nextInt(projects);
+            int from = PERIOD_START + random.nextInt(PERIOD_DAYS);
+            assignments.datesFrom[i] = from;
+            assignments.datesTo[i] = random.nextDouble() < OPEN_ENDED_SHARE
+                                     ? -1
+                                     : from + 1 + random.nextInt(2 * meanLength);
+        }
+        return assignments;
+    }
+
+    public int size() {
+        return employees.length;
+    }
+
+    /**
+     * Writes the assignments as an ISO dated CSV file with a header.
+     *
+     * @return the content of the file
+     */
+    public byte[] toCsv() {
+        StringBuilder csv = new StringBuilder(size() * 36);
+        csv.append("EmpID,ProjectID,DateFrom,DateTo\n");
+        for (int i = 0; i < size(); i++) {
+            csv.append(employees[i]).append(',').append(projects[i])
+               .append(',').append(LocalDate.ofEpochDay(datesFrom[i]))
+               .append(',');
+            if (datesTo[i] < 0) {
+                csv.append("NULL");
+            } else {
+                csv.append(LocalDate.ofEpochDay(datesTo[i]));
+            }
+            csv.append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds the assignments to a new table, as the parsing of the CSV file
+     * would.
+     *
+     * @return the table
+     */
+    public AssignmentTable toTable() {
+        AssignmentTable table = new AssignmentTable(size());
+        int today = (int) LocalDate.now().toEpochDay();
+        for (int i = 0; i < size(); i++) {
+            table.add(table.getEmployees().intern(
+                          String.valueOf(employees[i])),
+                      table.getProjects().intern(String.valueOf(projects[i])),
+                      datesFrom[i], datesTo[i] < 0 ? today : datesTo[i]);
+        }
+        return table;
+    }
+
+    public int dateFrom(int index) {
+        return datesFrom[index];
+    }
+
+    /**
+     * Returns the end date of the assignment, a negative value if the
+     * assignment is open ended.
+     *
+     * @param index the index of the assignment
+     * @return the end date in epoch days
+     */
+    public int dateTo(int index) {
+        return datesTo[index];
+    }
+}
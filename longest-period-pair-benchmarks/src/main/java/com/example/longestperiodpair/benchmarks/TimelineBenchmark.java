@@ -0,0 +1,61 @@
+package com.example.longestperiodpair.benchmarks;
+
+import com.example.longestperiodpair.application.model.WorkingPair;
+import com.example.longestperiodpair.application.service.timeline.TimelineIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the queries of the {@link TimelineIndex} over windows of a month
+ * and of a year, within the twelve years covered by the synthetic
+ * assignments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TimelineBenchmark {
+
+    private static final int WINDOW_START = (int) LocalDate.of(2016, 1, 1)
+                                                           .toEpochDay();
+
+    @Param({"100000", "1000000", "10000000"})
+    private int rows;
+
+    @Param({"10000"})
+    private int projects;
+
+    @Param({"31", "365"})
+    private int windowDays;
+
+    private TimelineIndex index;
+
+    @Setup
+    public void setUp() {
+        index = TimelineIndex.build(
+            SyntheticAssignments.generate(rows, projects, 0.0, 0.001, 42)
+                                .toTable());
+    }
+
+    @Benchmark
+    public List<WorkingPair> findTop10InWindow() {
+        return index.query(WINDOW_START, WINDOW_START + windowDays, null)
+                    .getTotals().findTop(10);
+    }
+}
@@ -5,7 +5,7 @@ import { FilePond } from 'react-filepond'
 import Dropdown, { Option } from 'react-dropdown';
 import { FilePondErrorDescription, FilePondFile } from 'filepond';
 import { PairPerProject } from '../../models/PairPerProject';
-import getFileContent from '../../services/FileContentService';
+import { getPairsPage } from '../../services/FileContentService';
 
 import 'filepond/dist/filepond.min.css';
 import './FileUpload.css';
@@ -23,6 +23,7 @@ const FileUpload = (): JSX.Element => {
 
   const [file, setFile] = useState<FilePondFile>();
   const [models, setModels] = useState<PairPerProject[]>();
+  const [nextOffset, setNextOffset] = useState<number | undefined>();
   const [pattern, setPattern] = useState<string | Option | undefined>(options[0]);
   const [error, setError] = useState<string | undefined>();
 
@@ -37,8 +38,15 @@ const FileUpload = (): JSX.Element => {
     setFile(file);
     setError(undefined);
 
-    getFileContent(file.filename)
-      .then((res) => setModels(res.data))
+    loadPage(file.filename, 0, []);
+  };
+
+  const loadPage = (fileName: string, offset: number, loaded: PairPerProject[]) => {
+    getPairsPage(fileName, offset)
+      .then((res) => {
+        setModels(loaded.concat(res.data.pairs));
+        setNextOffset(res.data.nextOffset ?? undefined);
+      })
       .catch((err) => {
         if (err && !axios.isCancel(err)) {
           console.warn('An error occurred while trying to load processed file content.');
@@ -72,8 +80,7 @@ const FileUpload = (): JSX.Element => {
       </tr>
       </thead>
       <tbody>
-        {models?.sort((a, b) => b.daysWorked - a.daysWorked)
-          .map(model => <tr key={`${model.employeeIdFirst}-${model.employeeIdSecond}-${model.projectId}`}>
+        {models?.map(model => <tr key={`${model.employeeIdFirst}-${model.employeeIdSecond}-${model.projectId}`}>
           <td>{model.employeeIdFirst}</td>
           <td>{model.employeeIdSecond}</td>
           <td>{model.projectId}</td>
@@ -111,6 +118,8 @@ const FileUpload = (): JSX.Element => {
         >
         </FilePond>
         {file && renderTableData()}
+        {file && nextOffset !== undefined &&
+          <button onClick={() => loadPage(file.filename, nextOffset, models ?? [])}>Load more</button>}
         {error && <div className='error-wrapper'>{error}</div>}
       </div>
     </div>);
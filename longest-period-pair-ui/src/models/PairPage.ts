@@ -0,0 +1,7 @@
+import { PairPerProject } from './PairPerProject';
+
+export interface PairPage {
+    pairs: PairPerProject[];
+    offset: number;
+    nextOffset?: number;
+}
@@ -1,9 +1,9 @@
 import { AxiosResponse } from 'axios';
-import { PairPerProject } from '../models/PairPerProject';
+import { PairPage } from '../models/PairPage';
 import axios from './CustomAxios';
 
-const getFileContent = (fileName: string): Promise<AxiosResponse<PairPerProject[]>> => {
-    return axios.get<PairPerProject[]>(`http://localhost:8080/api/attachments/${fileName}`);
+export const getPairsPage = (fileName: string, offset = 0, limit = 100): Promise<AxiosResponse<PairPage>> => {
+    return axios.get<PairPage>(`http://localhost:8080/api/attachments/${fileName}/pairs`, {
+        params: { sort: 'DAYS_DESC', offset, limit }
+    });
 };
-
-export default getFileContent;
@@ -1,21 +1,50 @@
 package com.example.longestperiodpair.application.controller;
 
+import com.example.longestperiodpair.application.model.BatchResult;
+import com.example.longestperiodpair.application.model.CollaborationComponent;
+import com.example.longestperiodpair.application.model.EmployeeCollaborations;
+import com.example.longestperiodpair.application.model.JobStatus;
+import com.example.longestperiodpair.application.model.PairPage;
 import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.model.PairQuery;
+import com.example.longestperiodpair.application.model.ParseReport;
+import com.example.longestperiodpair.application.model.StoreStats;
+import com.example.longestperiodpair.application.model.TimelineResult;
+import com.example.longestperiodpair.application.model.WorkingPair;
 import com.example.longestperiodpair.application.service.AttachmentProcessingService;
+import com.example.longestperiodpair.application.service.PairQueryService;
+import com.example.longestperiodpair.application.service.ProcessingJobService;
+import com.example.longestperiodpair.application.service.query.PairSort;
+import com.example.longestperiodpair.application.service.store.PairRecords;
+import com.example.longestperiodpair.application.service.store.ProcessedResultStore;
+import com.example.longestperiodpair.application.service.stream.PairRecordsJsonWriter;
+import com.example.longestperiodpair.application.service.stream.StreamFormat;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
 
 
 /**
@@ -33,28 +62,107 @@ public class AttachmentController {
      */
     private static final String DEFAULT_DATE_PATTERN = "yyyy-MM-dd";
 
+    /**
+     * Seconds after which a rejected upload can be retried.
+     */
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     private final AttachmentProcessingService service;
+    private final ProcessingJobService jobService;
+    private final PairQueryService queryService;
+    private final PairRecordsJsonWriter jsonWriter;
+    private final ProcessedResultStore resultStore;
 
     /**
-     * Post endpoint for attachment uploads.
+     * Post endpoint for attachment uploads. By default the attachment is
+     * processed before responding. In the asynchronous mode, the response is
+     * returned right away with the id of the processing job, or with status
+     * 503 if too many jobs are waiting.
      *
-     * @param file the attached file
-     * @return response indicating whether the file upload was successful
+     * @param file    the attached file
+     * @param pattern the date formatting pattern
+     * @param async   whether the attachment should be processed
+     *                asynchronously
+     * @return response indicating whether the file upload was successful,
+     * with the id of the job in the asynchronous mode, or status 422 with
+     * the {@link ParseReport} of the rejected lines if the parsing fails
+     * @throws IOException if storing the attachment for the job fails
      */
     @PostMapping(value = "/upload",
              consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
              produces = MediaType.TEXT_PLAIN_VALUE)
-    public ResponseEntity<Void> uploadFile(@RequestParam MultipartFile file,
-            @RequestParam(defaultValue = DEFAULT_DATE_PATTERN) String pattern) {
+    public ResponseEntity<String> uploadFile(@RequestParam MultipartFile file,
+            @RequestParam(defaultValue = DEFAULT_DATE_PATTERN) String pattern,
+            @RequestParam(defaultValue = "false") boolean async)
+            throws IOException {
         log.info("Successfully loaded file with name '{}'.",
                  file.getOriginalFilename());
 
+        if (async) {
+            try {
+                return ResponseEntity.accepted()
+                                     .body(jobService.submit(file, pattern));
+            } catch (RejectedExecutionException e) {
+                log.warn("Rejected file with name '{}', the job queue is "
+                         + "full.", file.getOriginalFilename());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                     .header(HttpHeaders.RETRY_AFTER,
+                                             RETRY_AFTER_SECONDS)
+                                     .build();
+            }
+        }
+
         service.process(file, pattern);
         return ResponseEntity.ok().build();
     }
 
     /**
-     * Get endpoint for fetching processed attachment content.
+     * Post endpoint processing several attachments as one dataset, the
+     * combined result being fetched with the returned batch id as the file
+     * name.
+     *
+     * @param files   the attached files
+     * @param pattern the date formatting pattern
+     * @return the {@link BatchResult} of the processing
+     * @throws IOException if reading an attachment fails
+     */
+    @PostMapping(value = "/batch",
+             consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public BatchResult uploadBatch(@RequestParam List<MultipartFile> files,
+            @RequestParam(defaultValue = DEFAULT_DATE_PATTERN) String pattern)
+            throws IOException {
+        log.info("Successfully loaded batch of {} files.", files.size());
+        return service.processBatch(files, pattern);
+    }
+
+    /**
+     * Get endpoint for polling the status of a processing job.
+     *
+     * @param jobId the id of the job
+     * @return the {@link JobStatus} of the job, or status 404 if the job is
+     * unknown
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<JobStatus> getJobStatus(@PathVariable String jobId) {
+        return ResponseEntity.of(jobService.getStatus(jobId));
+    }
+
+    /**
+     * Get endpoint for the statistics of the store of the processed results.
+     *
+     * @return the {@link StoreStats} of the store
+     */
+    @GetMapping("/store/stats")
+    public StoreStats getStoreStats() {
+        return resultStore.getStats();
+    }
+
+    /**
+     * Get endpoint for fetching processed attachment content. Returns status
+     * 202 while the attachment is still being processed by a job. The pages
+     * of the content are served by {@link #queryPairs}.
      *
      * @param fileName the name of the file
      * @return list of {@link PairPerProject} models
@@ -62,7 +170,232 @@ public class AttachmentController {
     @GetMapping("/{fileName}")
     public ResponseEntity<List<PairPerProject>> getParsedContent(
             @PathVariable String fileName) {
+        if (jobService.isProcessing(fileName)) {
+            return ResponseEntity.accepted().build();
+        }
         return ResponseEntity.ok(service.getParsedModels(fileName));
     }
 
+    /**
+     * Get endpoint for querying a page of the processed attachment content,
+     * filtered and sorted on the server. Returns status 202 while the
+     * attachment is still being processed by a job, 404 if it was not
+     * processed, and 400 for a negative offset or a limit below one. A page
+     * past the end of the matching pairs is empty.
+     *
+     * @param fileName   the name of the file
+     * @param employeeId only the pairs including the employee, if provided
+     * @param projectId  only the pairs on the project, if provided
+     * @param minDays    only the pairs that have worked together at least
+     *                   this many days
+     * @param sort       the order of the pairs
+     * @param offset     the number of matching pairs to skip, see
+     *                   {@link PairPage#getNextOffset()}
+     * @param limit      the maximum number of pairs in the page
+     * @return the {@link PairPage} of the matching pairs
+     */
+    @GetMapping("/{fileName}/pairs")
+    public ResponseEntity<PairPage> queryPairs(@PathVariable String fileName,
+            @RequestParam(required = false) String employeeId,
+            @RequestParam(required = false) String projectId,
+            @RequestParam(defaultValue = "0") long minDays,
+            @RequestParam(defaultValue = "DAYS_DESC") PairSort sort,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (offset < 0 || limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (jobService.isProcessing(fileName)) {
+            return ResponseEntity.accepted().build();
+        }
+        PairQuery query = PairQuery.builder().employeeId(employeeId)
+                                   .projectId(projectId).minDays(minDays)
+                                   .sort(sort).offset(offset).limit(limit)
+                                   .build();
+        return ResponseEntity.of(queryService.query(fileName, query));
+    }
+
+    /**
+     * Get endpoint for the pairs of employees that have worked together for
+     * the longest time, overall or on a project. Returns status 202 while the
+     * attachment is still being processed by a job, and 404 if it was not
+     * processed.
+     *
+     * @param fileName  the name of the file
+     * @param k         the maximum number of pairs
+     * @param projectId only the days on the project, if provided
+     * @return the {@link WorkingPair}s, the longest first
+     */
+    @GetMapping("/{fileName}/top")
+    public ResponseEntity<List<WorkingPair>> getTopPairs(
+            @PathVariable String fileName,
+            @RequestParam(defaultValue = "100") int k,
+            @RequestParam(required = false) String projectId) {
+        if (jobService.isProcessing(fileName)) {
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.of(queryService.findTopPairs(fileName, projectId,
+                                                           k));
+    }
+
+    /**
+     * Get endpoint for the collaborators of an employee across all projects,
+     * the longest working one first. Returns status 202 while the attachment
+     * is still being processed by a job, and 404 if it was not processed or
+     * the employee has not worked with anyone.
+     *
+     * @param fileName   the name of the file
+     * @param employeeId the employee id
+     * @param minDays    only the collaborators that have worked together with
+     *                   the employee at least this many days
+     * @param limit      the maximum number of collaborators
+     * @return the {@link EmployeeCollaborations} of the employee
+     */
+    @GetMapping("/{fileName}/collaborators/{employeeId}")
+    public ResponseEntity<EmployeeCollaborations> getCollaborations(
+            @PathVariable String fileName, @PathVariable String employeeId,
+            @RequestParam(defaultValue = "0") long minDays,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (jobService.isProcessing(fileName)) {
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.of(queryService.findCollaborations(
+            fileName, employeeId, minDays, limit));
+    }
+
+    /**
+     * Get endpoint for the largest groups of employees linked by working
+     * together, directly or through other employees. Returns status 202 while
+     * the attachment is still being processed by a job, and 404 if it was not
+     * processed.
+     *
+     * @param fileName the name of the file
+     * @param limit    the maximum number of components
+     * @return the {@link CollaborationComponent}s, the largest first
+     */
+    @GetMapping("/{fileName}/components")
+    public ResponseEntity<List<CollaborationComponent>> getComponents(
+            @PathVariable String fileName,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (jobService.isProcessing(fileName)) {
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.of(queryService.findComponents(fileName, limit));
+    }
+
+    /**
+     * Get endpoint for a group of employees linked by working together, with
+     * its employees. Returns status 202 while the attachment is still being
+     * processed by a job, and 404 if it was not processed or there is no such
+     * component.
+     *
+     * @param fileName    the name of the file
+     * @param componentId the id of the component
+     * @return the {@link CollaborationComponent}
+     */
+    @GetMapping("/{fileName}/components/{componentId}")
+    public ResponseEntity<CollaborationComponent> getComponent(
+            @PathVariable String fileName, @PathVariable int componentId) {
+        if (jobService.isProcessing(fileName)) {
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.of(queryService.findComponent(fileName,
+                                                            componentId));
+    }
+
+    /**
+     * Get endpoint for the days worked together by the pairs of employees
+     * within a window of dates, the longest working pair first. Returns
+     * status 202 while the attachment is still being processed by a job, and
+     * 404 if it was not processed or its rows are no longer kept for these
+     * queries.
+     *
+     * @param fileName   the name of the file
+     * @param from       the first day of the window, in ISO format
+     * @param to         the exclusive end of the window, in ISO format
+     * @param employeeId only the pairs with the employee, if provided
+     * @param limit      the maximum number of pairs
+     * @return the {@link TimelineResult} of the window
+     */
+    @GetMapping("/{fileName}/timeline")
+    public ResponseEntity<TimelineResult> getTimeline(
+            @PathVariable String fileName,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                LocalDate to,
+            @RequestParam(required = false) String employeeId,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (jobService.isProcessing(fileName)) {
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.of(queryService.findTimeline(
+            fileName, from, to, employeeId, limit));
+    }
+
+    /**
+     * Get endpoint for the lines rejected by the parsing of the attachment,
+     * which were skipped in the lenient mode. Returns status 202 while the
+     * attachment is still being processed by a job, and 404 if it was not
+     * processed.
+     *
+     * @param fileName the name of the file
+     * @return the {@link ParseReport} of the file
+     */
+    @GetMapping("/{fileName}/errors")
+    public ResponseEntity<ParseReport> getParseReport(
+            @PathVariable String fileName) {
+        if (jobService.isProcessing(fileName)) {
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.of(service.getParseReport(fileName));
+    }
+
+    /**
+     * Get endpoint for streaming the processed attachment content. The pairs
+     * are written to the response as they are read from the store, without
+     * creating the list of the models, and compressed with gzip when the
+     * client accepts it. Returns status 202 while the attachment is still
+     * being processed by a job, and 404 if it was not processed.
+     *
+     * @param fileName       the name of the file
+     * @param format         the format of the content
+     * @param acceptEncoding the encodings accepted by the client
+     * @return the streamed content
+     */
+    @GetMapping("/{fileName}/stream")
+    public ResponseEntity<StreamingResponseBody> streamParsedContent(
+            @PathVariable String fileName,
+            @RequestParam(defaultValue = "NDJSON") StreamFormat format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING,
+                           required = false) String acceptEncoding) {
+        if (jobService.isProcessing(fileName)) {
+            return ResponseEntity.accepted().build();
+        }
+        Optional<PairRecords> records = service.getPairRecords(fileName);
+        if (records.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        boolean gzip = acceptEncoding != null
+                       && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out) : out;
+            OutputStream buffered = new BufferedOutputStream(
+                target, STREAM_BUFFER_SIZE);
+            jsonWriter.write(records.get(), format, buffered);
+            buffered.flush();
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(
+            MediaType.parseMediaType(format.getMediaType()));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                       .body(body);
+    }
+
 }
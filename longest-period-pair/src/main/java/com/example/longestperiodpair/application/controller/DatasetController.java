@@ -0,0 +1,83 @@
+package com.example.longestperiodpair.application.controller;
+
+import com.example.longestperiodpair.application.model.DeltaResult;
+import com.example.longestperiodpair.application.model.ParseReport;
+import com.example.longestperiodpair.application.service.IncrementalProcessingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+
+/**
+ * Controller handling the datasets updated with delta files. The processed
+ * content of a dataset is fetched by its name from the
+ * {@link AttachmentController} endpoints.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@CrossOrigin("http://localhost:3000")
+@RequestMapping("/api/datasets")
+public class DatasetController {
+
+    /**
+     * Default pattern for the parsing of the date strings in the files.
+     */
+    private static final String DEFAULT_DATE_PATTERN = "yyyy-MM-dd";
+
+    private final IncrementalProcessingService service;
+
+    /**
+     * Post endpoint creating a dataset from the base file, replacing any
+     * previous dataset with the same name.
+     *
+     * @param datasetName the name of the dataset
+     * @param file        the base file
+     * @param pattern     the date formatting pattern
+     * @return the {@link DeltaResult} of the creation, or status 422 with
+     * the {@link ParseReport} of the rejected lines
+     * @throws IOException if reading the file fails
+     */
+    @PostMapping(value = "/{datasetName}",
+             consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public DeltaResult createDataset(@PathVariable String datasetName,
+            @RequestParam MultipartFile file,
+            @RequestParam(defaultValue = DEFAULT_DATE_PATTERN) String pattern)
+            throws IOException {
+        log.info("Creating dataset '{}' from file with name '{}'.",
+                 datasetName, file.getOriginalFilename());
+        return service.create(datasetName, file, pattern);
+    }
+
+    /**
+     * Post endpoint applying a delta file to a dataset.
+     *
+     * @param datasetName the name of the dataset
+     * @param file        the delta file
+     * @param pattern     the date formatting pattern
+     * @return the {@link DeltaResult} of the application, or status 404 if
+     * there is no dataset with the name, or status 422 with the
+     * {@link ParseReport} of the rejected lines
+     * @throws IOException if reading the file fails
+     */
+    @PostMapping(value = "/{datasetName}/delta",
+             consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<DeltaResult> applyDelta(
+            @PathVariable String datasetName,
+            @RequestParam MultipartFile file,
+            @RequestParam(defaultValue = DEFAULT_DATE_PATTERN) String pattern)
+            throws IOException {
+        return ResponseEntity.of(service.applyDelta(datasetName, file,
+                                                    pattern));
+    }
+}
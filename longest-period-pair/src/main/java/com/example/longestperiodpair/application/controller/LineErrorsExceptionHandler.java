@@ -0,0 +1,36 @@
+package com.example.longestperiodpair.application.controller;
+
+import com.example.longestperiodpair.application.model.ParseReport;
+import com.example.longestperiodpair.application.service.ingest.LineErrorsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+
+/**
+ * Handles the rejected lines of the files parsed by any of the controllers,
+ * the processed attachments as well as the datasets and their deltas.
+ */
+@Slf4j
+@RestControllerAdvice
+public class LineErrorsExceptionHandler {
+
+    /**
+     * Responds with status 422 and the rejected lines when they exceed the
+     * budget of a file.
+     *
+     * @param e the exception
+     * @return the {@link ParseReport} of the rejected lines
+     */
+    @ExceptionHandler(LineErrorsException.class)
+    public ResponseEntity<ParseReport> handleLineErrors(
+            LineErrorsException e) {
+        log.warn("Rejected files: {}.", e.getMessage());
+        return ResponseEntity.unprocessableEntity()
+                             .body(ParseReport.builder()
+                                              .rejectedLines(
+                                                  e.getRejectedLines())
+                                              .errors(e.getErrors()).build());
+    }
+}
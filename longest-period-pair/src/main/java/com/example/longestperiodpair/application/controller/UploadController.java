@@ -0,0 +1,221 @@
+package com.example.longestperiodpair.application.controller;
+
+import com.example.longestperiodpair.application.model.ProcessingPhase;
+import com.example.longestperiodpair.application.model.UploadStatus;
+import com.example.longestperiodpair.application.service.UploadSessionService;
+import com.example.longestperiodpair.application.service.upload.TooManyUploadsException;
+import com.example.longestperiodpair.application.service.upload.UploadOffsetMismatchException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+
+/**
+ * Controller handling the uploads of the attachments as raw request bodies,
+ * parsed while the bytes arrive. The content can be sent at once, chunked or
+ * not, or as a resumable upload: opened first, then appended to in chunks at
+ * their offsets, and completed at the end. After a dropped connection, the
+ * status of the upload tells the offset to resume from. The processed content
+ * is fetched by its file name from the {@link AttachmentController}
+ * endpoints.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@CrossOrigin("http://localhost:3000")
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    /**
+     * Default pattern for the parsing of the date strings in the files.
+     */
+    private static final String DEFAULT_DATE_PATTERN = "yyyy-MM-dd";
+
+    /**
+     * Header with the offset of a chunk in the content, and with the offset
+     * to resume from in the responses.
+     */
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    /**
+     * Header with the size of the whole content, if known.
+     */
+    static final String UPLOAD_LENGTH = "Upload-Length";
+
+    /**
+     * Seconds after which a client should retry an upload rejected because
+     * too many uploads are open.
+     */
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private final UploadSessionService service;
+
+    /**
+     * Post endpoint processing the request body as the whole content of the
+     * file, parsing it while it is received.
+     *
+     * @param fileName the name of the file
+     * @param pattern  the date formatting pattern
+     * @param length   the size of the content, if known
+     * @param content  the request body
+     * @return the {@link UploadStatus} of the processed upload, or status 422
+     * with the status of the upload if its processing failed
+     * @throws IOException if reading the request body fails, the upload is
+     *                     aborted then
+     */
+    @PostMapping("/stream")
+    public ResponseEntity<UploadStatus> stream(@RequestParam String fileName,
+            @RequestParam(defaultValue = DEFAULT_DATE_PATTERN) String pattern,
+            @RequestHeader(value = UPLOAD_LENGTH, defaultValue = "-1")
+                long length,
+            InputStream content) throws IOException {
+        UploadStatus upload = service.open(fileName, pattern, length);
+        try {
+            service.append(upload.getUploadId(), 0, content);
+            return processed(service.complete(upload.getUploadId())
+                                    .orElseThrow());
+        } catch (IOException | RuntimeException e) {
+            // the client never got the id of the upload to abort it
+            service.abort(upload.getUploadId());
+            throw e;
+        }
+    }
+
+    /**
+     * Post endpoint opening a resumable upload.
+     *
+     * @param fileName the name of the file
+     * @param pattern  the date formatting pattern
+     * @param length   the size of the content, if known
+     * @return the {@link UploadStatus} of the upload, with its id, or status
+     * 503 if too many uploads are open
+     */
+    @PostMapping
+    public ResponseEntity<UploadStatus> open(@RequestParam String fileName,
+            @RequestParam(defaultValue = DEFAULT_DATE_PATTERN) String pattern,
+            @RequestHeader(value = UPLOAD_LENGTH, defaultValue = "-1")
+                long length) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                             .body(service.open(fileName, pattern, length));
+    }
+
+    /**
+     * Patch endpoint appending the request body as the chunk of the content
+     * at the provided offset.
+     *
+     * @param uploadId the id of the upload
+     * @param offset   the offset of the chunk
+     * @param chunk    the request body
+     * @return the {@link UploadStatus} of the upload, status 404 if the
+     * upload is unknown, or status 409 with the offset to resume from if the
+     * chunk starts past the received bytes
+     * @throws IOException if reading the request body fails
+     */
+    @PatchMapping("/{uploadId}")
+    public ResponseEntity<UploadStatus> append(@PathVariable String uploadId,
+            @RequestHeader(UPLOAD_OFFSET) long offset, InputStream chunk)
+            throws IOException {
+        try {
+            return withOffset(service.append(uploadId, offset, chunk));
+        } catch (UploadOffsetMismatchException e) {
+            log.warn("Rejected chunk of upload '{}': {}.", uploadId,
+                     e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                                 .header(UPLOAD_OFFSET, String.valueOf(
+                                     e.getExpectedOffset()))
+                                 .build();
+        }
+    }
+
+    /**
+     * Post endpoint completing the upload and processing its content.
+     *
+     * @param uploadId the id of the upload
+     * @return the {@link UploadStatus} of the processed upload, status 404
+     * if the upload is unknown, or status 422 with the status of the upload
+     * if its processing failed
+     */
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<UploadStatus> complete(
+            @PathVariable String uploadId) {
+        return service.complete(uploadId)
+                      .map(UploadController::processed)
+                      .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get endpoint for the status of an upload, the offset to resume from
+     * included as a header.
+     *
+     * @param uploadId the id of the upload
+     * @return the {@link UploadStatus} of the upload, or status 404 if the
+     * upload is unknown
+     */
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadStatus> getStatus(
+            @PathVariable String uploadId) {
+        return withOffset(service.getStatus(uploadId));
+    }
+
+    /**
+     * Delete endpoint discarding an upload.
+     *
+     * @param uploadId the id of the upload
+     * @return status 204, or status 404 if the upload is unknown
+     */
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abort(@PathVariable String uploadId) {
+        return service.abort(uploadId) ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Handles the uploads opened while too many uploads are open.
+     *
+     * @param e the exception
+     * @return status 503, with the seconds to retry after
+     */
+    @ExceptionHandler(TooManyUploadsException.class)
+    public ResponseEntity<Void> handleTooManyUploads(
+            TooManyUploadsException e) {
+        log.warn("Rejected upload: {}.", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                             .header(HttpHeaders.RETRY_AFTER,
+                                     RETRY_AFTER_SECONDS)
+                             .build();
+    }
+
+    private static ResponseEntity<UploadStatus> processed(
+            UploadStatus status) {
+        return status.getPhase() == ProcessingPhase.FAILED
+               ? ResponseEntity.unprocessableEntity().body(status)
+               : ResponseEntity.ok(status);
+    }
+
+    private static ResponseEntity<UploadStatus> withOffset(
+            Optional<UploadStatus> status) {
+        return status.map(upload -> ResponseEntity
+                         .ok()
+                         .header(UPLOAD_OFFSET,
+                                 String.valueOf(upload.getReceivedBytes()))
+                         .body(upload))
+                     .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+
+/**
+ * Outcome of the processing of several files as one combined dataset. The
+ * combined result is fetched by the batch id as the file name.
+ */
+@Data
+@Builder
+public class BatchResult {
+
+    private String batchId;
+    private List<String> fileNames;
+    private long rowCount;
+    private int duplicateRows;
+    private long rejectedLines;
+    private List<LineError> lineErrors;
+    private LocalDate asOfDate;
+    private WorkingPair longestPair;
+    private boolean reused;
+    private long elapsedMillis;
+
+}
@@ -0,0 +1,25 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+
+/**
+ * Connected component of the collaboration graph: a group of employees
+ * linked by working together, directly or through other employees.
+ */
+@Data
+@Builder
+public class CollaborationComponent {
+
+    private int componentId;
+    private int size;
+
+    /**
+     * The employees of the component, null unless requested.
+     */
+    private List<String> employeeIds;
+
+}
@@ -0,0 +1,19 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+
+/**
+ * Employee who has worked together with another one, with the total number
+ * of days worked together and the number of shared projects.
+ */
+@Data
+@Builder
+public class Collaborator {
+
+    private String employeeId;
+    private long daysWorked;
+    private int projectCount;
+
+}
@@ -0,0 +1,24 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+
+/**
+ * Outcome of the creation of an incremental dataset or of the application of
+ * a delta file to it.
+ */
+@Data
+@Builder
+public class DeltaResult {
+
+    private String datasetName;
+    private int rowCount;
+    private int rowsAdded;
+    private int rowsUpdated;
+    private int rowsUnchanged;
+    private int projectsChanged;
+    private WorkingPair longestPair;
+    private long elapsedMillis;
+
+}
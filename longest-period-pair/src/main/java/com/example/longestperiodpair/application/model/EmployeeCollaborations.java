@@ -0,0 +1,32 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+
+/**
+ * The collaborators of an employee, the longest working one first, and the
+ * connected component of the collaboration graph the employee belongs to.
+ */
+@Data
+@Builder
+public class EmployeeCollaborations {
+
+    private String employeeId;
+    private int componentId;
+    private int componentSize;
+
+    /**
+     * The number of all collaborators, regardless of the filter.
+     */
+    private int collaboratorCount;
+
+    /**
+     * The collaborator with the most days.
+     */
+    private Collaborator longest;
+    private List<Collaborator> collaborators;
+
+}
@@ -0,0 +1,29 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Status of an asynchronous processing job.
+ */
+@Data
+@Builder
+public class JobStatus {
+
+    private String jobId;
+    private String fileName;
+    private ProcessingPhase phase;
+    private long bytesRead;
+    private long totalBytes;
+    private long rowsParsed;
+    private Long etaMillis;
+    private Map<ProcessingPhase, Long> phaseMillis;
+    private String error;
+    private long rejectedLines;
+    private List<LineError> lineErrors;
+
+}
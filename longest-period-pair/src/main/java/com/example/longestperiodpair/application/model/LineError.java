@@ -0,0 +1,26 @@
+package com.example.longestperiodpair.application.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+
+/**
+ * Line of a file rejected by the parsing, with the reason of the rejection.
+ */
+@Data
+@Builder
+public class LineError {
+
+    private long lineNumber;
+    private String line;
+    private String reason;
+
+    /**
+     * The name of the file of the line, null unless several files were
+     * processed as one dataset.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String fileName;
+
+}
@@ -0,0 +1,24 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+
+/**
+ * Page of the {@link PairPerProject} models matching a {@link PairQuery}.
+ */
+@Data
+@Builder
+public class PairPage {
+
+    private List<PairPerProject> pairs;
+    private int offset;
+
+    /**
+     * The offset of the next page, null if this is the last page.
+     */
+    private Integer nextOffset;
+
+}
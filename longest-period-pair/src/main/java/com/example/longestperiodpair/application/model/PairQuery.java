@@ -0,0 +1,38 @@
+package com.example.longestperiodpair.application.model;
+
+import com.example.longestperiodpair.application.service.query.PairSort;
+import lombok.Builder;
+import lombok.Data;
+
+
+/**
+ * Query for a page of the {@link PairPerProject} models of a processed file.
+ */
+@Data
+@Builder
+public class PairQuery {
+
+    /**
+     * Only the pairs including the employee, if provided.
+     */
+    private String employeeId;
+
+    /**
+     * Only the pairs on the project, if provided.
+     */
+    private String projectId;
+
+    /**
+     * Only the pairs that have worked together at least this many days.
+     */
+    private long minDays;
+
+    @Builder.Default
+    private PairSort sort = PairSort.DAYS_DESC;
+
+    private int offset;
+
+    @Builder.Default
+    private int limit = 100;
+
+}
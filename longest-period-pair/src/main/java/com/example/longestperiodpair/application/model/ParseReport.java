@@ -0,0 +1,22 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+
+/**
+ * Lines rejected by the parsing of a file. Only the first rejected lines are
+ * listed, the number of all of them is in {@code rejectedLines}.
+ */
+@Data
+@Builder
+public class ParseReport {
+
+    private String fileName;
+    private long rowCount;
+    private long rejectedLines;
+    private List<LineError> errors;
+
+}
@@ -0,0 +1,19 @@
+package com.example.longestperiodpair.application.model;
+
+
+/**
+ * Phases of the processing of an uploaded file.
+ */
+public enum ProcessingPhase {
+
+    QUEUED,
+    HASHING,
+    PARSING,
+    GROUPING,
+    OVERLAP,
+    AGGREGATING,
+    PERSISTING,
+    COMPLETED,
+    FAILED
+
+}
@@ -0,0 +1,21 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+
+/**
+ * Statistics of the store of the processed results.
+ */
+@Data
+@Builder
+public class StoreStats {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long entries;
+    private long bytes;
+    private long maxBytes;
+
+}
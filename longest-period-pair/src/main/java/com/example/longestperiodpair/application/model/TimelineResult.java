@@ -0,0 +1,25 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+
+/**
+ * Days worked together by the pairs of employees within a window of dates,
+ * the longest working pairs first.
+ */
+@Data
+@Builder
+public class TimelineResult {
+
+    private LocalDate from;
+    private LocalDate to;
+    private int pairCount;
+    private long visitedRows;
+    private WorkingPair longestPair;
+    private List<WorkingPair> pairs;
+
+}
@@ -0,0 +1,30 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Status of a resumable upload. The next chunk of the content is expected at
+ * the offset of the received bytes.
+ */
+@Data
+@Builder
+public class UploadStatus {
+
+    private String uploadId;
+    private String fileName;
+    private ProcessingPhase phase;
+    private long receivedBytes;
+    private long totalBytes;
+    private long rowsParsed;
+    private WorkingPair longestPair;
+    private Map<ProcessingPhase, Long> phaseMillis;
+    private String error;
+    private long rejectedLines;
+    private List<LineError> lineErrors;
+
+}
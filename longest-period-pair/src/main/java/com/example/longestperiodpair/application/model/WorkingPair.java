@@ -0,0 +1,19 @@
+package com.example.longestperiodpair.application.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+
+/**
+ * Pair of employees with the total number of days worked together on all
+ * projects.
+ */
+@Data
+@Builder
+public class WorkingPair {
+
+    private String employeeIdFirst;
+    private String employeeIdSecond;
+    private long daysWorked;
+
+}
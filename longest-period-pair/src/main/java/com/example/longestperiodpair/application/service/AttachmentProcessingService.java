@@ -1,9 +1,18 @@
 package com.example.longestperiodpair.application.service;
 
+import com.example.longestperiodpair.application.model.BatchResult;
 import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.model.ParseReport;
+import com.example.longestperiodpair.application.model.WorkingPair;
+import com.example.longestperiodpair.application.service.ingest.ContentIngest;
+import com.example.longestperiodpair.application.service.job.ProcessingProgress;
+import com.example.longestperiodpair.application.service.store.PairRecords;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 
 /**
@@ -22,6 +31,65 @@ public interface AttachmentProcessingService {
      */
     void process(MultipartFile file, String pattern);
 
+    /**
+     * Processes the provided content with the provided date formatting
+     * pattern, reporting the progress of the processing. The content is read
+     * twice, once for computing its hash, so the content already processed
+     * before is not processed again.
+     *
+     * @param fileName the name of the file the content comes from
+     * @param content  the source of the content of the file
+     * @param pattern  the date formatting pattern used for the parsing of the
+     *                 dates
+     * @param progress the progress updated during the processing
+     * @throws IOException if reading the content fails
+     */
+    void process(String fileName, InputStreamSource content, String pattern,
+                 ProcessingProgress progress) throws IOException;
+
+    /**
+     * Processes the provided files as one dataset: the files are parsed
+     * concurrently, their rows merged without the duplicates and the pairs
+     * computed once over all of them. The result is persisted under the id
+     * of the batch, derived from the contents of the files, so the same
+     * files are not processed again.
+     *
+     * @param files   the attached files
+     * @param pattern the date formatting pattern used for the parsing of the
+     *                dates
+     * @return the {@link BatchResult} of the processing
+     * @throws IOException if reading a file fails
+     */
+    BatchResult processBatch(List<MultipartFile> files, String pattern)
+            throws IOException;
+
+    /**
+     * Starts the parsing of a content arriving in chunks, hashing it at the
+     * same time.
+     *
+     * @param pattern  the date formatting pattern used for the parsing of the
+     *                 dates
+     * @param progress the progress updated during the processing
+     * @return the ingest to be fed with the chunks of the content
+     */
+    ContentIngest startIngest(String pattern, ProcessingProgress progress);
+
+    /**
+     * Completes the processing of the content fed to the ingest, as
+     * {@link #process(String, InputStreamSource, String, ProcessingProgress)}
+     * does. If the same content was already processed, its result is reused.
+     *
+     * @param fileName the name of the file the content comes from
+     * @param pattern  the date formatting pattern used for the parsing of the
+     *                 dates
+     * @param ingest   the ingest fed with the whole content
+     * @param progress the progress updated during the processing
+     * @return the longest working pair, empty if there are no pairs
+     */
+    Optional<WorkingPair> process(String fileName, String pattern,
+                                  ContentIngest ingest,
+                                  ProcessingProgress progress);
+
     /**
      * Persists the parsed models.
      *
@@ -38,4 +106,22 @@ public interface AttachmentProcessingService {
      * @return list of {@link PairPerProject} models
      */
     List<PairPerProject> getParsedModels(String fileName);
+
+    /**
+     * Returns the persisted pairs extracted from the file with the provided
+     * file name, without creating their models.
+     *
+     * @param fileName the name of the file
+     * @return the {@link PairRecords}, empty if there are none
+     */
+    Optional<PairRecords> getPairRecords(String fileName);
+
+    /**
+     * Returns the lines rejected by the parsing of the file with the provided
+     * file name, which were skipped in the lenient mode.
+     *
+     * @param fileName the name of the file
+     * @return the {@link ParseReport}, empty if the file was not processed
+     */
+    Optional<ParseReport> getParseReport(String fileName);
 }
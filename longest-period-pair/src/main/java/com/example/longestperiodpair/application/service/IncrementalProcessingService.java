@@ -0,0 +1,48 @@
+package com.example.longestperiodpair.application.service;
+
+import com.example.longestperiodpair.application.model.DeltaResult;
+import com.example.longestperiodpair.application.service.ingest.LineErrorsException;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.IOException;
+import java.util.Optional;
+
+
+/**
+ * Keeps datasets that can be updated with delta files, recomputing only the
+ * overlaps affected by the changed assignments. The results of the datasets
+ * are persisted under their names, like the processed files.
+ */
+public interface IncrementalProcessingService {
+
+    /**
+     * Creates the dataset with the provided name from the base content,
+     * replacing any previous dataset with the same name.
+     *
+     * @param datasetName the name of the dataset
+     * @param content     the source of the base content
+     * @param pattern     the date formatting pattern
+     * @return the outcome of the creation
+     * @throws IOException         if reading the content fails
+     * @throws LineErrorsException if the rejected lines exceed the budget
+     */
+    DeltaResult create(String datasetName, InputStreamSource content,
+                       String pattern) throws IOException;
+
+    /**
+     * Applies the delta content to the dataset with the provided name. The
+     * rows of the delta content add new assignments or replace the end dates
+     * of the existing ones with the same employee, project and start date.
+     *
+     * @param datasetName the name of the dataset
+     * @param content     the source of the delta content
+     * @param pattern     the date formatting pattern
+     * @return the outcome of the application, empty if there is no dataset
+     * with the name
+     * @throws IOException         if reading the content fails
+     * @throws LineErrorsException if the rejected lines exceed the budget
+     */
+    Optional<DeltaResult> applyDelta(String datasetName,
+                                     InputStreamSource content,
+                                     String pattern) throws IOException;
+}
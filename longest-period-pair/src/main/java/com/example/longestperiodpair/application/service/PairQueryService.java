@@ -0,0 +1,99 @@
+package com.example.longestperiodpair.application.service;
+
+import com.example.longestperiodpair.application.model.CollaborationComponent;
+import com.example.longestperiodpair.application.model.EmployeeCollaborations;
+import com.example.longestperiodpair.application.model.PairPage;
+import com.example.longestperiodpair.application.model.PairQuery;
+import com.example.longestperiodpair.application.model.TimelineResult;
+import com.example.longestperiodpair.application.model.WorkingPair;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Answers the queries for pages of the pairs of the processed files, and for
+ * the collaborations of the employees across the projects.
+ */
+public interface PairQueryService {
+
+    /**
+     * Returns the page of the pairs of the file matching the query.
+     *
+     * @param fileName the name of the file
+     * @param query    the query
+     * @return the page, empty if the file was not processed
+     */
+    Optional<PairPage> query(String fileName, PairQuery query);
+
+    /**
+     * Returns the pairs of employees that have worked together for the
+     * longest time in the file, overall or on the provided project.
+     *
+     * @param fileName  the name of the file
+     * @param projectId only the days on the project, if provided
+     * @param k         the maximum number of pairs
+     * @return the {@link WorkingPair}s, the longest first, empty if the file
+     * was not processed
+     */
+    Optional<List<WorkingPair>> findTopPairs(String fileName, String projectId,
+                                             int k);
+
+    /**
+     * Returns the collaborators of the employee in the file, the longest
+     * working one first.
+     *
+     * @param fileName   the name of the file
+     * @param employeeId the employee id
+     * @param minDays    only the collaborators that have worked together with
+     *                   the employee at least this many days
+     * @param limit      the maximum number of collaborators
+     * @return the {@link EmployeeCollaborations}, empty if the file was not
+     * processed or the employee has not worked with anyone
+     */
+    Optional<EmployeeCollaborations> findCollaborations(String fileName,
+                                                        String employeeId,
+                                                        long minDays,
+                                                        int limit);
+
+    /**
+     * Returns the largest groups of employees of the file linked by working
+     * together, directly or through other employees.
+     *
+     * @param fileName the name of the file
+     * @param limit    the maximum number of components
+     * @return the {@link CollaborationComponent}s without their employees, the
+     * largest first, empty if the file was not processed
+     */
+    Optional<List<CollaborationComponent>> findComponents(String fileName,
+                                                          int limit);
+
+    /**
+     * Returns the group of employees of the file with the provided id, see
+     * {@link #findComponents(String, int)}.
+     *
+     * @param fileName    the name of the file
+     * @param componentId the id of the component
+     * @return the {@link CollaborationComponent} with its employees, empty if
+     * the file was not processed or there is no such component
+     */
+    Optional<CollaborationComponent> findComponent(String fileName,
+                                                   int componentId);
+
+    /**
+     * Returns the days worked together by the pairs of employees of the file
+     * within the window of dates, computed from the kept rows of the file.
+     *
+     * @param fileName   the name of the file
+     * @param from       the first day of the window
+     * @param to         the exclusive end of the window
+     * @param employeeId only the pairs with the employee, if provided
+     * @param limit      the maximum number of pairs
+     * @return the {@link TimelineResult}, empty if the file was not processed
+     * or its rows are no longer kept
+     */
+    Optional<TimelineResult> findTimeline(String fileName, LocalDate from,
+                                          LocalDate to, String employeeId,
+                                          int limit);
+}
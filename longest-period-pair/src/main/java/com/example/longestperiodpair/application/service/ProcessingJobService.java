@@ -0,0 +1,46 @@
+package com.example.longestperiodpair.application.service;
+
+import com.example.longestperiodpair.application.model.JobStatus;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+
+/**
+ * Runs the processing of the uploaded attachments asynchronously, as jobs
+ * whose progress can be polled.
+ */
+public interface ProcessingJobService {
+
+    /**
+     * Stores the content of the provided file and submits a job processing
+     * it.
+     *
+     * @param file    the attached file
+     * @param pattern the date formatting pattern used for the parsing of the
+     *                dates
+     * @return the id of the submitted job
+     * @throws IOException                if storing the content fails
+     * @throws RejectedExecutionException if the queue of the jobs is full
+     */
+    String submit(MultipartFile file, String pattern) throws IOException;
+
+    /**
+     * Returns the status of the job with the provided id.
+     *
+     * @param jobId the id of the job
+     * @return the status of the job, empty if the job is unknown
+     */
+    Optional<JobStatus> getStatus(String jobId);
+
+    /**
+     * Checks whether the latest job for the file with the provided name is
+     * still running, so its results are not ready yet.
+     *
+     * @param fileName the name of the file
+     * @return whether the file is being processed
+     */
+    boolean isProcessing(String fileName);
+}
@@ -0,0 +1,74 @@
+package com.example.longestperiodpair.application.service;
+
+import com.example.longestperiodpair.application.model.UploadStatus;
+import com.example.longestperiodpair.application.service.upload.TooManyUploadsException;
+import com.example.longestperiodpair.application.service.upload.UploadOffsetMismatchException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+
+/**
+ * Receives the content of the attachments in chunks, as resumable uploads
+ * identified by an upload id. Every chunk is hashed and parsed as soon as its
+ * bytes arrive, so only the overlaps are left to compute once the upload
+ * completes.
+ */
+public interface UploadSessionService {
+
+    /**
+     * Opens a new upload.
+     *
+     * @param fileName   the name of the uploaded file
+     * @param pattern    the date formatting pattern used for the parsing of
+     *                   the dates
+     * @param totalBytes the size of the file in bytes, or -1 if unknown
+     * @return the status of the upload, with its id
+     * @throws TooManyUploadsException if the maximum number of uploads are
+     *                                 open
+     */
+    UploadStatus open(String fileName, String pattern, long totalBytes);
+
+    /**
+     * Appends the chunk starting at the provided offset of the content. The
+     * bytes before the received ones are skipped, so a chunk can be resent
+     * from its start after a dropped connection. The bytes read before the
+     * stream fails are kept, the status tells where to resume.
+     *
+     * @param uploadId the id of the upload
+     * @param offset   the offset of the chunk in the content
+     * @param chunk    the stream of the chunk
+     * @return the status of the upload, empty if the upload is unknown
+     * @throws IOException                   if reading the chunk fails
+     * @throws UploadOffsetMismatchException if the chunk starts past the
+     *                                       received bytes
+     */
+    Optional<UploadStatus> append(String uploadId, long offset,
+                                  InputStream chunk) throws IOException;
+
+    /**
+     * Completes the upload and processes the received content.
+     *
+     * @param uploadId the id of the upload
+     * @return the status of the processed upload, empty if the upload is
+     * unknown
+     */
+    Optional<UploadStatus> complete(String uploadId);
+
+    /**
+     * Returns the status of the upload with the provided id.
+     *
+     * @param uploadId the id of the upload
+     * @return the status of the upload, empty if the upload is unknown
+     */
+    Optional<UploadStatus> getStatus(String uploadId);
+
+    /**
+     * Discards the upload with the provided id.
+     *
+     * @param uploadId the id of the upload
+     * @return whether the upload was known
+     */
+    boolean abort(String uploadId);
+}
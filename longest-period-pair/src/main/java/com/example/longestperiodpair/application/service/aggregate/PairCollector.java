@@ -0,0 +1,127 @@
+package com.example.longestperiodpair.application.service.aggregate;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.overlap.OverlapConsumer;
+import com.example.longestperiodpair.application.service.overlap.StreamingSweepLine;
+import com.example.longestperiodpair.application.service.store.ArrayPairRecords;
+import com.example.longestperiodpair.application.service.store.PairRecordsBuilder;
+import com.example.longestperiodpair.application.util.LongLongHashMap;
+
+
+/**
+ * Collects the overlaps reported by the overlap engine: folds them into the
+ * per-pair totals and, if enabled, keeps them as compact pair records. The
+ * overlaps of an employee with itself are dropped. The extensions of the
+ * streamed overlaps are added to the last pair record of the two employees
+ * on the project, so a streamed file has the same records as a coalesced
+ * table. Not thread-safe, the parallel execution uses one collector per
+ * worker and merges them at the end.
+ */
+public class PairCollector
+    implements OverlapConsumer, StreamingSweepLine.Consumer {
+
+    private final AssignmentTable table;
+    private final PairTotalsAggregator totals;
+    private final PairRecordsBuilder pairs;
+
+    // the position of the last record of each pair on the streamed project
+    private LongLongHashMap lastRecords = new LongLongHashMap();
+    private int lastProject = -1;
+
+    /**
+     * Creates an empty collector.
+     *
+     * @param table       the table holding the rows
+     * @param retainPairs whether the pairs are kept
+     */
+    public PairCollector(AssignmentTable table, boolean retainPairs) {
+        this.table = table;
+        this.totals = new PairTotalsAggregator(table);
+        this.pairs = retainPairs ? new PairRecordsBuilder() : null;
+    }
+
+    @Override
+    public void accept(int firstRow, int secondRow, long daysWorked) {
+        if (table.employeeId(firstRow) == table.employeeId(secondRow)) {
+            return;
+        }
+        totals.accept(firstRow, secondRow, daysWorked);
+        if (pairs != null) {
+            pairs.add(table.employeeId(firstRow), table.employeeId(secondRow),
+                      table.projectId(firstRow), (int) daysWorked);
+        }
+    }
+
+    /**
+     * Accepts an overlap of streamed rows, whose ids are encoded with the
+     * dictionaries of the table.
+     */
+    @Override
+    public void accept(int firstEmployee, int secondEmployee, int project,
+                       long daysWorked) {
+        if (firstEmployee == secondEmployee) {
+            return;
+        }
+        totals.acceptEmployees(firstEmployee, secondEmployee, daysWorked);
+        if (pairs != null) {
+            addStreamed(firstEmployee, secondEmployee, project, daysWorked);
+        }
+    }
+
+    @Override
+    public void acceptExtension(int activeEmployee, int extendedEmployee,
+                                int project, long daysWorked) {
+        totals.acceptEmployees(activeEmployee, extendedEmployee, daysWorked);
+        if (pairs == null) {
+            return;
+        }
+        int index = project == lastProject
+                    ? (int) lastRecords.get(PairTotalsAggregator.pairKey(
+                        activeEmployee, extendedEmployee), -1)
+                    : -1;
+        if (index >= 0) {
+            pairs.addDays(index, (int) daysWorked);
+        } else {
+            addStreamed(activeEmployee, extendedEmployee, project, daysWorked);
+        }
+    }
+
+    private void addStreamed(int firstEmployee, int secondEmployee,
+                             int project, long daysWorked) {
+        if (project != lastProject) {
+            lastRecords = new LongLongHashMap();
+            lastProject = project;
+        }
+        lastRecords.put(PairTotalsAggregator.pairKey(firstEmployee,
+                                                     secondEmployee),
+                        pairs.size());
+        pairs.add(firstEmployee, secondEmployee, project, (int) daysWorked);
+    }
+
+    /**
+     * Adds the totals and the pairs of the other collector to this one.
+     *
+     * @param other the collector to be merged into this one
+     */
+    public void merge(PairCollector other) {
+        totals.merge(other.totals);
+        if (pairs != null) {
+            pairs.addAll(other.pairs);
+        }
+    }
+
+    public PairTotalsAggregator getTotals() {
+        return totals;
+    }
+
+    /**
+     * Builds the records of the collected pairs.
+     *
+     * @return the records, empty if the pairs are not retained
+     */
+    public ArrayPairRecords buildRecords() {
+        PairRecordsBuilder builder = pairs != null ? pairs
+            : new PairRecordsBuilder(0);
+        return builder.build(table.getEmployees(), table.getProjects());
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.longestperiodpair.application.service.aggregate;
+
+import com.example.longestperiodpair.application.model.WorkingPair;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.overlap.OverlapConsumer;
+import com.example.longestperiodpair.application.util.IdDictionary;
+import com.example.longestperiodpair.application.util.LongLongHashMap;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Folds the overlaps reported by the overlap engine into the total number of
+ * days per pair of employees, as they are produced. The pairs are keyed by the
+ * dictionary encoded employee ids of the {@link AssignmentTable} packed into a
+ * single {@code long}, so no per-pair objects are kept.
+ */
+@RequiredArgsConstructor
+public class PairTotalsAggregator implements OverlapConsumer {
+
+    private final AssignmentTable table;
+    private final LongLongHashMap totals = new LongLongHashMap();
+
+    @Override
+    public void accept(int firstRow, int secondRow, long daysWorked) {
+        totals.addTo(pairKey(table.employeeId(firstRow),
+                             table.employeeId(secondRow)), daysWorked);
+    }
+
+    /**
+     * Accepts an overlap of the rows of the provided employees, for the rows
+     * not kept in the table.
+     *
+     * @param firstEmployee  the encoded employee id of the first row
+     * @param secondEmployee the encoded employee id of the second row
+     * @param daysWorked     the days the rows overlap
+     */
+    public void acceptEmployees(int firstEmployee, int secondEmployee,
+                                long daysWorked) {
+        totals.addTo(pairKey(firstEmployee, secondEmployee), daysWorked);
+    }
+
+    /**
+     * Adds the totals of the other aggregator, built over the same table, to
+     * this one.
+     *
+     * @param other the aggregator to be merged into this one
+     */
+    public void merge(PairTotalsAggregator other) {
+        totals.addAll(other.totals);
+    }
+
+    /**
+     * Returns the pair of employees with the highest total number of days
+     * worked together. Ties are resolved in favour of the pair with the lower
+     * ids, so the result does not depend on the iteration order.
+     *
+     * @return the longest working pair, empty if no pairs were reported
+     */
+    public Optional<WorkingPair> findLongest() {
+        return findTop(1).stream().findFirst();
+    }
+
+    /**
+     * Returns the pairs of employees with the highest total numbers of days
+     * worked together, the longest first, selected with the
+     * {@link TopPairsSelector}. Ties are resolved as in
+     * {@link #findLongest()}.
+     *
+     * @param k the maximum number of pairs
+     * @return the longest working pairs
+     */
+    public List<WorkingPair> findTop(int k) {
+        TopPairsSelector selector = new TopPairsSelector(k);
+        selector.offerAll(totals);
+        return toWorkingPairs(selector, table.getEmployees());
+    }
+
+    /**
+     * Drains the selected pairs into {@link WorkingPair} models.
+     *
+     * @param selector  the selector of the pairs
+     * @param employees the dictionary the pair keys are encoded with
+     * @return the working pairs, the longest first
+     */
+    public static List<WorkingPair> toWorkingPairs(TopPairsSelector selector,
+                                                   IdDictionary employees) {
+        List<WorkingPair> pairs = new ArrayList<>(selector.size());
+        selector.drainDescending((key, days) -> pairs.add(
+            WorkingPair.builder()
+                       .employeeIdFirst(employees.get(firstId(key)))
+                       .employeeIdSecond(employees.get(secondId(key)))
+                       .daysWorked(days).build()));
+        return pairs;
+    }
+
+    /**
+     * Returns the number of distinct pairs of employees.
+     *
+     * @return the number of pairs
+     */
+    public int pairCount() {
+        return totals.size();
+    }
+
+    /**
+     * Packs the ids of the pair into a single key, independent of the order
+     * of the ids.
+     *
+     * @param firstId  the id of the first employee
+     * @param secondId the id of the second employee
+     * @return the pair key
+     */
+    public static long pairKey(int firstId, int secondId) {
+        int low = Math.min(firstId, secondId);
+        int high = Math.max(firstId, secondId);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    public static int firstId(long pairKey) {
+        return (int) (pairKey >>> 32);
+    }
+
+    public static int secondId(long pairKey) {
+        return (int) pairKey;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.longestperiodpair.application.service.aggregate;
+
+import com.example.longestperiodpair.application.util.LongLongHashMap;
+
+
+/**
+ * Selects the K pairs with the most days in a single pass, keeping a bounded
+ * binary min-heap of the pair keys and their days instead of sorting all
+ * pairs. The root is the weakest selected pair, replaced whenever a stronger
+ * one is offered, so the cost is O(n log K). A pair is stronger with more
+ * days and, on ties, with a lower key, the same rule as
+ * {@link PairTotalsAggregator#findLongest()}. Not thread-safe.
+ */
+public final class TopPairsSelector {
+
+    private final long[] keys;
+    private final long[] days;
+    private int size;
+
+    /**
+     * Creates a selector of the provided number of pairs.
+     *
+     * @param capacity the maximum number of selected pairs
+     */
+    public TopPairsSelector(int capacity) {
+        keys = new long[Math.max(capacity, 0)];
+        days = new long[keys.length];
+    }
+
+    /**
+     * Offers a pair to the selection.
+     *
+     * @param key        the pair key
+     * @param daysWorked the days worked together by the pair
+     */
+    public void offer(long key, long daysWorked) {
+        if (size < keys.length) {
+            siftUp(size++, key, daysWorked);
+        } else if (size > 0 && isWeaker(keys[0], days[0], key, daysWorked)) {
+            siftDown(0, key, daysWorked);
+        }
+    }
+
+    /**
+     * Offers all entries of the map, keyed by the pair keys.
+     *
+     * @param totals the days worked per pair
+     */
+    public void offerAll(LongLongHashMap totals) {
+        totals.forEach(this::offer);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes the selected pairs and passes them to the consumer, the pair
+     * with the most days first.
+     *
+     * @param consumer the consumer of the pair keys and days
+     */
+    public void drainDescending(LongLongHashMap.LongLongConsumer consumer) {
+        int count = size;
+        long[] sortedKeys = new long[count];
+        long[] sortedDays = new long[count];
+        // popping the root yields the pairs from the weakest
+        for (int i = count - 1; i >= 0; i--) {
+            sortedKeys[i] = keys[0];
+            sortedDays[i] = days[0];
+            size--;
+            if (size > 0) {
+                siftDown(0, keys[size], days[size]);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            consumer.accept(sortedKeys[i], sortedDays[i]);
+        }
+    }
+
+    private void siftUp(int index, long key, long daysWorked) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isWeaker(key, daysWorked, keys[parent], days[parent])) {
+                break;
+            }
+            keys[index] = keys[parent];
+            days[index] = days[parent];
+            index = parent;
+        }
+        keys[index] = key;
+        days[index] = daysWorked;
+    }
+
+    private void siftDown(int index, long key, long daysWorked) {
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && isWeaker(keys[right], days[right],
+                                         keys[child], days[child])) {
+                child = right;
+            }
+            if (!isWeaker(keys[child], days[child], key, daysWorked)) {
+                break;
+            }
+            keys[index] = keys[child];
+            days[index] = days[child];
+            index = child;
+        }
+        keys[index] = key;
+        days[index] = daysWorked;
+    }
+
+    private static boolean isWeaker(long key, long daysWorked, long otherKey,
+                                    long otherDays) {
+        return daysWorked < otherDays
+               || (daysWorked == otherDays && key > otherKey);
+    }
+}
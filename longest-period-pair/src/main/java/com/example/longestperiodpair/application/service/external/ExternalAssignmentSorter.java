@@ -0,0 +1,177 @@
+package com.example.longestperiodpair.application.service.external;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentSink;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.ProjectGroups;
+import com.example.longestperiodpair.application.util.IdDictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Sorts the parsed assignments by project and start date within a bounded
+ * amount of memory. The rows are buffered in an {@link AssignmentTable} until
+ * the budget is reached, then sorted and written to a run file, and the
+ * buffer is reused. The runs are read back merged by the
+ * {@link SortedRunMerger}, the rows still in the buffer forming the last run.
+ * Rows with the same project and start date keep the order they were added
+ * in, as with {@link ProjectGroups#sortByStart}.
+ * <p>
+ * The dictionaries of the ids are kept in the buffer, so their size depends
+ * on the number of distinct employees and projects, not on the number of
+ * rows. Closing the sorter deletes the run files. Not thread-safe.
+ */
+public final class ExternalAssignmentSorter implements AssignmentSink,
+    Closeable {
+
+    /**
+     * The bytes taken by a buffered row: its four columns in the table, and
+     * its entries in the arrays of the grouping and of the sorting when it is
+     * spilled.
+     */
+    public static final int BUFFERED_ROW_BYTES = 32;
+
+    /**
+     * The bytes of a row in a run file.
+     */
+    static final int RUN_ROW_BYTES = 16;
+
+    static final int MAX_IO_BUFFER_SIZE = 64 * 1024;
+
+    private final long maxBufferBytes;
+    private final int maxBufferedRows;
+    private final Path directory;
+    private final AssignmentTable buffer;
+    private final List<Path> runs = new ArrayList<>();
+    private int size;
+
+    /**
+     * Creates a sorter buffering the rows up to the provided number of bytes.
+     *
+     * @param maxBufferBytes the maximum number of bytes of the buffered rows
+     * @param directory      the directory of the run files
+     */
+    public ExternalAssignmentSorter(long maxBufferBytes, Path directory) {
+        this.maxBufferBytes = maxBufferBytes;
+        this.maxBufferedRows = (int) Math.min(
+            Math.max(maxBufferBytes / BUFFERED_ROW_BYTES, 16),
+            Integer.MAX_VALUE - 8);
+        this.directory = directory;
+        this.buffer = new AssignmentTable(Math.min(maxBufferedRows, 1 << 16));
+    }
+
+    /**
+     * Adds the row, first writing the buffered rows to a run file if the
+     * buffer is full.
+     *
+     * @throws UncheckedIOException if writing the run file fails
+     */
+    @Override
+    public int add(int employee, int project, int dateFrom, int dateTo) {
+        if (buffer.size() == maxBufferedRows) {
+            try {
+                spill();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write a run file",
+                                               e);
+            }
+        }
+        buffer.add(employee, project, dateFrom, dateTo);
+        return size++;
+    }
+
+    /**
+     * Sorts the buffered rows and returns the merger of all runs. The sorter
+     * should not be added to afterwards.
+     *
+     * @return the merger returning the rows ordered by project and start date
+     * @throws IOException if opening the run files fails
+     */
+    public SortedRunMerger merge() throws IOException {
+        ProjectGroups groups = sortBuffer();
+        // the buffers of the run files share the budget
+        int ioBufferSize = (int) Math.max(
+            4096, Math.min(MAX_IO_BUFFER_SIZE,
+                           maxBufferBytes / Math.max(runs.size(), 1)));
+        return new SortedRunMerger(runs, ioBufferSize, buffer,
+                                   groups.getRows());
+    }
+
+    /**
+     * Returns the table holding the dictionaries of the ids and the rows not
+     * written to a run file.
+     *
+     * @return the buffer
+     */
+    public AssignmentTable getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public IdDictionary getEmployees() {
+        return buffer.getEmployees();
+    }
+
+    @Override
+    public IdDictionary getProjects() {
+        return buffer.getProjects();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int runCount() {
+        return runs.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        runs.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void spill() throws IOException {
+        ProjectGroups groups = sortBuffer();
+        Path run = Files.createTempFile(directory, "assignments-", ".run");
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run),
+                                         MAX_IO_BUFFER_SIZE))) {
+            for (int row : groups.getRows()) {
+                out.writeInt(buffer.projectId(row));
+                out.writeInt(buffer.employeeId(row));
+                out.writeInt(buffer.dateFrom(row));
+                out.writeInt(buffer.dateTo(row));
+            }
+        }
+        buffer.clear();
+    }
+
+    private ProjectGroups sortBuffer() {
+        ProjectGroups groups = buffer.groupByProject();
+        for (int project = 0; project < groups.projectCount(); project++) {
+            groups.sortByStart(buffer, project);
+        }
+        return groups;
+    }
+}
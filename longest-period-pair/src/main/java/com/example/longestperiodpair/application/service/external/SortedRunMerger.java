@@ -0,0 +1,231 @@
+package com.example.longestperiodpair.application.service.external;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+
+/**
+ * Merges the sorted runs of the {@link ExternalAssignmentSorter} into a single
+ * stream of rows ordered by project and start date, keeping the next row of
+ * every run in a binary min-heap. On ties, the row of the earlier run comes
+ * first, so the rows keep the order they were added in. Not thread-safe.
+ */
+public final class SortedRunMerger implements Closeable {
+
+    private final Run[] heap;
+    private int heapSize;
+    private Run current;
+
+    SortedRunMerger(List<Path> files, int ioBufferSize, AssignmentTable buffer,
+                    int[] bufferRows) throws IOException {
+        heap = new Run[files.size() + 1];
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                offer(new FileRun(i, files.get(i), ioBufferSize));
+            }
+            offer(new BufferRun(files.size(), buffer, bufferRows));
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return whether there is a next row
+     * @throws IOException if reading a run file fails
+     */
+    public boolean next() throws IOException {
+        if (current != null) {
+            offer(current);
+        }
+        if (heapSize == 0) {
+            current = null;
+            return false;
+        }
+        current = heap[0];
+        Run last = heap[--heapSize];
+        heap[heapSize] = null;
+        if (heapSize > 0) {
+            siftDown(last);
+        }
+        return true;
+    }
+
+    public int project() {
+        return current.project;
+    }
+
+    public int employee() {
+        return current.employee;
+    }
+
+    public int dateFrom() {
+        return current.dateFrom;
+    }
+
+    public int dateTo() {
+        return current.dateTo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Run run : heap) {
+            try {
+                if (run != null) {
+                    run.close();
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (current != null) {
+            current.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Reads the next row of the run and adds the run to the heap, or closes
+     * it if it has no more rows.
+     */
+    private void offer(Run run) throws IOException {
+        if (!run.advance()) {
+            run.close();
+            return;
+        }
+        int index = heapSize++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!run.isBefore(heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = run;
+    }
+
+    private void siftDown(Run run) {
+        int index = 0;
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            if (child + 1 < heapSize && heap[child + 1].isBefore(heap[child])) {
+                child++;
+            }
+            if (run.isBefore(heap[child])) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = run;
+    }
+
+    /**
+     * A sorted run positioned at its current row.
+     */
+    private abstract static class Run implements Closeable {
+
+        private final int order;
+        int project;
+        int employee;
+        int dateFrom;
+        int dateTo;
+
+        Run(int order) {
+            this.order = order;
+        }
+
+        /**
+         * Reads the next row.
+         *
+         * @return whether there was a next row
+         */
+        abstract boolean advance() throws IOException;
+
+        boolean isBefore(Run other) {
+            if (project != other.project) {
+                return project < other.project;
+            }
+            if (dateFrom != other.dateFrom) {
+                return dateFrom < other.dateFrom;
+            }
+            return order < other.order;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static final class FileRun extends Run {
+
+        private final DataInputStream in;
+        private long remaining;
+
+        FileRun(int order, Path file, int bufferSize) throws IOException {
+            super(order);
+            remaining = Files.size(file)
+                        / ExternalAssignmentSorter.RUN_ROW_BYTES;
+            in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(file), bufferSize));
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            project = in.readInt();
+            employee = in.readInt();
+            dateFrom = in.readInt();
+            dateTo = in.readInt();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class BufferRun extends Run {
+
+        private final AssignmentTable table;
+        private final int[] rows;
+        private int position;
+
+        BufferRun(int order, AssignmentTable table, int[] rows) {
+            super(order);
+            this.table = table;
+            this.rows = rows;
+        }
+
+        @Override
+        boolean advance() {
+            if (position == rows.length) {
+                return false;
+            }
+            int row = rows[position++];
+            project = table.projectId(row);
+            employee = table.employeeId(row);
+            dateFrom = table.dateFrom(row);
+            dateTo = table.dateTo(row);
+            return true;
+        }
+    }
+}
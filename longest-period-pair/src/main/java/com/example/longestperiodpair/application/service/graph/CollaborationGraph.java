@@ -0,0 +1,341 @@
+package com.example.longestperiodpair.application.service.graph;
+
+import com.example.longestperiodpair.application.model.CollaborationComponent;
+import com.example.longestperiodpair.application.model.Collaborator;
+import com.example.longestperiodpair.application.model.EmployeeCollaborations;
+import com.example.longestperiodpair.application.service.aggregate.PairTotalsAggregator;
+import com.example.longestperiodpair.application.service.store.PairRecords;
+import com.example.longestperiodpair.application.util.IdDictionary;
+import com.example.longestperiodpair.application.util.LongLongHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Graph of the employees of a processed file, linking the employees that have
+ * worked together with the total number of days on all projects and the
+ * number of shared projects. The adjacency is kept in compressed sparse row
+ * form: the collaborators of an employee are the entries between its offset
+ * and the next one, ordered by days descending, so the longest working
+ * collaborator is the first entry and the collaborators above a threshold
+ * are a prefix found by binary search. The connected components are computed
+ * once when the graph is built. Thread-safe once built.
+ * <p>
+ * The pairs of an employee with itself and the pairs that have not worked
+ * together are left out. On ties, the collaborator appearing first in the
+ * records comes first.
+ */
+public final class CollaborationGraph {
+
+    private final PairRecords records;
+    private final IdDictionary employees;
+
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final long[] days;
+    private final int[] projectCounts;
+
+    private final int[] components;
+    private final int[] componentOffsets;
+    private final int[] componentMembers;
+
+    private CollaborationGraph(PairRecords records, IdDictionary employees,
+                               LongLongHashMap totals,
+                               LongLongHashMap projects) {
+        this.records = records;
+        this.employees = employees;
+        int employeeCount = employees.size();
+
+        offsets = new int[employeeCount + 1];
+        totals.forEach((key, daysWorked) -> {
+            offsets[PairTotalsAggregator.firstId(key) + 1]++;
+            offsets[PairTotalsAggregator.secondId(key) + 1]++;
+        });
+        prefixSum(offsets);
+
+        // the inverted days in the high bits and the collaborator in the low
+        // bits, so a plain sort of a row orders it by days descending
+        long[] entries = new long[offsets[employeeCount]];
+        int[] next = Arrays.copyOf(offsets, employeeCount);
+        totals.forEach((key, daysWorked) -> {
+            int first = PairTotalsAggregator.firstId(key);
+            int second = PairTotalsAggregator.secondId(key);
+            long inverted = (Integer.MAX_VALUE
+                             - Math.min(daysWorked, Integer.MAX_VALUE)) << 32;
+            entries[next[first]++] = inverted | second;
+            entries[next[second]++] = inverted | first;
+        });
+
+        neighbours = new int[entries.length];
+        days = new long[entries.length];
+        projectCounts = new int[entries.length];
+        for (int employee = 0; employee < employeeCount; employee++) {
+            Arrays.sort(entries, offsets[employee], offsets[employee + 1]);
+            for (int i = offsets[employee]; i < offsets[employee + 1]; i++) {
+                int neighbour = (int) entries[i];
+                long key = PairTotalsAggregator.pairKey(employee, neighbour);
+                neighbours[i] = neighbour;
+                days[i] = totals.get(key, 0);
+                projectCounts[i] = (int) projects.get(key, 0);
+            }
+        }
+
+        components = new int[employeeCount];
+        componentOffsets = findComponents(employeeCount);
+        componentMembers = new int[employeeCount];
+        int[] nextMember = Arrays.copyOf(componentOffsets,
+                                         componentOffsets.length - 1);
+        for (int employee = 0; employee < employeeCount; employee++) {
+            componentMembers[nextMember[components[employee]]++] = employee;
+        }
+    }
+
+    /**
+     * Builds the graph of the records, summing the days of each pair over the
+     * projects.
+     *
+     * @param records the records
+     * @return the graph
+     */
+    public static CollaborationGraph build(PairRecords records) {
+        IdDictionary employees = new IdDictionary();
+        IdDictionary projectIds = new IdDictionary();
+        int size = records.size();
+        int[] firstIds = new int[size];
+        int[] secondIds = new int[size];
+        int[] projects = new int[size];
+        for (int i = 0; i < size; i++) {
+            firstIds[i] = employees.intern(records.employeeIdFirst(i));
+            secondIds[i] = employees.intern(records.employeeIdSecond(i));
+            projects[i] = projectIds.intern(records.projectId(i));
+        }
+
+        // visiting the records project by project, a pair is on a new
+        // project when its last seen project differs
+        int[] byProject = new int[size];
+        int[] projectOffsets = new int[projectIds.size() + 1];
+        for (int project : projects) {
+            projectOffsets[project + 1]++;
+        }
+        prefixSum(projectOffsets);
+        for (int i = 0; i < size; i++) {
+            byProject[projectOffsets[projects[i]]++] = i;
+        }
+
+        LongLongHashMap totals = new LongLongHashMap();
+        LongLongHashMap projectCounts = new LongLongHashMap();
+        LongLongHashMap lastProjects = new LongLongHashMap();
+        for (int index : byProject) {
+            long daysWorked = records.daysWorked(index);
+            if (firstIds[index] == secondIds[index] || daysWorked <= 0) {
+                continue;
+            }
+            long key = PairTotalsAggregator.pairKey(firstIds[index],
+                                                    secondIds[index]);
+            totals.addTo(key, daysWorked);
+            if (lastProjects.get(key, -1) != projects[index]) {
+                lastProjects.put(key, projects[index]);
+                projectCounts.addTo(key, 1);
+            }
+        }
+        return new CollaborationGraph(records, employees, totals,
+                                      projectCounts);
+    }
+
+    public PairRecords getRecords() {
+        return records;
+    }
+
+    public int employeeCount() {
+        return components.length;
+    }
+
+    /**
+     * Returns the number of the pairs of employees that have worked together.
+     *
+     * @return the number of the pairs
+     */
+    public int pairCount() {
+        return neighbours.length / 2;
+    }
+
+    public int componentCount() {
+        return componentOffsets.length - 1;
+    }
+
+    /**
+     * Returns the collaborators of the employee that have worked with it at
+     * least the provided number of days.
+     *
+     * @param employeeId the employee id
+     * @param minDays    the minimum number of days worked together
+     * @param limit      the maximum number of collaborators
+     * @return the collaborations of the employee, empty if the employee is
+     * not in the graph or has not worked with anyone
+     */
+    public Optional<EmployeeCollaborations> collaborations(String employeeId,
+                                                           long minDays,
+                                                           int limit) {
+        int employee = employees.find(employeeId);
+        if (employee < 0 || offsets[employee + 1] == offsets[employee]) {
+            return Optional.empty();
+        }
+        int from = offsets[employee];
+        int to = Math.min(firstBelow(from, offsets[employee + 1], minDays),
+                          from + Math.max(limit, 0));
+        List<Collaborator> collaborators = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            collaborators.add(collaborator(i));
+        }
+        int component = components[employee];
+        return Optional.of(EmployeeCollaborations
+                               .builder().employeeId(employeeId)
+                               .componentId(component)
+                               .componentSize(componentSize(component))
+                               .collaboratorCount(offsets[employee + 1] - from)
+                               .longest(collaborator(from))
+                               .collaborators(collaborators).build());
+    }
+
+    /**
+     * Returns the largest connected components, without their employees.
+     *
+     * @param limit the maximum number of components
+     * @return the components, the largest first
+     */
+    public List<CollaborationComponent> components(int limit) {
+        int count = Math.min(Math.max(limit, 0), componentCount());
+        List<CollaborationComponent> result = new ArrayList<>(count);
+        for (int component = 0; component < count; component++) {
+            result.add(CollaborationComponent.builder()
+                                             .componentId(component)
+                                             .size(componentSize(component))
+                                             .build());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the connected component with its employees.
+     *
+     * @param componentId the component id, see {@link #components(int)}
+     * @return the component, empty if there is no such component
+     */
+    public Optional<CollaborationComponent> component(int componentId) {
+        if (componentId < 0 || componentId >= componentCount()) {
+            return Optional.empty();
+        }
+        List<String> employeeIds = new ArrayList<>(componentSize(componentId));
+        for (int i = componentOffsets[componentId];
+             i < componentOffsets[componentId + 1]; i++) {
+            employeeIds.add(employees.get(componentMembers[i]));
+        }
+        return Optional.of(CollaborationComponent.builder()
+                                                 .componentId(componentId)
+                                                 .size(employeeIds.size())
+                                                 .employeeIds(employeeIds)
+                                                 .build());
+    }
+
+    private Collaborator collaborator(int entry) {
+        return Collaborator.builder()
+                           .employeeId(employees.get(neighbours[entry]))
+                           .daysWorked(days[entry])
+                           .projectCount(projectCounts[entry]).build();
+    }
+
+    private int componentSize(int component) {
+        return componentOffsets[component + 1] - componentOffsets[component];
+    }
+
+    private int firstBelow(int from, int to, long minDays) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (days[middle] >= minDays) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the connected components with a union-find over the pairs, and
+     * numbers them by size descending, ties by their first employee.
+     *
+     * @return the offsets of the members of each component
+     */
+    private int[] findComponents(int employeeCount) {
+        int[] parents = new int[employeeCount];
+        int[] sizes = new int[employeeCount];
+        for (int employee = 0; employee < employeeCount; employee++) {
+            parents[employee] = employee;
+            sizes[employee] = 1;
+        }
+        for (int employee = 0; employee < employeeCount; employee++) {
+            for (int i = offsets[employee]; i < offsets[employee + 1]; i++) {
+                int first = root(parents, employee);
+                int second = root(parents, neighbours[i]);
+                if (first != second) {
+                    if (sizes[first] < sizes[second]) {
+                        int swap = first;
+                        first = second;
+                        second = swap;
+                    }
+                    parents[second] = first;
+                    sizes[first] += sizes[second];
+                }
+            }
+        }
+
+        // the roots in the order of their first employee, sorted by size
+        // with the inverted size in the high bits
+        int[] rootOrder = new int[employeeCount];
+        Arrays.fill(rootOrder, -1);
+        long[] roots = new long[employeeCount];
+        int rootCount = 0;
+        for (int employee = 0; employee < employeeCount; employee++) {
+            int root = root(parents, employee);
+            if (rootOrder[root] < 0) {
+                rootOrder[root] = rootCount;
+                roots[rootCount++] = ((long) (Integer.MAX_VALUE - sizes[root])
+                                      << 32) | rootOrder[root];
+            }
+        }
+        long[] sortedRoots = Arrays.copyOf(roots, rootCount);
+        Arrays.sort(sortedRoots);
+        int[] componentOfRoot = new int[sortedRoots.length];
+        int[] result = new int[sortedRoots.length + 1];
+        for (int component = 0; component < sortedRoots.length; component++) {
+            componentOfRoot[(int) sortedRoots[component]] = component;
+            result[component + 1] = Integer.MAX_VALUE
+                                    - (int) (sortedRoots[component] >>> 32);
+        }
+        prefixSum(result);
+        for (int employee = 0; employee < employeeCount; employee++) {
+            components[employee] = componentOfRoot[rootOrder[root(parents,
+                                                                  employee)]];
+        }
+        return result;
+    }
+
+    private static int root(int[] parents, int employee) {
+        while (parents[employee] != employee) {
+            parents[employee] = parents[parents[employee]];
+            employee = parents[employee];
+        }
+        return employee;
+    }
+
+    private static void prefixSum(int[] values) {
+        for (int i = 1; i < values.length; i++) {
+            values[i] += values[i - 1];
+        }
+    }
+}
@@ -1,28 +1,61 @@
 package com.example.longestperiodpair.application.service.impl;
 
+import com.example.longestperiodpair.application.model.BatchResult;
+import com.example.longestperiodpair.application.model.LineError;
 import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.model.ParseReport;
 import com.example.longestperiodpair.application.model.ParsedLine;
+import com.example.longestperiodpair.application.model.ProcessingPhase;
+import com.example.longestperiodpair.application.model.WorkingPair;
 import com.example.longestperiodpair.application.service.AttachmentProcessingService;
-import com.example.longestperiodpair.application.util.DateUtils;
+import com.example.longestperiodpair.application.service.aggregate.PairCollector;
+import com.example.longestperiodpair.application.service.aggregate.PairTotalsAggregator;
+import com.example.longestperiodpair.application.service.external.ExternalAssignmentSorter;
+import com.example.longestperiodpair.application.service.external.SortedRunMerger;
+import com.example.longestperiodpair.application.service.ingest.AssignmentMerger;
+import com.example.longestperiodpair.application.service.ingest.AssignmentRowParser;
+import com.example.longestperiodpair.application.service.ingest.AssignmentSink;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.ContentIngest;
+import com.example.longestperiodpair.application.service.ingest.CsvScanner;
+import com.example.longestperiodpair.application.service.ingest.DateParserRegistry;
+import com.example.longestperiodpair.application.service.ingest.LineErrors;
+import com.example.longestperiodpair.application.service.ingest.LineErrorsException;
+import com.example.longestperiodpair.application.service.ingest.ParseErrorMode;
+import com.example.longestperiodpair.application.service.ingest.ProjectGroups;
+import com.example.longestperiodpair.application.service.job.ProcessingProgress;
+import com.example.longestperiodpair.application.service.metrics.ProcessingMetrics;
+import com.example.longestperiodpair.application.service.overlap.ExecutionMode;
+import com.example.longestperiodpair.application.service.overlap.OverlapEngine;
+import com.example.longestperiodpair.application.service.overlap.OverlapEngineType;
+import com.example.longestperiodpair.application.service.overlap.ParallelOverlapExecutor;
+import com.example.longestperiodpair.application.service.overlap.StreamingSweepLine;
+import com.example.longestperiodpair.application.service.store.ArrayPairRecords;
+import com.example.longestperiodpair.application.service.store.ContentKeys;
+import com.example.longestperiodpair.application.service.store.PairRecords;
+import com.example.longestperiodpair.application.service.store.ProcessedResult;
+import com.example.longestperiodpair.application.service.store.ProcessedResultStore;
+import com.example.longestperiodpair.application.service.timeline.TimelineRegistry;
+import com.example.longestperiodpair.application.util.EndDateMode;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.function.Predicate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -30,15 +63,33 @@ import java.util.stream.Stream;
 /**
  * Reads and processed the content of the files and logs information about
  * which pair of employees have worked together
- * for the longest time. Persists the processed file content in memory.
+ * for the longest time. Persists the processed file content in the
+ * {@link ProcessedResultStore}.
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class AttachmentProcessingServiceImpl
     implements AttachmentProcessingService {
 
-    private final Map<String, List<PairPerProject>> processedFiles
-        = new HashMap<>();
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Prefix of the keys of the results persisted by name instead of by
+     * content hash.
+     */
+    private static final String NAME_KEY_PREFIX = "name:";
+
+    /**
+     * Prefix of the keys of the combined results of the batches.
+     */
+    private static final String BATCH_KEY_PREFIX = "batch:";
+
+    private final DateParserRegistry dateParsers;
+    private final ParallelOverlapExecutor overlapExecutor;
+    private final ProcessedResultStore resultStore;
+    private final ProcessingMetrics metrics;
+    private final TimelineRegistry timelines;
 
     /*
      * Other approach for the flexible date pattern would be defining it in
@@ -49,14 +100,103 @@ public class AttachmentProcessingServiceImpl
     @Value("${parser.date-time-formatter-pattern:yyyy-MM-dd}")
     String dateFormatterPattern;
 
+    /**
+     * Whether the date pattern should be detected from the first rows of the
+     * file, in case the selected one does not match the dates.
+     */
+    @Value("${parser.detect-pattern:true}")
+    boolean detectPattern = true;
+
+    /**
+     * Whether the end dates of the files are inclusive or exclusive. The
+     * inclusive end dates are converted to exclusive ones when parsed, so the
+     * overlap engines see only the latter.
+     */
+    @Value("${parser.end-date-mode:EXCLUSIVE}")
+    EndDateMode endDateMode = EndDateMode.EXCLUSIVE;
+
+    /**
+     * Whether a line that cannot be parsed fails the file, or is skipped as
+     * long as the rejected lines stay within the budget, see
+     * {@link LineErrors}.
+     */
+    @Value("${parser.error-mode:STRICT}")
+    ParseErrorMode errorMode = ParseErrorMode.STRICT;
+
+    /**
+     * The number of rejected lines collected before the file fails in the
+     * {@link ParseErrorMode#STRICT} mode.
+     */
+    @Value("${parser.strict.max-errors:1}")
+    int strictMaxErrors = 1;
+
+    /**
+     * The maximum share of the lines skipped in the
+     * {@link ParseErrorMode#LENIENT} mode, from 0 to 1.
+     */
+    @Value("${parser.lenient.max-error-share:0.01}")
+    double lenientMaxErrorShare = 0.01;
+
+    /**
+     * The maximum number of the rejected lines reported per file.
+     */
+    @Value("${parser.max-reported-errors:100}")
+    int maxReportedErrors = 100;
+
+    /**
+     * The date the open ended assignments are ended on. When null, the
+     * current date is captured once per processed file, so all its open
+     * ended rows end on the same day.
+     */
+    LocalDate asOfDate;
+
+    /**
+     * The engine used for finding the overlaps between the employees on the
+     * same project. The nested loop engine is kept as a reference
+     * implementation.
+     */
+    @Value("${processing.overlap-engine:SWEEP_LINE}")
+    OverlapEngineType overlapEngineType = OverlapEngineType.SWEEP_LINE;
+
+    /**
+     * Whether the {@link PairPerProject} models are kept for retrieval. When
+     * disabled, the overlaps are only folded into the per-pair totals and
+     * empty lists are persisted, which keeps the memory usage low for large
+     * files.
+     */
+    @Value("${processing.retain-pairs:true}")
+    boolean retainPairs = true;
+
+    /**
+     * Whether the projects are processed one after another or concurrently
+     * on the pool of the {@link ParallelOverlapExecutor}.
+     */
+    @Value("${processing.execution-mode:PARALLEL}")
+    ExecutionMode executionMode = ExecutionMode.PARALLEL;
+
+    /**
+     * The maximum number of bytes of the rows buffered in memory by the
+     * {@link ExecutionMode#EXTERNAL} mode before they are sorted and written
+     * to a run file.
+     */
+    @Value("${processing.external.max-buffer-bytes:67108864}")
+    long externalMaxBufferBytes = 64L * 1024 * 1024;
+
+    /**
+     * The directory of the run files of the {@link ExecutionMode#EXTERNAL}
+     * mode, the temporary directory of the system if empty.
+     */
+    @Value("${processing.external.directory:}")
+    String externalDirectory = "";
+
     /**
      * Parses the provided file content, converts the content to
-     * {@link PairPerProject} models, persists them in memory
+     * {@link PairPerProject} models, persists them in the
+     * {@link ProcessedResultStore} (unless disabled with {@link #retainPairs})
      * and then logs information about the pair of employees that have worked
-     * together for the longest time. If no
-     * employees have worked together (no overlap between the time intervals
-     * during which they worked on same projects),
-     * logs this information instead.
+     * together for the longest time. If no employees have worked together (no
+     * overlap between the time intervals during which they worked on same
+     * projects), logs this information instead.
      *
      * @param file    the attached file
      * @param pattern the date formatting pattern used for the parsing of the
@@ -64,38 +204,568 @@ public class AttachmentProcessingServiceImpl
      */
     @Override
     public void process(MultipartFile file, String pattern) {
-        try (
-            InputStream is = file.getInputStream();
-            InputStreamReader fis = new InputStreamReader(is,
-                StandardCharsets.UTF_8);
-            BufferedReader reader = new BufferedReader(fis)
-        ) {
-            Map<String, List<ParsedLine>> parsedModelsPerProject = reader
-                .lines().map(String::trim)
-                .filter(Predicate.not(String::isEmpty))
-                .map((line) -> mapToParsedLine(line, pattern))
-                .collect(Collectors.groupingBy(ParsedLine::getProjectId));
-
-            List<PairPerProject> pairsPerProjects = parsedModelsPerProject
-                .values().stream().flatMap(this::mapToPairsPerProject)
-                .collect(Collectors.toList());
-            persistParsedModels(file.getOriginalFilename(), pairsPerProjects);
-
-            computeAndLogLongestWorkingPair(pairsPerProjects);
+        try {
+            process(file.getOriginalFilename(), file, pattern,
+                    new ProcessingProgress(file.getSize()));
         } catch (IOException e) {
             log.error("An error occurred while parsing file with name '{}'.",
                       file.getOriginalFilename(), e);
         }
     }
 
+    /**
+     * Processes the content as {@link #process(MultipartFile, String)} does,
+     * recording the time spent in each phase in the {@link ProcessingMetrics}.
+     * HASHING covers the first read of the content, PARSING the second one.
+     */
+    @Override
+    public void process(String fileName, InputStreamSource content,
+                        String pattern, ProcessingProgress progress)
+            throws IOException {
+        try {
+            processContent(fileName, content, pattern, progress);
+        } catch (IOException | RuntimeException e) {
+            progress.enterPhase(ProcessingPhase.FAILED);
+            metrics.recordFailed(progress);
+            throw e;
+        }
+    }
+
+    private void processContent(String fileName, InputStreamSource content,
+                                String pattern, ProcessingProgress progress)
+            throws IOException {
+        LocalDate asOf = asOfDate();
+        progress.enterPhase(ProcessingPhase.HASHING);
+        String key = ContentKeys.of(content, keyParameters(pattern));
+        if (reuse(fileName, key, asOf, progress).isPresent()) {
+            return;
+        }
+
+        progress.enterPhase(ProcessingPhase.PARSING);
+        if (executionMode == ExecutionMode.EXTERNAL) {
+            try (ExternalAssignmentSorter sorter = new ExternalAssignmentSorter(
+                    externalMaxBufferBytes, externalDirectory())) {
+                AssignmentRowParser parser;
+                try (InputStream is = content.getInputStream()) {
+                    parser = parse(is, pattern, asOf, progress, sorter);
+                }
+                PairCollector collector = computePairs(sorter, retainPairs,
+                                                       progress);
+                aggregateAndPersist(parsedResult(key, fileName, pattern,
+                                                 sorter.size(), parser),
+                                    collector, null, progress);
+            }
+            return;
+        }
+
+        AssignmentTable table = new AssignmentTable();
+        AssignmentRowParser parser;
+        try (InputStream is = content.getInputStream()) {
+            parser = parse(is, pattern, asOf, progress, table);
+        }
+        int rowCount = table.size();
+        PairCollector collector = computePairs(table, retainPairs, progress);
+        aggregateAndPersist(parsedResult(key, fileName, pattern, rowCount,
+                                         parser),
+                            collector, table, progress);
+    }
+
+    @Override
+    public BatchResult processBatch(List<MultipartFile> files, String pattern)
+            throws IOException {
+        long start = System.nanoTime();
+        ProcessingProgress progress = new ProcessingProgress(
+            files.stream().mapToLong(MultipartFile::getSize).sum());
+        try {
+            BatchResult result = processFiles(files, pattern, progress);
+            result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            log.info("Processed batch '{}' of {} files with {} rows, {} "
+                     + "duplicates, in {} ms.", result.getBatchId(),
+                     files.size(), result.getRowCount(),
+                     result.getDuplicateRows(), result.getElapsedMillis());
+            return result;
+        } catch (IOException | RuntimeException e) {
+            progress.enterPhase(ProcessingPhase.FAILED);
+            metrics.recordFailed(progress);
+            throw e;
+        }
+    }
+
+    private BatchResult processFiles(List<MultipartFile> files,
+                                     String pattern,
+                                     ProcessingProgress progress)
+            throws IOException {
+        LocalDate asOf = asOfDate();
+        progress.enterPhase(ProcessingPhase.PARSING);
+        List<Callable<ContentIngest>> tasks = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            tasks.add(() -> ingest(file, pattern, asOf));
+        }
+        List<ContentIngest> ingests = new ArrayList<>(files.size());
+        List<String> fileKeys = new ArrayList<>(files.size());
+        List<LineError> lineErrors = new ArrayList<>();
+        long rowsParsed = 0;
+        long rejectedLines = 0;
+        long openEndedRows = 0;
+        List<Future<ContentIngest>> futures = overlapExecutor.invokeAll(tasks);
+        for (int i = 0; i < files.size(); i++) {
+            ContentIngest ingest = await(futures.get(i));
+            ingests.add(ingest);
+            fileKeys.add(ContentKeys.of(ingest.getDigest(),
+                                        keyParameters(pattern)));
+            rowsParsed += ingest.getTable().size();
+            rejectedLines += ingest.getLineErrors().getRejectedLines();
+            openEndedRows += ingest.getParser().getOpenEndedRows();
+            addLineErrors(lineErrors, files.get(i).getOriginalFilename(),
+                          ingest.getLineErrors().getErrors());
+        }
+        progress.updateParsing(progress.getTotalBytes(), rowsParsed);
+
+        // the same files give the same batch, in any order
+        fileKeys.sort(null);
+        String batchId = ContentKeys.hashOf(String.join("\n", fileKeys));
+        String key = BATCH_KEY_PREFIX + batchId;
+        BatchResult.BatchResultBuilder result = BatchResult
+            .builder().batchId(batchId)
+            .fileNames(files.stream().map(MultipartFile::getOriginalFilename)
+                            .collect(Collectors.toList()));
+        Optional<ProcessedResult> existing = reuse(batchId, key, asOf,
+                                                   progress);
+        if (existing.isPresent()) {
+            return result.rowCount(existing.get().getRowCount())
+                         .duplicateRows(existing.get().getDuplicateRows())
+                         .rejectedLines(existing.get().getRejectedLines())
+                         .lineErrors(existing.get().getLineErrors())
+                         .asOfDate(existing.get().getAsOfDate())
+                         .longestPair(existing.get().getLongestPair())
+                         .reused(true).build();
+        }
+
+        AssignmentMerger merger = new AssignmentMerger((int) rowsParsed);
+        ingests.forEach(ingest -> merger.addAll(ingest.getTable()));
+        ingests.clear();
+        AssignmentTable table = merger.getMerged();
+        int rowCount = table.size();
+        PairCollector collector = computePairs(table, retainPairs, progress);
+        LocalDate resultAsOf = openEndedRows > 0 ? asOf : null;
+        Optional<WorkingPair> longestPair = aggregateAndPersist(
+            ProcessedResult.builder().key(key).fileName(batchId)
+                           .pattern(pattern).rowCount(rowCount)
+                           .duplicateRows(merger.getDuplicates())
+                           .rejectedLines(rejectedLines)
+                           .lineErrors(lineErrors).asOfDate(resultAsOf),
+            collector, table, progress);
+        return result.rowCount(rowCount)
+                     .duplicateRows(merger.getDuplicates())
+                     .rejectedLines(rejectedLines).lineErrors(lineErrors)
+                     .asOfDate(resultAsOf)
+                     .longestPair(longestPair.orElse(null)).build();
+    }
+
+    /**
+     * Adds the reported lines of a file of a batch, with the name of the
+     * file, as long as the batch has fewer than the maximum reported lines.
+     */
+    private void addLineErrors(List<LineError> lineErrors, String fileName,
+                               List<LineError> fileErrors) {
+        for (LineError error : fileErrors) {
+            if (lineErrors.size() >= maxReportedErrors) {
+                return;
+            }
+            lineErrors.add(LineError.builder()
+                                    .lineNumber(error.getLineNumber())
+                                    .line(error.getLine())
+                                    .reason(error.getReason())
+                                    .fileName(fileName).build());
+        }
+    }
+
+    /**
+     * Hashes and parses the whole file, see {@link ContentIngest}.
+     */
+    private ContentIngest ingest(MultipartFile file, String pattern,
+                                 LocalDate asOf) throws IOException {
+        ContentIngest ingest = startIngest(pattern, asOf,
+                                           new ProcessingProgress(
+                                               file.getSize()));
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (InputStream is = file.getInputStream()) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                ingest.feed(buffer, 0, read);
+            }
+            ingest.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (LineErrorsException e) {
+            metrics.recordRejectedLines(e.getRejectedLines());
+            throw e;
+        }
+        return ingest;
+    }
+
+    /**
+     * Returns the result of the completed task, rethrowing its failure.
+     */
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Starts the ingest, capturing the as-of date of the open ended rows, so
+     * an upload completed on the next day ends them on the same day.
+     */
+    @Override
+    public ContentIngest startIngest(String pattern,
+                                     ProcessingProgress progress) {
+        return startIngest(pattern, asOfDate(), progress);
+    }
+
+    private ContentIngest startIngest(String pattern, LocalDate asOf,
+                                      ProcessingProgress progress) {
+        progress.enterPhase(ProcessingPhase.PARSING);
+        AssignmentTable table = new AssignmentTable();
+        return new ContentIngest(table, new AssignmentRowParser(
+            table, dateParsers, pattern, detectPattern, endDateMode,
+            newLineErrors(), asOf), progress);
+    }
+
+    /**
+     * Completes the processing of the ingested content. The rows are always
+     * parsed into memory, so the {@link ExecutionMode#EXTERNAL} mode falls
+     * back to the sequential one.
+     */
+    @Override
+    public Optional<WorkingPair> process(String fileName, String pattern,
+                                         ContentIngest ingest,
+                                         ProcessingProgress progress) {
+        try {
+            try {
+                ingest.finish();
+            } catch (LineErrorsException e) {
+                metrics.recordRejectedLines(e.getRejectedLines());
+                throw e;
+            }
+            String key = ContentKeys.of(ingest.getDigest(),
+                                        keyParameters(pattern));
+            Optional<ProcessedResult> existing = reuse(
+                fileName, key, ingest.getParser().getAsOfDate(), progress);
+            if (existing.isPresent()) {
+                return Optional.ofNullable(existing.get().getLongestPair());
+            }
+            AssignmentTable table = ingest.getTable();
+            int rowCount = table.size();
+            PairCollector collector = computePairs(table, retainPairs,
+                                                   progress);
+            return aggregateAndPersist(parsedResult(key, fileName, pattern,
+                                                    rowCount,
+                                                    ingest.getParser()),
+                                       collector, table, progress);
+        } catch (RuntimeException e) {
+            progress.enterPhase(ProcessingPhase.FAILED);
+            metrics.recordFailed(progress);
+            throw e;
+        }
+    }
+
+    /**
+     * Completes the processing with the result already stored under the key,
+     * if any and if it is current as of the date, see
+     * {@link ProcessedResult#isCurrent(LocalDate)}. An outdated result is
+     * replaced once the file is processed again.
+     *
+     * @return the stored result, empty if there is none
+     */
+    private Optional<ProcessedResult> reuse(String fileName, String key,
+                                            LocalDate asOf,
+                                            ProcessingProgress progress) {
+        Optional<ProcessedResult> existing = resultStore.get(key);
+        if (existing.isPresent() && !existing.get().isCurrent(asOf)) {
+            log.info("Result of file with name '{}' as of {} is outdated, "
+                     + "processing it as of {}.", existing.get().getFileName(),
+                     existing.get().getAsOfDate(), asOf);
+            return Optional.empty();
+        }
+        if (existing.isPresent()) {
+            log.info("File with name '{}' was already processed as '{}'.",
+                     fileName, existing.get().getFileName());
+            resultStore.alias(fileName, key);
+            logLongestWorkingPair(Optional.ofNullable(
+                existing.get().getLongestPair()));
+            progress.enterPhase(ProcessingPhase.COMPLETED);
+            metrics.recordReused(progress);
+        }
+        return existing;
+    }
+
+    /**
+     * Starts the result of a single parsed file. The as-of date is recorded
+     * only if some rows were open ended, so the result of a file without them
+     * is reused on any date.
+     *
+     * @return the result without the pairs
+     */
+    private static ProcessedResult.ProcessedResultBuilder parsedResult(
+            String key, String fileName, String pattern, int rowCount,
+            AssignmentRowParser parser) {
+        LineErrors lineErrors = parser.getLineErrors();
+        return ProcessedResult.builder().key(key).fileName(fileName)
+                              .pattern(pattern).rowCount(rowCount)
+                              .rejectedLines(lineErrors.getRejectedLines())
+                              .lineErrors(lineErrors.getErrors())
+                              .asOfDate(parser.getOpenEndedRows() > 0
+                                        ? parser.getAsOfDate() : null);
+    }
+
+    /**
+     * Finds the longest working pair from the collected pairs and persists the
+     * result, keeping the parsed rows in the {@link TimelineRegistry} if they
+     * are provided.
+     *
+     * @param result    the result of the parsing, completed with the pairs
+     * @param collector the collected pairs
+     * @param table     the parsed rows, null if they are not kept
+     * @param progress  the progress of the processing
+     * @return the longest working pair, empty if there are no pairs
+     */
+    private Optional<WorkingPair> aggregateAndPersist(
+            ProcessedResult.ProcessedResultBuilder result,
+            PairCollector collector, AssignmentTable table,
+            ProcessingProgress progress) {
+        progress.enterPhase(ProcessingPhase.AGGREGATING);
+        Optional<WorkingPair> longestPair = collector.getTotals()
+                                                     .findLongest();
+        logLongestWorkingPair(longestPair);
+
+        progress.enterPhase(ProcessingPhase.PERSISTING);
+        ProcessedResult processed = result.pairs(collector.buildRecords())
+                                          .longestPair(longestPair.orElse(null))
+                                          .build();
+        if (processed.getRejectedLines() > 0) {
+            log.warn("Skipped {} lines of file with name '{}' that could not "
+                     + "be parsed.", processed.getRejectedLines(),
+                     processed.getFileName());
+            metrics.recordRejectedLines(processed.getRejectedLines());
+        }
+        resultStore.put(processed);
+        resultStore.alias(processed.getFileName(), processed.getKey());
+        if (table != null) {
+            timelines.register(processed.getKey(), table);
+        }
+        progress.enterPhase(ProcessingPhase.COMPLETED);
+        metrics.recordProcessed(progress, processed.getRowCount(),
+                                collector.getTotals().pairCount());
+        return longestPair;
+    }
+
+    /**
+     * Returns the date the open ended rows of a processing starting now are
+     * ended on, the configured one or the current date.
+     *
+     * @return the as-of date
+     */
+    private LocalDate asOfDate() {
+        return asOfDate != null ? asOfDate : LocalDate.now();
+    }
+
+    /**
+     * Sets the configured as-of date, parsed once so an invalid one fails the
+     * startup.
+     *
+     * @param asOfDate the date in the ISO format, empty for the current date
+     */
+    @Value("${processing.as-of-date:}")
+    void setAsOfDate(String asOfDate) {
+        this.asOfDate = asOfDate.isEmpty() ? null : LocalDate.parse(asOfDate);
+    }
+
+    private Path externalDirectory() {
+        return Paths.get(externalDirectory.isEmpty()
+                         ? System.getProperty("java.io.tmpdir")
+                         : externalDirectory);
+    }
+
+    /**
+     * Returns the parameters of the processing the result depends on, for the
+     * key of the result. The exclusive end dates and the strict parsing are
+     * left out, keeping the keys of the results stored before the modes were
+     * configurable. A file with rejected lines has no result in the strict
+     * mode, so the maximum number of errors does not change the result.
+     *
+     * @param pattern the date formatting pattern
+     * @return the parameters
+     */
+    private String keyParameters(String pattern) {
+        String parameters = endDateMode == EndDateMode.EXCLUSIVE ? pattern
+            : pattern + '/' + endDateMode;
+        return errorMode == ParseErrorMode.STRICT ? parameters
+            : parameters + '/' + errorMode;
+    }
+
+    /**
+     * Returns the budget of the rejected lines of a file in the configured
+     * {@link ParseErrorMode}.
+     *
+     * @return the budget
+     */
+    private LineErrors newLineErrors() {
+        return errorMode == ParseErrorMode.LENIENT
+               ? LineErrors.lenient(lenientMaxErrorShare, maxReportedErrors)
+               : LineErrors.strict(strictMaxErrors, maxReportedErrors);
+    }
+
+    /**
+     * Parses the content into the {@link AssignmentSink}, feeding the
+     * {@link CsvScanner} chunk by chunk and recording the progress after each
+     * chunk.
+     *
+     * @param content  the content of the file
+     * @param pattern  the date formatting pattern used for the parsing of the
+     *                 dates
+     * @param asOf     the date the open ended rows are ended on
+     * @param progress the progress of the processing
+     * @param table    the sink of the parsed rows
+     * @return the parser, with the rejected lines and the open ended rows
+     * @throws IOException         if reading the content or writing a run
+     *                             file fails
+     * @throws LineErrorsException if the rejected lines exceed the budget
+     */
+    private AssignmentRowParser parse(InputStream content, String pattern,
+                                      LocalDate asOf,
+                                      ProcessingProgress progress,
+                                      AssignmentSink table)
+            throws IOException {
+        AssignmentRowParser parser = new AssignmentRowParser(
+            table, dateParsers, pattern, detectPattern, endDateMode,
+            newLineErrors(), asOf);
+        CsvScanner scanner = new CsvScanner(parser);
+
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        long bytesRead = 0;
+        int read;
+        try {
+            while ((read = content.read(buffer)) != -1) {
+                scanner.feed(buffer, 0, read);
+                bytesRead += read;
+                progress.updateParsing(bytesRead, table.size());
+            }
+            scanner.finish();
+        } catch (UncheckedIOException e) {
+            // the sink failed, not the line
+            throw e.getCause();
+        } catch (LineErrorsException e) {
+            metrics.recordRejectedLines(e.getRejectedLines());
+            throw e;
+        }
+        progress.updateParsing(bytesRead, table.size());
+        return parser;
+    }
+
+    /**
+     * Coalesces the overlapping or adjacent rows of each employee on a
+     * project, see {@link AssignmentTable#coalesce()}, so the days of an
+     * employee working on a project in several rows are counted once. Then
+     * groups the rows of the table by project and passes the rows of each
+     * project to the configured {@link OverlapEngine}, either sequentially or
+     * in parallel depending on the {@link #executionMode}. The reported
+     * overlaps are folded into the totals per pair of employees and, if
+     * enabled, kept as {@link PairPerProject} models.
+     *
+     * @param table       the parsed rows
+     * @param retainPairs whether the {@link PairPerProject} models are kept
+     * @param progress    the progress of the processing
+     * @return the collector holding the results
+     */
+    private PairCollector computePairs(AssignmentTable table,
+                                       boolean retainPairs,
+                                       ProcessingProgress progress) {
+        progress.enterPhase(ProcessingPhase.GROUPING);
+        int coalescedRows = table.coalesce();
+        if (coalescedRows > 0) {
+            log.debug("Coalesced {} rows of the same employee and project.",
+                      coalescedRows);
+            metrics.recordCoalescedRows(coalescedRows);
+        }
+        ProjectGroups groups = table.groupByProject();
+
+        progress.enterPhase(ProcessingPhase.OVERLAP);
+        OverlapEngine engine = overlapEngineType.getEngine();
+        PairCollector collector = new PairCollector(table, retainPairs);
+        if (executionMode == ExecutionMode.PARALLEL) {
+            overlapExecutor.execute(table, groups, engine,
+                                    () -> new PairCollector(table,
+                                                            retainPairs))
+                           .forEach(collector::merge);
+            return collector;
+        }
+
+        for (int project = 0; project < groups.projectCount(); project++) {
+            if (engine.requiresRowsSortedByStart()) {
+                groups.sortByStart(table, project);
+            }
+            engine.findOverlaps(table, groups.getRows(), groups.start(project),
+                                groups.end(project), collector);
+        }
+        return collector;
+    }
+
+    /**
+     * Merges the sorted runs of the sorter and streams the rows through the
+     * {@link StreamingSweepLine}, for the {@link ExecutionMode#EXTERNAL}
+     * mode. The ids of the rows are encoded with the dictionaries of the
+     * buffer of the sorter.
+     *
+     * @param sorter      the sorter holding the parsed rows
+     * @param retainPairs whether the {@link PairPerProject} models are kept
+     * @param progress    the progress of the processing
+     * @return the collector holding the results
+     * @throws IOException if reading a run file fails
+     */
+    private PairCollector computePairs(ExternalAssignmentSorter sorter,
+                                       boolean retainPairs,
+                                       ProcessingProgress progress)
+            throws IOException {
+        progress.enterPhase(ProcessingPhase.GROUPING);
+        PairCollector collector = new PairCollector(sorter.getBuffer(),
+                                                    retainPairs);
+        try (SortedRunMerger rows = sorter.merge()) {
+            progress.enterPhase(ProcessingPhase.OVERLAP);
+            StreamingSweepLine sweep = new StreamingSweepLine(collector);
+            while (rows.next()) {
+                sweep.add(rows.employee(), rows.project(), rows.dateFrom(),
+                          rows.dateTo());
+            }
+        }
+        return collector;
+    }
+
     /**
      * Returns stream of {@link PairPerProject} models for the provided list of
      * models with a specific project id.
-     * The resulting models are computed by calculating the number of days
-     * during which each pair of the employees on
-     * the project have worked together. If no overlap between the time
-     * intervals during which two employees worked on
-     * the project, this number is set to 0.
+     * The resulting models are computed by the configured
+     * {@link OverlapEngine} by calculating the number of days during which
+     * the pairs of the employees on the project have worked together. The
+     * default {@link OverlapEngineType#SWEEP_LINE} engine returns only the
+     * pairs that overlap, while the reference
+     * {@link OverlapEngineType#NESTED_LOOP} engine returns each pair, setting
+     * the number to 0 if there is no overlap.
      * Package-private modifier for testing purpose.
      *
      * @param parsedModels the parsed models with a specific project id
@@ -103,141 +773,86 @@ public class AttachmentProcessingServiceImpl
      * ids present in the input
      */
     Stream<PairPerProject> mapToPairsPerProject(List<ParsedLine> parsedModels) {
-        String projectId = parsedModels.stream().iterator().next()
-                                       .getProjectId();
-        List<PairPerProject> resultList = new ArrayList<>();
-
-        int length = parsedModels.size();
-        for (int i = 0; i < length - 1; i++) {
-            for (int j = i + 1; j < length; j++) {
-                ParsedLine first = parsedModels.get(i);
-                ParsedLine second = parsedModels.get(j);
-                if (DateUtils.checkIfIntervalsOverlap(first.getDateFrom(),
-                                                      first.getDateTo(),
-                                                      second.getDateFrom(),
-                                                      second.getDateTo())) {
-                    resultList.add(
-                        PairPerProject.builder().projectId(projectId)
-                                .employeeIdFirst(first.getEmployeeId())
-                                .employeeIdSecond(second.getEmployeeId())
-                                .daysWorked(DateUtils.findIntervalOverlapInDays(
-                                        first.getDateFrom(),
-                                        first.getDateTo(),
-                                        second.getDateFrom(),
-                                        second.getDateTo()))
-                                .build());
-                } else {
-                    resultList.add(PairPerProject.builder().projectId(projectId)
-                                                 .employeeIdFirst(
-                                                     first.getEmployeeId())
-                                                 .employeeIdSecond(
-                                                     second.getEmployeeId())
-                                                 .daysWorked(0).build());
-                }
-            }
-        }
+        AssignmentTable table = new AssignmentTable(parsedModels.size());
+        parsedModels.forEach(model -> table.add(model.getEmployeeId(),
+                                                model.getProjectId(),
+                                                model.getDateFrom(),
+                                                model.getDateTo()));
 
-        return resultList.stream();
+        return computePairs(table, true, new ProcessingProgress(-1))
+            .buildRecords().toModels().stream();
     }
 
     /**
-     * Persists the provided {@link PairPerProject} models in
-     * {@link #processedFiles} map with the provided file name as
-     * key.
+     * Persists the provided {@link PairPerProject} models in the
+     * {@link ProcessedResultStore}, under a key derived from the provided
+     * file name.
      *
-     * @param fileName the name of the file used as key in the
-     *                 {@link #processedFiles} map
+     * @param fileName the name of the file
      * @param models   the computed {@link PairPerProject} models
      */
     @Override
     public void persistParsedModels(String fileName,
                                     List<PairPerProject> models) {
-        this.processedFiles.put(fileName, models);
+        String key = NAME_KEY_PREFIX + fileName;
+        resultStore.put(ProcessedResult.builder().key(key).fileName(fileName)
+                                       .pairs(ArrayPairRecords.of(models))
+                                       .build());
+        resultStore.alias(fileName, key);
     }
 
     /**
      * Retrieves and returns the {@link PairPerProject} models from the
-     * {@link #processedFiles} map for the provided key.
+     * {@link ProcessedResultStore} for the provided file name.
      *
-     * @param fileName the name of the file used as key in the
-     *                 {@link #processedFiles} map
-     * @return persisted {@link PairPerProject} models for the file name
+     * @param fileName the name of the file
+     * @return persisted {@link PairPerProject} models for the file name, null
+     * if there are none
      */
     @Override
     public List<PairPerProject> getParsedModels(String fileName) {
-        return this.processedFiles.get(fileName);
+        return resultStore.getByName(fileName)
+                          .map(result -> result.getPairs().toModels())
+                          .orElse(null);
+    }
+
+    @Override
+    public Optional<ParseReport> getParseReport(String fileName) {
+        return resultStore.getByName(fileName).map(
+            result -> ParseReport.builder().fileName(fileName)
+                                 .rowCount(result.getRowCount())
+                                 .rejectedLines(result.getRejectedLines())
+                                 .errors(result.getLineErrors()).build());
+    }
+
+    @Override
+    public Optional<PairRecords> getPairRecords(String fileName) {
+        return resultStore.getByName(fileName).map(ProcessedResult::getPairs);
     }
 
     /**
-     * Sums the {@link PairPerProject#getDaysWorked()} for the models with the
-     * matching employee ids and computes the
-     * maximum value. Logs this information.
+     * Logs information about the pair of employees that have worked together
+     * for the longest time, as computed by the {@link PairTotalsAggregator}.
      *
-     * @param pairsPerProjects all {@link PairPerProject} extracted from the
-     *                         initial file
+     * @param longestWorkingPair the longest working pair, if any
      */
-    private void computeAndLogLongestWorkingPair(
-            List<PairPerProject> pairsPerProjects) {
-        Map<Set<String>, Long> durationSums = pairsPerProjects.stream().collect(
-            Collectors.toMap(pair -> Set.of(pair.getEmployeeIdFirst(),
-                                            pair.getEmployeeIdSecond()),
-                             PairPerProject::getDaysWorked,
-                             Long::sum));
-
-        Optional<Map.Entry<Set<String>, Long>> longestWorkingPair = durationSums
-            .entrySet().stream().max(Map.Entry.comparingByValue());
-
+    private void logLongestWorkingPair(
+            Optional<WorkingPair> longestWorkingPair) {
         log.info(
             "===== Displaying the result for the LONGEST WORKING PAIR ====="
                 .concat(System.lineSeparator()));
-        if (longestWorkingPair.isEmpty()) {
-            log.warn(
-                "The pair of employees that have worked together for the " +
-                "longest time cannot be determined.");
+        if (longestWorkingPair.isEmpty()
+            || longestWorkingPair.get().getDaysWorked() == 0L) {
+            log.info("No employees have worked together.");
         } else {
-            if (longestWorkingPair.get().getValue() == 0L) {
-                log.info("No employees have worked together.");
-                return;
-            }
-
             log.info(
                 "The pair of employees that have worked together for the " +
                 "longest time is '{}', {} days total.",
-                longestWorkingPair.get().getKey().stream().map(
-                    str -> String.format("Employee Id: %s", str))
-                                  .collect(Collectors.joining(", ")),
-                longestWorkingPair.get().getValue());
-        }
-    }
-
-    /**
-     * Maps the parsed line to a {@link ParsedLine} model using the provided
-     * date formatting pattern.
-     *
-     * @param line                  the parsed line
-     * @param dateFormattingPattern the date formatting pattern to be used
-     */
-    private ParsedLine mapToParsedLine(String line,
-                                       String dateFormattingPattern) {
-        DateTimeFormatter formatter = DateTimeFormatter
-            .ofPattern(dateFormattingPattern);
-
-        String[] parts = line.split(",");
-        if (parts.length < 4) {
-            throw new IllegalStateException("Unexpected line format");
-        }
-
-        String dateFirstString = parts[2].trim();
-        String dateSecondString = parts[3].trim();
-        LocalDate dateFirst = LocalDate.parse(dateFirstString, formatter);
-
-        LocalDate dateSecond = LocalDate.now();
-        if (!"null".equalsIgnoreCase(dateSecondString)) {
-            dateSecond = LocalDate.parse(dateSecondString, formatter);
+                Stream.of(longestWorkingPair.get().getEmployeeIdFirst(),
+                          longestWorkingPair.get().getEmployeeIdSecond())
+                      .map(str -> String.format("Employee Id: %s", str))
+                      .collect(Collectors.joining(", ")),
+                longestWorkingPair.get().getDaysWorked());
         }
-
-        return ParsedLine.builder().employeeId(parts[0].trim())
-                         .projectId(parts[1].trim()).dateFrom(dateFirst)
-                         .dateTo(dateSecond).build();
     }
 }
@@ -0,0 +1,347 @@
+package com.example.longestperiodpair.application.service.impl;
+
+import com.example.longestperiodpair.application.model.DeltaResult;
+import com.example.longestperiodpair.application.service.IncrementalProcessingService;
+import com.example.longestperiodpair.application.service.incremental.IncrementalDataset;
+import com.example.longestperiodpair.application.service.ingest.AssignmentRowParser;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.CsvScanner;
+import com.example.longestperiodpair.application.service.ingest.DateParserRegistry;
+import com.example.longestperiodpair.application.service.ingest.LineErrors;
+import com.example.longestperiodpair.application.service.ingest.ParseErrorMode;
+import com.example.longestperiodpair.application.service.store.InMemoryProcessedResultStore;
+import com.example.longestperiodpair.application.service.store.ProcessedResult;
+import com.example.longestperiodpair.application.service.store.ProcessedResultStore;
+import com.example.longestperiodpair.application.util.EndDateMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+
+/**
+ * Keeps the {@link IncrementalDataset}s in memory and persists their results
+ * in the {@link ProcessedResultStore}. Applying a delta computes only the
+ * overlaps of the changed assignments; the result is only registered as
+ * pending, see {@link ProcessedResultStore#putPending}, as copying the
+ * per-project totals into new records takes time proportional to all the
+ * pairs. It is thus copied once when it is read, not after every delta.
+ * <p>
+ * The datasets are bounded like the {@link InMemoryProcessedResultStore}:
+ * by their estimated size in bytes, evicting the least recently used ones,
+ * and by a time to live since their last change. The result of an evicted
+ * dataset is stored before it is dropped.
+ * <p>
+ * The current date is captured once per dataset when it is created, so the
+ * open ended rows of all its deltas end on the same day.
+ */
+@Slf4j
+@Service
+public class IncrementalProcessingServiceImpl
+    implements IncrementalProcessingService {
+
+    /**
+     * Prefix of the keys of the results of the datasets.
+     */
+    private static final String DATASET_KEY_PREFIX = "dataset:";
+
+    private final DateParserRegistry dateParsers;
+    private final ProcessedResultStore resultStore;
+
+    private final long maxBytes;
+    private final long timeToLiveMillis;
+    private final Clock clock;
+
+    private final LinkedHashMap<String, Entry> datasets
+        = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    /**
+     * Whether the date pattern should be detected from the first rows of the
+     * file, in case the selected one does not match the dates.
+     */
+    @Value("${parser.detect-pattern:true}")
+    boolean detectPattern = true;
+
+    /**
+     * Whether the end dates of the files are inclusive or exclusive.
+     */
+    @Value("${parser.end-date-mode:EXCLUSIVE}")
+    EndDateMode endDateMode = EndDateMode.EXCLUSIVE;
+
+    /**
+     * Whether a line that cannot be parsed fails the file, or is skipped as
+     * long as the rejected lines stay within the budget, see
+     * {@link LineErrors}.
+     */
+    @Value("${parser.error-mode:STRICT}")
+    ParseErrorMode errorMode = ParseErrorMode.STRICT;
+
+    /**
+     * The number of rejected lines collected before the file fails in the
+     * {@link ParseErrorMode#STRICT} mode.
+     */
+    @Value("${parser.strict.max-errors:1}")
+    int strictMaxErrors = 1;
+
+    /**
+     * The maximum share of the lines skipped in the
+     * {@link ParseErrorMode#LENIENT} mode, from 0 to 1.
+     */
+    @Value("${parser.lenient.max-error-share:0.01}")
+    double lenientMaxErrorShare = 0.01;
+
+    /**
+     * The maximum number of the rejected lines reported per file.
+     */
+    @Value("${parser.max-reported-errors:100}")
+    int maxReportedErrors = 100;
+
+    /**
+     * The date the open ended assignments are ended on, the current date
+     * when null.
+     */
+    LocalDate asOfDate;
+
+    @Autowired
+    public IncrementalProcessingServiceImpl(
+            DateParserRegistry dateParsers, ProcessedResultStore resultStore,
+            @Value("${processing.store.max-bytes:268435456}") long maxBytes,
+            @Value("${processing.store.time-to-live:PT24H}")
+                Duration timeToLive) {
+        this(dateParsers, resultStore, maxBytes, timeToLive,
+             Clock.systemUTC());
+    }
+
+    IncrementalProcessingServiceImpl(DateParserRegistry dateParsers,
+                                     ProcessedResultStore resultStore,
+                                     long maxBytes, Duration timeToLive,
+                                     Clock clock) {
+        this.dateParsers = dateParsers;
+        this.resultStore = resultStore;
+        this.maxBytes = maxBytes;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public DeltaResult create(String datasetName, InputStreamSource content,
+                              String pattern) throws IOException {
+        long start = System.nanoTime();
+        LocalDate asOf = asOfDate != null ? asOfDate : LocalDate.now();
+        AssignmentTable table = new AssignmentTable();
+        boolean openEnded = parse(content, pattern, asOf, table)
+                                .getOpenEndedRows() > 0;
+        IncrementalDataset dataset = IncrementalDataset.build(table);
+        Entry entry = register(datasetName, dataset, asOf, openEnded);
+        persist(datasetName, pattern, entry);
+        resultStore.alias(datasetName, DATASET_KEY_PREFIX + datasetName);
+
+        DeltaResult result = DeltaResult.builder().datasetName(datasetName)
+                                        .rowCount(dataset.rowCount())
+                                        .rowsAdded(table.size())
+                                        .longestPair(dataset.findLongest()
+                                                            .orElse(null))
+                                        .elapsedMillis(elapsedMillis(start))
+                                        .build();
+        log.info("Created dataset '{}' with {} rows in {} ms.", datasetName,
+                 result.getRowCount(), result.getElapsedMillis());
+        return result;
+    }
+
+    @Override
+    public Optional<DeltaResult> applyDelta(String datasetName,
+                                            InputStreamSource content,
+                                            String pattern)
+            throws IOException {
+        Entry entry = find(datasetName);
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        IncrementalDataset dataset = entry.dataset;
+        AssignmentTable delta = new AssignmentTable();
+        boolean openEnded = parse(content, pattern, entry.asOfDate, delta)
+                                .getOpenEndedRows() > 0;
+        DeltaResult result;
+        synchronized (dataset) {
+            result = dataset.apply(delta);
+            result.setLongestPair(dataset.findLongest().orElse(null));
+        }
+        long applyMillis = elapsedMillis(start);
+        persist(datasetName, pattern,
+                register(datasetName, dataset, entry.asOfDate,
+                         entry.openEnded || openEnded));
+
+        result.setDatasetName(datasetName);
+        result.setElapsedMillis(elapsedMillis(start));
+        log.info("Applied delta to dataset '{}': {} added, {} updated, {} "
+                 + "projects changed, {} ms applying and {} ms in total.",
+                 datasetName, result.getRowsAdded(), result.getRowsUpdated(),
+                 result.getProjectsChanged(), applyMillis,
+                 result.getElapsedMillis());
+        return Optional.of(result);
+    }
+
+    private AssignmentRowParser parse(InputStreamSource content,
+                                      String pattern, LocalDate asOf,
+                                      AssignmentTable table)
+            throws IOException {
+        AssignmentRowParser parser = new AssignmentRowParser(
+            table, dateParsers, pattern, detectPattern, endDateMode,
+            newLineErrors(), asOf);
+        try (InputStream is = content.getInputStream()) {
+            new CsvScanner(parser).scan(is);
+        }
+        return parser;
+    }
+
+    /**
+     * Returns the budget of the rejected lines of a file in the configured
+     * {@link ParseErrorMode}.
+     *
+     * @return the budget
+     */
+    private LineErrors newLineErrors() {
+        return errorMode == ParseErrorMode.LENIENT
+               ? LineErrors.lenient(lenientMaxErrorShare, maxReportedErrors)
+               : LineErrors.strict(strictMaxErrors, maxReportedErrors);
+    }
+
+    private void persist(String datasetName, String pattern, Entry entry) {
+        resultStore.putPending(DATASET_KEY_PREFIX + datasetName,
+                               () -> toResult(datasetName, pattern, entry));
+    }
+
+    /**
+     * Builds the result of the dataset from a single snapshot, so a delta
+     * applied meanwhile cannot make the longest pair disagree with the
+     * records. The as-of date is recorded only if some rows were open ended,
+     * like for a processed file.
+     */
+    private static ProcessedResult toResult(String datasetName, String pattern,
+                                            Entry entry) {
+        IncrementalDataset dataset = entry.dataset;
+        ProcessedResult.ProcessedResultBuilder result
+            = ProcessedResult.builder().key(DATASET_KEY_PREFIX + datasetName)
+                             .fileName(datasetName).pattern(pattern)
+                             .asOfDate(entry.openEnded ? entry.asOfDate
+                                       : null);
+        synchronized (dataset) {
+            return result.pairs(dataset.buildRecords())
+                         .longestPair(dataset.findLongest().orElse(null))
+                         .rowCount(dataset.rowCount()).build();
+        }
+    }
+
+    /**
+     * Returns the dataset with the name, dropping it if it has expired.
+     */
+    private Entry find(String datasetName) {
+        synchronized (datasets) {
+            Entry entry = datasets.get(datasetName);
+            if (entry != null && isExpired(entry)) {
+                evict(datasetName, entry);
+                datasets.remove(datasetName);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Adds or refreshes the dataset with its current size, then evicts the
+     * expired datasets and the least recently used ones exceeding the bound,
+     * keeping this one.
+     *
+     * @return the entry of the dataset
+     */
+    private Entry register(String datasetName, IncrementalDataset dataset,
+                           LocalDate asOf, boolean openEnded) {
+        Entry entry = new Entry(dataset, asOf, openEnded,
+                                dataset.estimateBytes(), clock.millis());
+        synchronized (datasets) {
+            Entry previous = datasets.put(datasetName, entry);
+            if (previous != null) {
+                bytes -= previous.bytes;
+            }
+            bytes += entry.bytes;
+            Iterator<Map.Entry<String, Entry>> iterator = datasets.entrySet()
+                                                                  .iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                boolean overflowing = bytes > maxBytes
+                                      && !eldest.getKey().equals(datasetName);
+                if (overflowing || isExpired(eldest.getValue())) {
+                    iterator.remove();
+                    evict(eldest.getKey(), eldest.getValue());
+                }
+            }
+        }
+        return entry;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return clock.millis() - entry.changedAt > timeToLiveMillis;
+    }
+
+    /**
+     * Stores the pending result of the evicted dataset, so it stays readable
+     * once the dataset is gone.
+     */
+    private void evict(String datasetName, Entry entry) {
+        bytes -= entry.bytes;
+        resultStore.get(DATASET_KEY_PREFIX + datasetName);
+        log.info("Evicted dataset '{}' of about {} bytes.", datasetName,
+                 entry.bytes);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Sets the configured as-of date, parsed once so an invalid one fails the
+     * startup.
+     *
+     * @param asOfDate the date in the ISO format, empty for the current date
+     */
+    @Value("${processing.as-of-date:}")
+    void setAsOfDate(String asOfDate) {
+        this.asOfDate = asOfDate.isEmpty() ? null : LocalDate.parse(asOfDate);
+    }
+
+    /**
+     * A kept dataset with the date its open ended rows are ended on, whether
+     * it has any, its estimated size and the time of its last change.
+     */
+    private static final class Entry {
+
+        private final IncrementalDataset dataset;
+        private final LocalDate asOfDate;
+        private final boolean openEnded;
+        private final long bytes;
+        private final long changedAt;
+
+        private Entry(IncrementalDataset dataset, LocalDate asOfDate,
+                      boolean openEnded, long bytes, long changedAt) {
+            this.dataset = dataset;
+            this.asOfDate = asOfDate;
+            this.openEnded = openEnded;
+            this.bytes = bytes;
+            this.changedAt = changedAt;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.longestperiodpair.application.service.impl;
+
+import com.example.longestperiodpair.application.model.CollaborationComponent;
+import com.example.longestperiodpair.application.model.EmployeeCollaborations;
+import com.example.longestperiodpair.application.model.PairPage;
+import com.example.longestperiodpair.application.model.PairQuery;
+import com.example.longestperiodpair.application.model.TimelineResult;
+import com.example.longestperiodpair.application.model.WorkingPair;
+import com.example.longestperiodpair.application.service.PairQueryService;
+import com.example.longestperiodpair.application.service.graph.CollaborationGraph;
+import com.example.longestperiodpair.application.service.query.PairIndex;
+import com.example.longestperiodpair.application.service.query.TopPairs;
+import com.example.longestperiodpair.application.service.store.PairRecords;
+import com.example.longestperiodpair.application.service.store.ProcessedResult;
+import com.example.longestperiodpair.application.service.store.ProcessedResultStore;
+import com.example.longestperiodpair.application.service.timeline.TimelineIndex;
+import com.example.longestperiodpair.application.service.timeline.TimelineRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+
+/**
+ * Answers the queries with the {@link PairIndex} and the
+ * {@link CollaborationGraph} of the stored result. Each is built on the first
+ * query needing it and kept for the following ones, for a bounded number of
+ * results. The queries over windows of dates are answered by the
+ * {@link TimelineIndex} of the rows kept in the {@link TimelineRegistry}.
+ */
+@Slf4j
+@Service
+public class PairQueryServiceImpl implements PairQueryService {
+
+    private final ProcessedResultStore resultStore;
+    private final TimelineRegistry timelines;
+    private final Map<String, PairIndex> indexes;
+    private final Map<String, CollaborationGraph> graphs;
+
+    public PairQueryServiceImpl(
+            ProcessedResultStore resultStore, TimelineRegistry timelines,
+            @Value("${processing.query.index-cache-size:16}")
+                int indexCacheSize) {
+        this.resultStore = resultStore;
+        this.timelines = timelines;
+        this.indexes = newCache(indexCacheSize);
+        this.graphs = newCache(indexCacheSize);
+    }
+
+    @Override
+    public Optional<PairPage> query(String fileName, PairQuery query) {
+        return resultStore.getByName(fileName)
+                          .map(result -> getIndex(result).query(query));
+    }
+
+    /**
+     * Selects the pairs with {@link TopPairs}. The records of a project are
+     * taken from the {@link PairIndex} of the result, so only they are read.
+     */
+    @Override
+    public Optional<List<WorkingPair>> findTopPairs(String fileName,
+                                                    String projectId, int k) {
+        int limit = Math.min(Math.max(k, 0), PairIndex.MAX_LIMIT);
+        return resultStore.getByName(fileName).map(result -> {
+            int[] indexes = projectId == null
+                            ? null
+                            : getIndex(result).projectRecords(projectId);
+            return TopPairs.select(result.getPairs(), indexes, limit);
+        });
+    }
+
+    @Override
+    public Optional<EmployeeCollaborations> findCollaborations(
+            String fileName, String employeeId, long minDays, int limit) {
+        int collaboratorLimit = Math.min(Math.max(limit, 0),
+                                         PairIndex.MAX_LIMIT);
+        return resultStore.getByName(fileName)
+                          .flatMap(result -> getGraph(result).collaborations(
+                              employeeId, minDays, collaboratorLimit));
+    }
+
+    @Override
+    public Optional<List<CollaborationComponent>> findComponents(
+            String fileName, int limit) {
+        int componentLimit = Math.min(Math.max(limit, 0), PairIndex.MAX_LIMIT);
+        return resultStore.getByName(fileName)
+                          .map(result -> getGraph(result).components(
+                              componentLimit));
+    }
+
+    @Override
+    public Optional<CollaborationComponent> findComponent(String fileName,
+                                                          int componentId) {
+        return resultStore.getByName(fileName)
+                          .flatMap(result -> getGraph(result).component(
+                              componentId));
+    }
+
+    @Override
+    public Optional<TimelineResult> findTimeline(String fileName,
+                                                 LocalDate from, LocalDate to,
+                                                 String employeeId,
+                                                 int limit) {
+        int pairLimit = Math.min(Math.max(limit, 0), PairIndex.MAX_LIMIT);
+        return resultStore.getByName(fileName)
+                          .flatMap(result -> timelines.get(result.getKey()))
+                          .map(index -> toTimelineResult(
+                              from, to, index.query((int) from.toEpochDay(),
+                                                    (int) to.toEpochDay(),
+                                                    employeeId),
+                              pairLimit));
+    }
+
+    private static TimelineResult toTimelineResult(LocalDate from,
+                                                   LocalDate to,
+                                                   TimelineIndex.Window window,
+                                                   int limit) {
+        return TimelineResult.builder().from(from).to(to)
+                             .pairCount(window.getTotals().pairCount())
+                             .visitedRows(window.getVisitedRows())
+                             .longestPair(window.getTotals().findLongest()
+                                                .orElse(null))
+                             .pairs(window.getTotals().findTop(limit))
+                             .build();
+    }
+
+    private PairIndex getIndex(ProcessedResult result) {
+        return getCached(indexes, result, PairIndex::getRecords,
+                         PairIndex::build, "Indexed");
+    }
+
+    private CollaborationGraph getGraph(ProcessedResult result) {
+        return getCached(graphs, result, CollaborationGraph::getRecords,
+                         CollaborationGraph::build, "Built the graph of");
+    }
+
+    private <T> T getCached(Map<String, T> cache, ProcessedResult result,
+                            Function<T, PairRecords> recordsOf,
+                            Function<PairRecords, T> builder, String action) {
+        PairRecords records = result.getPairs();
+        synchronized (cache) {
+            T cached = cache.get(result.getKey());
+            // the result may have been replaced under the same key
+            if (cached != null && recordsOf.apply(cached) == records) {
+                return cached;
+            }
+        }
+        long start = System.nanoTime();
+        T built = builder.apply(records);
+        log.debug("{} {} pairs of '{}' in {} ms.", action, records.size(),
+                  result.getFileName(),
+                  (System.nanoTime() - start) / 1_000_000);
+        synchronized (cache) {
+            cache.put(result.getKey(), built);
+        }
+        return built;
+    }
+
+    private static <T> Map<String, T> newCache(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.longestperiodpair.application.service.impl;
+
+import com.example.longestperiodpair.application.model.JobStatus;
+import com.example.longestperiodpair.application.model.ProcessingPhase;
+import com.example.longestperiodpair.application.service.AttachmentProcessingService;
+import com.example.longestperiodpair.application.service.ProcessingJobService;
+import com.example.longestperiodpair.application.service.ingest.LineErrorsException;
+import com.example.longestperiodpair.application.service.job.ProcessingProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Processes the uploaded attachments on a bounded pool of threads. The
+ * content of the upload is first stored in a temporary file, as the multipart
+ * content is removed when the request completes. When the queue of the
+ * waiting jobs is full, new jobs are rejected instead of piling up.
+ */
+@Slf4j
+@Service
+public class ProcessingJobServiceImpl implements ProcessingJobService {
+
+    private final AttachmentProcessingService processingService;
+    private final Executor executor;
+    private final int maxFinishedJobs;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, String> latestJobPerFile
+        = new ConcurrentHashMap<>();
+    private final Queue<String> finishedJobs = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    public ProcessingJobServiceImpl(
+            AttachmentProcessingService processingService,
+            @Value("${processing.jobs.threads:2}") int threads,
+            @Value("${processing.jobs.queue-capacity:16}") int queueCapacity,
+            @Value("${processing.jobs.max-finished:1000}")
+                int maxFinishedJobs) {
+        this(processingService, newExecutor(threads, queueCapacity),
+             maxFinishedJobs);
+    }
+
+    /**
+     * Creates the service running the jobs on the provided executor, which
+     * throws {@link RejectedExecutionException} when it cannot take more.
+     *
+     * @param processingService the service processing the files
+     * @param executor          the executor of the jobs
+     * @param maxFinishedJobs   the number of finished jobs kept for polling
+     */
+    ProcessingJobServiceImpl(AttachmentProcessingService processingService,
+                             Executor executor, int maxFinishedJobs) {
+        this.processingService = processingService;
+        this.executor = executor;
+        this.maxFinishedJobs = maxFinishedJobs;
+    }
+
+    @Override
+    public String submit(MultipartFile file, String pattern)
+            throws IOException {
+        Path content = Files.createTempFile("attachment-", ".csv");
+        String jobId = UUID.randomUUID().toString();
+        try {
+            file.transferTo(content);
+            Job job = new Job(jobId, file.getOriginalFilename(),
+                              new ProcessingProgress(Files.size(content)));
+            // registered before it runs, so a fast job cannot finish before
+            // the file is seen as processing
+            jobs.put(jobId, job);
+            String previous = latestJobPerFile.put(job.fileName, jobId);
+            try {
+                executor.execute(() -> run(job, content, pattern));
+            } catch (RejectedExecutionException e) {
+                if (previous != null) {
+                    latestJobPerFile.replace(job.fileName, jobId, previous);
+                } else {
+                    latestJobPerFile.remove(job.fileName, jobId);
+                }
+                throw e;
+            }
+        } catch (IOException | RejectedExecutionException e) {
+            jobs.remove(jobId);
+            Files.deleteIfExists(content);
+            throw e;
+        }
+
+        log.info("Submitted job '{}' for file with name '{}'.", jobId,
+                 file.getOriginalFilename());
+        return jobId;
+    }
+
+    @Override
+    public Optional<JobStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::toStatus);
+    }
+
+    @Override
+    public boolean isProcessing(String fileName) {
+        String jobId = latestJobPerFile.get(fileName);
+        Job job = jobId != null ? jobs.get(jobId) : null;
+        return job != null && !job.isFinished();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor(int threads,
+                                                  int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "processing-job-"
+                                                     + threadCount
+                                                         .incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private void run(Job job, Path content, String pattern) {
+        try {
+            processingService.process(job.fileName,
+                                      new FileSystemResource(content), pattern,
+                                      job.progress);
+        } catch (IOException | RuntimeException e) {
+            log.error("Job '{}' processing file with name '{}' failed.",
+                      job.jobId, job.fileName, e);
+            job.error = e.getMessage() != null ? e.getMessage()
+                : e.getClass().getSimpleName();
+            if (e instanceof LineErrorsException) {
+                job.rejection = (LineErrorsException) e;
+            }
+            job.progress.enterPhase(ProcessingPhase.FAILED);
+        } finally {
+            deleteContent(content);
+            finish(job);
+        }
+    }
+
+    private void finish(Job job) {
+        finishedJobs.add(job.jobId);
+        while (finishedJobs.size() > maxFinishedJobs) {
+            String jobId = finishedJobs.poll();
+            Job removed = jobId != null ? jobs.remove(jobId) : null;
+            if (removed != null) {
+                latestJobPerFile.remove(removed.fileName, jobId);
+            }
+        }
+    }
+
+    private static void deleteContent(Path content) {
+        try {
+            Files.deleteIfExists(content);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary file '{}'.", content, e);
+        }
+    }
+
+    /**
+     * A submitted job.
+     */
+    private static final class Job {
+
+        private final String jobId;
+        private final String fileName;
+        private final ProcessingProgress progress;
+        private volatile String error;
+        private volatile LineErrorsException rejection;
+
+        private Job(String jobId, String fileName,
+                    ProcessingProgress progress) {
+            this.jobId = jobId;
+            this.fileName = fileName;
+            this.progress = progress;
+        }
+
+        private boolean isFinished() {
+            ProcessingPhase phase = progress.getPhase();
+            return phase == ProcessingPhase.COMPLETED
+                   || phase == ProcessingPhase.FAILED;
+        }
+
+        private JobStatus toStatus() {
+            return JobStatus.builder().jobId(jobId).fileName(fileName)
+                            .phase(progress.getPhase())
+                            .bytesRead(progress.getBytesRead())
+                            .totalBytes(progress.getTotalBytes())
+                            .rowsParsed(progress.getRowsParsed())
+                            .etaMillis(progress.estimateRemainingMillis())
+                            .phaseMillis(progress.getPhaseMillis())
+                            .error(error)
+                            .rejectedLines(rejection != null
+                                           ? rejection.getRejectedLines() : 0)
+                            .lineErrors(rejection != null
+                                        ? rejection.getErrors() : null)
+                            .build();
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.longestperiodpair.application.service.impl;
+
+import com.example.longestperiodpair.application.model.LineError;
+import com.example.longestperiodpair.application.model.ProcessingPhase;
+import com.example.longestperiodpair.application.model.UploadStatus;
+import com.example.longestperiodpair.application.model.WorkingPair;
+import com.example.longestperiodpair.application.service.AttachmentProcessingService;
+import com.example.longestperiodpair.application.service.UploadSessionService;
+import com.example.longestperiodpair.application.service.ingest.ContentIngest;
+import com.example.longestperiodpair.application.service.ingest.LineErrorsException;
+import com.example.longestperiodpair.application.service.job.ProcessingProgress;
+import com.example.longestperiodpair.application.service.metrics.ProcessingMetrics;
+import com.example.longestperiodpair.application.service.upload.TooManyUploadsException;
+import com.example.longestperiodpair.application.service.upload.UploadOffsetMismatchException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+
+/**
+ * Keeps the resumable uploads in memory, each with the
+ * {@link ContentIngest} parsing its content. The chunks of an upload are
+ * appended one at a time. At most the configured number of uploads receive
+ * their content at the same time, the finished ones only keep their status.
+ * Uploads idle for longer than the configured time are discarded
+ * periodically and when a new upload is opened, together with their parsed
+ * rows.
+ */
+@Slf4j
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final AttachmentProcessingService processingService;
+    private final ProcessingMetrics metrics;
+    private final long idleTimeoutNanos;
+    private final int maxOpenUploads;
+
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+    private final Semaphore openUploads;
+
+    public UploadSessionServiceImpl(
+            AttachmentProcessingService processingService,
+            ProcessingMetrics metrics,
+            @Value("${processing.uploads.idle-timeout:PT1H}")
+                Duration idleTimeout,
+            @Value("${processing.uploads.max-open:64}") int maxOpenUploads) {
+        this.processingService = processingService;
+        this.metrics = metrics;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.maxOpenUploads = maxOpenUploads;
+        this.openUploads = new Semaphore(maxOpenUploads);
+    }
+
+    @Override
+    public UploadStatus open(String fileName, String pattern,
+                             long totalBytes) {
+        evictIdle();
+        if (!openUploads.tryAcquire()) {
+            throw new TooManyUploadsException(maxOpenUploads);
+        }
+        String uploadId = UUID.randomUUID().toString();
+        ProcessingProgress progress = new ProcessingProgress(totalBytes);
+        Upload upload;
+        try {
+            upload = new Upload(uploadId, fileName, pattern, progress,
+                                processingService.startIngest(pattern,
+                                                              progress));
+        } catch (RuntimeException e) {
+            openUploads.release();
+            throw e;
+        }
+        uploads.put(uploadId, upload);
+        log.info("Opened upload '{}' for file with name '{}'.", uploadId,
+                 fileName);
+        return upload.toStatus();
+    }
+
+    @Override
+    public Optional<UploadStatus> append(String uploadId, long offset,
+                                         InputStream chunk)
+            throws IOException {
+        Upload upload = uploads.get(uploadId);
+        if (upload == null) {
+            return Optional.empty();
+        }
+        synchronized (upload) {
+            upload.append(offset, chunk);
+            return Optional.of(upload.toStatus());
+        }
+    }
+
+    @Override
+    public Optional<UploadStatus> complete(String uploadId) {
+        Upload upload = uploads.get(uploadId);
+        if (upload == null) {
+            return Optional.empty();
+        }
+        synchronized (upload) {
+            upload.complete();
+            return Optional.of(upload.toStatus());
+        }
+    }
+
+    @Override
+    public Optional<UploadStatus> getStatus(String uploadId) {
+        return Optional.ofNullable(uploads.get(uploadId))
+                       .map(Upload::toStatus);
+    }
+
+    @Override
+    public boolean abort(String uploadId) {
+        Upload upload = uploads.remove(uploadId);
+        if (upload == null) {
+            return false;
+        }
+        upload.release();
+        return true;
+    }
+
+    /**
+     * Discards the uploads idle for longer than the configured time.
+     */
+    @Scheduled(fixedDelayString = "${processing.uploads.evict-interval:PT1M}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        uploads.values().removeIf(upload -> {
+            if (now - upload.lastActivity <= idleTimeoutNanos) {
+                return false;
+            }
+            log.info("Discarded idle upload '{}'.", upload.uploadId);
+            upload.release();
+            return true;
+        });
+    }
+
+    /**
+     * An open, completed or failed upload. The ingest and the place among
+     * the open uploads are released once the upload is finished.
+     */
+    private final class Upload {
+
+        private final String uploadId;
+        private final String fileName;
+        private final String pattern;
+        private final ProcessingProgress progress;
+        private ContentIngest ingest;
+        private volatile long receivedBytes;
+        private volatile long lastActivity = System.nanoTime();
+        private volatile WorkingPair longestPair;
+        private volatile String error;
+        private volatile long rejectedLines;
+        private volatile List<LineError> lineErrors;
+
+        private Upload(String uploadId, String fileName, String pattern,
+                       ProcessingProgress progress, ContentIngest ingest) {
+            this.uploadId = uploadId;
+            this.fileName = fileName;
+            this.pattern = pattern;
+            this.progress = progress;
+            this.ingest = ingest;
+        }
+
+        private void append(long offset, InputStream chunk)
+                throws IOException {
+            lastActivity = System.nanoTime();
+            if (ingest == null) {
+                return;
+            }
+            if (offset > receivedBytes) {
+                throw new UploadOffsetMismatchException(offset,
+                                                        receivedBytes);
+            }
+            if (!skip(chunk, receivedBytes - offset)) {
+                return;
+            }
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int read;
+            while ((read = chunk.read(buffer)) != -1) {
+                // counted first, the fed chunk is consumed even if the
+                // parsing fails
+                receivedBytes += read;
+                try {
+                    ingest.feed(buffer, 0, read);
+                } catch (RuntimeException e) {
+                    if (e instanceof LineErrorsException) {
+                        metrics.recordRejectedLines(
+                            ((LineErrorsException) e).getRejectedLines());
+                    }
+                    fail(e);
+                    progress.enterPhase(ProcessingPhase.FAILED);
+                    metrics.recordFailed(progress);
+                    return;
+                } finally {
+                    lastActivity = System.nanoTime();
+                }
+            }
+        }
+
+        /**
+         * Skips the bytes already received.
+         *
+         * @return whether the chunk has more bytes
+         */
+        private boolean skip(InputStream chunk, long count)
+                throws IOException {
+            long skipped = 0;
+            while (skipped < count) {
+                long step = chunk.skip(count - skipped);
+                if (step <= 0) {
+                    if (chunk.read() == -1) {
+                        return false;
+                    }
+                    step = 1;
+                }
+                skipped += step;
+            }
+            return true;
+        }
+
+        private void complete() {
+            lastActivity = System.nanoTime();
+            if (ingest == null) {
+                return;
+            }
+            try {
+                longestPair = processingService.process(fileName, pattern,
+                                                        ingest, progress)
+                                               .orElse(null);
+                rejectedLines = ingest.getLineErrors().getRejectedLines();
+                lineErrors = ingest.getLineErrors().getErrors();
+                log.info("Completed upload '{}' of {} bytes.", uploadId,
+                         receivedBytes);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+            release();
+        }
+
+        private void fail(RuntimeException e) {
+            log.error("Upload '{}' of file with name '{}' failed.", uploadId,
+                      fileName, e);
+            error = e.getMessage() != null ? e.getMessage()
+                : e.getClass().getSimpleName();
+            if (e instanceof LineErrorsException) {
+                rejectedLines = ((LineErrorsException) e).getRejectedLines();
+                lineErrors = ((LineErrorsException) e).getErrors();
+            }
+            release();
+        }
+
+        private synchronized void release() {
+            if (ingest != null) {
+                ingest = null;
+                openUploads.release();
+            }
+        }
+
+        private UploadStatus toStatus() {
+            return UploadStatus.builder().uploadId(uploadId)
+                               .fileName(fileName)
+                               .phase(progress.getPhase())
+                               .receivedBytes(receivedBytes)
+                               .totalBytes(progress.getTotalBytes())
+                               .rowsParsed(progress.getRowsParsed())
+                               .longestPair(longestPair)
+                               .phaseMillis(progress.getPhaseMillis())
+                               .error(error).rejectedLines(rejectedLines)
+                               .lineErrors(lineErrors).build();
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.longestperiodpair.application.service.incremental;
+
+import com.example.longestperiodpair.application.model.DeltaResult;
+import com.example.longestperiodpair.application.model.WorkingPair;
+import com.example.longestperiodpair.application.service.aggregate.PairTotalsAggregator;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.ProjectGroups;
+import com.example.longestperiodpair.application.service.overlap.SweepLineOverlapEngine;
+import com.example.longestperiodpair.application.service.store.ArrayPairRecords;
+import com.example.longestperiodpair.application.service.store.PairRecordsBuilder;
+import com.example.longestperiodpair.application.util.DateUtils;
+import com.example.longestperiodpair.application.util.IdDictionary;
+import com.example.longestperiodpair.application.util.LongLongHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Assignments of a dataset kept together with the days worked by each pair of
+ * employees per project and in total, so delta files can be applied without
+ * computing the overlaps of the whole dataset again.
+ * <p>
+ * An assignment is identified by its employee, project and start date: a
+ * delta row with the identity of an existing assignment replaces its end
+ * date, any other delta row adds an assignment. Per project, the intervals
+ * are kept sorted by start date along with the length of the longest one,
+ * which bounds the intervals that can reach a changed range.
+ * <p>
+ * The assignments of an employee on a project are kept as they are, as the
+ * delta rows refer to them by their start dates, but the days of the pairs
+ * are those of the union of the intervals of each employee on the project,
+ * as if the rows were coalesced like the ones of a processed file. A changed
+ * assignment thus only changes the days of its range not covered by the
+ * other assignments of the employee: those days are added to, or removed
+ * from, the pairs of the employee with each colleague working on them.
+ * <p>
+ * The totals follow {@link PairTotalsAggregator}, including the tie rule of
+ * the longest working pair. Thread-safe, the operations are serialized on
+ * the dataset, so a consistent view of several of them is taken by
+ * synchronizing on it.
+ */
+public final class IncrementalDataset {
+
+    private final AssignmentTable table;
+    private final List<ProjectIntervals> projects = new ArrayList<>();
+    private final LongLongHashMap totals = new LongLongHashMap();
+
+    private long longestKey;
+    private long longestDays = -1;
+    private boolean longestStale;
+
+    // the intervals near a changed range, employee in the high bits and the
+    // position in the project in the low bits, and the uncovered days of the
+    // range as pairs of start and end
+    private long[] candidates = new long[16];
+    private int[] gaps = new int[8];
+
+    private IncrementalDataset(AssignmentTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Builds the dataset of the rows of the table, computing the overlaps of
+     * the coalesced rows of every project once. The table is owned by the
+     * dataset afterwards.
+     *
+     * @param table the parsed rows
+     * @return the dataset
+     */
+    public static IncrementalDataset build(AssignmentTable table) {
+        IncrementalDataset dataset = new IncrementalDataset(table);
+        ProjectGroups groups = table.groupByProject();
+        for (int project = 0; project < groups.projectCount(); project++) {
+            groups.sortByStart(table, project);
+            ProjectIntervals intervals = dataset.getProject(project);
+            for (int i = groups.start(project); i < groups.end(project); i++) {
+                intervals.append(table, groups.getRows()[i]);
+            }
+        }
+
+        AssignmentTable coalesced = table.copy();
+        coalesced.coalesce();
+        ProjectGroups coalescedGroups = coalesced.groupByProject();
+        SweepLineOverlapEngine engine = new SweepLineOverlapEngine();
+        for (int project = 0; project < coalescedGroups.projectCount();
+             project++) {
+            coalescedGroups.sortByStart(coalesced, project);
+            ProjectIntervals intervals = dataset.getProject(project);
+            engine.findOverlaps(coalesced, coalescedGroups.getRows(),
+                                coalescedGroups.start(project),
+                                coalescedGroups.end(project),
+                                (first, second, days) -> {
+                                    long key = PairTotalsAggregator.pairKey(
+                                        coalesced.employeeId(first),
+                                        coalesced.employeeId(second));
+                                    intervals.pairDays.addTo(key, days);
+                                    dataset.addToTotal(key, days);
+                                });
+        }
+        return dataset;
+    }
+
+    /**
+     * Applies the rows of the delta table to the dataset.
+     *
+     * @param delta the parsed rows of the delta file
+     * @return the counts of the applied rows
+     */
+    public synchronized DeltaResult apply(AssignmentTable delta) {
+        int added = 0;
+        int updated = 0;
+        int unchanged = 0;
+        boolean[] changedProjects = new boolean[table.getProjects().size()
+                                                + delta.getProjects().size()];
+        for (int row = 0; row < delta.size(); row++) {
+            int employee = table.getEmployees().intern(
+                delta.getEmployees().get(delta.employeeId(row)));
+            int project = table.getProjects().intern(
+                delta.getProjects().get(delta.projectId(row)));
+            switch (apply(employee, project, delta.dateFrom(row),
+                          delta.dateTo(row))) {
+                case ADDED:
+                    added++;
+                    changedProjects[project] = true;
+                    break;
+                case UPDATED:
+                    updated++;
+                    changedProjects[project] = true;
+                    break;
+                default:
+                    unchanged++;
+            }
+        }
+
+        int projectsChanged = 0;
+        for (boolean changed : changedProjects) {
+            projectsChanged += changed ? 1 : 0;
+        }
+        return DeltaResult.builder().rowCount(table.size()).rowsAdded(added)
+                          .rowsUpdated(updated).rowsUnchanged(unchanged)
+                          .projectsChanged(projectsChanged).build();
+    }
+
+    /**
+     * Returns the pair of employees with the highest total number of days
+     * worked together, see {@link PairTotalsAggregator#findLongest()}.
+     *
+     * @return the longest working pair, empty if there are no pairs
+     */
+    public synchronized Optional<WorkingPair> findLongest() {
+        if (longestStale) {
+            longestDays = -1;
+            totals.forEach((key, days) -> {
+                if (longestDays < days
+                    || (longestDays == days && key < longestKey)) {
+                    longestKey = key;
+                    longestDays = days;
+                }
+            });
+            longestStale = false;
+        }
+        if (longestDays < 0) {
+            return Optional.empty();
+        }
+        IdDictionary employees = table.getEmployees();
+        return Optional.of(WorkingPair.builder()
+                                      .employeeIdFirst(employees.get(
+                                          PairTotalsAggregator.firstId(
+                                              longestKey)))
+                                      .employeeIdSecond(employees.get(
+                                          PairTotalsAggregator.secondId(
+                                              longestKey)))
+                                      .daysWorked(longestDays).build());
+    }
+
+    /**
+     * Builds the records of the days worked by each pair per project. Unlike
+     * the records of a full processing, the overlaps of the same pair on the
+     * same project are summed into a single record.
+     *
+     * @return the records
+     */
+    public synchronized ArrayPairRecords buildRecords() {
+        PairRecordsBuilder builder = new PairRecordsBuilder();
+        for (int project = 0; project < projects.size(); project++) {
+            int projectId = project;
+            projects.get(project).pairDays.forEach((key, days) -> {
+                if (days > 0) {
+                    builder.add(PairTotalsAggregator.firstId(key),
+                                PairTotalsAggregator.secondId(key), projectId,
+                                (int) days);
+                }
+            });
+        }
+        return builder.build(table.getEmployees(), table.getProjects());
+    }
+
+    public synchronized int rowCount() {
+        return table.size();
+    }
+
+    /**
+     * Returns the approximate number of bytes taken by the dataset on heap:
+     * the rows with their positions and keys per project, and the days of
+     * the pairs per project and in total.
+     *
+     * @return the number of bytes
+     */
+    public synchronized long estimateBytes() {
+        long entries = totals.size();
+        for (ProjectIntervals intervals : projects) {
+            entries += intervals.pairDays.size();
+        }
+        // four columns and a position per row, and two longs per map entry
+        // at a load factor of about one half
+        return table.size() * (5L * Integer.BYTES + 4L * Long.BYTES)
+               + entries * 4L * Long.BYTES;
+    }
+
+    private Change apply(int employee, int project, int dateFrom,
+                         int dateTo) {
+        ProjectIntervals intervals = getProject(project);
+        long rowKey = ((long) employee << 32) | (dateFrom & 0xFFFFFFFFL);
+        int row = (int) intervals.rowsByKey.get(rowKey, -1);
+        // a new assignment is an update of an empty one
+        int oldDateTo = row >= 0 ? table.dateTo(row) : dateFrom;
+        if (row >= 0 && oldDateTo == dateTo) {
+            return Change.UNCHANGED;
+        }
+
+        // the range the assignment gains or loses, empty or inverted
+        // intervals covering no day
+        int low = Math.max(dateFrom, Math.min(oldDateTo, dateTo));
+        int high = Math.max(oldDateTo, dateTo);
+        if (low < high) {
+            addUncoveredDays(intervals, row, employee, low, high,
+                             dateTo > oldDateTo ? 1 : -1);
+        }
+
+        intervals.maxLength = Math.max(intervals.maxLength,
+                                       dateTo - dateFrom);
+        if (row >= 0) {
+            table.setDateTo(row, dateTo);
+            return Change.UPDATED;
+        }
+        intervals.insert(table, table.add(employee, project, dateFrom,
+                                          dateTo));
+        return Change.ADDED;
+    }
+
+    /**
+     * Adds the days of the range not covered by the other assignments of the
+     * employee to its pairs with the colleagues working on them, counting the
+     * days of each colleague once, or removes them if the sign is negative.
+     */
+    private void addUncoveredDays(ProjectIntervals intervals, int row,
+                                  int employee, int low, int high, int sign) {
+        // no interval starting before the bound reaches the low date
+        int from = intervals.lowerBound(table, low - intervals.maxLength);
+        int to = intervals.lowerBound(table, high);
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int other = intervals.rows[i];
+            if (other != row && table.dateTo(other) > low
+                && table.dateTo(other) > table.dateFrom(other)) {
+                if (count == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, count << 1);
+                }
+                candidates[count++] = ((long) table.employeeId(other) << 32)
+                                      | i;
+            }
+        }
+        // grouped by employee, each in start order
+        Arrays.sort(candidates, 0, count);
+
+        int gapCount = 0;
+        int cursor = low;
+        for (int k = 0; k < count; k++) {
+            if ((int) (candidates[k] >>> 32) != employee) {
+                continue;
+            }
+            int other = intervals.rows[(int) candidates[k]];
+            if (table.dateFrom(other) > cursor) {
+                gapCount = addGap(gapCount, cursor, table.dateFrom(other));
+            }
+            cursor = Math.max(cursor, Math.min(table.dateTo(other), high));
+        }
+        if (cursor < high) {
+            gapCount = addGap(gapCount, cursor, high);
+        }
+
+        int k = 0;
+        while (k < count) {
+            int colleague = (int) (candidates[k] >>> 32);
+            long days = 0;
+            int start = Integer.MIN_VALUE;
+            int end = Integer.MIN_VALUE;
+            for (; k < count && (int) (candidates[k] >>> 32) == colleague;
+                 k++) {
+                int other = intervals.rows[(int) candidates[k]];
+                if (table.dateFrom(other) > end) {
+                    days += uncoveredOverlap(gapCount, start, end);
+                    start = table.dateFrom(other);
+                }
+                end = Math.max(end, table.dateTo(other));
+            }
+            days += uncoveredOverlap(gapCount, start, end);
+            if (colleague != employee && days > 0) {
+                long key = PairTotalsAggregator.pairKey(employee, colleague);
+                intervals.pairDays.addTo(key, sign * days);
+                addToTotal(key, sign * days);
+            }
+        }
+    }
+
+    private int addGap(int gapCount, int start, int end) {
+        if (2 * gapCount + 2 > gaps.length) {
+            gaps = Arrays.copyOf(gaps, gaps.length << 1);
+        }
+        gaps[2 * gapCount] = start;
+        gaps[2 * gapCount + 1] = end;
+        return gapCount + 1;
+    }
+
+    private long uncoveredOverlap(int gapCount, int start, int end) {
+        long days = 0;
+        for (int g = 0; g < gapCount && start < end; g++) {
+            days += DateUtils.overlapDays(start, end, gaps[2 * g],
+                                          gaps[2 * g + 1]);
+        }
+        return days;
+    }
+
+    private void addToTotal(long key, long days) {
+        long total = totals.addTo(key, days);
+        if (key == longestKey && days < 0) {
+            longestStale = true;
+        } else if (!longestStale && (total > longestDays
+                                     || (total == longestDays
+                                         && key < longestKey))) {
+            longestKey = key;
+            longestDays = total;
+        }
+    }
+
+    private ProjectIntervals getProject(int project) {
+        while (projects.size() <= project) {
+            projects.add(new ProjectIntervals());
+        }
+        return projects.get(project);
+    }
+
+    private enum Change {
+        ADDED, UPDATED, UNCHANGED
+    }
+
+    /**
+     * The intervals of a project sorted by start date, with the days worked
+     * by each pair on the project.
+     */
+    private static final class ProjectIntervals {
+
+        private final LongLongHashMap rowsByKey = new LongLongHashMap();
+        private final LongLongHashMap pairDays = new LongLongHashMap();
+        private int[] rows = new int[4];
+        private int size;
+        private int maxLength;
+
+        private void append(AssignmentTable table, int row) {
+            insertAt(size, table, row);
+        }
+
+        private void insert(AssignmentTable table, int row) {
+            insertAt(lowerBound(table, table.dateFrom(row) + 1), table, row);
+        }
+
+        private void insertAt(int position, AssignmentTable table, int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size + (size >> 1) + 1);
+            }
+            System.arraycopy(rows, position, rows, position + 1,
+                             size - position);
+            rows[position] = row;
+            size++;
+            rowsByKey.put(((long) table.employeeId(row) << 32)
+                          | (table.dateFrom(row) & 0xFFFFFFFFL), row);
+            maxLength = Math.max(maxLength,
+                                 table.dateTo(row) - table.dateFrom(row));
+        }
+
+        /**
+         * Returns the position of the first interval starting at or after the
+         * date.
+         */
+        private int lowerBound(AssignmentTable table, int date) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (table.dateFrom(rows[middle]) < date) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
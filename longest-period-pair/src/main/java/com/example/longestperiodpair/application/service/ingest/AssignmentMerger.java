@@ -0,0 +1,85 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import com.example.longestperiodpair.application.util.IdDictionary;
+import com.example.longestperiodpair.application.util.LongLongHashMap;
+
+import java.util.Arrays;
+
+
+/**
+ * Merges the rows of several tables into one, re-encoding their ids with the
+ * dictionaries of the merged table and dropping the rows identical to an
+ * already merged one. The merged rows are chained per employee and project,
+ * so only the rows of the same assignee are compared. Not thread-safe.
+ */
+public final class AssignmentMerger {
+
+    private final AssignmentTable merged;
+    private final LongLongHashMap heads = new LongLongHashMap();
+    private int[] next;
+    private int duplicates;
+
+    /**
+     * Creates a merger.
+     *
+     * @param capacity the expected number of merged rows
+     */
+    public AssignmentMerger(int capacity) {
+        merged = new AssignmentTable(capacity);
+        next = new int[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Adds the rows of the table not merged yet.
+     *
+     * @param table the table
+     */
+    public void addAll(AssignmentTable table) {
+        int[] employees = remap(table.getEmployees(), merged.getEmployees());
+        int[] projects = remap(table.getProjects(), merged.getProjects());
+        for (int row = 0; row < table.size(); row++) {
+            add(employees[table.employeeId(row)],
+                projects[table.projectId(row)], table.dateFrom(row),
+                table.dateTo(row));
+        }
+    }
+
+    public AssignmentTable getMerged() {
+        return merged;
+    }
+
+    /**
+     * Returns the number of dropped rows identical to a merged one.
+     *
+     * @return the number of duplicates
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    private void add(int employee, int project, int dateFrom, int dateTo) {
+        long key = ((long) employee << 32) | (project & 0xFFFFFFFFL);
+        int head = (int) heads.get(key, -1);
+        for (int row = head; row >= 0; row = next[row]) {
+            if (merged.dateFrom(row) == dateFrom
+                && merged.dateTo(row) == dateTo) {
+                duplicates++;
+                return;
+            }
+        }
+        int row = merged.add(employee, project, dateFrom, dateTo);
+        if (row == next.length) {
+            next = Arrays.copyOf(next, row + (row >> 1) + 1);
+        }
+        next[row] = head;
+        heads.put(key, row);
+    }
+
+    private static int[] remap(IdDictionary source, IdDictionary target) {
+        int[] ids = new int[source.size()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = target.intern(source.get(id));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import com.example.longestperiodpair.application.util.EndDateMode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Parses the CSV rows with the employee id, the project id and the two dates
+ * of an assignment directly from the scanned bytes into an
+ * {@link AssignmentSink}, usually an {@link AssignmentTable}. A missing end
+ * date, {@code NULL}, is replaced with the as-of date, the current date
+ * unless provided, which is captured once so all the open ended rows of a
+ * file end on the same day. A first row without
+ * any digit in the start date column is treated as a header and skipped.
+ * Inclusive end dates are converted to exclusive ones, as the sink expects.
+ * <p>
+ * When the detection is enabled, the first rows are held back until the date
+ * pattern is detected from them with the {@link DateParserRegistry}, so a
+ * wrong pattern selection does not fail the whole upload.
+ * <p>
+ * The rows that cannot be parsed are passed to the {@link LineErrors}, which
+ * fails the parsing once its budget is exceeded, by default on the first
+ * one. The dates are validated without exceptions, so skipping the rejected
+ * rows in the lenient mode keeps the parsing on its fast path.
+ */
+public final class AssignmentRowParser implements CsvRowHandler {
+
+    /**
+     * The number of rows sampled for the detection of the date pattern.
+     */
+    public static final int DETECTION_SAMPLE_SIZE = 100;
+
+    private final AssignmentSink table;
+    private final DateParserRegistry parsers;
+    private final EndDateMode endDateMode;
+    private final LineErrors lineErrors;
+    private final LocalDate asOfDate;
+    private final int openEndDate;
+    private long openEndedRows;
+    private final List<SampledRow> sample;
+    private String pattern;
+    private EpochDayParser dateParser;
+    private boolean firstRow = true;
+
+    /**
+     * Creates a parser using the provided pattern for all rows.
+     *
+     * @param table      the table the rows are added to
+     * @param dateParser the parser of the dates
+     * @param asOfDate   the date the open ended rows end on
+     */
+    public AssignmentRowParser(AssignmentSink table,
+                               EpochDayParser dateParser,
+                               LocalDate asOfDate) {
+        this.table = table;
+        this.parsers = null;
+        this.endDateMode = EndDateMode.EXCLUSIVE;
+        this.lineErrors = LineErrors.strict(1, 1);
+        this.asOfDate = asOfDate;
+        this.openEndDate = (int) asOfDate.toEpochDay();
+        this.sample = null;
+        this.dateParser = dateParser;
+    }
+
+    /**
+     * Creates a parser using the registry for the parsing of the dates.
+     *
+     * @param table         the table the rows are added to
+     * @param parsers       the registry of the date parsers
+     * @param pattern       the date formatting pattern selected by the user
+     * @param detectPattern whether the pattern should be detected from the
+     *                      first rows, preferring the selected one
+     * @param asOfDate      the date the open ended rows end on
+     */
+    public AssignmentRowParser(AssignmentSink table,
+                               DateParserRegistry parsers, String pattern,
+                               boolean detectPattern, LocalDate asOfDate) {
+        this(table, parsers, pattern, detectPattern, EndDateMode.EXCLUSIVE,
+             asOfDate);
+    }
+
+    /**
+     * Creates a parser using the registry for the parsing of the dates, with
+     * end dates in the provided mode.
+     *
+     * @param table         the table the rows are added to
+     * @param parsers       the registry of the date parsers
+     * @param pattern       the date formatting pattern selected by the user
+     * @param detectPattern whether the pattern should be detected from the
+     *                      first rows, preferring the selected one
+     * @param endDateMode   whether the end dates are inclusive or exclusive
+     * @param asOfDate      the date the open ended rows end on, in the end
+     *                      date mode
+     */
+    public AssignmentRowParser(AssignmentSink table,
+                               DateParserRegistry parsers, String pattern,
+                               boolean detectPattern, EndDateMode endDateMode,
+                               LocalDate asOfDate) {
+        this(table, parsers, pattern, detectPattern, endDateMode,
+             LineErrors.strict(1, 1), asOfDate);
+    }
+
+    /**
+     * Creates a parser using the registry for the parsing of the dates, with
+     * end dates in the provided mode, the provided error budget and the
+     * provided end date of the open ended rows.
+     *
+     * @param table         the table the rows are added to
+     * @param parsers       the registry of the date parsers
+     * @param pattern       the date formatting pattern selected by the user
+     * @param detectPattern whether the pattern should be detected from the
+     *                      first rows, preferring the selected one
+     * @param endDateMode   whether the end dates are inclusive or exclusive
+     * @param lineErrors    the budget of the rejected lines
+     * @param asOfDate      the date the open ended rows end on, in the end
+     *                      date mode
+     */
+    public AssignmentRowParser(AssignmentSink table,
+                               DateParserRegistry parsers, String pattern,
+                               boolean detectPattern, EndDateMode endDateMode,
+                               LineErrors lineErrors, LocalDate asOfDate) {
+        this.table = table;
+        this.parsers = parsers;
+        this.endDateMode = endDateMode;
+        this.lineErrors = lineErrors;
+        this.asOfDate = asOfDate;
+        this.openEndDate = endDateMode.toExclusive(
+            (int) asOfDate.toEpochDay());
+        this.pattern = pattern;
+        if (detectPattern) {
+            this.sample = new ArrayList<>(DETECTION_SAMPLE_SIZE);
+        } else {
+            this.sample = null;
+            this.dateParser = parsers.get(pattern);
+        }
+    }
+
+    @Override
+    public void onRow(CsvRow row) {
+        if (firstRow) {
+            firstRow = false;
+            if (isHeader(row)) {
+                return;
+            }
+        }
+        if (row.fieldCount() < 4) {
+            reject(row.getLineNumber(), row.raw(), "Unexpected line format");
+            return;
+        }
+
+        byte[] buffer = row.getBuffer();
+        int employee = table.getEmployees().intern(buffer, row.start(0),
+                                                   row.end(0));
+        int project = table.getProjects().intern(buffer, row.start(1),
+                                                 row.end(1));
+        if (dateParser == null) {
+            sample.add(new SampledRow(row.getLineNumber(), row.raw(),
+                                      employee, project, row.field(2),
+                                      row.fieldEqualsIgnoreCase(3, "null")
+                                          ? null : row.field(3)));
+            if (sample.size() == DETECTION_SAMPLE_SIZE) {
+                detectPattern();
+            }
+            return;
+        }
+
+        int dateFrom = dateParser.tryParse(buffer, row.start(2), row.end(2));
+        if (dateFrom == EpochDayParser.INVALID_DATE) {
+            reject(row.getLineNumber(), row.raw(),
+                   invalidDate("start", row.field(2)));
+            return;
+        }
+        int dateTo = openEndDate;
+        if (row.fieldEqualsIgnoreCase(3, "null")) {
+            openEndedRows++;
+        } else {
+            dateTo = dateParser.tryParse(buffer, row.start(3), row.end(3));
+            if (dateTo == EpochDayParser.INVALID_DATE) {
+                reject(row.getLineNumber(), row.raw(),
+                       invalidDate("end", row.field(3)));
+                return;
+            }
+            dateTo = endDateMode.toExclusive(dateTo);
+        }
+        table.add(employee, project, dateFrom, dateTo);
+    }
+
+    @Override
+    public void onFinish() {
+        if (dateParser == null) {
+            detectPattern();
+        }
+        lineErrors.finish(table.size());
+    }
+
+    /**
+     * Returns the date formatting pattern used for the parsing, which is the
+     * detected one if the detection is enabled.
+     *
+     * @return the date formatting pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    public LineErrors getLineErrors() {
+        return lineErrors;
+    }
+
+    public LocalDate getAsOfDate() {
+        return asOfDate;
+    }
+
+    /**
+     * Returns the number of the parsed rows without an end date, which were
+     * ended on the as-of date.
+     *
+     * @return the number of open ended rows
+     */
+    public long getOpenEndedRows() {
+        return openEndedRows;
+    }
+
+    private void detectPattern() {
+        List<String> dates = new ArrayList<>(sample.size() * 2);
+        for (SampledRow sampledRow : sample) {
+            dates.add(sampledRow.dateFrom);
+            if (sampledRow.dateTo != null) {
+                dates.add(sampledRow.dateTo);
+            }
+        }
+        pattern = parsers.detect(pattern, dates);
+        dateParser = parsers.get(pattern);
+
+        for (SampledRow sampledRow : sample) {
+            int dateFrom = parse(sampledRow.dateFrom);
+            if (dateFrom == EpochDayParser.INVALID_DATE) {
+                reject(sampledRow.lineNumber, sampledRow.line,
+                       invalidDate("start", sampledRow.dateFrom));
+                continue;
+            }
+            int dateTo = openEndDate;
+            if (sampledRow.dateTo == null) {
+                openEndedRows++;
+            } else {
+                dateTo = parse(sampledRow.dateTo);
+                if (dateTo == EpochDayParser.INVALID_DATE) {
+                    reject(sampledRow.lineNumber, sampledRow.line,
+                           invalidDate("end", sampledRow.dateTo));
+                    continue;
+                }
+                dateTo = endDateMode.toExclusive(dateTo);
+            }
+            table.add(sampledRow.employee, sampledRow.project, dateFrom,
+                      dateTo);
+        }
+        sample.clear();
+    }
+
+    private int parse(String date) {
+        byte[] bytes = date.getBytes(StandardCharsets.UTF_8);
+        return dateParser.tryParse(bytes, 0, bytes.length);
+    }
+
+    private void reject(long lineNumber, String line, String reason) {
+        lineErrors.reject(lineNumber, line, reason, table.size());
+    }
+
+    private String invalidDate(String column, String value) {
+        String reason = "Invalid " + column + " date '" + value + "'";
+        return pattern == null ? reason
+            : reason + " for the pattern '" + pattern + "'";
+    }
+
+    private static boolean isHeader(CsvRow row) {
+        if (row.fieldCount() < 3) {
+            return false;
+        }
+        byte[] buffer = row.getBuffer();
+        for (int i = row.start(2); i < row.end(2); i++) {
+            if (buffer[i] >= '0' && buffer[i] <= '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Row held back until the date pattern is detected.
+     */
+    private static final class SampledRow {
+
+        private final long lineNumber;
+        private final String line;
+        private final int employee;
+        private final int project;
+        private final String dateFrom;
+        private final String dateTo;
+
+        private SampledRow(long lineNumber, String line, int employee,
+                           int project, String dateFrom, String dateTo) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.employee = employee;
+            this.project = project;
+            this.dateFrom = dateFrom;
+            this.dateTo = dateTo;
+        }
+    }
+}
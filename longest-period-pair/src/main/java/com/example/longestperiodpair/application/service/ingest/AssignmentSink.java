@@ -0,0 +1,33 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import com.example.longestperiodpair.application.util.IdDictionary;
+
+
+/**
+ * Receives the parsed assignments with dictionary encoded ids and dates in
+ * epoch days, see {@link AssignmentRowParser}.
+ */
+public interface AssignmentSink {
+
+    IdDictionary getEmployees();
+
+    IdDictionary getProjects();
+
+    /**
+     * Adds a row with already encoded ids and dates.
+     *
+     * @param employee the encoded employee id
+     * @param project  the encoded project id
+     * @param dateFrom the start date of the assignment in epoch days
+     * @param dateTo   the exclusive end date of the assignment in epoch days
+     * @return the index of the added row
+     */
+    int add(int employee, int project, int dateFrom, int dateTo);
+
+    /**
+     * Returns the number of the added rows.
+     *
+     * @return the number of rows
+     */
+    int size();
+}
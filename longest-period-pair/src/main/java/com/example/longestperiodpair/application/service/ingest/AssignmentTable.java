@@ -0,0 +1,259 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import com.example.longestperiodpair.application.util.IdDictionary;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+
+/**
+ * Columnar (struct-of-arrays) storage of the parsed assignments. The employee
+ * and project ids are dictionary encoded into ints and the dates are stored as
+ * epoch days, so each row takes four ints instead of a
+ * {@link com.example.longestperiodpair.application.model.ParsedLine} with its
+ * strings and dates.
+ */
+public final class AssignmentTable implements AssignmentSink {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final IdDictionary employees;
+    private final IdDictionary projects;
+
+    private int[] employeeIds;
+    private int[] projectIds;
+    private int[] datesFrom;
+    private int[] datesTo;
+    private int size;
+
+    /**
+     * Creates an empty table.
+     */
+    public AssignmentTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty table with the provided initial capacity.
+     *
+     * @param capacity the initial number of rows
+     */
+    public AssignmentTable(int capacity) {
+        this(new IdDictionary(), new IdDictionary(), capacity);
+    }
+
+    private AssignmentTable(IdDictionary employees, IdDictionary projects,
+                            int capacity) {
+        this.employees = employees;
+        this.projects = projects;
+        int initial = Math.max(capacity, 16);
+        employeeIds = new int[initial];
+        projectIds = new int[initial];
+        datesFrom = new int[initial];
+        datesTo = new int[initial];
+    }
+
+    /**
+     * Adds a row with the provided string ids and dates.
+     *
+     * @param employeeId the employee id
+     * @param projectId  the project id
+     * @param dateFrom   the start date of the assignment
+     * @param dateTo     the exclusive end date of the assignment
+     * @return the index of the added row
+     */
+    public int add(String employeeId, String projectId, LocalDate dateFrom,
+                   LocalDate dateTo) {
+        return add(employees.intern(employeeId), projects.intern(projectId),
+                   (int) dateFrom.toEpochDay(), (int) dateTo.toEpochDay());
+    }
+
+    @Override
+    public int add(int employee, int project, int dateFrom, int dateTo) {
+        if (size == employeeIds.length) {
+            int capacity = size + (size >> 1);
+            employeeIds = Arrays.copyOf(employeeIds, capacity);
+            projectIds = Arrays.copyOf(projectIds, capacity);
+            datesFrom = Arrays.copyOf(datesFrom, capacity);
+            datesTo = Arrays.copyOf(datesTo, capacity);
+        }
+        employeeIds[size] = employee;
+        projectIds[size] = project;
+        datesFrom[size] = dateFrom;
+        datesTo[size] = dateTo;
+        return size++;
+    }
+
+    /**
+     * Groups the rows by project with a stable counting sort on the project
+     * column. The rows of each project keep their original order.
+     *
+     * @return the rows grouped by project
+     */
+    public ProjectGroups groupByProject() {
+        int projectCount = projects.size();
+        int[] offsets = new int[projectCount + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[projectIds[i] + 1]++;
+        }
+        for (int p = 0; p < projectCount; p++) {
+            offsets[p + 1] += offsets[p];
+        }
+
+        int[] rows = new int[size];
+        int[] next = Arrays.copyOf(offsets, projectCount);
+        for (int i = 0; i < size; i++) {
+            rows[next[projectIds[i]]++] = i;
+        }
+        return new ProjectGroups(rows, offsets);
+    }
+
+    /**
+     * Merges the overlapping or adjacent rows of the same employee and
+     * project into one row spanning all of them, in place. The rows of each
+     * project are sorted by employee, and the rows of an employee with
+     * several of them by start date, so a single scan merges each row into
+     * the previous one it overlaps or touches, the end dates being exclusive.
+     * Empty or inverted rows are kept as they are. The remaining rows keep
+     * their order, but not their indexes.
+     *
+     * @return the number of removed rows
+     */
+    public int coalesce() {
+        ProjectGroups groups = groupByProject();
+        int[] rows = groups.getRows();
+        boolean[] removed = new boolean[size];
+        int removedCount = 0;
+        for (int project = 0; project < groups.projectCount(); project++) {
+            int from = groups.start(project);
+            int to = groups.end(project);
+            // employee in the high bits and the row in the low bits
+            long[] keys = new long[to - from];
+            for (int i = from; i < to; i++) {
+                keys[i - from] = ((long) employeeIds[rows[i]] << 32) | rows[i];
+            }
+            Arrays.sort(keys);
+            int runStart = 0;
+            for (int i = 1; i <= keys.length; i++) {
+                if (i == keys.length
+                    || (keys[i] >>> 32) != (keys[runStart] >>> 32)) {
+                    if (i - runStart > 1) {
+                        removedCount += coalesce(keys, runStart, i, removed);
+                    }
+                    runStart = i;
+                }
+            }
+        }
+        if (removedCount == 0) {
+            return 0;
+        }
+
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (!removed[row]) {
+                employeeIds[kept] = employeeIds[row];
+                projectIds[kept] = projectIds[row];
+                datesFrom[kept] = datesFrom[row];
+                datesTo[kept] = datesTo[row];
+                kept++;
+            }
+        }
+        size = kept;
+        return removedCount;
+    }
+
+    /**
+     * Merges the rows of an employee on a project, whose keys are stored
+     * between the provided positions.
+     */
+    private int coalesce(long[] keys, int from, int to, boolean[] removed) {
+        // start date in the high bits and the row in the low bits
+        long[] starts = new long[to - from];
+        for (int i = from; i < to; i++) {
+            int row = (int) keys[i];
+            starts[i - from] = ((long) datesFrom[row] << 32) | row;
+        }
+        Arrays.sort(starts);
+        int removedCount = 0;
+        int current = -1;
+        for (long start : starts) {
+            int row = (int) start;
+            if (datesTo[row] <= datesFrom[row]) {
+                continue;
+            }
+            if (current >= 0 && datesFrom[row] <= datesTo[current]) {
+                datesTo[current] = Math.max(datesTo[current], datesTo[row]);
+                removed[row] = true;
+                removedCount++;
+            } else {
+                current = row;
+            }
+        }
+        return removedCount;
+    }
+
+    /**
+     * Returns a copy of the rows sharing the dictionaries of this table, so
+     * the copy can be coalesced while the original rows are kept.
+     *
+     * @return the copy
+     */
+    public AssignmentTable copy() {
+        AssignmentTable copy = new AssignmentTable(employees, projects, size);
+        System.arraycopy(employeeIds, 0, copy.employeeIds, 0, size);
+        System.arraycopy(projectIds, 0, copy.projectIds, 0, size);
+        System.arraycopy(datesFrom, 0, copy.datesFrom, 0, size);
+        System.arraycopy(datesTo, 0, copy.datesTo, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Removes all rows, keeping the dictionaries and the capacity, so the
+     * table can be reused as a buffer of the rows.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public IdDictionary getEmployees() {
+        return employees;
+    }
+
+    @Override
+    public IdDictionary getProjects() {
+        return projects;
+    }
+
+    public int employeeId(int row) {
+        return employeeIds[row];
+    }
+
+    public int projectId(int row) {
+        return projectIds[row];
+    }
+
+    public int dateFrom(int row) {
+        return datesFrom[row];
+    }
+
+    public int dateTo(int row) {
+        return datesTo[row];
+    }
+
+    /**
+     * Replaces the end date of the row, for the updates of the assignments.
+     *
+     * @param row    the index of the row
+     * @param dateTo the exclusive end date of the assignment in epoch days
+     */
+    public void setDateTo(int row, int dateTo) {
+        datesTo[row] = dateTo;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
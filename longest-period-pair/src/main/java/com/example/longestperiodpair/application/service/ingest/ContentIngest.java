@@ -0,0 +1,90 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import com.example.longestperiodpair.application.service.job.ProcessingProgress;
+import com.example.longestperiodpair.application.service.store.ContentKeys;
+
+import java.security.MessageDigest;
+
+
+/**
+ * Hashes and parses a content fed chunk by chunk as it arrives, so the
+ * parsing overlaps with the transfer and the content is never read twice.
+ * The hash is the one of {@link ContentKeys}, computed before the chunk is
+ * passed to the {@link CsvScanner}, which may modify it. Not thread-safe.
+ */
+public final class ContentIngest {
+
+    private final AssignmentTable table;
+    private final AssignmentRowParser parser;
+    private final CsvScanner scanner;
+    private final MessageDigest digest = ContentKeys.newDigest();
+    private final ProcessingProgress progress;
+    private long bytesRead;
+
+    /**
+     * Creates an ingest parsing the rows into the table.
+     *
+     * @param table    the table of the parsed rows
+     * @param parser   the parser of the rows, adding them to the table
+     * @param progress the progress of the processing
+     */
+    public ContentIngest(AssignmentTable table, AssignmentRowParser parser,
+                         ProcessingProgress progress) {
+        this.table = table;
+        this.parser = parser;
+        this.scanner = new CsvScanner(parser);
+        this.progress = progress;
+    }
+
+    /**
+     * Hashes and parses the next chunk of the content.
+     *
+     * @param data   the buffer holding the chunk
+     * @param offset the start of the chunk in the buffer
+     * @param length the length of the chunk
+     * @throws LineErrorsException if the rejected lines exceed the budget
+     */
+    public void feed(byte[] data, int offset, int length) {
+        digest.update(data, offset, length);
+        scanner.feed(data, offset, length);
+        bytesRead += length;
+        progress.updateParsing(bytesRead, table.size());
+    }
+
+    /**
+     * Parses the last line of the content.
+     *
+     * @throws LineErrorsException if the rejected lines exceed the budget
+     */
+    public void finish() {
+        scanner.finish();
+        progress.updateParsing(bytesRead, table.size());
+    }
+
+    public AssignmentTable getTable() {
+        return table;
+    }
+
+    public LineErrors getLineErrors() {
+        return parser.getLineErrors();
+    }
+
+    public AssignmentRowParser getParser() {
+        return parser;
+    }
+
+    /**
+     * Returns the digest of the content fed so far, to be passed to
+     * {@link ContentKeys#of(MessageDigest, String)} once the content is
+     * complete.
+     *
+     * @return the digest
+     */
+    public MessageDigest getDigest() {
+        return digest;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+}
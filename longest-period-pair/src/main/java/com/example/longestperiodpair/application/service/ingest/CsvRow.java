@@ -0,0 +1,132 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * A row found by the {@link CsvScanner}. Holds only the boundaries of the
+ * fields in the scanned buffer, so no substrings are created. The row is
+ * reused by the scanner and is valid only during the
+ * {@link CsvRowHandler#onRow(CsvRow)} call.
+ */
+public final class CsvRow {
+
+    private byte[] buffer;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fieldCount;
+    private int rowStart;
+    private int rowEnd;
+    private long lineNumber;
+
+    void reset(byte[] buffer, int rowStart, int rowEnd, long lineNumber) {
+        this.buffer = buffer;
+        this.rowStart = rowStart;
+        this.rowEnd = rowEnd;
+        this.lineNumber = lineNumber;
+        this.fieldCount = 0;
+    }
+
+    void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount << 1);
+            ends = Arrays.copyOf(ends, fieldCount << 1);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * Checks whether the row has no content, e.g. an empty line.
+     *
+     * @return whether the row is blank
+     */
+    public boolean isBlank() {
+        return fieldCount == 1 && starts[0] == ends[0];
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the start of the field in the buffer, after the leading
+     * whitespace and the opening quote.
+     *
+     * @param field the field index
+     * @return the start of the field
+     */
+    public int start(int field) {
+        return starts[field];
+    }
+
+    /**
+     * Returns the end of the field in the buffer (exclusive), before the
+     * trailing whitespace and the closing quote.
+     *
+     * @param field the field index
+     * @return the end of the field
+     */
+    public int end(int field) {
+        return ends[field];
+    }
+
+    /**
+     * Returns the line number of the row, starting from 1.
+     *
+     * @return the line number
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Checks whether the field contains the provided ASCII value, ignoring
+     * the case.
+     *
+     * @param field the field index
+     * @param value the lower case ASCII value
+     * @return whether the field matches the value
+     */
+    public boolean fieldEqualsIgnoreCase(int field, String value) {
+        int start = starts[field];
+        if (ends[field] - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if ((buffer[start + i] | 0x20) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the field to a string. Allocates, so it is meant for the
+     * uncommon paths only.
+     *
+     * @param field the field index
+     * @return the field value
+     */
+    public String field(int field) {
+        return new String(buffer, starts[field], ends[field] - starts[field],
+                          StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the whole row to a string. Allocates, so it is meant for the
+     * uncommon paths only.
+     *
+     * @return the row text
+     */
+    public String raw() {
+        return new String(buffer, rowStart, rowEnd - rowStart,
+                          StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+
+/**
+ * Receives the rows found by the {@link CsvScanner}.
+ */
+@FunctionalInterface
+public interface CsvRowHandler {
+
+    /**
+     * Handles a non-blank row. The row is valid only during this call.
+     *
+     * @param row the row
+     */
+    void onRow(CsvRow row);
+
+    /**
+     * Called after the last row of the input was handled.
+     */
+    default void onFinish() {
+    }
+}
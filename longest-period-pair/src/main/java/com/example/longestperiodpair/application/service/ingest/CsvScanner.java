@@ -0,0 +1,251 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+
+/**
+ * Byte-level CSV scanner. Finds the field boundaries directly in the input
+ * bytes and passes them to a {@link CsvRowHandler}, without decoding the
+ * content or creating substrings. Handles quoted fields (with {@code ""}
+ * escapes and line breaks), CRLF line endings, a leading UTF-8 BOM and
+ * whitespace around the fields.
+ * <p>
+ * The scanner is push based: the bytes can be fed in chunks of any size as
+ * they arrive and the complete rows are scanned in place in the provided
+ * chunk. Only the incomplete row at the end of a chunk is copied and kept
+ * until the rest of it arrives. The unescaping of the quoted fields is done
+ * in place, so the fed chunks may be modified.
+ */
+public final class CsvScanner {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CsvRowHandler handler;
+    private final CsvRow row = new CsvRow();
+
+    private byte[] pending = new byte[256];
+    private int pendingLength;
+    private boolean started;
+    private long lineNumber;
+    private long bytesScanned;
+    private int recordLines;
+
+    public CsvScanner(CsvRowHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Scans the whole provided stream.
+     *
+     * @param inputStream the stream with the CSV content
+     * @throws IOException if reading from the stream fails
+     */
+    public void scan(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            feed(buffer, 0, read);
+        }
+        finish();
+    }
+
+    /**
+     * Scans the complete rows in the provided chunk and keeps the incomplete
+     * row at its end for the next chunk.
+     *
+     * @param data   the buffer holding the chunk
+     * @param offset the start of the chunk in the buffer
+     * @param length the length of the chunk
+     */
+    public void feed(byte[] data, int offset, int length) {
+        int position = offset;
+        int limit = offset + length;
+        // complete the pending row first, appending up to the next line break
+        while (pendingLength > 0 || !started) {
+            if (position == limit) {
+                return;
+            }
+            int lineEnd = indexOf(data, position, limit, (byte) '\n');
+            int chunkEnd = lineEnd < 0 ? limit : lineEnd + 1;
+            append(data, position, chunkEnd);
+            position = chunkEnd;
+            compactPending(scanRecords(pending, 0, pendingLength, false));
+        }
+
+        int consumed = scanRecords(data, position, limit, false);
+        append(data, consumed, limit);
+    }
+
+    /**
+     * Scans the remaining row, which does not need to end with a line break,
+     * and notifies the handler that the input is finished.
+     */
+    public void finish() {
+        scanRecords(pending, 0, pendingLength, true);
+        pendingLength = 0;
+        handler.onFinish();
+    }
+
+    /**
+     * Returns the number of bytes of the rows scanned so far.
+     *
+     * @return the number of scanned bytes
+     */
+    public long getBytesScanned() {
+        return bytesScanned;
+    }
+
+    /**
+     * Returns the number of lines scanned so far.
+     *
+     * @return the number of lines
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    private int scanRecords(byte[] buffer, int position, int limit,
+                            boolean endOfInput) {
+        if (!started) {
+            if (limit - position < 3 && !endOfInput) {
+                return position;
+            }
+            if (limit - position >= 3 && buffer[position] == (byte) 0xEF
+                && buffer[position + 1] == (byte) 0xBB
+                && buffer[position + 2] == (byte) 0xBF) {
+                position += 3;
+                bytesScanned += 3;
+            }
+            started = true;
+        }
+
+        while (position < limit) {
+            int recordEnd = findRecordEnd(buffer, position, limit);
+            if (recordEnd < 0) {
+                if (!endOfInput) {
+                    break;
+                }
+                recordEnd = limit;
+            }
+
+            tokenize(buffer, position, recordEnd);
+            lineNumber += recordLines;
+            if (!row.isBlank()) {
+                handler.onRow(row);
+            }
+            int next = Math.min(recordEnd + 1, limit);
+            bytesScanned += next - position;
+            position = next;
+        }
+        return position;
+    }
+
+    /**
+     * Returns the position of the line break ending the record, skipping the
+     * line breaks inside quotes, or -1 if the record is not complete.
+     */
+    private int findRecordEnd(byte[] buffer, int position, int limit) {
+        boolean quoted = false;
+        recordLines = 1;
+        for (int i = position; i < limit; i++) {
+            byte value = buffer[i];
+            if (value == '"') {
+                quoted = !quoted;
+            } else if (value == '\n') {
+                if (!quoted) {
+                    return i;
+                }
+                recordLines++;
+            }
+        }
+        return -1;
+    }
+
+    private void tokenize(byte[] buffer, int start, int end) {
+        int rowEnd = end;
+        if (rowEnd > start && buffer[rowEnd - 1] == '\r') {
+            rowEnd--;
+        }
+        row.reset(buffer, start, rowEnd, lineNumber + 1);
+
+        int position = start;
+        while (true) {
+            while (position < end && isBlank(buffer[position])) {
+                position++;
+            }
+
+            int fieldStart;
+            int fieldEnd;
+            if (position < end && buffer[position] == '"') {
+                fieldStart = position + 1;
+                int read = fieldStart;
+                int write = fieldStart;
+                while (read < end) {
+                    byte value = buffer[read];
+                    if (value == '"') {
+                        if (read + 1 < end && buffer[read + 1] == '"') {
+                            buffer[write++] = '"';
+                            read += 2;
+                            continue;
+                        }
+                        read++;
+                        break;
+                    }
+                    buffer[write++] = value;
+                    read++;
+                }
+                fieldEnd = write;
+                position = read;
+                while (position < end && buffer[position] != ',') {
+                    position++;
+                }
+            } else {
+                fieldStart = position;
+                while (position < end && buffer[position] != ',') {
+                    position++;
+                }
+                fieldEnd = position;
+                while (fieldEnd > fieldStart && isBlank(buffer[fieldEnd - 1])) {
+                    fieldEnd--;
+                }
+            }
+            row.addField(fieldStart, fieldEnd);
+
+            if (position >= end) {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private void append(byte[] data, int from, int to) {
+        int length = to - from;
+        if (pendingLength + length > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length << 1,
+                                                      pendingLength + length));
+        }
+        System.arraycopy(data, from, pending, pendingLength, length);
+        pendingLength += length;
+    }
+
+    private void compactPending(int consumed) {
+        System.arraycopy(pending, consumed, pending, 0,
+                         pendingLength - consumed);
+        pendingLength -= consumed;
+    }
+
+    private static int indexOf(byte[] buffer, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(byte value) {
+        return value == ' ' || value == '\t' || value == '\r';
+    }
+}
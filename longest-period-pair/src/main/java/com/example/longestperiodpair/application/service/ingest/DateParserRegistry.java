@@ -0,0 +1,126 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Keeps a bounded, least recently used cache of the compiled
+ * {@link EpochDayParser}s keyed by pattern, so each pattern is compiled once
+ * instead of for every parsed line. Also detects the pattern of the dates in
+ * a file from a sample of its values.
+ */
+@Slf4j
+@Component
+public class DateParserRegistry {
+
+    /**
+     * The patterns offered by the frontend application, tried in this order
+     * during the detection.
+     */
+    public static final List<String> DEFAULT_CANDIDATE_PATTERNS = List.of(
+        "yyyy-MM-dd", "dd/MM/yyyy", "dd-MM-yyyy", "MM-dd-yyyy", "MM/dd/yyyy");
+
+    private final Map<String, EpochDayParser> parsers;
+    private final List<String> candidatePatterns;
+
+    @Autowired
+    public DateParserRegistry(
+            @Value("${parser.date-cache-size:32}") int cacheSize,
+            @Value("${parser.candidate-patterns:yyyy-MM-dd,dd/MM/yyyy,"
+                   + "dd-MM-yyyy,MM-dd-yyyy,MM/dd/yyyy}")
+                List<String> candidatePatterns) {
+        this.parsers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, EpochDayParser> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.candidatePatterns = List.copyOf(candidatePatterns);
+    }
+
+    /**
+     * Creates a registry with the default settings, for use outside of the
+     * Spring context.
+     */
+    public DateParserRegistry() {
+        this(32, DEFAULT_CANDIDATE_PATTERNS);
+    }
+
+    /**
+     * Returns the compiled parser for the provided pattern, compiling it if
+     * it is not cached.
+     *
+     * @param pattern the date formatting pattern
+     * @return the parser
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public EpochDayParser get(String pattern) {
+        synchronized (parsers) {
+            EpochDayParser parser = parsers.get(pattern);
+            if (parser == null) {
+                parser = EpochDayParser.forPattern(pattern);
+                parsers.put(pattern, parser);
+            }
+            return parser;
+        }
+    }
+
+    /**
+     * Detects the pattern of the provided date values. The preferred pattern
+     * is kept if it parses all values, otherwise the first candidate pattern
+     * parsing all of them is returned. If no pattern parses all the values,
+     * the preferred one is returned, so the parsing fails as usual.
+     *
+     * @param preferred the pattern selected by the user
+     * @param samples   the sampled date values
+     * @return the detected pattern
+     */
+    public String detect(String preferred, List<String> samples) {
+        List<String> patterns = new ArrayList<>();
+        patterns.add(preferred);
+        candidatePatterns.stream().filter(p -> !p.equals(preferred))
+                         .forEach(patterns::add);
+
+        for (String pattern : patterns) {
+            if (parsesAll(pattern, samples)) {
+                if (!pattern.equals(preferred)) {
+                    log.info("The dates do not match the pattern '{}', "
+                             + "using the detected pattern '{}'.", preferred,
+                             pattern);
+                }
+                return pattern;
+            }
+        }
+        return preferred;
+    }
+
+    private boolean parsesAll(String pattern, List<String> samples) {
+        EpochDayParser parser;
+        try {
+            parser = get(pattern);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        for (String sample : samples) {
+            byte[] bytes = sample.getBytes(StandardCharsets.UTF_8);
+            try {
+                parser.parse(bytes, 0, bytes.length);
+            } catch (DateTimeException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
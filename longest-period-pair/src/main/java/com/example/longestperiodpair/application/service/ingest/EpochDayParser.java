@@ -0,0 +1,78 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+
+/**
+ * Parses the dates stored as bytes in an input buffer to epoch days.
+ */
+@FunctionalInterface
+public interface EpochDayParser {
+
+    /**
+     * The ISO pattern, used by default.
+     */
+    String ISO_PATTERN = "yyyy-MM-dd";
+
+    /**
+     * Returned by {@link #tryParse(byte[], int, int)} for an invalid date.
+     */
+    int INVALID_DATE = Integer.MIN_VALUE;
+
+    /**
+     * Parses the date in the provided buffer range.
+     *
+     * @param buffer the buffer holding the date
+     * @param start  the start of the date in the buffer
+     * @param end    the end of the date in the buffer (exclusive)
+     * @return the parsed date in epoch days
+     * @throws DateTimeParseException if the date cannot be parsed
+     */
+    int parse(byte[] buffer, int start, int end);
+
+    /**
+     * Parses the date in the provided buffer range, returning
+     * {@link #INVALID_DATE} instead of throwing if the date cannot be parsed.
+     * The parsers for which invalid dates are expected override it without
+     * creating the exception.
+     *
+     * @param buffer the buffer holding the date
+     * @param start  the start of the date in the buffer
+     * @param end    the end of the date in the buffer (exclusive)
+     * @return the parsed date in epoch days, or {@link #INVALID_DATE}
+     */
+    default int tryParse(byte[] buffer, int start, int end) {
+        try {
+            return parse(buffer, start, end);
+        } catch (DateTimeException e) {
+            return INVALID_DATE;
+        }
+    }
+
+    /**
+     * Compiles a parser for the provided date formatting pattern. The fixed
+     * width numeric patterns get a {@link FixedWidthDateParser}, the others
+     * fall back to a {@link DateTimeFormatter}. Compiling is not cheap, so the
+     * parsers should be obtained from the {@link DateParserRegistry}.
+     *
+     * @param pattern the date formatting pattern
+     * @return the parser
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    static EpochDayParser forPattern(String pattern) {
+        FixedWidthDateParser fixedWidthParser = FixedWidthDateParser
+            .compile(pattern);
+        if (fixedWidthParser != null) {
+            return fixedWidthParser;
+        }
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+        return (buffer, start, end) -> (int) LocalDate.parse(
+            new String(buffer, start, end - start, StandardCharsets.UTF_8),
+            formatter).toEpochDay();
+    }
+}
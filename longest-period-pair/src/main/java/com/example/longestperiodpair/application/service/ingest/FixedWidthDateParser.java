@@ -0,0 +1,145 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import com.example.longestperiodpair.application.util.DateUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+
+/**
+ * Hand-written parser for the fixed width numeric patterns, e.g.
+ * {@code yyyy-MM-dd} or {@code dd/MM/yyyy}, converting the digits directly to
+ * an epoch day without creating any objects. Supports the patterns built
+ * from {@code yyyy} (or {@code uuuu}), {@code MM}, {@code dd} and single
+ * character separators. Invalid days of month are resolved the same way as
+ * by the default smart resolving of {@link java.time.format.DateTimeFormatter},
+ * e.g. {@code 2021-02-30} is parsed as {@code 2021-02-28}.
+ */
+public final class FixedWidthDateParser implements EpochDayParser {
+
+    private final int length;
+    private final int yearOffset;
+    private final int monthOffset;
+    private final int dayOffset;
+    private final int[] separatorOffsets;
+    private final byte[] separators;
+
+    private FixedWidthDateParser(int length, int yearOffset, int monthOffset,
+                                 int dayOffset, int[] separatorOffsets,
+                                 byte[] separators) {
+        this.length = length;
+        this.yearOffset = yearOffset;
+        this.monthOffset = monthOffset;
+        this.dayOffset = dayOffset;
+        this.separatorOffsets = separatorOffsets;
+        this.separators = separators;
+    }
+
+    /**
+     * Compiles the provided pattern.
+     *
+     * @param pattern the date formatting pattern
+     * @return the compiled parser, or null if the pattern is not a supported
+     * fixed width numeric pattern
+     */
+    public static FixedWidthDateParser compile(String pattern) {
+        int yearOffset = -1;
+        int monthOffset = -1;
+        int dayOffset = -1;
+        int separatorCount = 0;
+        int[] separatorOffsets = new int[pattern.length()];
+        byte[] separators = new byte[pattern.length()];
+
+        int position = 0;
+        while (position < pattern.length()) {
+            char letter = pattern.charAt(position);
+            if (!Character.isLetter(letter)) {
+                if (letter == '\'' || letter > 0x7F) {
+                    return null;
+                }
+                separatorOffsets[separatorCount] = position;
+                separators[separatorCount++] = (byte) letter;
+                position++;
+                continue;
+            }
+
+            int runEnd = position;
+            while (runEnd < pattern.length()
+                   && pattern.charAt(runEnd) == letter) {
+                runEnd++;
+            }
+            String run = pattern.substring(position, runEnd);
+            if (("yyyy".equals(run) || "uuuu".equals(run)) && yearOffset < 0) {
+                yearOffset = position;
+            } else if ("MM".equals(run) && monthOffset < 0) {
+                monthOffset = position;
+            } else if ("dd".equals(run) && dayOffset < 0) {
+                dayOffset = position;
+            } else {
+                return null;
+            }
+            position = runEnd;
+        }
+
+        if (yearOffset < 0 || monthOffset < 0 || dayOffset < 0) {
+            return null;
+        }
+        return new FixedWidthDateParser(pattern.length(), yearOffset,
+                                        monthOffset, dayOffset,
+                                        Arrays.copyOf(separatorOffsets,
+                                                      separatorCount),
+                                        Arrays.copyOf(separators,
+                                                      separatorCount));
+    }
+
+    @Override
+    public int parse(byte[] buffer, int start, int end) {
+        int epochDay = tryParse(buffer, start, end);
+        if (epochDay == INVALID_DATE) {
+            throw invalidDate(buffer, start, end);
+        }
+        return epochDay;
+    }
+
+    @Override
+    public int tryParse(byte[] buffer, int start, int end) {
+        if (end - start != length) {
+            return INVALID_DATE;
+        }
+        for (int i = 0; i < separators.length; i++) {
+            if (buffer[start + separatorOffsets[i]] != separators[i]) {
+                return INVALID_DATE;
+            }
+        }
+
+        int year = digits(buffer, start + yearOffset, 4);
+        int month = digits(buffer, start + monthOffset, 2);
+        int day = digits(buffer, start + dayOffset, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return INVALID_DATE;
+        }
+        day = Math.min(day, DateUtils.lengthOfMonth(year, month));
+        return DateUtils.toEpochDay(year, month, day);
+    }
+
+    private static int digits(byte[] buffer, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static DateTimeParseException invalidDate(byte[] buffer, int start,
+                                                      int end) {
+        String text = new String(buffer, start, end - start,
+                                 StandardCharsets.UTF_8);
+        return new DateTimeParseException(
+            String.format("Text '%s' could not be parsed", text), text, 0);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import com.example.longestperiodpair.application.model.LineError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Error budget of the parsing of a file. Counts the rejected lines and keeps
+ * the first of them, up to the maximum number of reported ones, so a file
+ * with many bad lines does not fill the memory with them. In the strict
+ * mode, a {@link LineErrorsException} is thrown if any line is rejected: as
+ * soon as the maximum number of rejected lines is reached, or when the
+ * parsing is finished with fewer, so the maximum only tells how many lines
+ * are collected before failing. In the lenient mode, it is thrown once the
+ * rejected lines exceed the maximum share of the lines. The share is checked
+ * while parsing only after {@link #MIN_CHECKED_LINES} lines, so a few bad
+ * lines at the start do not fail a large file, and for all the lines when
+ * the parsing is finished. Not thread-safe.
+ */
+public final class LineErrors {
+
+    /**
+     * The number of lines read before the share of the rejected lines is
+     * checked while parsing in the lenient mode.
+     */
+    public static final int MIN_CHECKED_LINES = 1000;
+
+    private final ParseErrorMode mode;
+    private final int maxErrors;
+    private final double maxErrorShare;
+    private final int maxReported;
+    private final List<LineError> errors = new ArrayList<>();
+    private long rejectedLines;
+
+    private LineErrors(ParseErrorMode mode, int maxErrors,
+                       double maxErrorShare, int maxReported) {
+        this.mode = mode;
+        this.maxErrors = maxErrors;
+        this.maxErrorShare = maxErrorShare;
+        this.maxReported = maxReported;
+    }
+
+    /**
+     * Creates the budget of the {@link ParseErrorMode#STRICT} mode.
+     *
+     * @param maxErrors   the number of rejected lines stopping the parsing
+     * @param maxReported the maximum number of kept rejected lines
+     * @return the budget
+     */
+    public static LineErrors strict(int maxErrors, int maxReported) {
+        return new LineErrors(ParseErrorMode.STRICT, Math.max(maxErrors, 1), 0,
+                              maxReported);
+    }
+
+    /**
+     * Creates the budget of the {@link ParseErrorMode#LENIENT} mode.
+     *
+     * @param maxErrorShare the maximum share of the rejected lines, from 0
+     *                      to 1
+     * @param maxReported   the maximum number of kept rejected lines
+     * @return the budget
+     */
+    public static LineErrors lenient(double maxErrorShare, int maxReported) {
+        return new LineErrors(ParseErrorMode.LENIENT, Integer.MAX_VALUE,
+                              maxErrorShare, maxReported);
+    }
+
+    /**
+     * Records a rejected line.
+     *
+     * @param lineNumber   the line number, starting from 1
+     * @param line         the text of the line
+     * @param reason       the reason of the rejection
+     * @param acceptedRows the number of rows parsed so far
+     * @throws LineErrorsException if the budget is exceeded
+     */
+    public void reject(long lineNumber, String line, String reason,
+                       long acceptedRows) {
+        rejectedLines++;
+        if (errors.size() < maxReported) {
+            errors.add(LineError.builder().lineNumber(lineNumber).line(line)
+                                .reason(reason).build());
+        }
+        long lines = acceptedRows + rejectedLines;
+        if (rejectedLines >= maxErrors
+            || (lines >= MIN_CHECKED_LINES && exceedsShare(lines))) {
+            throw new LineErrorsException(rejectedLines, getErrors());
+        }
+    }
+
+    /**
+     * Checks the rejected lines once all lines are parsed.
+     *
+     * @param acceptedRows the number of parsed rows
+     * @throws LineErrorsException if a line was rejected in the strict mode,
+     *                             or the budget is exceeded
+     */
+    public void finish(long acceptedRows) {
+        if (rejectedLines > 0 && (mode == ParseErrorMode.STRICT
+                                  || exceedsShare(acceptedRows
+                                                  + rejectedLines))) {
+            throw new LineErrorsException(rejectedLines, getErrors());
+        }
+    }
+
+    public ParseErrorMode getMode() {
+        return mode;
+    }
+
+    public long getRejectedLines() {
+        return rejectedLines;
+    }
+
+    /**
+     * Returns the first rejected lines, up to the maximum number of reported
+     * ones.
+     *
+     * @return the rejected lines in the order of the file
+     */
+    public List<LineError> getErrors() {
+        return List.copyOf(errors);
+    }
+
+    private boolean exceedsShare(long lines) {
+        return mode == ParseErrorMode.LENIENT
+               && rejectedLines > maxErrorShare * lines;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import com.example.longestperiodpair.application.model.LineError;
+import lombok.Getter;
+
+import java.util.List;
+
+
+/**
+ * Thrown when the lines rejected by the parsing exceed the
+ * {@link LineErrors} budget of the file.
+ */
+@Getter
+public class LineErrorsException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long rejectedLines;
+    private final List<LineError> errors;
+
+    public LineErrorsException(long rejectedLines, List<LineError> errors) {
+        super(message(rejectedLines, errors));
+        this.rejectedLines = rejectedLines;
+        this.errors = errors;
+    }
+
+    private static String message(long rejectedLines,
+                                  List<LineError> errors) {
+        String message = errors.isEmpty() ? "Lines rejected"
+            : "Line " + errors.get(0).getLineNumber() + ": "
+              + errors.get(0).getReason();
+        return rejectedLines > 1
+               ? message + " (" + rejectedLines + " lines rejected)"
+               : message;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+
+/**
+ * How the parsing handles the lines that cannot be parsed, see
+ * {@link LineErrors}.
+ */
+public enum ParseErrorMode {
+
+    /**
+     * The parsing fails if any line is rejected, as soon as the maximum
+     * number of lines is rejected, one by default, or at the end of the file.
+     */
+    STRICT,
+
+    /**
+     * The rejected lines are skipped, the parsing fails only if they exceed
+     * the maximum share of the lines.
+     */
+    LENIENT
+}
@@ -0,0 +1,57 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+
+
+/**
+ * Rows of an {@link AssignmentTable} grouped by project. The rows of the
+ * project with encoded id {@code p} are stored in {@link #getRows()} between
+ * {@link #start(int)} (inclusive) and {@link #end(int)} (exclusive).
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class ProjectGroups {
+
+    private final int[] rows;
+    private final int[] offsets;
+
+    public int[] getRows() {
+        return rows;
+    }
+
+    public int projectCount() {
+        return offsets.length - 1;
+    }
+
+    public int start(int project) {
+        return offsets[project];
+    }
+
+    public int end(int project) {
+        return offsets[project + 1];
+    }
+
+    /**
+     * Sorts the rows of the project by start date, in place. Projects are
+     * independent, so different projects can be sorted concurrently.
+     *
+     * @param table   the table holding the rows
+     * @param project the encoded project id
+     */
+    public void sortByStart(AssignmentTable table, int project) {
+        int from = start(project);
+        int to = end(project);
+        // start date in the high bits and the row in the low bits, so a
+        // plain sort of the primitive keys orders the rows by start date
+        long[] keys = new long[to - from];
+        for (int i = from; i < to; i++) {
+            keys[i - from] = ((long) table.dateFrom(rows[i]) << 32) | rows[i];
+        }
+        Arrays.sort(keys);
+        for (int i = from; i < to; i++) {
+            rows[i] = (int) keys[i - from];
+        }
+    }
+}
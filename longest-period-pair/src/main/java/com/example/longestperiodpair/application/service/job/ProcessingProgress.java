@@ -0,0 +1,117 @@
+package com.example.longestperiodpair.application.service.job;
+
+import com.example.longestperiodpair.application.model.ProcessingPhase;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Progress of the processing of a single file, updated by the processing
+ * thread and read by the threads reporting the status. The time spent in each
+ * phase is recorded when the next phase is entered.
+ */
+public class ProcessingProgress {
+
+    private final long totalBytes;
+    private volatile ProcessingPhase phase = ProcessingPhase.QUEUED;
+    private volatile long bytesRead;
+    private volatile long rowsParsed;
+    private volatile long parsingStartedAt;
+    private final Map<ProcessingPhase, Long> phaseNanos
+        = new EnumMap<>(ProcessingPhase.class);
+    private long phaseStartedAt = System.nanoTime();
+
+    /**
+     * Creates the progress of a file with the provided size.
+     *
+     * @param totalBytes the size of the file in bytes, or -1 if unknown
+     */
+    public ProcessingProgress(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Moves the processing to the provided phase.
+     *
+     * @param phase the new phase
+     */
+    public synchronized void enterPhase(ProcessingPhase phase) {
+        long now = System.nanoTime();
+        phaseNanos.merge(this.phase, now - phaseStartedAt, Long::sum);
+        phaseStartedAt = now;
+        if (phase == ProcessingPhase.PARSING) {
+            parsingStartedAt = now;
+        }
+        this.phase = phase;
+    }
+
+    /**
+     * Returns the time spent in each of the finished phases, in the order of
+     * the phases. The time of the current phase is included once the next one
+     * is entered.
+     *
+     * @return the time per phase in nanoseconds
+     */
+    public synchronized Map<ProcessingPhase, Long> getPhaseNanos() {
+        return new LinkedHashMap<>(phaseNanos);
+    }
+
+    /**
+     * Returns the time spent in each of the finished phases, see
+     * {@link #getPhaseNanos()}.
+     *
+     * @return the time per phase in milliseconds
+     */
+    public Map<ProcessingPhase, Long> getPhaseMillis() {
+        Map<ProcessingPhase, Long> millis = getPhaseNanos();
+        millis.replaceAll((phase, nanos) -> nanos / 1_000_000);
+        return millis;
+    }
+
+    /**
+     * Records the progress of the parsing.
+     *
+     * @param bytesRead  the number of bytes read so far
+     * @param rowsParsed the number of rows parsed so far
+     */
+    public void updateParsing(long bytesRead, long rowsParsed) {
+        this.bytesRead = bytesRead;
+        this.rowsParsed = rowsParsed;
+    }
+
+    /**
+     * Estimates the remaining time of the parsing from the rate at which the
+     * bytes were read so far.
+     *
+     * @return the estimated remaining time in milliseconds, or null if it
+     * cannot be estimated
+     */
+    public Long estimateRemainingMillis() {
+        long read = bytesRead;
+        if (phase != ProcessingPhase.PARSING || totalBytes <= 0 || read <= 0) {
+            return null;
+        }
+        long elapsedNanos = System.nanoTime() - parsingStartedAt;
+        double nanosPerByte = (double) elapsedNanos / read;
+        return (long) (nanosPerByte * Math.max(totalBytes - read, 0)
+                       / 1_000_000);
+    }
+
+    public ProcessingPhase getPhase() {
+        return phase;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.longestperiodpair.application.service.metrics;
+
+import com.example.longestperiodpair.application.model.ProcessingPhase;
+import com.example.longestperiodpair.application.service.job.ProcessingProgress;
+import com.example.longestperiodpair.application.service.store.ProcessedResultStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Records the metrics of the processing of the uploaded files: the time spent
+ * in each phase and in total, the processed bytes, rows and pairs, the
+ * rejected lines, the coalesced rows, and the size of the
+ * {@link ProcessedResultStore}. The timers publish percentile histograms, so
+ * the percentiles can be aggregated over the instances by the monitoring
+ * system.
+ */
+@Component
+public class ProcessingMetrics {
+
+    private static final String OUTCOME_TAG = "outcome";
+
+    private final Map<ProcessingPhase, Timer> phaseTimers
+        = new EnumMap<>(ProcessingPhase.class);
+    private final Timer processedTimer;
+    private final Timer reusedTimer;
+    private final Timer failedTimer;
+    private final Counter bytes;
+    private final Counter rows;
+    private final Counter pairs;
+    private final Counter rejectedLines;
+    private final Counter coalescedRows;
+
+    public ProcessingMetrics(MeterRegistry registry,
+                             ProcessedResultStore resultStore) {
+        for (ProcessingPhase phase : ProcessingPhase.values()) {
+            if (isTimed(phase)) {
+                phaseTimers.put(phase, Timer.builder("processing.phase")
+                                            .description("Time spent in a "
+                                                         + "processing phase")
+                                            .tag("phase", phase.name()
+                                                               .toLowerCase())
+                                            .publishPercentileHistogram()
+                                            .register(registry));
+            }
+        }
+        processedTimer = durationTimer(registry, "processed");
+        reusedTimer = durationTimer(registry, "reused");
+        failedTimer = durationTimer(registry, "failed");
+        bytes = Counter.builder("processing.bytes").baseUnit("bytes")
+                       .description("Bytes of the parsed files")
+                       .register(registry);
+        rows = Counter.builder("processing.rows")
+                      .description("Rows of the parsed files")
+                      .register(registry);
+        pairs = Counter.builder("processing.pairs")
+                       .description("Pairs of employees found working together")
+                       .register(registry);
+        rejectedLines = Counter.builder("processing.lines.rejected")
+                               .description("Lines rejected by the parsing")
+                               .register(registry);
+        coalescedRows = Counter.builder("processing.rows.coalesced")
+                               .description("Rows merged into another row of "
+                                            + "the same employee and project")
+                               .register(registry);
+
+        Gauge.builder("processing.store.entries", resultStore,
+                      store -> store.getStats().getEntries())
+             .description("Results kept by the store").register(registry);
+        Gauge.builder("processing.store.size", resultStore,
+                      store -> store.getStats().getBytes())
+             .baseUnit("bytes").description("Size of the kept results")
+             .register(registry);
+        Gauge.builder("processing.store.max.size", resultStore,
+                      store -> store.getStats().getMaxBytes())
+             .baseUnit("bytes").description("Maximum size of the kept results")
+             .register(registry);
+    }
+
+    /**
+     * Records a file processed from its content.
+     *
+     * @param progress  the progress of the processing, in its final phase
+     * @param rowCount  the number of parsed rows
+     * @param pairCount the number of found pairs
+     */
+    public void recordProcessed(ProcessingProgress progress, long rowCount,
+                                long pairCount) {
+        recordPhases(progress, processedTimer);
+        bytes.increment(progress.getBytesRead());
+        rows.increment(rowCount);
+        pairs.increment(pairCount);
+    }
+
+    /**
+     * Records a file whose result was already stored.
+     *
+     * @param progress the progress of the processing, in its final phase
+     */
+    public void recordReused(ProcessingProgress progress) {
+        recordPhases(progress, reusedTimer);
+    }
+
+    /**
+     * Records a file whose processing failed.
+     *
+     * @param progress the progress of the processing, in its final phase
+     */
+    public void recordFailed(ProcessingProgress progress) {
+        recordPhases(progress, failedTimer);
+    }
+
+    /**
+     * Records the lines rejected by the parsing of a file, either skipped or
+     * failing it.
+     *
+     * @param count the number of rejected lines
+     */
+    public void recordRejectedLines(long count) {
+        rejectedLines.increment(count);
+    }
+
+    /**
+     * Records the rows merged into an overlapping or adjacent row of the same
+     * employee and project before the pairing.
+     *
+     * @param count the number of merged rows
+     */
+    public void recordCoalescedRows(long count) {
+        coalescedRows.increment(count);
+    }
+
+    private void recordPhases(ProcessingProgress progress, Timer total) {
+        long totalNanos = 0;
+        for (Map.Entry<ProcessingPhase, Long> phase
+            : progress.getPhaseNanos().entrySet()) {
+            Timer timer = phaseTimers.get(phase.getKey());
+            if (timer != null) {
+                timer.record(phase.getValue(), TimeUnit.NANOSECONDS);
+                if (phase.getKey() != ProcessingPhase.QUEUED) {
+                    totalNanos += phase.getValue();
+                }
+            }
+        }
+        total.record(totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer durationTimer(MeterRegistry registry,
+                                       String outcome) {
+        return Timer.builder("processing.duration")
+                    .description("Time of the processing of a file, without "
+                                 + "the time in the queue")
+                    .tag(OUTCOME_TAG, outcome).publishPercentileHistogram()
+                    .register(registry);
+    }
+
+    private static boolean isTimed(ProcessingPhase phase) {
+        return phase != ProcessingPhase.COMPLETED
+               && phase != ProcessingPhase.FAILED;
+    }
+}
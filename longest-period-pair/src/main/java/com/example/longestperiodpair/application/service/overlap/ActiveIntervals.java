@@ -0,0 +1,118 @@
+package com.example.longestperiodpair.application.service.overlap;
+
+import java.util.Arrays;
+
+
+/**
+ * Binary min-heap of the active rows during a sweep, ordered by their end
+ * dates. The end dates are kept next to the rows, so the eviction does not
+ * need to look them up in the table.
+ */
+final class ActiveIntervals {
+
+    private int[] rows = new int[16];
+    private int[] ends = new int[16];
+    private int size;
+
+    /**
+     * Adds the row with the provided end date.
+     *
+     * @param row the row index
+     * @param end the end date of the row in epoch days
+     */
+    void add(int row, int end) {
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size << 1);
+            ends = Arrays.copyOf(ends, size << 1);
+        }
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (ends[parent] <= end) {
+                break;
+            }
+            rows[index] = rows[parent];
+            ends[index] = ends[parent];
+            index = parent;
+        }
+        rows[index] = row;
+        ends[index] = end;
+    }
+
+    /**
+     * Removes the rows ending on or before the provided date, as the end
+     * dates are exclusive.
+     *
+     * @param date the date in epoch days
+     */
+    void evictEndingBy(int date) {
+        while (size > 0 && ends[0] <= date) {
+            removeFirst();
+        }
+    }
+
+    /**
+     * Returns the position of the row among the active ones.
+     *
+     * @param row the row index
+     * @return the position, -1 if the row is not active
+     */
+    int indexOf(int row) {
+        for (int index = 0; index < size; index++) {
+            if (rows[index] == row) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the end date of the active row at the position to a later date.
+     *
+     * @param index the position of the row
+     * @param end   the new end date in epoch days, not before the current one
+     */
+    void extend(int index, int end) {
+        int row = rows[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            if (child + 1 < size && ends[child + 1] < ends[child]) {
+                child++;
+            }
+            if (end <= ends[child]) {
+                break;
+            }
+            rows[index] = rows[child];
+            ends[index] = ends[child];
+            index = child;
+        }
+        rows[index] = row;
+        ends[index] = end;
+    }
+
+    /**
+     * Removes all rows, keeping the capacity.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int row(int index) {
+        return rows[index];
+    }
+
+    int end(int index) {
+        return ends[index];
+    }
+
+    private void removeFirst() {
+        size--;
+        rows[0] = rows[size];
+        extend(0, ends[size]);
+    }
+}
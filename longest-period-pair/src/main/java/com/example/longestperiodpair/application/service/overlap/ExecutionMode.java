@@ -0,0 +1,26 @@
+package com.example.longestperiodpair.application.service.overlap;
+
+
+/**
+ * How the projects are passed to the {@link OverlapEngine}.
+ */
+public enum ExecutionMode {
+
+    /**
+     * The projects are processed one after another on the calling thread.
+     */
+    SEQUENTIAL,
+
+    /**
+     * The projects are processed concurrently by the
+     * {@link ParallelOverlapExecutor}.
+     */
+    PARALLEL,
+
+    /**
+     * The rows are sorted by project and start date on disk within a bounded
+     * buffer and streamed through the {@link StreamingSweepLine}, for files
+     * larger than the heap. The configured engine is not used.
+     */
+    EXTERNAL
+}
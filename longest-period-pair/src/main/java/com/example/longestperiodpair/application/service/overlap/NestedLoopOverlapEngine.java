@@ -0,0 +1,30 @@
+package com.example.longestperiodpair.application.service.overlap;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.util.DateUtils;
+
+
+/**
+ * Reference implementation comparing every pair of rows on the project.
+ * Reports all pairs, including the ones that do not overlap (with 0 days),
+ * and is kept for verification of the other engines.
+ */
+public class NestedLoopOverlapEngine implements OverlapEngine {
+
+    @Override
+    public void findOverlaps(AssignmentTable table, int[] rows, int from,
+                             int to, int splitFrom, int splitTo,
+                             OverlapConsumer consumer) {
+        for (int i = from; i < splitTo - 1; i++) {
+            for (int j = Math.max(i + 1, splitFrom); j < splitTo; j++) {
+                int first = rows[i];
+                int second = rows[j];
+                consumer.accept(first, second,
+                                DateUtils.overlapDays(table.dateFrom(first),
+                                                      table.dateTo(first),
+                                                      table.dateFrom(second),
+                                                      table.dateTo(second)));
+            }
+        }
+    }
+}
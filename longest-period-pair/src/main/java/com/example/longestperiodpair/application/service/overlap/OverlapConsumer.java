@@ -0,0 +1,33 @@
+package com.example.longestperiodpair.application.service.overlap;
+
+
+/**
+ * Receives the pairs of rows found by an {@link OverlapEngine}.
+ */
+@FunctionalInterface
+public interface OverlapConsumer {
+
+    /**
+     * Accepts a pair of rows from the same project.
+     *
+     * @param firstRow   the index of the first row of the pair
+     * @param secondRow  the index of the second row of the pair
+     * @param daysWorked the number of days during which the two intervals
+     *                   overlap
+     */
+    void accept(int firstRow, int secondRow, long daysWorked);
+
+    /**
+     * Returns a consumer passing each pair to this consumer and then to the
+     * provided one.
+     *
+     * @param after the consumer called after this one
+     * @return the composed consumer
+     */
+    default OverlapConsumer andThen(OverlapConsumer after) {
+        return (firstRow, secondRow, daysWorked) -> {
+            accept(firstRow, secondRow, daysWorked);
+            after.accept(firstRow, secondRow, daysWorked);
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.longestperiodpair.application.service.overlap;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+
+
+/**
+ * Finds the pairs of employees whose time intervals on the same project
+ * overlap.
+ */
+public interface OverlapEngine {
+
+    /**
+     * Whether the engine expects the rows of the project sorted by start
+     * date, see {@code ProjectGroups.sortByStart}.
+     *
+     * @return whether the rows need to be sorted
+     */
+    default boolean requiresRowsSortedByStart() {
+        return false;
+    }
+
+    /**
+     * Reports the pairs of the rows of a single project to the consumer
+     * together with the number of days during which they overlap.
+     *
+     * @param table    the table holding the rows
+     * @param rows     the row indices, grouped by project
+     * @param from     the position in {@code rows} where the project starts
+     * @param to       the position in {@code rows} where the project ends
+     *                 (exclusive)
+     * @param consumer the consumer receiving each reported pair
+     */
+    default void findOverlaps(AssignmentTable table, int[] rows, int from,
+                              int to, OverlapConsumer consumer) {
+        findOverlaps(table, rows, from, to, from, to, consumer);
+    }
+
+    /**
+     * Reports the pairs of the rows of a single project whose later row lies
+     * in the provided split of the project. Splitting the project into
+     * consecutive splits reports each pair exactly once, so the splits of a
+     * large project can be processed independently.
+     *
+     * @param table     the table holding the rows
+     * @param rows      the row indices, grouped by project
+     * @param from      the position in {@code rows} where the project starts
+     * @param to        the position in {@code rows} where the project ends
+     *                  (exclusive)
+     * @param splitFrom the position where the split starts
+     * @param splitTo   the position where the split ends (exclusive)
+     * @param consumer  the consumer receiving each reported pair
+     */
+    void findOverlaps(AssignmentTable table, int[] rows, int from, int to,
+                      int splitFrom, int splitTo, OverlapConsumer consumer);
+}
@@ -0,0 +1,26 @@
+package com.example.longestperiodpair.application.service.overlap;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * The available {@link OverlapEngine} implementations, selectable through the
+ * configuration.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum OverlapEngineType {
+
+    /**
+     * Reports only the overlapping pairs, see {@link SweepLineOverlapEngine}.
+     */
+    SWEEP_LINE(new SweepLineOverlapEngine()),
+
+    /**
+     * Reports every pair, see {@link NestedLoopOverlapEngine}.
+     */
+    NESTED_LOOP(new NestedLoopOverlapEngine());
+
+    private final OverlapEngine engine;
+}
@@ -0,0 +1,197 @@
+package com.example.longestperiodpair.application.service.overlap;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.ProjectGroups;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+
+/**
+ * Runs the {@link OverlapEngine} for the independent projects concurrently on
+ * a work-stealing {@link ForkJoinPool}. The projects are split recursively
+ * into tasks and the projects larger than the split size are further split
+ * into ranges of rows, so a single giant project does not keep one core busy
+ * while the others are idle. Each worker thread folds the overlaps into its
+ * own consumer, the consumers are returned for merging at the end.
+ */
+@Slf4j
+@Component
+public class ParallelOverlapExecutor {
+
+    private final ForkJoinPool pool;
+    private final int splitSize;
+
+    public ParallelOverlapExecutor(
+            @Value("${processing.parallelism:0}") int parallelism,
+            @Value("${processing.parallel.split-size:20000}") int splitSize) {
+        int threads = parallelism > 0 ? parallelism
+            : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads);
+        this.splitSize = Math.max(splitSize, 1);
+        log.info("Overlap pool started with {} threads.", threads);
+    }
+
+    /**
+     * Passes all projects of the groups to the engine and returns the
+     * consumers the overlaps were reported to, one per worker thread.
+     *
+     * @param table           the table holding the rows
+     * @param groups          the rows grouped by project
+     * @param engine          the overlap engine
+     * @param consumerFactory creates the consumer of a worker thread
+     * @param <T>             the type of the consumers
+     * @return the consumers of the worker threads
+     */
+    public <T extends OverlapConsumer> List<T> execute(AssignmentTable table,
+            ProjectGroups groups, OverlapEngine engine,
+            Supplier<T> consumerFactory) {
+        Map<Thread, T> consumers = new ConcurrentHashMap<>();
+        Execution<T> execution = new Execution<>(table, groups, engine,
+                                                 consumerFactory, consumers);
+        pool.invoke(execution.new ProjectsTask(0, groups.projectCount()));
+        return new ArrayList<>(consumers.values());
+    }
+
+    /**
+     * Runs independent tasks, such as the parsing of the files of a batch, on
+     * the same pool and waits for all of them.
+     *
+     * @param tasks the tasks
+     * @param <T>   the type of the results
+     * @return the futures of the completed tasks, in the order of the tasks
+     */
+    public <T> List<Future<T>> invokeAll(
+            Collection<? extends Callable<T>> tasks) {
+        return pool.invokeAll(tasks);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * State shared by the tasks of a single {@link #execute} call.
+     */
+    private final class Execution<T extends OverlapConsumer> {
+
+        private final AssignmentTable table;
+        private final ProjectGroups groups;
+        private final OverlapEngine engine;
+        private final Supplier<T> consumerFactory;
+        private final Map<Thread, T> consumers;
+
+        private Execution(AssignmentTable table, ProjectGroups groups,
+                          OverlapEngine engine, Supplier<T> consumerFactory,
+                          Map<Thread, T> consumers) {
+            this.table = table;
+            this.groups = groups;
+            this.engine = engine;
+            this.consumerFactory = consumerFactory;
+            this.consumers = consumers;
+        }
+
+        private T currentConsumer() {
+            return consumers.computeIfAbsent(Thread.currentThread(),
+                                             thread -> consumerFactory.get());
+        }
+
+        private int rowCount(int fromProject, int toProject) {
+            return groups.end(toProject - 1) - groups.start(fromProject);
+        }
+
+        /**
+         * Processes a range of projects, splitting it in halves while it
+         * holds more rows than the split size.
+         */
+        private final class ProjectsTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final int fromProject;
+            private final int toProject;
+
+            private ProjectsTask(int fromProject, int toProject) {
+                this.fromProject = fromProject;
+                this.toProject = toProject;
+            }
+
+            @Override
+            protected void compute() {
+                if (fromProject >= toProject) {
+                    return;
+                }
+                if (toProject - fromProject == 1) {
+                    processProject(fromProject);
+                } else if (rowCount(fromProject, toProject) <= splitSize) {
+                    for (int p = fromProject; p < toProject; p++) {
+                        processProject(p);
+                    }
+                } else {
+                    int middle = (fromProject + toProject) >>> 1;
+                    invokeAll(new ProjectsTask(fromProject, middle),
+                              new ProjectsTask(middle, toProject));
+                }
+            }
+
+            private void processProject(int project) {
+                int from = groups.start(project);
+                int to = groups.end(project);
+                if (engine.requiresRowsSortedByStart()) {
+                    groups.sortByStart(table, project);
+                }
+                if (to - from <= splitSize) {
+                    engine.findOverlaps(table, groups.getRows(), from, to,
+                                        currentConsumer());
+                    return;
+                }
+
+                List<SplitTask> splits = new ArrayList<>();
+                for (int split = from; split < to; split += splitSize) {
+                    splits.add(new SplitTask(from, to, split,
+                                             Math.min(split + splitSize, to)));
+                }
+                invokeAll(splits);
+            }
+        }
+
+        /**
+         * Processes a range of rows of a single large project.
+         */
+        private final class SplitTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final int from;
+            private final int to;
+            private final int splitFrom;
+            private final int splitTo;
+
+            private SplitTask(int from, int to, int splitFrom, int splitTo) {
+                this.from = from;
+                this.to = to;
+                this.splitFrom = splitFrom;
+                this.splitTo = splitTo;
+            }
+
+            @Override
+            protected void compute() {
+                engine.findOverlaps(table, groups.getRows(), from, to,
+                                    splitFrom, splitTo, currentConsumer());
+            }
+        }
+    }
+}
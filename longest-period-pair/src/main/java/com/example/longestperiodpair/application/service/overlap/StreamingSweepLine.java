@@ -0,0 +1,142 @@
+package com.example.longestperiodpair.application.service.overlap;
+
+import com.example.longestperiodpair.application.util.DateUtils;
+
+import java.util.Arrays;
+
+
+/**
+ * The sweep of the {@link SweepLineOverlapEngine} over a stream of rows
+ * instead of a table, for rows that do not fit in memory. The rows have to
+ * arrive ordered by project and then by start date; only the intervals still
+ * active are kept, so the memory depends on the largest number of
+ * simultaneously active assignments of a project instead of the number of
+ * rows.
+ * <p>
+ * The streamed rows are not coalesced per employee before the sweep as the
+ * rows of an {@code AssignmentTable} are, so a row of an employee overlapping
+ * or touching the active interval of the employee extends that interval
+ * instead. The overlaps of the extension are reported as
+ * {@link Consumer#acceptExtension extensions} of the overlaps already
+ * reported for the interval, so the reported overlaps are the same as the
+ * ones of the coalesced rows. The days of the employee are thus counted once
+ * and the employee is never paired with itself. Not thread-safe.
+ */
+public class StreamingSweepLine {
+
+    private final Consumer consumer;
+    private final ActiveIntervals active = new ActiveIntervals();
+    private int[] starts = new int[16];
+    private int project = -1;
+
+    /**
+     * Creates a sweep reporting the overlaps to the consumer.
+     *
+     * @param consumer the consumer of the overlaps
+     */
+    public StreamingSweepLine(Consumer consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Adds the next row of the stream, reporting its overlaps with the active
+     * rows of the same project.
+     *
+     * @param employee the encoded employee id
+     * @param project  the encoded project id
+     * @param dateFrom the start date in epoch days
+     * @param dateTo   the exclusive end date in epoch days
+     */
+    public void add(int employee, int project, int dateFrom, int dateTo) {
+        if (project != this.project) {
+            this.project = project;
+            active.clear();
+        }
+        // the intervals ending on the start are kept, as a row of their
+        // employee starting there continues them
+        active.evictEndingBy(dateFrom - 1);
+        // empty or inverted intervals cannot overlap with anything
+        if (dateTo <= dateFrom) {
+            return;
+        }
+
+        // the employees are kept in place of the rows
+        int same = active.indexOf(employee);
+        if (same >= 0) {
+            extend(same, employee, project, dateTo);
+            return;
+        }
+
+        // the active intervals started by the start of this one
+        for (int k = 0; k < active.size(); k++) {
+            int days = DateUtils.overlapDays(dateFrom, dateTo, dateFrom,
+                                             active.end(k));
+            if (days > 0) {
+                consumer.accept(active.row(k), employee, project, days);
+            }
+        }
+        active.add(employee, dateTo);
+        if (employee >= starts.length) {
+            starts = Arrays.copyOf(starts, Math.max(employee + 1,
+                                                    starts.length << 1));
+        }
+        starts[employee] = dateFrom;
+    }
+
+    private void extend(int index, int employee, int project, int dateTo) {
+        int end = active.end(index);
+        if (dateTo <= end) {
+            return;
+        }
+        for (int k = 0; k < active.size(); k++) {
+            int days = DateUtils.overlapDays(end, dateTo, end, active.end(k));
+            if (k == index || days <= 0) {
+                continue;
+            }
+            int other = active.row(k);
+            if (starts[other] == end) {
+                // started on the end of the extended interval, so the two
+                // have not overlapped before
+                consumer.accept(employee, other, project, days);
+            } else {
+                consumer.acceptExtension(other, employee, project, days);
+            }
+        }
+        active.extend(index, dateTo);
+    }
+
+    /**
+     * Receives the overlaps of the streamed rows, identified by the employees
+     * as the rows are not kept.
+     */
+    @FunctionalInterface
+    public interface Consumer {
+
+        /**
+         * Accepts the overlap between two assignments of the same project.
+         *
+         * @param firstEmployee  the encoded employee id of the earlier row
+         * @param secondEmployee the encoded employee id of the later row
+         * @param project        the encoded project id
+         * @param daysWorked     the days the assignments overlap
+         */
+        void accept(int firstEmployee, int secondEmployee, int project,
+                    long daysWorked);
+
+        /**
+         * Accepts the days an active assignment overlaps the extension of
+         * the assignment of another employee, which were already accepted as
+         * overlapping, so the days belong to their last accepted overlap. By
+         * default, the days are accepted as a separate overlap.
+         *
+         * @param activeEmployee   the encoded employee id of the active row
+         * @param extendedEmployee the encoded employee id of the extended row
+         * @param project          the encoded project id
+         * @param daysWorked       the days the extension overlaps
+         */
+        default void acceptExtension(int activeEmployee, int extendedEmployee,
+                                     int project, long daysWorked) {
+            accept(activeEmployee, extendedEmployee, project, daysWorked);
+        }
+    }
+}
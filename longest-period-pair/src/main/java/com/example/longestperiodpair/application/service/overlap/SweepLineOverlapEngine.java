@@ -0,0 +1,56 @@
+package com.example.longestperiodpair.application.service.overlap;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.util.DateUtils;
+
+
+/**
+ * Sweeps over the intervals of the project sorted by start date, keeping only
+ * the intervals that are still active. Each new interval is paired only with
+ * the active ones, so only the overlapping pairs are reported and the cost
+ * depends on the number of overlaps instead of the number of all pairs.
+ */
+public class SweepLineOverlapEngine implements OverlapEngine {
+
+    @Override
+    public boolean requiresRowsSortedByStart() {
+        return true;
+    }
+
+    @Override
+    public void findOverlaps(AssignmentTable table, int[] rows, int from,
+                             int to, int splitFrom, int splitTo,
+                             OverlapConsumer consumer) {
+        ActiveIntervals active = new ActiveIntervals();
+        if (splitFrom > from && splitFrom < to) {
+            // the rows before the split still active at its start
+            int splitStart = table.dateFrom(rows[splitFrom]);
+            for (int i = from; i < splitFrom; i++) {
+                int row = rows[i];
+                int end = table.dateTo(row);
+                if (end > splitStart && end > table.dateFrom(row)) {
+                    active.add(row, end);
+                }
+            }
+        }
+
+        for (int i = splitFrom; i < splitTo; i++) {
+            int row = rows[i];
+            int start = table.dateFrom(row);
+            int end = table.dateTo(row);
+            active.evictEndingBy(start);
+            // empty or inverted intervals cannot overlap with anything
+            if (end <= start) {
+                continue;
+            }
+
+            // the active intervals started by the start of this one
+            for (int k = 0; k < active.size(); k++) {
+                consumer.accept(active.row(k), row,
+                                DateUtils.overlapDays(start, end, start,
+                                                      active.end(k)));
+            }
+            active.add(row, end);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.longestperiodpair.application.service.query;
+
+import com.example.longestperiodpair.application.model.PairPage;
+import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.model.PairQuery;
+import com.example.longestperiodpair.application.service.store.PairRecords;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+
+/**
+ * Indexes of the {@link PairRecords} of a processed file, answering
+ * {@link PairQuery}s without going through all pairs. The pairs are kept
+ * ordered by days descending, together with the posting lists of every
+ * employee and project in the same order, so the common queries for the
+ * longest working pairs read only the returned page. The orders by employee
+ * and by project are built on the first query needing them. Thread-safe once
+ * built.
+ */
+public final class PairIndex {
+
+    /**
+     * The maximum number of pairs in a page.
+     */
+    public static final int MAX_LIMIT = 10_000;
+
+    private final PairRecords records;
+
+    private final int[] days;
+    private final int[] byDaysDesc;
+
+    private final Map<String, Integer> employeeIds;
+    private final int[] employeeOffsets;
+    private final int[] employeePostings;
+
+    private final Map<String, Integer> projectIds;
+    private final int[] projectOffsets;
+    private final int[] projectPostings;
+
+    private final int[] employeeRanks;
+    private final int[] projectIdRanks;
+    private final int[] firstRanks;
+    private final int[] secondRanks;
+    private final int[] projectRanks;
+    private final int employeeCount;
+    private final int projectCount;
+
+    private volatile int[] byEmployee;
+    private volatile int[] byProject;
+
+    private PairIndex(PairRecords records) {
+        this.records = records;
+        int size = records.size();
+
+        days = new int[size];
+        // the inverted days in the high bits and the index in the low bits,
+        // so a plain sort of the primitive keys orders by days descending
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            days[i] = (int) records.daysWorked(i);
+            keys[i] = ((long) (Integer.MAX_VALUE - days[i]) << 32) | i;
+        }
+        Arrays.sort(keys);
+        byDaysDesc = new int[size];
+        for (int i = 0; i < size; i++) {
+            byDaysDesc[i] = (int) keys[i];
+        }
+
+        employeeIds = new HashMap<>();
+        projectIds = new HashMap<>();
+        int[] firstIds = new int[size];
+        int[] secondIds = new int[size];
+        int[] projects = new int[size];
+        for (int i = 0; i < size; i++) {
+            firstIds[i] = intern(employeeIds, records.employeeIdFirst(i));
+            secondIds[i] = intern(employeeIds, records.employeeIdSecond(i));
+            projects[i] = intern(projectIds, records.projectId(i));
+        }
+        employeeCount = employeeIds.size();
+        projectCount = projectIds.size();
+
+        employeeOffsets = new int[employeeCount + 1];
+        employeePostings = new int[2 * size];
+        projectOffsets = new int[projectCount + 1];
+        projectPostings = new int[size];
+        for (int i = 0; i < size; i++) {
+            employeeOffsets[firstIds[i] + 1]++;
+            if (secondIds[i] != firstIds[i]) {
+                employeeOffsets[secondIds[i] + 1]++;
+            }
+            projectOffsets[projects[i] + 1]++;
+        }
+        prefixSum(employeeOffsets);
+        prefixSum(projectOffsets);
+        int[] employeeNext = Arrays.copyOf(employeeOffsets, employeeCount);
+        int[] projectNext = Arrays.copyOf(projectOffsets, projectCount);
+        for (int index : byDaysDesc) {
+            employeePostings[employeeNext[firstIds[index]]++] = index;
+            if (secondIds[index] != firstIds[index]) {
+                employeePostings[employeeNext[secondIds[index]]++] = index;
+            }
+            projectPostings[projectNext[projects[index]]++] = index;
+        }
+
+        employeeRanks = ranks(employeeIds);
+        projectIdRanks = ranks(projectIds);
+        firstRanks = new int[size];
+        secondRanks = new int[size];
+        projectRanks = new int[size];
+        for (int i = 0; i < size; i++) {
+            firstRanks[i] = employeeRanks[firstIds[i]];
+            secondRanks[i] = employeeRanks[secondIds[i]];
+            projectRanks[i] = projectIdRanks[projects[i]];
+        }
+    }
+
+    /**
+     * Builds the index of the records.
+     *
+     * @param records the records
+     * @return the index
+     */
+    public static PairIndex build(PairRecords records) {
+        return new PairIndex(records);
+    }
+
+    public PairRecords getRecords() {
+        return records;
+    }
+
+    /**
+     * Returns the indexes of the records of the project.
+     *
+     * @param projectId the project id
+     * @return the indexes of the records, empty if there are none
+     */
+    public int[] projectRecords(String projectId) {
+        Integer project = projectIds.get(projectId);
+        if (project == null) {
+            return new int[0];
+        }
+        return Arrays.copyOfRange(projectPostings, projectOffsets[project],
+                                  projectOffsets[project + 1]);
+    }
+
+    /**
+     * Returns the page of the pairs matching the query.
+     *
+     * @param query the query
+     * @return the page
+     */
+    public PairPage query(PairQuery query) {
+        int offset = Math.max(query.getOffset(), 0);
+        int limit = Math.min(Math.max(query.getLimit(), 0), MAX_LIMIT);
+
+        int[] candidates = byDaysDesc;
+        int from = 0;
+        int to = byDaysDesc.length;
+        IntPredicate filter = null;
+        if (query.getEmployeeId() != null) {
+            Integer employee = employeeIds.get(query.getEmployeeId());
+            if (employee == null) {
+                return emptyPage(offset);
+            }
+            candidates = employeePostings;
+            from = employeeOffsets[employee];
+            to = employeeOffsets[employee + 1];
+        }
+        if (query.getProjectId() != null) {
+            Integer project = projectIds.get(query.getProjectId());
+            if (project == null) {
+                return emptyPage(offset);
+            }
+            int projectFrom = projectOffsets[project];
+            int projectTo = projectOffsets[project + 1];
+            if (candidates == byDaysDesc) {
+                candidates = projectPostings;
+                from = projectFrom;
+                to = projectTo;
+            } else if (projectTo - projectFrom < to - from) {
+                int rank = employeeRanks[employeeIds.get(
+                    query.getEmployeeId())];
+                filter = index -> firstRanks[index] == rank
+                                  || secondRanks[index] == rank;
+                candidates = projectPostings;
+                from = projectFrom;
+                to = projectTo;
+            } else {
+                int rank = projectIdRanks[project];
+                filter = index -> projectRanks[index] == rank;
+            }
+        }
+        // the candidates are ordered by days descending, so the pairs with
+        // less days than the threshold are at the end
+        to = firstBelow(candidates, from, to, query.getMinDays());
+
+        switch (query.getSort()) {
+            case DAYS_ASC:
+                return page(candidates, from, to, true, filter, offset,
+                            limit);
+            case EMPLOYEE:
+            case PROJECT:
+                boolean byEmployeeId = query.getSort() == PairSort.EMPLOYEE;
+                if (candidates == byDaysDesc) {
+                    // the whole order is built once, the threshold is
+                    // applied while reading it instead
+                    long minDays = query.getMinDays();
+                    int[] order = byEmployeeId ? getByEmployee()
+                                               : getByProject();
+                    return page(order, 0, order.length, false,
+                                index -> days[index] >= minDays, offset,
+                                limit);
+                }
+                int[] subset = Arrays.copyOfRange(candidates, from, to);
+                subset = byEmployeeId ? sortByEmployee(subset)
+                                      : sortByProject(subset);
+                return page(subset, 0, subset.length, false, filter, offset,
+                            limit);
+            default:
+                return page(candidates, from, to, false, filter, offset,
+                            limit);
+        }
+    }
+
+    /**
+     * Reads the page from the candidates between from (inclusive) and to
+     * (exclusive), from the end when reversed. Without a filter, the offset is
+     * skipped right away.
+     */
+    private PairPage page(int[] candidates, int from, int to, boolean reversed,
+                          IntPredicate filter, int offset, int limit) {
+        int count = to - from;
+        List<PairPerProject> pairs = new ArrayList<>(Math.min(limit, count));
+        int position = 0;
+        if (filter == null) {
+            position = Math.min(offset, count);
+        } else {
+            for (int skipped = 0; skipped < offset && position < count;
+                 position++) {
+                if (filter.test(at(candidates, from, to, reversed,
+                                   position))) {
+                    skipped++;
+                }
+            }
+        }
+        boolean hasNext = false;
+        for (; position < count && !hasNext; position++) {
+            int index = at(candidates, from, to, reversed, position);
+            if (filter == null || filter.test(index)) {
+                if (pairs.size() < limit) {
+                    pairs.add(records.get(index));
+                } else {
+                    hasNext = true;
+                }
+            }
+        }
+        return PairPage.builder().pairs(pairs).offset(offset)
+                       .nextOffset(hasNext ? offset + pairs.size() : null)
+                       .build();
+    }
+
+    private static int at(int[] candidates, int from, int to,
+                          boolean reversed, int position) {
+        return reversed ? candidates[to - 1 - position]
+                        : candidates[from + position];
+    }
+
+    private int firstBelow(int[] candidates, int from, int to, long minDays) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (days[candidates[middle]] >= minDays) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int[] getByEmployee() {
+        if (byEmployee == null) {
+            byEmployee = sortByEmployee(byDaysDesc.clone());
+        }
+        return byEmployee;
+    }
+
+    private int[] getByProject() {
+        if (byProject == null) {
+            byProject = sortByProject(byDaysDesc.clone());
+        }
+        return byProject;
+    }
+
+    /*
+     * The orders by employee and by project are built with stable counting
+     * sorts by the ranks of the ids, starting from the least significant one,
+     * so ties keep the order of the provided indexes.
+     */
+
+    private int[] sortByEmployee(int[] indexes) {
+        int[] buffer = new int[indexes.length];
+        countingSort(indexes, buffer, projectRanks, projectCount);
+        countingSort(buffer, indexes, secondRanks, employeeCount);
+        countingSort(indexes, buffer, firstRanks, employeeCount);
+        return buffer;
+    }
+
+    private int[] sortByProject(int[] indexes) {
+        int[] buffer = new int[indexes.length];
+        countingSort(indexes, buffer, secondRanks, employeeCount);
+        countingSort(buffer, indexes, firstRanks, employeeCount);
+        countingSort(indexes, buffer, projectRanks, projectCount);
+        return buffer;
+    }
+
+    private static void countingSort(int[] indexes, int[] target, int[] keys,
+                                     int keyCount) {
+        int[] offsets = new int[keyCount + 1];
+        for (int index : indexes) {
+            offsets[keys[index] + 1]++;
+        }
+        prefixSum(offsets);
+        for (int index : indexes) {
+            target[offsets[keys[index]]++] = index;
+        }
+    }
+
+    private static PairPage emptyPage(int offset) {
+        return PairPage.builder().pairs(List.of()).offset(offset).build();
+    }
+
+    private static int intern(Map<String, Integer> ids, String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = ids.size();
+            ids.put(value, id);
+        }
+        return id;
+    }
+
+    private static int[] ranks(Map<String, Integer> ids) {
+        String[] values = ids.keySet().toArray(new String[0]);
+        Arrays.sort(values);
+        int[] ranks = new int[values.length];
+        for (int rank = 0; rank < values.length; rank++) {
+            ranks[ids.get(values[rank])] = rank;
+        }
+        return ranks;
+    }
+
+    private static void prefixSum(int[] values) {
+        for (int i = 1; i < values.length; i++) {
+            values[i] += values[i - 1];
+        }
+    }
+}
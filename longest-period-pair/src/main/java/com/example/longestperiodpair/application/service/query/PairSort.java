@@ -0,0 +1,29 @@
+package com.example.longestperiodpair.application.service.query;
+
+/**
+ * The orders in which the pairs can be queried. Ties are ordered by the
+ * position of the pairs in the result.
+ */
+public enum PairSort {
+
+    /**
+     * The longest working pairs first.
+     */
+    DAYS_DESC,
+
+    /**
+     * The shortest working pairs first.
+     */
+    DAYS_ASC,
+
+    /**
+     * By the first employee id, then the second employee id and the project
+     * id.
+     */
+    EMPLOYEE,
+
+    /**
+     * By the project id, then the first and the second employee id.
+     */
+    PROJECT
+}
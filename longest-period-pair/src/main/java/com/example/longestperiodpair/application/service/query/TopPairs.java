@@ -0,0 +1,50 @@
+package com.example.longestperiodpair.application.service.query;
+
+import com.example.longestperiodpair.application.model.WorkingPair;
+import com.example.longestperiodpair.application.service.aggregate.PairTotalsAggregator;
+import com.example.longestperiodpair.application.service.aggregate.TopPairsSelector;
+import com.example.longestperiodpair.application.service.store.PairRecords;
+import com.example.longestperiodpair.application.util.IdDictionary;
+import com.example.longestperiodpair.application.util.LongLongHashMap;
+
+import java.util.List;
+
+
+/**
+ * Selects the longest working pairs from the stored {@link PairRecords}, in a
+ * single pass summing the days per pair followed by the bounded selection of
+ * the {@link TopPairsSelector}.
+ */
+public final class TopPairs {
+
+    private TopPairs() {
+    }
+
+    /**
+     * Returns the pairs with the most days worked together over the records
+     * at the provided indexes, or over all records. The employee ids are
+     * encoded in the order they appear in the records, which decides the ties.
+     *
+     * @param records the records
+     * @param indexes the indexes of the records, null for all records
+     * @param k       the maximum number of pairs
+     * @return the longest working pairs, the longest first
+     */
+    public static List<WorkingPair> select(PairRecords records, int[] indexes,
+                                           int k) {
+        int count = indexes != null ? indexes.length : records.size();
+        IdDictionary employees = new IdDictionary();
+        LongLongHashMap totals = new LongLongHashMap();
+        for (int i = 0; i < count; i++) {
+            int index = indexes != null ? indexes[i] : i;
+            int first = employees.intern(records.employeeIdFirst(index));
+            int second = employees.intern(records.employeeIdSecond(index));
+            totals.addTo(PairTotalsAggregator.pairKey(first, second),
+                         records.daysWorked(index));
+        }
+
+        TopPairsSelector selector = new TopPairsSelector(k);
+        selector.offerAll(totals);
+        return PairTotalsAggregator.toWorkingPairs(selector, employees);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.longestperiodpair.application.service.store;
+
+import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.util.IdDictionary;
+
+import java.util.List;
+
+
+/**
+ * {@link PairRecords} kept on heap in parallel primitive arrays, with the
+ * employee and project ids dictionary encoded.
+ */
+public final class ArrayPairRecords implements PairRecords {
+
+    private static final int RECORD_BYTES = 4 * Integer.BYTES;
+
+    private static final int STRING_OVERHEAD_BYTES = 56;
+
+    private final String[] employees;
+    private final String[] projects;
+    private final int[] firstEmployees;
+    private final int[] secondEmployees;
+    private final int[] projectIds;
+    private final int[] days;
+    private final int size;
+
+    ArrayPairRecords(String[] employees, String[] projects,
+                     int[] firstEmployees, int[] secondEmployees,
+                     int[] projectIds, int[] days, int size) {
+        this.employees = employees;
+        this.projects = projects;
+        this.firstEmployees = firstEmployees;
+        this.secondEmployees = secondEmployees;
+        this.projectIds = projectIds;
+        this.days = days;
+        this.size = size;
+    }
+
+    /**
+     * Creates the records of the provided models.
+     *
+     * @param models the {@link PairPerProject} models
+     * @return the records
+     */
+    public static ArrayPairRecords of(List<PairPerProject> models) {
+        IdDictionary employees = new IdDictionary();
+        IdDictionary projects = new IdDictionary();
+        PairRecordsBuilder builder = new PairRecordsBuilder(models.size());
+        for (PairPerProject model : models) {
+            builder.add(employees.intern(model.getEmployeeIdFirst()),
+                        employees.intern(model.getEmployeeIdSecond()),
+                        projects.intern(model.getProjectId()),
+                        (int) model.getDaysWorked());
+        }
+        return builder.build(employees, projects);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String employeeIdFirst(int index) {
+        return employees[firstEmployees[index]];
+    }
+
+    @Override
+    public String employeeIdSecond(int index) {
+        return employees[secondEmployees[index]];
+    }
+
+    @Override
+    public String projectId(int index) {
+        return projects[projectIds[index]];
+    }
+
+    @Override
+    public long daysWorked(int index) {
+        return days[index];
+    }
+
+    @Override
+    public long estimateBytes() {
+        long bytes = (long) firstEmployees.length * RECORD_BYTES;
+        for (String employee : employees) {
+            bytes += STRING_OVERHEAD_BYTES + employee.length();
+        }
+        for (String project : projects) {
+            bytes += STRING_OVERHEAD_BYTES + project.length();
+        }
+        return bytes;
+    }
+}
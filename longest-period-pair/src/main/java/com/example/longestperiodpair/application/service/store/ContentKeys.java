@@ -0,0 +1,88 @@
+package com.example.longestperiodpair.application.service.store;
+
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+
+/**
+ * Computes the keys of the {@link ProcessedResult}s from the SHA-256 hash of
+ * the file content and the processing parameters affecting the result.
+ */
+public final class ContentKeys {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private ContentKeys() {
+    }
+
+    /**
+     * Reads the whole content and returns its key.
+     *
+     * @param content the content of the file
+     * @param pattern the date formatting pattern
+     * @return the key
+     * @throws IOException if reading the content fails
+     */
+    public static String of(InputStreamSource content, String pattern)
+            throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream is = content.getInputStream()) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return of(digest, pattern);
+    }
+
+    /**
+     * Returns the key for the content already passed to the digest.
+     *
+     * @param digest  the digest of the content, see {@link #newDigest()}
+     * @param pattern the date formatting pattern
+     * @return the key
+     */
+    public static String of(MessageDigest digest, String pattern) {
+        return toHex(digest.digest()) + '/' + pattern;
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 hash of the key, usable as a file name.
+     *
+     * @param key the key
+     * @return the hash of the key
+     */
+    public static String hashOf(String key) {
+        return toHex(newDigest().digest(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte value : hash) {
+            hex.append(HEX_DIGITS[(value >> 4) & 0xF])
+               .append(HEX_DIGITS[value & 0xF]);
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Creates the digest used for the hashing of the content.
+     *
+     * @return the digest
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
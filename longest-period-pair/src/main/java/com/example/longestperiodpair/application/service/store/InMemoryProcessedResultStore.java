@@ -0,0 +1,177 @@
+package com.example.longestperiodpair.application.service.store;
+
+import com.example.longestperiodpair.application.model.StoreStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * {@link ProcessedResultStore} keeping the results on heap. The store is
+ * bounded by the estimated size of the results in bytes: when it is exceeded,
+ * the least recently used results are evicted. The results older than the
+ * time to live are evicted as well. A single result larger than the bound is
+ * kept alone.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "processing.store.type",
+                       havingValue = "IN_MEMORY", matchIfMissing = true)
+public class InMemoryProcessedResultStore implements ProcessedResultStore {
+
+    private final long maxBytes;
+    private final long timeToLiveMillis;
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries
+        = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    private final PendingResults pending = new PendingResults();
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public InMemoryProcessedResultStore(
+            @Value("${processing.store.max-bytes:268435456}") long maxBytes,
+            @Value("${processing.store.time-to-live:PT24H}")
+                Duration timeToLive) {
+        this(maxBytes, timeToLive, Clock.systemUTC());
+    }
+
+    InMemoryProcessedResultStore(long maxBytes, Duration timeToLive,
+                                 Clock clock) {
+        this.maxBytes = maxBytes;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<ProcessedResult> get(String key) {
+        pending.store(key, this::put);
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                evict(key, entry);
+                entry = null;
+            }
+            (entry != null ? hits : misses).incrementAndGet();
+            return Optional.ofNullable(entry).map(e -> e.result);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<ProcessedResult> getByName(String fileName) {
+        String key = aliases.get(fileName);
+        if (key == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        return get(key);
+    }
+
+    @Override
+    public void put(ProcessedResult result) {
+        Entry entry = new Entry(result, result.estimateBytes(),
+                                clock.millis());
+        lock.lock();
+        try {
+            Entry previous = entries.put(result.getKey(), entry);
+            if (previous != null) {
+                bytes -= previous.bytes;
+            }
+            bytes += entry.bytes;
+            evictExpiredAndOverflowing(result.getKey());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void putPending(String key, Supplier<ProcessedResult> result) {
+        pending.put(key, result);
+    }
+
+    @Override
+    public void alias(String fileName, String key) {
+        aliases.put(fileName, key);
+    }
+
+    @Override
+    public StoreStats getStats() {
+        lock.lock();
+        try {
+            return StoreStats.builder().hits(hits.get()).misses(misses.get())
+                             .evictions(evictions.get())
+                             .entries(entries.size()).bytes(bytes)
+                             .maxBytes(maxBytes).build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictExpiredAndOverflowing(String keptKey) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet()
+                                                             .iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            boolean overflowing = bytes > maxBytes
+                                  && !eldest.getKey().equals(keptKey);
+            if (overflowing || isExpired(eldest.getValue())) {
+                iterator.remove();
+                onEvicted(eldest.getKey(), eldest.getValue());
+            }
+        }
+    }
+
+    private void evict(String key, Entry entry) {
+        entries.remove(key);
+        onEvicted(key, entry);
+    }
+
+    private void onEvicted(String key, Entry entry) {
+        bytes -= entry.bytes;
+        evictions.incrementAndGet();
+        aliases.values().removeIf(key::equals);
+        log.debug("Evicted the result with key '{}'.", key);
+    }
+
+    private boolean isExpired(Entry entry) {
+        return clock.millis() - entry.createdAt > timeToLiveMillis;
+    }
+
+    /**
+     * A stored result with its size.
+     */
+    private static final class Entry {
+
+        private final ProcessedResult result;
+        private final long bytes;
+        private final long createdAt;
+
+        private Entry(ProcessedResult result, long bytes, long createdAt) {
+            this.result = result;
+            this.bytes = bytes;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.longestperiodpair.application.service.store;
+
+import com.example.longestperiodpair.application.model.StoreStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+
+/**
+ * {@link ProcessedResultStore} keeping the results in
+ * {@link PairRecordsFile}s in a directory, read through memory mappings. On
+ * startup, the existing files are mapped again without being deserialized,
+ * so the results survive restarts and take almost no heap. The aliases are
+ * kept in a properties file next to the results. The store is not bounded,
+ * old result files can be removed while the application is stopped.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "processing.store.type",
+                       havingValue = "MAPPED_FILE")
+public class MappedFileProcessedResultStore implements ProcessedResultStore {
+
+    private static final String ALIASES_FILE = "aliases.properties";
+
+    private final Path directory;
+
+    private final Map<String, ProcessedResult> results
+        = new ConcurrentHashMap<>();
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    private final PendingResults pending = new PendingResults();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public MappedFileProcessedResultStore(
+            @Value("${processing.store.directory:results}") String directory) {
+        this(Paths.get(directory));
+    }
+
+    MappedFileProcessedResultStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            openResults();
+            loadAliases();
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                "Failed to open the result store in " + directory, e);
+        }
+        log.info("Opened {} stored results in '{}'.", results.size(),
+                 directory);
+    }
+
+    @Override
+    public Optional<ProcessedResult> get(String key) {
+        pending.store(key, this::put);
+        ProcessedResult result = results.get(key);
+        (result != null ? hits : misses).incrementAndGet();
+        return Optional.ofNullable(result);
+    }
+
+    @Override
+    public Optional<ProcessedResult> getByName(String fileName) {
+        String key = aliases.get(fileName);
+        if (key == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        return get(key);
+    }
+
+    /**
+     * Writes the result to a temporary file, moves it in place and maps it.
+     *
+     * @param result the result
+     * @throws UncheckedIOException if writing the result fails
+     */
+    @Override
+    public void put(ProcessedResult result) {
+        Path file = directory.resolve(ContentKeys.hashOf(result.getKey())
+                                      + PairRecordsFile.EXTENSION);
+        try {
+            Path temporary = Files.createTempFile(directory, "result", ".tmp");
+            try {
+                PairRecordsFile.write(temporary, result);
+                Files.move(temporary, file,
+                           StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            results.put(result.getKey(), PairRecordsFile.open(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                "Failed to store the result with key " + result.getKey(), e);
+        }
+    }
+
+    @Override
+    public void putPending(String key, Supplier<ProcessedResult> result) {
+        pending.put(key, result);
+    }
+
+    @Override
+    public void alias(String fileName, String key) {
+        aliases.put(fileName, key);
+        try {
+            saveAliases();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store the aliases", e);
+        }
+    }
+
+    /**
+     * Returns the statistics of the store. The bytes are the sizes of the
+     * mapped files, the store has no maximum.
+     *
+     * @return the statistics
+     */
+    @Override
+    public StoreStats getStats() {
+        long bytes = 0;
+        for (ProcessedResult result : results.values()) {
+            bytes += ((MappedPairRecords) result.getPairs()).mappedBytes();
+        }
+        return StoreStats.builder().hits(hits.get()).misses(misses.get())
+                         .entries(results.size()).bytes(bytes).build();
+    }
+
+    private void openResults() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                directory, "*" + PairRecordsFile.EXTENSION)) {
+            for (Path file : files) {
+                try {
+                    ProcessedResult result = PairRecordsFile.open(file);
+                    results.put(result.getKey(), result);
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable result file '{}'.", file, e);
+                }
+            }
+        }
+    }
+
+    private void loadAliases() throws IOException {
+        Path file = directory.resolve(ALIASES_FILE);
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (InputStream is = Files.newInputStream(file)) {
+                properties.load(is);
+            }
+            properties.forEach((fileName, key) -> {
+                if (results.containsKey(key)) {
+                    aliases.put((String) fileName, (String) key);
+                }
+            });
+        }
+    }
+
+    private synchronized void saveAliases() throws IOException {
+        Properties properties = new Properties();
+        properties.putAll(aliases);
+        Path temporary = Files.createTempFile(directory, "aliases", ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(temporary)) {
+                properties.store(os, null);
+            }
+            Files.move(temporary, directory.resolve(ALIASES_FILE),
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.longestperiodpair.application.service.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * {@link PairRecords} read in place from a mapped {@link PairRecordsFile}.
+ * Only the accessed records and ids are paged in, the heap keeps nothing
+ * but the buffer itself. Thread-safe, the buffer is only read with absolute
+ * positions.
+ */
+public final class MappedPairRecords implements PairRecords {
+
+    private static final int OVERHEAD_BYTES = 128;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int recordsOffset;
+    private final int employeesOffset;
+    private final int projectsOffset;
+
+    MappedPairRecords(ByteBuffer buffer, int size, int recordsOffset,
+                      int employeesOffset, int projectsOffset) {
+        this.buffer = buffer;
+        this.size = size;
+        this.recordsOffset = recordsOffset;
+        this.employeesOffset = employeesOffset;
+        this.projectsOffset = projectsOffset;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String employeeIdFirst(int index) {
+        return employee(field(index, 0));
+    }
+
+    @Override
+    public String employeeIdSecond(int index) {
+        return employee(field(index, 1));
+    }
+
+    @Override
+    public String projectId(int index) {
+        return entry(projectsOffset, field(index, 2));
+    }
+
+    @Override
+    public long daysWorked(int index) {
+        return field(index, 3);
+    }
+
+    /**
+     * The records are not on heap, only the mapping itself is accounted.
+     */
+    @Override
+    public long estimateBytes() {
+        return OVERHEAD_BYTES;
+    }
+
+    /**
+     * Returns the size of the mapped file.
+     *
+     * @return the number of bytes
+     */
+    public long mappedBytes() {
+        return buffer.capacity();
+    }
+
+    String employee(int id) {
+        return entry(employeesOffset, id);
+    }
+
+    private int field(int index, int field) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index
+                                                + ", size: " + size);
+        }
+        return buffer.getInt(recordsOffset
+                             + index * PairRecordsFile.RECORD_BYTES
+                             + field * Integer.BYTES);
+    }
+
+    private String entry(int dictionaryOffset, int id) {
+        int offsets = dictionaryOffset + Integer.BYTES;
+        int count = buffer.getInt(dictionaryOffset);
+        int start = buffer.getInt(offsets + id * Integer.BYTES);
+        int end = buffer.getInt(offsets + (id + 1) * Integer.BYTES);
+        int data = offsets + (count + 1) * Integer.BYTES;
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(data + start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
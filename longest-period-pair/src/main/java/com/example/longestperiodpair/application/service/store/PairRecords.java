@@ -0,0 +1,76 @@
+package com.example.longestperiodpair.application.service.store;
+
+import com.example.longestperiodpair.application.model.PairPerProject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Read access to the computed pairs of a processed file, stored in a compact
+ * form instead of a list of {@link PairPerProject} models.
+ */
+public interface PairRecords {
+
+    /**
+     * Returns the number of pairs.
+     *
+     * @return the number of pairs
+     */
+    int size();
+
+    String employeeIdFirst(int index);
+
+    String employeeIdSecond(int index);
+
+    String projectId(int index);
+
+    long daysWorked(int index);
+
+    /**
+     * Returns the approximate number of bytes taken by the records on heap.
+     *
+     * @return the number of bytes
+     */
+    long estimateBytes();
+
+    /**
+     * Creates the model of the pair at the provided index.
+     *
+     * @param index the index of the pair
+     * @return the {@link PairPerProject} model
+     */
+    default PairPerProject get(int index) {
+        return PairPerProject.builder().employeeIdFirst(employeeIdFirst(index))
+                             .employeeIdSecond(employeeIdSecond(index))
+                             .projectId(projectId(index))
+                             .daysWorked(daysWorked(index)).build();
+    }
+
+    /**
+     * Creates the models of all pairs.
+     *
+     * @return list of {@link PairPerProject} models
+     */
+    default List<PairPerProject> toModels() {
+        return toModels(0, size());
+    }
+
+    /**
+     * Creates the models of the pairs in the provided range, so a page can be
+     * served without creating the models of the other pairs.
+     *
+     * @param offset the index of the first pair
+     * @param limit  the maximum number of pairs
+     * @return list of {@link PairPerProject} models
+     */
+    default List<PairPerProject> toModels(int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), size());
+        int to = (int) Math.min((long) from + Math.max(limit, 0), size());
+        List<PairPerProject> models = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            models.add(get(i));
+        }
+        return models;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.longestperiodpair.application.service.store;
+
+import com.example.longestperiodpair.application.util.IdDictionary;
+
+import java.util.Arrays;
+
+
+/**
+ * Appends the computed pairs, with the dictionary encoded ids of the
+ * {@link com.example.longestperiodpair.application.service.ingest.AssignmentTable},
+ * into growing primitive arrays. Not thread-safe.
+ */
+public final class PairRecordsBuilder {
+
+    private int[] firstEmployees;
+    private int[] secondEmployees;
+    private int[] projectIds;
+    private int[] days;
+    private int size;
+
+    public PairRecordsBuilder() {
+        this(64);
+    }
+
+    public PairRecordsBuilder(int capacity) {
+        int initial = Math.max(capacity, 16);
+        firstEmployees = new int[initial];
+        secondEmployees = new int[initial];
+        projectIds = new int[initial];
+        days = new int[initial];
+    }
+
+    /**
+     * Appends a pair.
+     *
+     * @param firstEmployee  the encoded id of the first employee
+     * @param secondEmployee the encoded id of the second employee
+     * @param project        the encoded id of the project
+     * @param daysWorked     the number of days worked together
+     */
+    public void add(int firstEmployee, int secondEmployee, int project,
+                    int daysWorked) {
+        ensureCapacity(size + 1);
+        firstEmployees[size] = firstEmployee;
+        secondEmployees[size] = secondEmployee;
+        projectIds[size] = project;
+        days[size] = daysWorked;
+        size++;
+    }
+
+    /**
+     * Adds days to the pair at the provided position.
+     *
+     * @param index      the position of the pair
+     * @param daysWorked the number of days to add
+     */
+    public void addDays(int index, int daysWorked) {
+        days[index] += daysWorked;
+    }
+
+    /**
+     * Appends all pairs of the other builder, encoded with the same
+     * dictionaries.
+     *
+     * @param other the builder whose pairs are appended
+     */
+    public void addAll(PairRecordsBuilder other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.firstEmployees, 0, firstEmployees, size,
+                         other.size);
+        System.arraycopy(other.secondEmployees, 0, secondEmployees, size,
+                         other.size);
+        System.arraycopy(other.projectIds, 0, projectIds, size, other.size);
+        System.arraycopy(other.days, 0, days, size, other.size);
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Builds the records, trimming the arrays to the number of pairs.
+     *
+     * @param employees the dictionary of the employee ids
+     * @param projects  the dictionary of the project ids
+     * @return the records
+     */
+    public ArrayPairRecords build(IdDictionary employees,
+                                  IdDictionary projects) {
+        return new ArrayPairRecords(employees.toArray(), projects.toArray(),
+                                    Arrays.copyOf(firstEmployees, size),
+                                    Arrays.copyOf(secondEmployees, size),
+                                    Arrays.copyOf(projectIds, size),
+                                    Arrays.copyOf(days, size), size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > firstEmployees.length) {
+            int newCapacity = Math.max(capacity, firstEmployees.length
+                                                 + (firstEmployees.length
+                                                    >> 1));
+            firstEmployees = Arrays.copyOf(firstEmployees, newCapacity);
+            secondEmployees = Arrays.copyOf(secondEmployees, newCapacity);
+            projectIds = Arrays.copyOf(projectIds, newCapacity);
+            days = Arrays.copyOf(days, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.longestperiodpair.application.service.store;
+
+import com.example.longestperiodpair.application.model.LineError;
+import com.example.longestperiodpair.application.model.WorkingPair;
+import com.example.longestperiodpair.application.util.IdDictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Binary file format of a {@link ProcessedResult}. The file starts with a
+ * fixed-size header and the metadata of the result, followed by the pairs as
+ * fixed-width records of dictionary encoded ids, and ends with the
+ * dictionaries of the employee and project ids. All numbers are big-endian.
+ *
+ * <pre>
+ * header      magic, version, record count, as-of date (epoch day, min int
+ *             if none), row count, section offsets, longest pair (employee
+ *             ids encoded, -1 if none)
+ * metadata    key, file name, pattern (length-prefixed UTF-8, -1 for null),
+ *             rejected lines, count x (line number, line, reason, file name)
+ *             of the reported ones, duplicate rows
+ * records     record count x (first, second, project, days), 4 bytes each
+ * employees   count, count + 1 offsets, UTF-8 bytes
+ * projects    count, count + 1 offsets, UTF-8 bytes
+ * </pre>
+ *
+ * Opened files are mapped as a whole and read in place, so their size is
+ * limited to 2 GB.
+ */
+public final class PairRecordsFile {
+
+    /**
+     * Extension of the result files.
+     */
+    public static final String EXTENSION = ".pairs";
+
+    private static final int MAGIC = 0x4C505052;
+    private static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 4 * Integer.BYTES;
+
+    private static final int NO_EMPLOYEE = -1;
+    private static final int NO_AS_OF_DATE = Integer.MIN_VALUE;
+
+    private PairRecordsFile() {
+    }
+
+    /**
+     * Writes the result to the file, replacing it if it exists.
+     *
+     * @param file   the path of the file
+     * @param result the result
+     * @throws IOException if writing fails
+     */
+    public static void write(Path file, ProcessedResult result)
+            throws IOException {
+        PairRecords pairs = result.getPairs();
+        IdDictionary employees = new IdDictionary();
+        IdDictionary projects = new IdDictionary();
+        int[] encoded = new int[3 * pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            encoded[3 * i] = employees.intern(pairs.employeeIdFirst(i));
+            encoded[3 * i + 1] = employees.intern(pairs.employeeIdSecond(i));
+            encoded[3 * i + 2] = projects.intern(pairs.projectId(i));
+        }
+        WorkingPair longest = result.getLongestPair();
+        int longestFirst = longest == null
+                           ? NO_EMPLOYEE
+                           : employees.intern(longest.getEmployeeIdFirst());
+        int longestSecond = longest == null
+                            ? NO_EMPLOYEE
+                            : employees.intern(longest.getEmployeeIdSecond());
+
+        byte[][] metadata = {encode(result.getKey()),
+                             encode(result.getFileName()),
+                             encode(result.getPattern())};
+        List<LineError> lineErrors = result.getLineErrors();
+        byte[][] errorBytes = new byte[3 * lineErrors.size()][];
+        for (int i = 0; i < lineErrors.size(); i++) {
+            errorBytes[3 * i] = encode(lineErrors.get(i).getLine());
+            errorBytes[3 * i + 1] = encode(lineErrors.get(i).getReason());
+            errorBytes[3 * i + 2] = encode(lineErrors.get(i).getFileName());
+        }
+        long recordsOffset = HEADER_BYTES + Long.BYTES + 2 * Integer.BYTES
+                             + (long) lineErrors.size() * Long.BYTES;
+        for (byte[] value : metadata) {
+            recordsOffset += Integer.BYTES + (value == null ? 0 : value.length);
+        }
+        for (byte[] value : errorBytes) {
+            recordsOffset += Integer.BYTES + (value == null ? 0 : value.length);
+        }
+        byte[][] employeeBytes = encodeAll(employees);
+        byte[][] projectBytes = encodeAll(projects);
+        long employeesOffset = recordsOffset
+                               + (long) pairs.size() * RECORD_BYTES;
+        long projectsOffset = employeesOffset + dictionaryBytes(employeeBytes);
+        long fileBytes = projectsOffset + dictionaryBytes(projectBytes);
+        if (fileBytes > Integer.MAX_VALUE) {
+            throw new IOException("The result is too large to be mapped: "
+                                  + fileBytes + " bytes");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file),
+                                         64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(pairs.size());
+            out.writeInt(result.getAsOfDate() == null
+                         ? NO_AS_OF_DATE
+                         : (int) result.getAsOfDate().toEpochDay());
+            out.writeLong(result.getRowCount());
+            out.writeLong(recordsOffset);
+            out.writeLong(employeesOffset);
+            out.writeLong(projectsOffset);
+            out.writeInt(longestFirst);
+            out.writeInt(longestSecond);
+            out.writeLong(longest == null ? 0 : longest.getDaysWorked());
+            for (byte[] value : metadata) {
+                writeValue(out, value);
+            }
+            out.writeLong(result.getRejectedLines());
+            out.writeInt(lineErrors.size());
+            for (int i = 0; i < lineErrors.size(); i++) {
+                out.writeLong(lineErrors.get(i).getLineNumber());
+                writeValue(out, errorBytes[3 * i]);
+                writeValue(out, errorBytes[3 * i + 1]);
+                writeValue(out, errorBytes[3 * i + 2]);
+            }
+            out.writeInt(result.getDuplicateRows());
+            for (int i = 0; i < pairs.size(); i++) {
+                out.writeInt(encoded[3 * i]);
+                out.writeInt(encoded[3 * i + 1]);
+                out.writeInt(encoded[3 * i + 2]);
+                out.writeInt((int) pairs.daysWorked(i));
+            }
+            writeDictionary(out, employeeBytes);
+            writeDictionary(out, projectBytes);
+        }
+    }
+
+    /**
+     * Maps the file and reads its header and metadata. The records and the
+     * dictionaries are not read, they are accessed in place by the returned
+     * {@link MappedPairRecords}.
+     *
+     * @param file the path of the file
+     * @return the result
+     * @throws IOException if the file cannot be mapped or is not a result
+     *                     file
+     */
+    public static ProcessedResult open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file,
+                                                    StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The file is too large to be mapped: "
+                                      + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                 channel.size());
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC
+            || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a result file: " + file);
+        }
+
+        int size = buffer.getInt(8);
+        long rowCount = buffer.getLong(16);
+        int recordsOffset = (int) buffer.getLong(24);
+        int employeesOffset = (int) buffer.getLong(32);
+        int projectsOffset = (int) buffer.getLong(40);
+        MappedPairRecords pairs = new MappedPairRecords(buffer, size,
+                                                        recordsOffset,
+                                                        employeesOffset,
+                                                        projectsOffset);
+
+        int longestFirst = buffer.getInt(48);
+        WorkingPair longest = longestFirst == NO_EMPLOYEE
+                              ? null
+                              : WorkingPair.builder()
+                                           .employeeIdFirst(
+                                               pairs.employee(longestFirst))
+                                           .employeeIdSecond(
+                                               pairs.employee(
+                                                   buffer.getInt(52)))
+                                           .daysWorked(buffer.getLong(56))
+                                           .build();
+
+        ByteBuffer metadata = buffer.duplicate();
+        metadata.position(HEADER_BYTES);
+        ProcessedResult.ProcessedResultBuilder result = ProcessedResult
+            .builder().key(decode(metadata)).fileName(decode(metadata))
+            .pattern(decode(metadata)).pairs(pairs).longestPair(longest)
+            .rowCount(rowCount);
+        if (buffer.getInt(12) != NO_AS_OF_DATE) {
+            result.asOfDate(LocalDate.ofEpochDay(buffer.getInt(12)));
+        }
+        result.rejectedLines(metadata.getLong());
+        int errorCount = metadata.getInt();
+        List<LineError> lineErrors = new ArrayList<>(errorCount);
+        for (int i = 0; i < errorCount; i++) {
+            lineErrors.add(LineError.builder().lineNumber(metadata.getLong())
+                                    .line(decode(metadata))
+                                    .reason(decode(metadata))
+                                    .fileName(decode(metadata)).build());
+        }
+        return result.lineErrors(lineErrors)
+                     .duplicateRows(metadata.getInt()).build();
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeValue(DataOutputStream out, byte[] value)
+            throws IOException {
+        out.writeInt(value == null ? -1 : value.length);
+        if (value != null) {
+            out.write(value);
+        }
+    }
+
+    private static String decode(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] encodeAll(IdDictionary dictionary) {
+        byte[][] values = new byte[dictionary.size()][];
+        for (int id = 0; id < values.length; id++) {
+            values[id] = encode(dictionary.get(id));
+        }
+        return values;
+    }
+
+    private static long dictionaryBytes(byte[][] values) {
+        long bytes = Integer.BYTES + (values.length + 1L) * Integer.BYTES;
+        for (byte[] value : values) {
+            bytes += value.length;
+        }
+        return bytes;
+    }
+
+    private static void writeDictionary(DataOutputStream out,
+                                        byte[][] values) throws IOException {
+        out.writeInt(values.length);
+        int offset = 0;
+        out.writeInt(offset);
+        for (byte[] value : values) {
+            offset += value.length;
+            out.writeInt(offset);
+        }
+        for (byte[] value : values) {
+            out.write(value);
+        }
+    }
+}
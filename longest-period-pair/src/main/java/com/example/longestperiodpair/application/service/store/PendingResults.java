@@ -0,0 +1,45 @@
+package com.example.longestperiodpair.application.service.store;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+
+/**
+ * The results registered by {@link ProcessedResultStore#putPending}. The
+ * result of a key is built by one reader at a time, the other readers of the
+ * key wait for it to be stored. A result registered while the previous one is
+ * being built stays pending and is built by the next read.
+ */
+final class PendingResults {
+
+    private final Map<String, Supplier<ProcessedResult>> results
+        = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    void put(String key, Supplier<ProcessedResult> result) {
+        results.put(key, result);
+    }
+
+    /**
+     * Builds the pending result of the key, if any, and passes it to the
+     * store. The result is unregistered only after it is stored, so a
+     * concurrent reader either waits for it or finds it stored.
+     *
+     * @param key   the key of the result
+     * @param store stores the built result
+     */
+    void store(String key, Consumer<ProcessedResult> store) {
+        if (!results.containsKey(key)) {
+            return;
+        }
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            Supplier<ProcessedResult> result = results.get(key);
+            if (result != null) {
+                store.accept(result.get());
+                results.remove(key, result);
+            }
+        }
+    }
+}
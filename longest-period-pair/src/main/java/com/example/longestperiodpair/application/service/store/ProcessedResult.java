@@ -0,0 +1,99 @@
+package com.example.longestperiodpair.application.service.store;
+
+import com.example.longestperiodpair.application.model.LineError;
+import com.example.longestperiodpair.application.model.WorkingPair;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+
+/**
+ * Result of the processing of a file, kept in the
+ * {@link ProcessedResultStore}.
+ */
+@Getter
+@Builder
+public class ProcessedResult {
+
+    private static final long OVERHEAD_BYTES = 256;
+
+    /**
+     * The key of the result, based on the hash of the file content.
+     */
+    private final String key;
+
+    /**
+     * The name of the file the result was first computed for.
+     */
+    private final String fileName;
+
+    /**
+     * The date formatting pattern used for the parsing.
+     */
+    private final String pattern;
+
+    private final PairRecords pairs;
+
+    /**
+     * The longest working pair, null if no employees have worked together.
+     */
+    private final WorkingPair longestPair;
+
+    private final long rowCount;
+
+    /**
+     * The number of rows left out as duplicates of the rows of other files,
+     * when several files were processed as one dataset.
+     */
+    private final int duplicateRows;
+
+    /**
+     * The date the open ended assignments were ended on, null if the file has
+     * none, so the result does not depend on the date, see
+     * {@link #isCurrent(LocalDate)}.
+     */
+    private final LocalDate asOfDate;
+
+    /**
+     * The number of lines rejected by the parsing and skipped, always zero
+     * in the strict mode.
+     */
+    private final long rejectedLines;
+
+    /**
+     * The first lines rejected by the parsing and skipped.
+     */
+    @Builder.Default
+    private final List<LineError> lineErrors = List.of();
+
+    /**
+     * Checks whether the result can be reused by a processing as of the
+     * provided date: always if the file has no open ended assignments, and
+     * only on the same as-of date otherwise.
+     *
+     * @param asOf the as-of date of the processing
+     * @return whether the result is current
+     */
+    public boolean isCurrent(LocalDate asOf) {
+        return asOfDate == null || asOfDate.equals(asOf);
+    }
+
+    /**
+     * Returns the approximate number of bytes taken by the result on heap.
+     *
+     * @return the number of bytes
+     */
+    public long estimateBytes() {
+        long bytes = OVERHEAD_BYTES + pairs.estimateBytes();
+        for (LineError error : lineErrors) {
+            bytes += OVERHEAD_BYTES + 2L * (error.getLine().length()
+                                            + error.getReason().length());
+            if (error.getFileName() != null) {
+                bytes += 2L * error.getFileName().length();
+            }
+        }
+        return bytes;
+    }
+}
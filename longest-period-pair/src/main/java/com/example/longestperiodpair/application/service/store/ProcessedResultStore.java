@@ -0,0 +1,68 @@
+package com.example.longestperiodpair.application.service.store;
+
+import com.example.longestperiodpair.application.model.StoreStats;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+
+/**
+ * Keeps the results of the processed files. The results are keyed by the
+ * hash of the file content, so the same export uploaded again does not need
+ * to be processed again, and are reachable by the file names as aliases.
+ * Implementations are thread-safe.
+ */
+public interface ProcessedResultStore {
+
+    /**
+     * Returns the result stored under the provided key.
+     *
+     * @param key the key of the result
+     * @return the result, empty if not stored
+     */
+    Optional<ProcessedResult> get(String key);
+
+    /**
+     * Returns the result the provided file name is an alias of.
+     *
+     * @param fileName the name of the file
+     * @return the result, empty if not stored
+     */
+    Optional<ProcessedResult> getByName(String fileName);
+
+    /**
+     * Stores the result under its key, replacing any previous result.
+     *
+     * @param result the result
+     */
+    void put(ProcessedResult result);
+
+    /**
+     * Registers the result to be computed and stored under the key when the
+     * key, or an alias of it, is read next, replacing any result stored
+     * before. A result changing more often than it is read is thus built
+     * once per read instead of once per change. A later registration
+     * replaces the pending one, even while that one is being built. The
+     * concurrent readers of the key wait for the result instead of missing
+     * it.
+     *
+     * @param key    the key of the result
+     * @param result the supplier of the result, called at most once
+     */
+    void putPending(String key, Supplier<ProcessedResult> result);
+
+    /**
+     * Makes the file name an alias of the result stored under the key.
+     *
+     * @param fileName the name of the file
+     * @param key      the key of the result
+     */
+    void alias(String fileName, String key);
+
+    /**
+     * Returns the statistics of the store.
+     *
+     * @return the statistics
+     */
+    StoreStats getStats();
+}
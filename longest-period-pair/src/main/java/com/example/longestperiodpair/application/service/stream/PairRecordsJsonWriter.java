@@ -0,0 +1,69 @@
+package com.example.longestperiodpair.application.service.stream;
+
+import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.service.store.PairRecords;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * Writes the {@link PairRecords} as JSON straight to an output stream, record
+ * by record, with the same fields as the {@link PairPerProject} models. No
+ * models nor lists of them are created, so the memory used does not depend on
+ * the number of records.
+ */
+@Component
+public class PairRecordsJsonWriter {
+
+    private static final SerializedString LINE_SEPARATOR
+        = new SerializedString("\n");
+
+    private final JsonFactory jsonFactory;
+
+    public PairRecordsJsonWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Writes the records in the provided format. The output stream is flushed
+     * but not closed.
+     *
+     * @param records the records
+     * @param format  the format
+     * @param out     the output stream
+     * @throws IOException if writing fails
+     */
+    public void write(PairRecords records, StreamFormat format,
+                      OutputStream out) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (format == StreamFormat.JSON) {
+                generator.writeStartArray();
+            } else {
+                generator.setRootValueSeparator(LINE_SEPARATOR);
+            }
+            for (int i = 0; i < records.size(); i++) {
+                generator.writeStartObject();
+                generator.writeStringField("employeeIdFirst",
+                                           records.employeeIdFirst(i));
+                generator.writeStringField("employeeIdSecond",
+                                           records.employeeIdSecond(i));
+                generator.writeStringField("projectId", records.projectId(i));
+                generator.writeNumberField("daysWorked",
+                                           records.daysWorked(i));
+                generator.writeEndObject();
+            }
+            if (format == StreamFormat.JSON) {
+                generator.writeEndArray();
+            } else if (records.size() > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.longestperiodpair.application.service.stream;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * The formats in which the pairs can be streamed, see
+ * {@link PairRecordsJsonWriter}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum StreamFormat {
+
+    /**
+     * One JSON object per line.
+     */
+    NDJSON("application/x-ndjson"),
+
+    /**
+     * A JSON array of objects, written element by element.
+     */
+    JSON("application/json");
+
+    private final String mediaType;
+}
@@ -0,0 +1,240 @@
+package com.example.longestperiodpair.application.service.timeline;
+
+import com.example.longestperiodpair.application.service.aggregate.PairTotalsAggregator;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.ProjectGroups;
+import com.example.longestperiodpair.application.service.overlap.StreamingSweepLine;
+
+import java.util.Arrays;
+
+
+/**
+ * Index of the assignments of a processed file over time, computing the days
+ * worked together by the pairs within any window of dates on demand, without
+ * visiting the rows far from the window.
+ * <p>
+ * Per project, the rows are kept sorted by start date, so the rows starting
+ * within the window are a range found by binary searches. The rows starting
+ * before the window and still running at its start are found per class of
+ * length: the rows no longer than 2<sup>c</sup> days are kept apart, also
+ * sorted by start date, and only the ones starting at most 2<sup>c</sup> days
+ * before the window are visited. At least about half of the visited rows
+ * reach into the window, whatever the lengths of the other rows of the
+ * project. The rows are clipped to the window, the earlier ones all starting
+ * at its start, and swept with the {@link StreamingSweepLine}. Thread-safe
+ * once built.
+ */
+public final class TimelineIndex {
+
+    /**
+     * The class of the rows longer than 2<sup>15</sup> days, all of them
+     * visited for the windows after their start.
+     */
+    private static final int LONGEST_CLASS = 16;
+
+    private final AssignmentTable table;
+    private final ProjectGroups groups;
+
+    /**
+     * The rows of each project grouped by class of length, the classes in
+     * ascending order and the rows of a class sorted by start date.
+     */
+    private final int[] classRows;
+
+    /**
+     * The classes of length present in each project, as bits.
+     */
+    private final int[] classMasks;
+
+    /**
+     * The index of the first segment of the rows of a class of each project.
+     */
+    private final int[] segmentBases;
+
+    /**
+     * The start of each segment in the class rows, followed by their count.
+     */
+    private final int[] segmentStarts;
+
+    private TimelineIndex(AssignmentTable table) {
+        this.table = table;
+        this.groups = table.groupByProject();
+        int[] rows = groups.getRows();
+        int projectCount = groups.projectCount();
+        classRows = new int[rows.length];
+        classMasks = new int[projectCount];
+        segmentBases = new int[projectCount];
+        int[] starts = new int[Math.max(projectCount, 16)];
+        int segments = 0;
+        int[] next = new int[LONGEST_CLASS + 1];
+        for (int project = 0; project < projectCount; project++) {
+            groups.sortByStart(table, project);
+            Arrays.fill(next, 0);
+            for (int i = groups.start(project); i < groups.end(project); i++) {
+                next[lengthClass(rows[i])]++;
+            }
+            segmentBases[project] = segments;
+            int position = groups.start(project);
+            for (int c = 0; c <= LONGEST_CLASS; c++) {
+                int count = next[c];
+                next[c] = position;
+                if (count > 0) {
+                    classMasks[project] |= 1 << c;
+                    if (segments == starts.length) {
+                        starts = Arrays.copyOf(starts,
+                                               segments + (segments >> 1));
+                    }
+                    starts[segments++] = position;
+                    position += count;
+                }
+            }
+            // stable, so the rows of a class stay sorted by start date
+            for (int i = groups.start(project); i < groups.end(project); i++) {
+                classRows[next[lengthClass(rows[i])]++] = rows[i];
+            }
+        }
+        segmentStarts = Arrays.copyOf(starts, segments + 1);
+        segmentStarts[segments] = rows.length;
+    }
+
+    /**
+     * Builds the index of the rows of the table. The table must not be
+     * changed afterwards.
+     *
+     * @param table the parsed rows
+     * @return the index
+     */
+    public static TimelineIndex build(AssignmentTable table) {
+        return new TimelineIndex(table);
+    }
+
+    public AssignmentTable getTable() {
+        return table;
+    }
+
+    /**
+     * Computes the days worked together by each pair within the window.
+     *
+     * @param from       the first day of the window, in epoch days
+     * @param to         the exclusive end of the window, in epoch days
+     * @param employeeId only the pairs with the employee, if provided
+     * @return the totals of the pairs and the number of visited rows
+     */
+    public Window query(int from, int to, String employeeId) {
+        PairTotalsAggregator totals = new PairTotalsAggregator(table);
+        int employee = employeeId == null ? -1
+            : table.getEmployees().find(employeeId);
+        if (from >= to || (employeeId != null && employee < 0)) {
+            return new Window(totals, 0);
+        }
+        StreamingSweepLine sweep = new StreamingSweepLine(
+            (first, second, project, days) -> {
+                if (employee < 0 || first == employee || second == employee) {
+                    totals.acceptEmployees(first, second, days);
+                }
+            });
+        int[] rows = groups.getRows();
+        long visited = 0;
+        for (int project = 0; project < groups.projectCount(); project++) {
+            // the rows running at the start of the window, all clipped to it
+            int mask = classMasks[project];
+            for (int c = 0; c <= LONGEST_CLASS; c++) {
+                if ((mask & (1 << c)) == 0) {
+                    continue;
+                }
+                int segment = segmentBases[project]
+                              + Integer.bitCount(mask & ((1 << c) - 1));
+                int segmentEnd = segmentStarts[segment + 1];
+                int start = c == LONGEST_CLASS
+                            ? segmentStarts[segment]
+                            : firstStartingFrom(classRows,
+                                                segmentStarts[segment],
+                                                segmentEnd,
+                                                (long) from - (1L << c));
+                int end = firstStartingFrom(classRows, start, segmentEnd,
+                                            from);
+                for (int i = start; i < end; i++) {
+                    int row = classRows[i];
+                    if (table.dateTo(row) > from) {
+                        sweep.add(table.employeeId(row), project, from,
+                                  Math.min(table.dateTo(row), to));
+                    }
+                }
+                visited += end - start;
+            }
+
+            // the rows starting within the window, in order
+            int start = firstStartingFrom(rows, groups.start(project),
+                                          groups.end(project), from);
+            int end = firstStartingFrom(rows, start, groups.end(project), to);
+            for (int i = start; i < end; i++) {
+                int row = rows[i];
+                sweep.add(table.employeeId(row), project, table.dateFrom(row),
+                          Math.min(table.dateTo(row), to));
+            }
+            visited += end - start;
+        }
+        return new Window(totals, visited);
+    }
+
+    /**
+     * Returns the class of the length of the row: the rows of class c are
+     * shorter than 2<sup>c</sup> days, except for the longest class.
+     */
+    private int lengthClass(int row) {
+        int length = table.dateTo(row) - table.dateFrom(row);
+        if (length <= 0) {
+            return 0;
+        }
+        return Math.min(Integer.SIZE - Integer.numberOfLeadingZeros(length),
+                        LONGEST_CLASS);
+    }
+
+    /**
+     * Returns the position of the first of the rows between from (inclusive)
+     * and to (exclusive), sorted by start date, starting at or after the
+     * date.
+     */
+    private int firstStartingFrom(int[] rows, int from, int to, long date) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (table.dateFrom(rows[middle]) < date) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The days worked together by the pairs within a window.
+     */
+    public static final class Window {
+
+        private final PairTotalsAggregator totals;
+        private final long visitedRows;
+
+        private Window(PairTotalsAggregator totals, long visitedRows) {
+            this.totals = totals;
+            this.visitedRows = visitedRows;
+        }
+
+        public PairTotalsAggregator getTotals() {
+            return totals;
+        }
+
+        /**
+         * Returns the number of rows visited by the query, the rows of the
+         * window and the earlier rows of their classes of length possibly
+         * reaching into it.
+         *
+         * @return the number of rows
+         */
+        public long getVisitedRows() {
+            return visitedRows;
+        }
+    }
+}
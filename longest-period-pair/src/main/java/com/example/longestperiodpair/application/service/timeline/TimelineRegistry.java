@@ -0,0 +1,92 @@
+package com.example.longestperiodpair.application.service.timeline;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+
+/**
+ * Keeps the parsed rows of the most recently processed files, by the keys of
+ * their results, for the {@link TimelineIndex} queries. The index of a file
+ * is built on its first query. The rows take 16 bytes each and the index 8
+ * more, so only a bounded number of files is kept, none if the bound is 0.
+ */
+@Slf4j
+@Component
+public class TimelineRegistry {
+
+    private final int maxFiles;
+    private final Map<String, TimelineEntry> entries;
+
+    public TimelineRegistry(
+            @Value("${processing.timeline.max-files:4}") int maxFiles) {
+        this.maxFiles = maxFiles;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, TimelineEntry> eldest) {
+                return size() > maxFiles;
+            }
+        };
+    }
+
+    /**
+     * Keeps the rows of the result with the provided key, replacing the
+     * previous ones.
+     *
+     * @param key   the key of the result
+     * @param table the parsed rows, not changed afterwards
+     */
+    public void register(String key, AssignmentTable table) {
+        if (maxFiles <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new TimelineEntry(table));
+        }
+    }
+
+    /**
+     * Returns the index of the rows of the result with the provided key,
+     * building it if needed.
+     *
+     * @param key the key of the result
+     * @return the index, empty if the rows are not kept
+     */
+    public Optional<TimelineIndex> get(String key) {
+        TimelineEntry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        return Optional.ofNullable(entry).map(TimelineEntry::getIndex);
+    }
+
+    /**
+     * The rows of a result and their index, once built.
+     */
+    private static final class TimelineEntry {
+
+        private final AssignmentTable table;
+        private TimelineIndex index;
+
+        private TimelineEntry(AssignmentTable table) {
+            this.table = table;
+        }
+
+        private synchronized TimelineIndex getIndex() {
+            if (index == null) {
+                long start = System.nanoTime();
+                index = TimelineIndex.build(table);
+                log.debug("Indexed the timeline of {} rows in {} ms.",
+                          table.size(),
+                          (System.nanoTime() - start) / 1_000_000);
+            }
+            return index;
+        }
+    }
+}
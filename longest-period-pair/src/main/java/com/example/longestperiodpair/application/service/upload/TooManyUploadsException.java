@@ -0,0 +1,21 @@
+package com.example.longestperiodpair.application.service.upload;
+
+import lombok.Getter;
+
+
+/**
+ * Thrown when an upload is opened while the maximum number of uploads are
+ * still receiving their content.
+ */
+@Getter
+public class TooManyUploadsException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxOpenUploads;
+
+    public TooManyUploadsException(int maxOpenUploads) {
+        super("Already " + maxOpenUploads + " uploads open");
+        this.maxOpenUploads = maxOpenUploads;
+    }
+}
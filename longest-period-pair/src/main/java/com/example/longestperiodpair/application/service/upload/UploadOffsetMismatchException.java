@@ -0,0 +1,22 @@
+package com.example.longestperiodpair.application.service.upload;
+
+import lombok.Getter;
+
+
+/**
+ * Thrown when a chunk of a resumable upload starts past the bytes received so
+ * far, so the bytes in between are missing.
+ */
+@Getter
+public class UploadOffsetMismatchException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long expectedOffset;
+
+    public UploadOffsetMismatchException(long offset, long expectedOffset) {
+        super("Chunk at offset " + offset + ", expected at most "
+              + expectedOffset);
+        this.expectedOffset = expectedOffset;
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.longestperiodpair.application.util;
 
-import java.time.Duration;
 import java.time.LocalDate;
 
 
@@ -23,37 +22,125 @@ public final class DateUtils {
                                                   LocalDate fEnd,
                                                   LocalDate sStart,
                                                   LocalDate sEnd) {
-        return !((fEnd.isBefore(sStart) || fEnd.isEqual(sStart))
-                 || (sEnd.isBefore(fStart) || sEnd.isEqual(fStart)));
+        return fStart.isBefore(sEnd) && sStart.isBefore(fEnd);
     }
 
     /**
-     * Returns the overlap between the provided intervals in days.
+     * Returns the overlap between the provided intervals in days. Assumes
+     * that end date is always exclusive.
      *
      * @param fStart the start date of the first interval
      * @param fEnd   the end date of the first interval
      * @param sStart the start date of the second interval
      * @param sEnd   the end date of the second interval
-     * @return number of days in the intersection between the intervals
+     * @return number of days in the intersection between the intervals, 0 if
+     * they do not overlap
      */
     public static long findIntervalOverlapInDays(LocalDate fStart,
                                                  LocalDate fEnd,
                                                  LocalDate sStart,
                                                  LocalDate sEnd) {
-        LocalDate latestStart = fStart;
-        if (sStart.isAfter(latestStart)) {
-            latestStart = sStart;
-        }
+        LocalDate latestStart = sStart.isAfter(fStart) ? sStart : fStart;
+        LocalDate earliestEnd = sEnd.isBefore(fEnd) ? sEnd : fEnd;
+        return Math.max(0, earliestEnd.toEpochDay()
+                           - latestStart.toEpochDay());
+    }
+
+    /**
+     * Returns the overlap between the intervals [fStart,fEnd) and
+     * [sStart,sEnd) given in epoch days. Computed with min and max only, which
+     * compile to conditional moves, so the callers in the inner loops do not
+     * need a separate check whether the intervals overlap.
+     *
+     * @param fStart the start date of the first interval
+     * @param fEnd   the exclusive end date of the first interval
+     * @param sStart the start date of the second interval
+     * @param sEnd   the exclusive end date of the second interval
+     * @return number of days in the intersection between the intervals, 0 if
+     * they do not overlap
+     */
+    public static int overlapDays(int fStart, int fEnd, int sStart,
+                                  int sEnd) {
+        return Math.max(0, Math.min(fEnd, sEnd) - Math.max(fStart, sStart));
+    }
+
+    /**
+     * Returns the overlap between the intervals given in epoch days, see
+     * {@link #overlapDays(int, int, int, int)}.
+     *
+     * @param fStart the start date of the first interval
+     * @param fEnd   the exclusive end date of the first interval
+     * @param sStart the start date of the second interval
+     * @param sEnd   the exclusive end date of the second interval
+     * @return number of days in the intersection between the intervals, 0 if
+     * they do not overlap
+     */
+    public static long overlapDays(long fStart, long fEnd, long sStart,
+                                   long sEnd) {
+        return Math.max(0, Math.min(fEnd, sEnd) - Math.max(fStart, sStart));
+    }
+
+    /**
+     * Returns the overlap between the intervals given in epoch days, with end
+     * dates in the provided mode.
+     *
+     * @param fStart the start date of the first interval
+     * @param fEnd   the end date of the first interval
+     * @param sStart the start date of the second interval
+     * @param sEnd   the end date of the second interval
+     * @param mode   whether the end dates are inclusive or exclusive
+     * @return number of days in the intersection between the intervals, 0 if
+     * they do not overlap
+     */
+    public static int overlapDays(int fStart, int fEnd, int sStart, int sEnd,
+                                  EndDateMode mode) {
+        return overlapDays(fStart, mode.toExclusive(fEnd), sStart,
+                           mode.toExclusive(sEnd));
+    }
 
-        LocalDate earliestEnd = fEnd;
-        if (sEnd.isBefore(earliestEnd)) {
-            earliestEnd = sEnd;
+    /**
+     * Converts the provided date fields to the epoch day, the same value as
+     * returned by {@link LocalDate#toEpochDay()}, without creating a
+     * {@link LocalDate}. The fields are expected to be valid.
+     *
+     * @param year  the proleptic year
+     * @param month the month of the year, from 1 to 12
+     * @param day   the day of the month, from 1 to 31
+     * @return the epoch day
+     */
+    public static int toEpochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5
+                        + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+                       + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Returns the number of days in the provided month.
+     *
+     * @param year  the proleptic year
+     * @param month the month of the year, from 1 to 12
+     * @return the length of the month in days
+     */
+    public static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
         }
+    }
 
-        /* assuming that the end date should be exclusive, otherwise we
-        should add .plusDays(1) to the earliestEnd */
-        return Duration
-            .between(latestStart.atStartOfDay(), earliestEnd.atStartOfDay())
-            .toDays();
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
     }
 }
@@ -0,0 +1,32 @@
+package com.example.longestperiodpair.application.util;
+
+
+/**
+ * Whether the end date of an interval is the last day of the interval or the
+ * first day after it. The intervals are kept with exclusive end dates
+ * internally, the inclusive ones are converted when parsed.
+ */
+public enum EndDateMode {
+
+    /**
+     * The end date is the first day after the interval, so an interval
+     * ending on the start date of another one does not overlap with it.
+     */
+    EXCLUSIVE,
+
+    /**
+     * The end date is the last day of the interval, so an interval ending on
+     * the start date of another one overlaps with it by one day.
+     */
+    INCLUSIVE;
+
+    /**
+     * Converts the end date in this mode to the exclusive end date.
+     *
+     * @param endDate the end date in epoch days
+     * @return the exclusive end date in epoch days
+     */
+    public int toExclusive(int endDate) {
+        return this == INCLUSIVE ? endDate + 1 : endDate;
+    }
+}
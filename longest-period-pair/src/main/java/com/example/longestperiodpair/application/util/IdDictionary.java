@@ -0,0 +1,155 @@
+package com.example.longestperiodpair.application.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Dictionary encoding the string identifiers into dense int ids, assigned in
+ * the order of first appearance. The identifiers are looked up by their UTF-8
+ * bytes, so they can be interned directly from an input buffer and a
+ * {@link String} is created only once per distinct identifier.
+ */
+public final class IdDictionary {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] slots = new int[INITIAL_CAPACITY << 1];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private byte[][] keys = new byte[INITIAL_CAPACITY][];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Returns the id of the provided value, assigning a new one if the value
+     * is seen for the first time.
+     *
+     * @param value the string identifier
+     * @return the int id of the value
+     */
+    public int intern(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return intern(bytes, 0, bytes.length, value);
+    }
+
+    /**
+     * Returns the id of the identifier stored as UTF-8 bytes in the provided
+     * buffer range, assigning a new one if the identifier is seen for the
+     * first time.
+     *
+     * @param buffer the buffer holding the identifier
+     * @param start  the start of the identifier in the buffer
+     * @param end    the end of the identifier in the buffer (exclusive)
+     * @return the int id of the identifier
+     */
+    public int intern(byte[] buffer, int start, int end) {
+        return intern(buffer, start, end, null);
+    }
+
+    /**
+     * Returns the id of the provided value without assigning a new one, so it
+     * can be called concurrently once the dictionary is no longer modified.
+     *
+     * @param value the string identifier
+     * @return the int id of the value, -1 if the value is not encoded
+     */
+    public int find(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes, 0, bytes.length);
+        return slots[slotOf(hash, bytes, 0, bytes.length)] - 1;
+    }
+
+    /**
+     * Returns the string identifier for the provided id.
+     *
+     * @param id the int id
+     * @return the string identifier
+     */
+    public String get(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown id " + id);
+        }
+        return values[id];
+    }
+
+    /**
+     * Returns a copy of the string identifiers, indexed by their ids.
+     *
+     * @return the string identifiers
+     */
+    public String[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns the number of the encoded identifiers.
+     *
+     * @return the number of identifiers
+     */
+    public int size() {
+        return size;
+    }
+
+    private int intern(byte[] buffer, int start, int end, String value) {
+        int hash = hash(buffer, start, end);
+        int slot = slotOf(hash, buffer, start, end);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+
+        if (size == keys.length) {
+            int capacity = size << 1;
+            hashes = Arrays.copyOf(hashes, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        int id = size++;
+        hashes[id] = hash;
+        keys[id] = Arrays.copyOfRange(buffer, start, end);
+        values[id] = value != null ? value
+            : new String(buffer, start, end - start, StandardCharsets.UTF_8);
+        slots[slot] = id + 1;
+        if (size << 1 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Returns the slot of the identifier, or the empty slot it would take.
+     */
+    private int slotOf(int hash, byte[] buffer, int start, int end) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && Arrays.equals(keys[id], 0,
+                                                    keys[id].length, buffer,
+                                                    start, end)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length << 1];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int hash(byte[] buffer, int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
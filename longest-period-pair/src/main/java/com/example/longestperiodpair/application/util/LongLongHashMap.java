@@ -0,0 +1,192 @@
+package com.example.longestperiodpair.application.util;
+
+
+/**
+ * Open addressing hash map with primitive {@code long} keys and values. Avoids
+ * the boxing and the entry objects of {@link java.util.HashMap} for the maps
+ * holding large number of numeric keys.
+ */
+public final class LongLongHashMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private static final double LOAD_FACTOR = 0.6;
+
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    public LongLongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map able to hold the expected number of entries without
+     * resizing.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public LongLongHashMap(int expectedSize) {
+        allocate(tableSizeFor((int) Math.ceil(expectedSize / LOAD_FACTOR)));
+    }
+
+    /**
+     * Adds the provided delta to the value mapped to the key. Missing keys are
+     * treated as mapped to 0.
+     *
+     * @param key   the key
+     * @param delta the value to be added
+     * @return the new value mapped to the key
+     */
+    public long addTo(long key, long delta) {
+        int slot = findSlot(key);
+        if (used[slot]) {
+            values[slot] += delta;
+            return values[slot];
+        }
+
+        insert(slot, key, delta);
+        return delta;
+    }
+
+    /**
+     * Maps the provided value to the key, replacing the previous value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(long key, long value) {
+        int slot = findSlot(key);
+        if (used[slot]) {
+            values[slot] = value;
+        } else {
+            insert(slot, key, value);
+        }
+    }
+
+    /**
+     * Returns the value mapped to the key or the default value if the key is
+     * not present.
+     *
+     * @param key          the key
+     * @param defaultValue the value returned for missing keys
+     * @return the mapped value
+     */
+    public long get(long key, long defaultValue) {
+        int slot = findSlot(key);
+        return used[slot] ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Checks whether the key is present in the map.
+     *
+     * @param key the key
+     * @return whether the key is present
+     */
+    public boolean containsKey(long key) {
+        return used[findSlot(key)];
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes each entry of the map to the provided consumer, in no particular
+     * order.
+     *
+     * @param consumer the entry consumer
+     */
+    public void forEach(LongLongConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Adds the values of all entries of the other map to this map.
+     *
+     * @param other the map to be merged into this one
+     */
+    public void addAll(LongLongHashMap other) {
+        other.forEach(this::addTo);
+    }
+
+    private int findSlot(long key) {
+        int slot = mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int slot, long key, long value) {
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        if (++size > resizeThreshold) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, MIN_CAPACITY) - 1);
+        return size << 1;
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Consumer of the map entries.
+     */
+    @FunctionalInterface
+    public interface LongLongConsumer {
+
+        /**
+         * Accepts a map entry.
+         *
+         * @param key   the key
+         * @param value the value
+         */
+        void accept(long key, long value);
+    }
+}
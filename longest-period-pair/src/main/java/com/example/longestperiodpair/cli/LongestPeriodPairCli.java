@@ -0,0 +1,182 @@
+package com.example.longestperiodpair.cli;
+
+import com.example.longestperiodpair.application.model.WorkingPair;
+import com.example.longestperiodpair.application.service.aggregate.PairCollector;
+import com.example.longestperiodpair.application.service.aggregate.PairTotalsAggregator;
+import com.example.longestperiodpair.application.service.ingest.AssignmentRowParser;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.CsvScanner;
+import com.example.longestperiodpair.application.service.ingest.DateParserRegistry;
+import com.example.longestperiodpair.application.service.ingest.ProjectGroups;
+import com.example.longestperiodpair.application.service.overlap.OverlapEngine;
+import com.example.longestperiodpair.application.service.overlap.ParallelOverlapExecutor;
+import com.example.longestperiodpair.application.service.overlap.SweepLineOverlapEngine;
+import com.example.longestperiodpair.application.util.EndDateMode;
+import ch.qos.logback.classic.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+
+/**
+ * Finds the pairs of employees that have worked together for the longest
+ * time in a local file, without starting the Spring context or the web
+ * server. Runs the same parsing, overlap and aggregation stages as the
+ * service, keeping only the totals per pair. Prints the pairs as
+ * {@code employee,employee,days} lines, the longest first, and the timings
+ * of the stages to the standard error.
+ * <p>
+ * Usage: {@code LongestPeriodPairCli [--pattern=yyyy-MM-dd] [--top=1]
+ * [--inclusive-end] [--as-of=yyyy-MM-dd] [--sequential] <file>}, the open
+ * ended assignments ending on the as-of date, the current date by default.
+ */
+public final class LongestPeriodPairCli {
+
+    private static final String USAGE = "Usage: LongestPeriodPairCli "
+        + "[--pattern=yyyy-MM-dd] [--top=1] [--inclusive-end] "
+        + "[--as-of=yyyy-MM-dd] [--sequential] <file>";
+
+    private String pattern = "yyyy-MM-dd";
+    private int top = 1;
+    private EndDateMode endDateMode = EndDateMode.EXCLUSIVE;
+    private LocalDate asOfDate;
+    private boolean sequential;
+    private Path file;
+
+    private LongestPeriodPairCli() {
+    }
+
+    public static void main(String[] args) {
+        quietLogging();
+        LongestPeriodPairCli cli = new LongestPeriodPairCli();
+        if (!cli.parseArguments(args)) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        try {
+            cli.run(System.out, System.err);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to process '" + cli.file + "': "
+                               + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Keeps only the warnings of the default logback configuration, instead
+     * of parsing a configuration file, which takes longer than processing a
+     * small file.
+     */
+    private static void quietLogging() {
+        Logger root = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+        if (root instanceof ch.qos.logback.classic.Logger) {
+            ((ch.qos.logback.classic.Logger) root).setLevel(Level.WARN);
+        }
+    }
+
+    private boolean parseArguments(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--pattern=")) {
+                pattern = arg.substring("--pattern=".length());
+            } else if (arg.startsWith("--top=")) {
+                try {
+                    top = Integer.parseInt(arg.substring("--top=".length()));
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            } else if (arg.equals("--inclusive-end")) {
+                endDateMode = EndDateMode.INCLUSIVE;
+            } else if (arg.startsWith("--as-of=")) {
+                try {
+                    asOfDate = LocalDate.parse(
+                        arg.substring("--as-of=".length()));
+                } catch (DateTimeParseException e) {
+                    return false;
+                }
+            } else if (arg.equals("--sequential")) {
+                sequential = true;
+            } else if (arg.startsWith("--") || file != null) {
+                return false;
+            } else {
+                file = Paths.get(arg);
+            }
+        }
+        return file != null && top >= 0;
+    }
+
+    private void run(PrintStream out, PrintStream err) throws IOException {
+        long start = System.nanoTime();
+        AssignmentTable table = new AssignmentTable();
+        LocalDate asOf = asOfDate != null ? asOfDate : LocalDate.now();
+        try (InputStream is = Files.newInputStream(file)) {
+            new CsvScanner(new AssignmentRowParser(
+                table, new DateParserRegistry(), pattern, true, endDateMode,
+                asOf)).scan(is);
+        }
+        long parsed = System.nanoTime();
+        int rows = table.size();
+
+        PairTotalsAggregator totals = computeTotals(table);
+        long computed = System.nanoTime();
+
+        List<WorkingPair> pairs = totals.findTop(top);
+        for (WorkingPair pair : pairs) {
+            out.println(pair.getEmployeeIdFirst() + ','
+                        + pair.getEmployeeIdSecond() + ','
+                        + pair.getDaysWorked());
+        }
+        if (pairs.isEmpty()) {
+            err.println("No employees have worked together.");
+        }
+        err.printf("%d rows parsed in %d ms, %d pairs computed in %d ms, "
+                   + "%d ms in total.%n", rows,
+                   millis(start, parsed), totals.pairCount(),
+                   millis(parsed, computed), millis(start, System.nanoTime()));
+    }
+
+    /**
+     * Computes the totals like the service: the rows of an employee on a
+     * project are coalesced first, and the overlaps of an employee with
+     * itself are dropped by the {@link PairCollector}.
+     */
+    private PairTotalsAggregator computeTotals(AssignmentTable table) {
+        table.coalesce();
+        ProjectGroups groups = table.groupByProject();
+        OverlapEngine engine = new SweepLineOverlapEngine();
+        PairCollector collector = new PairCollector(table, false);
+        if (sequential) {
+            for (int project = 0; project < groups.projectCount();
+                 project++) {
+                groups.sortByStart(table, project);
+                engine.findOverlaps(table, groups.getRows(),
+                                    groups.start(project),
+                                    groups.end(project), collector);
+            }
+            return collector.getTotals();
+        }
+
+        ParallelOverlapExecutor executor = new ParallelOverlapExecutor(0,
+                                                                       20000);
+        try {
+            executor.execute(table, groups, engine,
+                             () -> new PairCollector(table, false))
+                    .forEach(collector::merge);
+        } finally {
+            executor.shutdown();
+        }
+        return collector.getTotals();
+    }
+
+    private static long millis(long fromNanos, long toNanos) {
+        return (toNanos - fromNanos) / 1_000_000;
+    }
+}
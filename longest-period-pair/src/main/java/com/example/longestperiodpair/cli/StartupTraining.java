@@ -0,0 +1,28 @@
+package com.example.longestperiodpair.cli;
+
+import com.example.longestperiodpair.configuration.LongestPeriodPairApplication;
+import org.springframework.boot.SpringApplication;
+
+import java.util.Arrays;
+
+
+/**
+ * Loads the classes of a typical run for the class list of the AppCDS
+ * archive built by the {@code startup} profile: processes the training file
+ * with {@link LongestPeriodPairCli}, then starts the application and stops it
+ * as soon as it is ready.
+ * <p>
+ * Usage: {@code StartupTraining <file> [application arguments]}
+ */
+public final class StartupTraining {
+
+    private StartupTraining() {
+    }
+
+    public static void main(String[] args) {
+        LongestPeriodPairCli.main(new String[] {args[0]});
+        System.exit(SpringApplication.exit(SpringApplication.run(
+            LongestPeriodPairApplication.class,
+            Arrays.copyOfRange(args, 1, args.length))));
+    }
+}
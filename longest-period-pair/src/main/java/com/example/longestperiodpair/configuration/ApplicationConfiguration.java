@@ -3,12 +3,14 @@ package com.example.longestperiodpair.configuration;
 import com.example.longestperiodpair.application.ApplicationBeanInterface;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 /**
  * Application configuration.
  */
 @Configuration
+@EnableScheduling
 @ComponentScan(basePackageClasses = ApplicationBeanInterface.class)
 public class ApplicationConfiguration {
 }
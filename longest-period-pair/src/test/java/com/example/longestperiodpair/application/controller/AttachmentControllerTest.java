@@ -0,0 +1,99 @@
+package com.example.longestperiodpair.application.controller;
+
+import com.example.longestperiodpair.application.service.AttachmentProcessingService;
+import com.example.longestperiodpair.application.service.PairQueryService;
+import com.example.longestperiodpair.application.model.LineError;
+import com.example.longestperiodpair.application.service.ProcessingJobService;
+import com.example.longestperiodpair.application.service.ingest.LineErrorsException;
+import com.example.longestperiodpair.application.service.store.ProcessedResultStore;
+import com.example.longestperiodpair.application.service.stream.PairRecordsJsonWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests {@link AttachmentController}.
+ */
+class AttachmentControllerTest {
+
+    private final AttachmentProcessingService service
+        = mock(AttachmentProcessingService.class);
+    private final ProcessingJobService jobService
+        = mock(ProcessingJobService.class);
+
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(
+        new AttachmentController(service, jobService,
+                                 mock(PairQueryService.class),
+                                 mock(PairRecordsJsonWriter.class),
+                                 mock(ProcessedResultStore.class)))
+        .setControllerAdvice(new LineErrorsExceptionHandler()).build();
+
+    private final MockMultipartFile file = new MockMultipartFile(
+        "file", "a.csv", "text/csv",
+        "1,10,2020-01-01,2020-02-01\n".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void shouldAcceptAsynchronousUpload() throws Exception {
+        when(jobService.submit(any(), eq("yyyy-MM-dd"))).thenReturn("job-1");
+
+        mvc.perform(multipart("/api/attachments/upload").file(file)
+                                                        .param("async",
+                                                               "true"))
+           .andExpect(status().isAccepted())
+           .andExpect(content().string("job-1"));
+    }
+
+    @Test
+    void shouldRejectAsynchronousUploadWhenQueueIsFull() throws Exception {
+        when(jobService.submit(any(), eq("yyyy-MM-dd")))
+            .thenThrow(new RejectedExecutionException("Queue is full"));
+
+        mvc.perform(multipart("/api/attachments/upload").file(file)
+                                                        .param("async",
+                                                               "true"))
+           .andExpect(status().isServiceUnavailable())
+           .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+
+    @Test
+    void shouldRejectInvalidPage() throws Exception {
+        mvc.perform(get("/api/attachments/a.csv/pairs").param("offset", "-1"))
+           .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/attachments/a.csv/pairs").param("limit", "0"))
+           .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/attachments/a.csv/pairs")
+                        .param("offset", "4294967296"))
+           .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReportRejectedLinesOfSynchronousUpload() throws Exception {
+        var error = LineError.builder().lineNumber(2).line("1,10")
+                             .reason("Unexpected line format").build();
+        doThrow(new LineErrorsException(1, List.of(error)))
+            .when(service).process(any(), eq("yyyy-MM-dd"));
+
+        mvc.perform(multipart("/api/attachments/upload").file(file))
+           .andExpect(status().isUnprocessableEntity())
+           .andExpect(jsonPath("$.rejectedLines").value(1))
+           .andExpect(jsonPath("$.errors[0].lineNumber").value(2));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.longestperiodpair.application.controller;
+
+import com.example.longestperiodpair.application.model.LineError;
+import com.example.longestperiodpair.application.service.IncrementalProcessingService;
+import com.example.longestperiodpair.application.service.ingest.LineErrorsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests {@link DatasetController}.
+ */
+class DatasetControllerTest {
+
+    private final IncrementalProcessingService service
+        = mock(IncrementalProcessingService.class);
+
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(
+        new DatasetController(service))
+        .setControllerAdvice(new LineErrorsExceptionHandler()).build();
+
+    private final MockMultipartFile file = new MockMultipartFile(
+        "file", "delta.csv", "text/csv",
+        "1,10,x,y\n".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void shouldReportRejectedLinesOfDelta() throws Exception {
+        var error = LineError.builder().lineNumber(1).line("1,10,x,y")
+                             .reason("Unparseable date").build();
+        when(service.applyDelta(eq("base"), any(), eq("yyyy-MM-dd")))
+            .thenThrow(new LineErrorsException(1, List.of(error)));
+
+        mvc.perform(multipart("/api/datasets/base/delta").file(file))
+           .andExpect(status().isUnprocessableEntity())
+           .andExpect(jsonPath("$.rejectedLines").value(1))
+           .andExpect(jsonPath("$.errors[0].lineNumber").value(1));
+    }
+}
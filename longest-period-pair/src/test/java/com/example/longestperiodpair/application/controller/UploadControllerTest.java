@@ -0,0 +1,80 @@
+package com.example.longestperiodpair.application.controller;
+
+import com.example.longestperiodpair.application.model.ProcessingPhase;
+import com.example.longestperiodpair.application.model.UploadStatus;
+import com.example.longestperiodpair.application.service.UploadSessionService;
+import com.example.longestperiodpair.application.service.upload.TooManyUploadsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests {@link UploadController}.
+ */
+class UploadControllerTest {
+
+    private final UploadSessionService service
+        = mock(UploadSessionService.class);
+
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(
+        new UploadController(service)).build();
+
+    @Test
+    void shouldRejectFailedStream() throws Exception {
+        when(service.open("a.csv", "yyyy-MM-dd", -1))
+            .thenReturn(UploadStatus.builder().uploadId("upload-1").build());
+        when(service.append(eq("upload-1"), eq(0L), any()))
+            .thenReturn(Optional.empty());
+        when(service.complete("upload-1"))
+            .thenReturn(Optional.of(UploadStatus.builder()
+                                                .uploadId("upload-1")
+                                                .phase(ProcessingPhase.FAILED)
+                                                .rejectedLines(1).build()));
+
+        mvc.perform(post("/api/uploads/stream").param("fileName", "a.csv")
+                                               .content("1,10,x,y\n"))
+           .andExpect(status().isUnprocessableEntity())
+           .andExpect(jsonPath("$.rejectedLines").value(1));
+    }
+
+    @Test
+    void shouldAbortStreamWhenReadingFails() throws Exception {
+        when(service.open("a.csv", "yyyy-MM-dd", -1))
+            .thenReturn(UploadStatus.builder().uploadId("upload-1").build());
+        when(service.append(eq("upload-1"), eq(0L), any()))
+            .thenThrow(new IOException("Connection reset"));
+
+        assertThrows(Exception.class, () -> mvc.perform(
+            post("/api/uploads/stream").param("fileName", "a.csv")
+                                       .content("1,10,2020-01-01,")));
+        verify(service).abort("upload-1");
+        verify(service, never()).complete("upload-1");
+    }
+
+    @Test
+    void shouldRejectUploadWhenTooManyAreOpen() throws Exception {
+        when(service.open(eq("a.csv"), eq("yyyy-MM-dd"), anyLong()))
+            .thenThrow(new TooManyUploadsException(2));
+
+        mvc.perform(post("/api/uploads").param("fileName", "a.csv"))
+           .andExpect(status().isServiceUnavailable())
+           .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+}
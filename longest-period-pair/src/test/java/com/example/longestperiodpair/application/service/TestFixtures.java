@@ -0,0 +1,26 @@
+package com.example.longestperiodpair.application.service;
+
+import com.example.longestperiodpair.application.model.PairPerProject;
+
+import java.time.LocalDate;
+
+
+/**
+ * Builders of the values shared by the tests of the services.
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    public static PairPerProject pair(String first, String second,
+                                      String project, long days) {
+        return PairPerProject.builder().employeeIdFirst(first)
+                             .employeeIdSecond(second).projectId(project)
+                             .daysWorked(days).build();
+    }
+
+    public static LocalDate day(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.longestperiodpair.application.service.aggregate;
+
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link PairTotalsAggregator}.
+ */
+class PairTotalsAggregatorTest {
+
+    private final AssignmentTable table = new AssignmentTable();
+
+    @Test
+    void shouldSumDaysPerPairRegardlessOfOrder() {
+        var aggregator = new PairTotalsAggregator(table);
+        aggregator.accept(row("1", "A"), row("2", "A"), 3);
+        aggregator.accept(row("2", "B"), row("1", "B"), 4);
+        aggregator.accept(row("1", "B"), row("3", "B"), 5);
+
+        var longest = aggregator.findLongest().orElseThrow();
+        assertEquals("1", longest.getEmployeeIdFirst());
+        assertEquals("2", longest.getEmployeeIdSecond());
+        assertEquals(7L, longest.getDaysWorked());
+        assertEquals(2, aggregator.pairCount());
+    }
+
+    @Test
+    void shouldReturnEmptyWithoutPairs() {
+        assertTrue(new PairTotalsAggregator(table).findLongest().isEmpty());
+    }
+
+    private int row(String employeeId, String projectId) {
+        var date = LocalDate.of(2020, 1, 1);
+        return table.add(employeeId, projectId, date, date.plusDays(10));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.longestperiodpair.application.service.aggregate;
+
+import com.example.longestperiodpair.application.util.LongLongHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link TopPairsSelector}.
+ */
+class TopPairsSelectorTest {
+
+    @Test
+    void shouldSelectSameAsFullSort() {
+        var random = new Random(3);
+        var totals = new LongLongHashMap();
+        for (int i = 0; i < 2_000; i++) {
+            totals.put(random.nextInt(1_000_000), random.nextInt(200));
+        }
+        List<long[]> all = new ArrayList<>();
+        totals.forEach((key, days) -> all.add(new long[] {key, days}));
+        all.sort(Comparator.<long[]>comparingLong(entry -> -entry[1])
+                           .thenComparingLong(entry -> entry[0]));
+
+        for (int k : new int[] {0, 1, 10, 100, 5_000}) {
+            var selector = new TopPairsSelector(k);
+            selector.offerAll(totals);
+            List<long[]> selected = new ArrayList<>();
+            selector.drainDescending((key, days) -> selected.add(
+                new long[] {key, days}));
+
+            assertEquals(keys(all.subList(0, Math.min(k, all.size()))),
+                         keys(selected));
+            assertEquals(0, selector.size());
+        }
+    }
+
+    private static List<Long> keys(List<long[]> entries) {
+        return entries.stream().map(entry -> entry[0])
+                      .collect(Collectors.toList());
+    }
+}
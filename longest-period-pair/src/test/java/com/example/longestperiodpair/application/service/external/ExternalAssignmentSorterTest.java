@@ -0,0 +1,126 @@
+package com.example.longestperiodpair.application.service.external;
+
+import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.service.aggregate.PairCollector;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.ingest.ProjectGroups;
+import com.example.longestperiodpair.application.service.overlap.StreamingSweepLine;
+import com.example.longestperiodpair.application.service.overlap.SweepLineOverlapEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link ExternalAssignmentSorter}.
+ */
+class ExternalAssignmentSorterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldMatchInMemorySweepLine() throws IOException {
+        var random = new Random(11);
+        var table = new AssignmentTable();
+        // a budget of 64 rows, spilling the 1000 rows to several runs
+        var sorter = new ExternalAssignmentSorter(
+            64 * ExternalAssignmentSorter.BUFFERED_ROW_BYTES, directory);
+        for (int i = 0; i < 1000; i++) {
+            String employee = "e" + random.nextInt(60);
+            String project = "p" + random.nextInt(7);
+            int from = random.nextInt(500);
+            int to = from + random.nextInt(90);
+            table.add(table.getEmployees().intern(employee),
+                      table.getProjects().intern(project), from, to);
+            sorter.add(sorter.getEmployees().intern(employee),
+                       sorter.getProjects().intern(project), from, to);
+        }
+        assertEquals(1000, sorter.size());
+        assertTrue(sorter.runCount() > 1);
+
+        // the streamed rows of an employee are merged by the sweep itself
+        table.coalesce();
+        var expected = new PairCollector(table, true);
+        ProjectGroups groups = table.groupByProject();
+        var engine = new SweepLineOverlapEngine();
+        for (int project = 0; project < groups.projectCount(); project++) {
+            groups.sortByStart(table, project);
+            engine.findOverlaps(table, groups.getRows(), groups.start(project),
+                                groups.end(project), expected);
+        }
+
+        var actual = new PairCollector(sorter.getBuffer(), true);
+        var sweep = new StreamingSweepLine(actual);
+        try (SortedRunMerger rows = sorter.merge()) {
+            int previousProject = -1;
+            int previousFrom = Integer.MIN_VALUE;
+            while (rows.next()) {
+                assertTrue(rows.project() > previousProject
+                           || (rows.project() == previousProject
+                               && rows.dateFrom() >= previousFrom));
+                previousProject = rows.project();
+                previousFrom = rows.dateFrom();
+                sweep.add(rows.employee(), rows.project(), rows.dateFrom(),
+                          rows.dateTo());
+            }
+        }
+
+        assertEquals(records(expected.buildRecords().toModels()),
+                     records(actual.buildRecords().toModels()));
+        assertEquals(expected.getTotals().findLongest(),
+                     actual.getTotals().findLongest());
+
+        sorter.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * Returns the records in order, each with its employees in order, as the
+     * rows starting on the same day are swept in another order.
+     */
+    private static List<String> records(List<PairPerProject> pairs) {
+        List<String> records = new ArrayList<>(pairs.size());
+        for (PairPerProject pair : pairs) {
+            String first = pair.getEmployeeIdFirst();
+            String second = pair.getEmployeeIdSecond();
+            String key = first.compareTo(second) < 0
+                         ? first + "-" + second : second + "-" + first;
+            records.add(key + ":" + pair.getProjectId() + ":"
+                        + pair.getDaysWorked());
+        }
+        records.sort(null);
+        return records;
+    }
+
+    @Test
+    void shouldNotSpillWithinBudget() throws IOException {
+        try (var sorter = new ExternalAssignmentSorter(1 << 20, directory)) {
+            sorter.add(sorter.getEmployees().intern("e0"),
+                       sorter.getProjects().intern("p0"), 10, 20);
+            sorter.add(sorter.getEmployees().intern("e1"),
+                       sorter.getProjects().intern("p0"), 5, 15);
+            assertEquals(0, sorter.runCount());
+
+            try (SortedRunMerger rows = sorter.merge()) {
+                assertTrue(rows.next());
+                assertEquals(5, rows.dateFrom());
+                assertTrue(rows.next());
+                assertEquals(10, rows.dateFrom());
+                assertFalse(rows.next());
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.longestperiodpair.application.service.graph;
+
+import com.example.longestperiodpair.application.model.CollaborationComponent;
+import com.example.longestperiodpair.application.model.Collaborator;
+import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.service.store.ArrayPairRecords;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.example.longestperiodpair.application.service.TestFixtures.pair;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link CollaborationGraph}.
+ */
+class CollaborationGraphTest {
+
+    @Test
+    void shouldSumDaysAndProjectsAcrossProjects() {
+        var graph = CollaborationGraph.build(ArrayPairRecords.of(List.of(
+            pair("1", "2", "10", 5), pair("2", "1", "10", 3),
+            pair("1", "2", "11", 4), pair("1", "3", "10", 20),
+            pair("1", "1", "12", 50), pair("4", "1", "12", 0),
+            pair("5", "6", "12", 1))));
+
+        var collaborations = graph.collaborations("1", 0, 10).orElseThrow();
+        assertEquals(List.of(collaborator("3", 20, 1),
+                             collaborator("2", 12, 2)),
+                     collaborations.getCollaborators());
+        assertEquals(collaborator("3", 20, 1), collaborations.getLongest());
+        assertEquals(List.of(collaborator("3", 20, 1)),
+                     graph.collaborations("1", 13, 10).orElseThrow()
+                          .getCollaborators());
+        assertEquals(2, graph.collaborations("1", 13, 10).orElseThrow()
+                             .getCollaboratorCount());
+        assertFalse(graph.collaborations("x", 0, 10).isPresent());
+        assertFalse(graph.collaborations("4", 0, 10).isPresent());
+        assertEquals(3, graph.pairCount());
+
+        // {1, 2, 3}, {5, 6} and the employee 4 without collaborations
+        assertEquals(3, graph.componentCount());
+        assertEquals(List.of(3, 2, 1),
+                     graph.components(10).stream()
+                          .map(CollaborationComponent::getSize)
+                          .collect(Collectors.toList()));
+        assertEquals(Set.of("5", "6"),
+                     Set.copyOf(graph.component(1).orElseThrow()
+                                     .getEmployeeIds()));
+        assertEquals(0, collaborations.getComponentId());
+        assertEquals(3, collaborations.getComponentSize());
+    }
+
+    @Test
+    void shouldMatchTotalsOfRandomPairs() {
+        var random = new Random(7);
+        var models = IntStream.range(0, 1000)
+                              .mapToObj(i -> pair(
+                                  String.valueOf(random.nextInt(80)),
+                                  String.valueOf(random.nextInt(80)),
+                                  String.valueOf(random.nextInt(15)),
+                                  random.nextInt(40)))
+                              .collect(Collectors.toList());
+        var graph = CollaborationGraph.build(ArrayPairRecords.of(models));
+
+        Map<Set<String>, Long> totals = new HashMap<>();
+        for (PairPerProject model : models) {
+            if (!model.getEmployeeIdFirst().equals(model.getEmployeeIdSecond())
+                && model.getDaysWorked() > 0) {
+                totals.merge(Set.of(model.getEmployeeIdFirst(),
+                                    model.getEmployeeIdSecond()),
+                             model.getDaysWorked(), Long::sum);
+            }
+        }
+        assertEquals(totals.size(), graph.pairCount());
+        for (int employee = 0; employee < 80; employee++) {
+            String employeeId = String.valueOf(employee);
+            var collaborations = graph.collaborations(employeeId, 0, 1000);
+            if (collaborations.isEmpty()) {
+                continue;
+            }
+            long previous = Long.MAX_VALUE;
+            for (Collaborator collaborator
+                : collaborations.get().getCollaborators()) {
+                assertTrue(collaborator.getDaysWorked() <= previous);
+                previous = collaborator.getDaysWorked();
+                assertEquals(totals.get(Set.of(employeeId,
+                                               collaborator.getEmployeeId())),
+                             collaborator.getDaysWorked());
+            }
+        }
+    }
+
+    private static Collaborator collaborator(String employeeId, long days,
+                                             int projects) {
+        return Collaborator.builder().employeeId(employeeId).daysWorked(days)
+                           .projectCount(projects).build();
+    }
+}
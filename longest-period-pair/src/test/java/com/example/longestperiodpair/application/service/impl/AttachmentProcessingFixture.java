@@ -0,0 +1,56 @@
+package com.example.longestperiodpair.application.service.impl;
+
+import com.example.longestperiodpair.application.service.ingest.DateParserRegistry;
+import com.example.longestperiodpair.application.service.metrics.ProcessingMetrics;
+import com.example.longestperiodpair.application.service.overlap.ParallelOverlapExecutor;
+import com.example.longestperiodpair.application.service.store.InMemoryProcessedResultStore;
+import com.example.longestperiodpair.application.service.timeline.TimelineRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+
+
+/**
+ * {@link AttachmentProcessingServiceImpl} with its collaborators, for the
+ * tests of the services processing files: an in-memory result store, the
+ * metrics in the provided registry and a parallel overlap executor, shut
+ * down when the fixture is closed.
+ */
+public final class AttachmentProcessingFixture implements AutoCloseable {
+
+    private final InMemoryProcessedResultStore resultStore
+        = new InMemoryProcessedResultStore(1 << 20, Duration.ofHours(1));
+    private final ParallelOverlapExecutor overlapExecutor
+        = new ParallelOverlapExecutor(4, 50);
+    private final ProcessingMetrics metrics;
+    private final AttachmentProcessingServiceImpl service;
+
+    public AttachmentProcessingFixture() {
+        this(new SimpleMeterRegistry());
+    }
+
+    public AttachmentProcessingFixture(MeterRegistry registry) {
+        metrics = new ProcessingMetrics(registry, resultStore);
+        service = new AttachmentProcessingServiceImpl(
+            new DateParserRegistry(), overlapExecutor, resultStore, metrics,
+            new TimelineRegistry(0));
+    }
+
+    public InMemoryProcessedResultStore getResultStore() {
+        return resultStore;
+    }
+
+    public ProcessingMetrics getMetrics() {
+        return metrics;
+    }
+
+    public AttachmentProcessingServiceImpl getService() {
+        return service;
+    }
+
+    @Override
+    public void close() {
+        overlapExecutor.shutdown();
+    }
+}
@@ -2,24 +2,51 @@ package com.example.longestperiodpair.application.service.impl;
 
 import com.example.longestperiodpair.application.model.PairPerProject;
 import com.example.longestperiodpair.application.model.ParsedLine;
+import com.example.longestperiodpair.application.service.ingest.ParseErrorMode;
+import com.example.longestperiodpair.application.service.job.ProcessingProgress;
+import com.example.longestperiodpair.application.service.overlap.ExecutionMode;
+import com.example.longestperiodpair.application.service.overlap.OverlapEngineType;
+import com.example.longestperiodpair.application.service.store.InMemoryProcessedResultStore;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mock.web.MockMultipartFile;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests {@link AttachmentProcessingServiceImpl}.
  */
 class AttachmentProcessingServiceImplTest {
 
+    private final AttachmentProcessingFixture fixture
+        = new AttachmentProcessingFixture();
+    private final InMemoryProcessedResultStore resultStore
+        = fixture.getResultStore();
     private final AttachmentProcessingServiceImpl service
-        = new AttachmentProcessingServiceImpl();
+        = fixture.getService();
+
+    @AfterEach
+    void closeFixture() {
+        fixture.close();
+    }
 
     @Test
     void shouldMapToPairsPerProject() {
+        service.overlapEngineType = OverlapEngineType.NESTED_LOOP;
         var first = ParsedLine.builder().employeeId("1").projectId("1")
                               .dateFrom(LocalDate.of(2020, 4, 15))
                               .dateTo(LocalDate.of(2020, 4, 17)).build();
@@ -50,4 +77,236 @@ class AttachmentProcessingServiceImplTest {
                                .orElse(100L));
     }
 
+    @Test
+    void shouldMapOnlyOverlappingPairs() {
+        var first = ParsedLine.builder().employeeId("1").projectId("1")
+                              .dateFrom(LocalDate.of(2020, 4, 15))
+                              .dateTo(LocalDate.of(2020, 4, 17)).build();
+        var second = ParsedLine.builder().employeeId("2").projectId("1")
+                               .dateFrom(LocalDate.of(2020, 4, 17))
+                               .dateTo(LocalDate.of(2020, 4, 20)).build();
+        var third = ParsedLine.builder().employeeId("3").projectId("1")
+                              .dateFrom(LocalDate.of(2020, 4, 16))
+                              .dateTo(LocalDate.of(2021, 4, 17)).build();
+
+        var result = service.mapToPairsPerProject(List.of(first, second, third))
+                            .collect(Collectors.toList());
+        assertEquals(2, result.size());
+        assertEquals(Set.of("1-3:1", "2-3:3"), toPairKeys(result));
+    }
+
+    @Test
+    void shouldMatchReferenceEngine() {
+        var random = new Random(42);
+        var start = LocalDate.of(2015, 1, 1);
+        var parsedModels = IntStream.range(0, 300).mapToObj(
+            i -> {
+                var dateFrom = start.plusDays(random.nextInt(2000));
+                return ParsedLine.builder().employeeId(String.valueOf(i))
+                                 .projectId("1").dateFrom(dateFrom)
+                                 .dateTo(dateFrom.plusDays(random.nextInt(200)))
+                                 .build();
+            }).collect(Collectors.toList());
+
+        var sweepLine = toPairKeys(service.mapToPairsPerProject(parsedModels)
+                                          .collect(Collectors.toList()));
+        service.overlapEngineType = OverlapEngineType.NESTED_LOOP;
+        var reference = toPairKeys(service.mapToPairsPerProject(parsedModels)
+                                          .filter(p -> p.getDaysWorked() > 0)
+                                          .collect(Collectors.toList()));
+
+        assertFalse(reference.isEmpty());
+        assertEquals(reference, sweepLine);
+    }
+
+    @Test
+    void shouldComputeSamePairsInParallel() {
+        var random = new Random(7);
+        var start = LocalDate.of(2015, 1, 1);
+        var parsedModels = IntStream.range(0, 1000).mapToObj(
+            i -> {
+                var dateFrom = start.plusDays(random.nextInt(2000));
+                return ParsedLine.builder().employeeId(String.valueOf(i))
+                                 .projectId(String.valueOf(i % 5))
+                                 .dateFrom(dateFrom)
+                                 .dateTo(dateFrom.plusDays(random.nextInt(300)))
+                                 .build();
+            }).collect(Collectors.toList());
+
+        var parallel = service.mapToPairsPerProject(parsedModels)
+                              .collect(Collectors.toList());
+        service.executionMode = ExecutionMode.SEQUENTIAL;
+        var sequential = service.mapToPairsPerProject(parsedModels)
+                                .collect(Collectors.toList());
+
+        assertEquals(sequential.size(), parallel.size());
+        assertEquals(Set.copyOf(sequential), Set.copyOf(parallel));
+    }
+
+    @Test
+    void shouldCountOverlappingRowsOfEmployeeOnce() {
+        var first = ParsedLine.builder().employeeId("1").projectId("1")
+                              .dateFrom(LocalDate.of(2020, 1, 1))
+                              .dateTo(LocalDate.of(2020, 3, 1)).build();
+        var rehired = ParsedLine.builder().employeeId("1").projectId("1")
+                                .dateFrom(LocalDate.of(2020, 2, 1))
+                                .dateTo(LocalDate.of(2020, 4, 1)).build();
+        var second = ParsedLine.builder().employeeId("2").projectId("1")
+                               .dateFrom(LocalDate.of(2020, 1, 15))
+                               .dateTo(LocalDate.of(2020, 3, 15)).build();
+
+        var pairs = List.of(first, rehired, second);
+        assertEquals(Set.of("1-2:60"), toPairKeys(
+            service.mapToPairsPerProject(pairs).collect(Collectors.toList())));
+        service.overlapEngineType = OverlapEngineType.NESTED_LOOP;
+        assertEquals(Set.of("1-2:60"), toPairKeys(
+            service.mapToPairsPerProject(pairs).collect(Collectors.toList())));
+    }
+
+    @Test
+    void shouldCountOverlappingRowsOfEmployeeOnceInExternalMode()
+            throws IOException {
+        service.executionMode = ExecutionMode.EXTERNAL;
+        process("external.csv", "1,10,2020-01-01,2020-03-01\n"
+                                + "2,10,2020-01-15,2020-03-15\n"
+                                + "1,10,2020-02-01,2020-04-01\n"
+                                + "1,10,2020-02-10,2020-02-20\n");
+
+        var result = resultStore.getByName("external.csv").orElseThrow();
+        assertEquals(60, result.getLongestPair().getDaysWorked());
+        assertEquals(1, result.getPairs().toModels().size());
+        assertEquals(Set.of("1-2:60"),
+                     toPairKeys(result.getPairs().toModels()));
+    }
+
+    @Test
+    void shouldProcessBatchAsOneDataset() throws IOException {
+        var first = csv("a.csv", "1,10,2020-01-01,2020-03-01\n"
+                                 + "2,10,2020-02-01,2020-04-01\n");
+        var second = csv("b.csv", "2,10,2020-02-01,2020-04-01\n"
+                                  + "3,10,2020-01-15,2020-03-15\n");
+
+        var result = service.processBatch(List.of(first, second),
+                                          "yyyy-MM-dd");
+        assertEquals(3, result.getRowCount());
+        assertEquals(1, result.getDuplicateRows());
+        assertEquals(List.of("a.csv", "b.csv"), result.getFileNames());
+        assertEquals("1", result.getLongestPair().getEmployeeIdFirst());
+        assertEquals("3", result.getLongestPair().getEmployeeIdSecond());
+        assertEquals(46, result.getLongestPair().getDaysWorked());
+        assertEquals(3, service.getParsedModels(result.getBatchId()).size());
+
+        var reordered = service.processBatch(List.of(second, first),
+                                             "yyyy-MM-dd");
+        assertTrue(reordered.isReused());
+        assertEquals(result.getBatchId(), reordered.getBatchId());
+        assertEquals(1, reordered.getDuplicateRows());
+    }
+
+    @Test
+    void shouldKeepLinesSkippedInLenientBatch() throws IOException {
+        service.errorMode = ParseErrorMode.LENIENT;
+        service.lenientMaxErrorShare = 0.5;
+        var first = csv("a.csv", "1,10,2020-01-01,2020-03-01\n"
+                                 + "2,10,2020-02-01,2020-04-01\n");
+        var second = csv("b.csv", "3,10,2020-01-15,2020-03-15\n"
+                                  + "4,10,2020-02-31-,2020-04-01\n");
+
+        var result = service.processBatch(List.of(first, second),
+                                          "yyyy-MM-dd");
+        assertEquals(1, result.getRejectedLines());
+        assertEquals(1, result.getLineErrors().size());
+        assertEquals("b.csv", result.getLineErrors().get(0).getFileName());
+        assertEquals(3, result.getLineErrors().get(0).getLineNumber());
+
+        var reused = service.processBatch(List.of(first, second),
+                                          "yyyy-MM-dd");
+        assertTrue(reused.isReused());
+        assertEquals(result.getLineErrors(), reused.getLineErrors());
+        assertEquals(result.getLineErrors(),
+                     service.getParseReport(result.getBatchId())
+                            .orElseThrow().getErrors());
+    }
+
+    @Test
+    void shouldKeepLinesSkippedInLenientMode() throws IOException {
+        service.errorMode = ParseErrorMode.LENIENT;
+        service.lenientMaxErrorShare = 0.5;
+        var content = "EmpID,ProjectID,DateFrom,DateTo\n"
+                      + "1,10,2020-01-01,2020-03-01\n"
+                      + "2,10,2020-02-01,2020-04-01\n"
+                      + "3,10,2020-02-31-,2020-04-01\n";
+        var progress = new ProcessingProgress(content.length());
+        service.process("lenient.csv", new ByteArrayResource(
+            content.getBytes(StandardCharsets.UTF_8)), "yyyy-MM-dd", progress);
+
+        var report = service.getParseReport("lenient.csv").orElseThrow();
+        assertEquals(2, report.getRowCount());
+        assertEquals(1, report.getRejectedLines());
+        assertEquals(4, report.getErrors().get(0).getLineNumber());
+        assertEquals("3,10,2020-02-31-,2020-04-01",
+                     report.getErrors().get(0).getLine());
+        assertEquals(29, service.getParsedModels("lenient.csv").get(0)
+                                .getDaysWorked());
+    }
+
+    @Test
+    void shouldReprocessOpenEndedRowsOnAnotherAsOfDate() throws IOException {
+        service.asOfDate = LocalDate.of(2020, 3, 1);
+        process("open.csv", "1,10,2020-01-01,NULL\n"
+                            + "2,10,2020-02-01,NULL\n");
+        var result = resultStore.getByName("open.csv").orElseThrow();
+        assertEquals(LocalDate.of(2020, 3, 1), result.getAsOfDate());
+        assertEquals(29, result.getLongestPair().getDaysWorked());
+
+        process("open.csv", "1,10,2020-01-01,NULL\n"
+                            + "2,10,2020-02-01,NULL\n");
+        assertSame(result, resultStore.getByName("open.csv").orElseThrow());
+
+        service.asOfDate = LocalDate.of(2020, 3, 11);
+        process("open.csv", "1,10,2020-01-01,NULL\n"
+                            + "2,10,2020-02-01,NULL\n");
+        var current = resultStore.getByName("open.csv").orElseThrow();
+        assertEquals(LocalDate.of(2020, 3, 11), current.getAsOfDate());
+        assertEquals(39, current.getLongestPair().getDaysWorked());
+    }
+
+    @Test
+    void shouldReuseClosedRowsOnAnyAsOfDate() throws IOException {
+        service.asOfDate = LocalDate.of(2020, 3, 1);
+        process("closed.csv", "1,10,2020-01-01,2020-03-01\n"
+                              + "2,10,2020-02-01,2020-04-01\n");
+        var result = resultStore.getByName("closed.csv").orElseThrow();
+        assertNull(result.getAsOfDate());
+
+        service.asOfDate = LocalDate.of(2021, 1, 1);
+        process("closed.csv", "1,10,2020-01-01,2020-03-01\n"
+                              + "2,10,2020-02-01,2020-04-01\n");
+        assertSame(result,
+                   resultStore.getByName("closed.csv").orElseThrow());
+    }
+
+    private void process(String fileName, String rows) throws IOException {
+        var content = ("EmpID,ProjectID,DateFrom,DateTo\n" + rows).getBytes(
+            StandardCharsets.UTF_8);
+        service.process(fileName, new ByteArrayResource(content), "yyyy-MM-dd",
+                        new ProcessingProgress(content.length));
+    }
+
+    private static MockMultipartFile csv(String fileName, String rows) {
+        return new MockMultipartFile("files", fileName, "text/csv",
+                                     ("EmpID,ProjectID,DateFrom,DateTo\n"
+                                      + rows).getBytes(
+                                         StandardCharsets.UTF_8));
+    }
+
+    private static Set<String> toPairKeys(List<PairPerProject> pairs) {
+        return pairs.stream().map(pair -> {
+            var first = Integer.parseInt(pair.getEmployeeIdFirst());
+            var second = Integer.parseInt(pair.getEmployeeIdSecond());
+            return Math.min(first, second) + "-" + Math.max(first, second)
+                   + ":" + pair.getDaysWorked();
+        }).collect(Collectors.toSet());
+    }
+
 }
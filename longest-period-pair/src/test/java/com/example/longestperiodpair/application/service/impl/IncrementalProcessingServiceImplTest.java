@@ -0,0 +1,170 @@
+package com.example.longestperiodpair.application.service.impl;
+
+import com.example.longestperiodpair.application.service.ingest.DateParserRegistry;
+import com.example.longestperiodpair.application.service.ingest.LineErrorsException;
+import com.example.longestperiodpair.application.service.ingest.ParseErrorMode;
+import com.example.longestperiodpair.application.service.store.InMemoryProcessedResultStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link IncrementalProcessingServiceImpl}.
+ */
+class IncrementalProcessingServiceImplTest {
+
+    private static final String PATTERN = "yyyy-MM-dd";
+
+    private final InMemoryProcessedResultStore resultStore
+        = new InMemoryProcessedResultStore(1 << 20, Duration.ofHours(1));
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void shouldStoreResultOfDeltaWhenRead() throws IOException {
+        var service = service(1 << 20);
+        service.create("base", csv("1,10,2020-01-01,2020-02-01\n"
+                                   + "2,10,2020-01-11,2020-02-01\n"),
+                       PATTERN);
+        service.applyDelta("base", csv("3,10,2020-01-01,2020-03-01\n"),
+                           PATTERN);
+        service.applyDelta("base", csv("2,10,2020-01-11,2020-03-01\n"),
+                           PATTERN);
+
+        var result = resultStore.getByName("base").orElseThrow();
+        assertEquals(3, result.getRowCount());
+        assertEquals(50, result.getLongestPair().getDaysWorked());
+        assertEquals("2", result.getLongestPair().getEmployeeIdFirst());
+        assertEquals(3, result.getPairs().size());
+    }
+
+    @Test
+    void shouldCountOverlappingRowsOfEmployeeOnce() throws IOException {
+        // the file of AttachmentProcessingServiceImplTest, processed in full
+        // into a single record of 60 days
+        var service = service(1 << 20);
+        service.create("base", csv("1,10,2020-01-01,2020-03-01\n"
+                                   + "2,10,2020-01-15,2020-03-15\n"
+                                   + "1,10,2020-02-01,2020-04-01\n"
+                                   + "1,10,2020-02-10,2020-02-20\n"),
+                       PATTERN);
+
+        var result = resultStore.getByName("base").orElseThrow();
+        assertEquals(60, result.getLongestPair().getDaysWorked());
+        assertEquals(1, result.getPairs().size());
+        assertEquals(60, result.getPairs().toModels().get(0).getDaysWorked());
+    }
+
+    @Test
+    void shouldEndOpenEndedRowsOfDeltasOnDateOfDataset() throws IOException {
+        var service = service(1 << 20);
+        service.asOfDate = LocalDate.of(2020, 3, 1);
+        service.create("base", csv("1,10,2020-01-01,2020-12-31\n"), PATTERN);
+        assertNull(resultStore.getByName("base").orElseThrow().getAsOfDate());
+
+        // a later delta keeps the date captured when the dataset was created
+        service.asOfDate = LocalDate.of(2020, 3, 11);
+        service.applyDelta("base", csv("2,10,2020-02-01,NULL\n"), PATTERN);
+
+        var result = resultStore.getByName("base").orElseThrow();
+        assertEquals(LocalDate.of(2020, 3, 1), result.getAsOfDate());
+        assertEquals(29, result.getLongestPair().getDaysWorked());
+    }
+
+    @Test
+    void shouldParseDeltasInConfiguredErrorMode() throws IOException {
+        var service = service(1 << 20);
+        service.create("base", csv("1,10,2020-01-01,2020-02-01\n"), PATTERN);
+        var delta = csv("2,10,2020-01-11,2020-02-01\n"
+                        + "3,10,x,y\n");
+        var e = assertThrows(LineErrorsException.class, () ->
+            service.applyDelta("base", delta, PATTERN));
+        assertEquals(3, e.getErrors().get(0).getLineNumber());
+
+        service.errorMode = ParseErrorMode.LENIENT;
+        service.lenientMaxErrorShare = 0.5;
+        var result = service.applyDelta("base", delta, PATTERN).orElseThrow();
+        assertEquals(1, result.getRowsAdded());
+        assertEquals(21, result.getLongestPair().getDaysWorked());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedDataset() throws IOException {
+        var service = service(1);
+        service.create("first", csv("1,10,2020-01-01,2020-02-01\n"
+                                    + "2,10,2020-01-11,2020-02-01\n"),
+                       PATTERN);
+        service.create("second", csv("1,10,2020-01-01,2020-02-01\n"), PATTERN);
+
+        assertFalse(service.applyDelta("first", csv(
+            "3,10,2020-01-01,2020-03-01\n"), PATTERN).isPresent());
+        assertTrue(service.applyDelta("second", csv(
+            "3,10,2020-01-01,2020-03-01\n"), PATTERN).isPresent());
+        // the result of the evicted dataset stays readable
+        assertEquals(21, resultStore.getByName("first").orElseThrow()
+                                    .getLongestPair().getDaysWorked());
+    }
+
+    @Test
+    void shouldExpireUnchangedDataset() throws IOException {
+        var service = service(1 << 20);
+        service.create("base", csv("1,10,2020-01-01,2020-02-01\n"), PATTERN);
+
+        clock.millis += Duration.ofHours(2).toMillis();
+        assertFalse(service.applyDelta("base", csv(
+            "2,10,2020-01-01,2020-03-01\n"), PATTERN).isPresent());
+    }
+
+    private IncrementalProcessingServiceImpl service(long maxBytes) {
+        return new IncrementalProcessingServiceImpl(new DateParserRegistry(),
+                                                    resultStore, maxBytes,
+                                                    Duration.ofHours(1),
+                                                    clock);
+    }
+
+    private static ByteArrayResource csv(String rows) {
+        return new ByteArrayResource(("EmpID,ProjectID,DateFrom,DateTo\n"
+                                      + rows).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Clock whose time is moved by the tests.
+     */
+    private static final class MutableClock extends Clock {
+
+        private long millis;
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
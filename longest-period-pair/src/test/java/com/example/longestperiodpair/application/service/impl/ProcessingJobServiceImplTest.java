@@ -0,0 +1,114 @@
+package com.example.longestperiodpair.application.service.impl;
+
+import com.example.longestperiodpair.application.model.ProcessingPhase;
+import com.example.longestperiodpair.application.service.AttachmentProcessingService;
+import com.example.longestperiodpair.application.service.job.ProcessingProgress;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests {@link ProcessingJobServiceImpl}.
+ */
+class ProcessingJobServiceImplTest {
+
+    private static final String PATTERN = "yyyy-MM-dd";
+
+    private final AttachmentProcessingService processingService
+        = mock(AttachmentProcessingService.class);
+
+    @Test
+    void shouldRegisterJobBeforeRunningIt() throws IOException {
+        var jobService = new ProcessingJobServiceImpl(processingService,
+                                                      Runnable::run, 10);
+        var processingSeen = new AtomicBoolean();
+        doAnswer(invocation -> {
+            processingSeen.set(jobService.isProcessing("a.csv"));
+            invocation.<ProcessingProgress>getArgument(3)
+                      .enterPhase(ProcessingPhase.COMPLETED);
+            return null;
+        }).when(processingService).process(eq("a.csv"),
+                                           any(InputStreamSource.class),
+                                           eq(PATTERN), any());
+
+        String jobId = jobService.submit(file("a.csv"), PATTERN);
+
+        assertTrue(processingSeen.get());
+        assertFalse(jobService.isProcessing("a.csv"));
+        var status = jobService.getStatus(jobId).orElseThrow();
+        assertEquals(ProcessingPhase.COMPLETED, status.getPhase());
+        assertEquals("a.csv", status.getFileName());
+    }
+
+    @Test
+    void shouldReportFailedJob() throws IOException {
+        var jobService = new ProcessingJobServiceImpl(processingService,
+                                                      Runnable::run, 10);
+        doThrow(new IOException("broken")).when(processingService)
+            .process(eq("a.csv"), any(InputStreamSource.class), eq(PATTERN),
+                     any());
+
+        String jobId = jobService.submit(file("a.csv"), PATTERN);
+
+        var status = jobService.getStatus(jobId).orElseThrow();
+        assertEquals(ProcessingPhase.FAILED, status.getPhase());
+        assertEquals("broken", status.getError());
+        assertFalse(jobService.isProcessing("a.csv"));
+    }
+
+    @Test
+    void shouldKeepPreviousJobWhenQueueIsFull() throws IOException {
+        List<Runnable> queue = new ArrayList<>();
+        var jobService = new ProcessingJobServiceImpl(processingService,
+            command -> {
+                if (!queue.isEmpty()) {
+                    throw new RejectedExecutionException("Queue is full");
+                }
+                queue.add(command);
+            }, 10);
+
+        String jobId = jobService.submit(file("a.csv"), PATTERN);
+        assertThrows(RejectedExecutionException.class,
+                     () -> jobService.submit(file("a.csv"), PATTERN));
+
+        assertTrue(jobService.isProcessing("a.csv"));
+        assertEquals(ProcessingPhase.QUEUED,
+                     jobService.getStatus(jobId).orElseThrow().getPhase());
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    void shouldForgetOldestFinishedJobs() throws IOException {
+        var jobService = new ProcessingJobServiceImpl(processingService,
+                                                      Runnable::run, 1);
+
+        String first = jobService.submit(file("a.csv"), PATTERN);
+        String second = jobService.submit(file("b.csv"), PATTERN);
+
+        assertFalse(jobService.getStatus(first).isPresent());
+        assertTrue(jobService.getStatus(second).isPresent());
+    }
+
+    private static MockMultipartFile file(String fileName) {
+        return new MockMultipartFile("file", fileName, "text/csv",
+                                     "1,10,2020-01-01,2020-02-01\n".getBytes(
+                                         StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.longestperiodpair.application.service.impl;
+
+import com.example.longestperiodpair.application.model.ProcessingPhase;
+import com.example.longestperiodpair.application.model.UploadStatus;
+import com.example.longestperiodpair.application.service.job.ProcessingProgress;
+import com.example.longestperiodpair.application.service.metrics.ProcessingMetrics;
+import com.example.longestperiodpair.application.service.store.InMemoryProcessedResultStore;
+import com.example.longestperiodpair.application.service.upload.TooManyUploadsException;
+import com.example.longestperiodpair.application.service.upload.UploadOffsetMismatchException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link UploadSessionServiceImpl}.
+ */
+class UploadSessionServiceImplTest {
+
+    private final AttachmentProcessingFixture fixture
+        = new AttachmentProcessingFixture();
+    private final InMemoryProcessedResultStore resultStore
+        = fixture.getResultStore();
+    private final AttachmentProcessingServiceImpl processingService
+        = fixture.getService();
+    private final ProcessingMetrics metrics = fixture.getMetrics();
+
+    private final UploadSessionServiceImpl service
+        = new UploadSessionServiceImpl(processingService, metrics,
+                                       Duration.ofHours(1), 2);
+
+    @AfterEach
+    void closeFixture() {
+        fixture.close();
+    }
+
+    @Test
+    void shouldResumeChunksAndMatchWholeProcessing() throws IOException {
+        byte[] content = csv(new Random(3), 300);
+        var upload = service.open("chunks.csv", "yyyy-MM-dd", content.length);
+        String uploadId = upload.getUploadId();
+
+        append(uploadId, content, 0, 1000);
+        // resent from an earlier offset after a dropped connection
+        var status = append(uploadId, content, 600, 2500);
+        assertEquals(2500, status.getReceivedBytes());
+        assertThrows(UploadOffsetMismatchException.class,
+                     () -> append(uploadId, content, 3000, content.length));
+        append(uploadId, content, 2500, content.length);
+
+        var completed = service.complete(uploadId).orElseThrow();
+        assertEquals(ProcessingPhase.COMPLETED, completed.getPhase());
+        assertEquals(300, completed.getRowsParsed());
+        assertNotNull(completed.getLongestPair());
+
+        processingService.process("whole.csv", new ByteArrayResource(content),
+                                  "yyyy-MM-dd", new ProcessingProgress(-1));
+        // the same content hash, so the result is reused
+        assertEquals(1, resultStore.getStats().getEntries());
+        assertEquals(completed.getLongestPair(),
+                     resultStore.getByName("whole.csv").orElseThrow()
+                                .getLongestPair());
+    }
+
+    @Test
+    void shouldFailOnInvalidLine() throws IOException {
+        byte[] content = "1,10,2020-01-01,2020-02-01\n2,10,not a date,NULL\n"
+            .getBytes(StandardCharsets.UTF_8);
+        var upload = service.open("invalid.csv", "yyyy-MM-dd", -1);
+
+        append(upload.getUploadId(), content, 0, content.length);
+
+        // the rows sampled for the detection of the pattern are parsed last
+        var status = service.complete(upload.getUploadId()).orElseThrow();
+        assertEquals(ProcessingPhase.FAILED, status.getPhase());
+        assertNotNull(status.getError());
+    }
+
+    @Test
+    void shouldRejectUploadsOverMaximum() throws IOException {
+        byte[] content = "1,10,2020-01-01,2020-02-01\n"
+            .getBytes(StandardCharsets.UTF_8);
+        var first = service.open("first.csv", "yyyy-MM-dd", -1);
+        var second = service.open("second.csv", "yyyy-MM-dd", -1);
+        assertThrows(TooManyUploadsException.class,
+                     () -> service.open("third.csv", "yyyy-MM-dd", -1));
+
+        // the finished and the discarded uploads are no longer open
+        append(first.getUploadId(), content, 0, content.length);
+        service.complete(first.getUploadId());
+        assertTrue(service.getStatus(first.getUploadId()).isPresent());
+        service.open("third.csv", "yyyy-MM-dd", -1);
+        service.abort(second.getUploadId());
+        service.open("fourth.csv", "yyyy-MM-dd", -1);
+    }
+
+    @Test
+    void shouldEvictIdleUploads() {
+        var service = new UploadSessionServiceImpl(processingService, metrics,
+                                                   Duration.ZERO, 1);
+        var upload = service.open("idle.csv", "yyyy-MM-dd", -1);
+
+        service.evictIdle();
+
+        assertFalse(service.getStatus(upload.getUploadId()).isPresent());
+        service.open("next.csv", "yyyy-MM-dd", -1);
+    }
+
+    private UploadStatus append(String uploadId, byte[] content, int from,
+                                int to) throws IOException {
+        return service.append(uploadId, from, new ByteArrayInputStream(
+            Arrays.copyOfRange(content, from, to))).orElseThrow();
+    }
+
+    private static byte[] csv(Random random, int rows) {
+        StringBuilder csv = new StringBuilder("EmpID,ProjectID,DateFrom,"
+                                              + "DateTo\n");
+        for (int i = 0; i < rows; i++) {
+            LocalDate from = LocalDate.ofEpochDay(18000 + random.nextInt(400));
+            csv.append(random.nextInt(40)).append(',')
+               .append(random.nextInt(5)).append(',').append(from)
+               .append(',').append(from.plusDays(1 + random.nextInt(90)))
+               .append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
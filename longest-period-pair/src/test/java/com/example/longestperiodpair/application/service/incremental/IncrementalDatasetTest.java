@@ -0,0 +1,167 @@
+package com.example.longestperiodpair.application.service.incremental;
+
+import com.example.longestperiodpair.application.model.DeltaResult;
+import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.service.aggregate.PairCollector;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import com.example.longestperiodpair.application.service.overlap.SweepLineOverlapEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static com.example.longestperiodpair.application.service.TestFixtures.day;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link IncrementalDataset}.
+ */
+class IncrementalDatasetTest {
+
+    @Test
+    void shouldUpdateEndDateAndLongestPair() {
+        var base = new AssignmentTable();
+        base.add("e0", "p0", day(0), day(10));
+        base.add("e1", "p0", day(5), day(20));
+        base.add("e2", "p0", day(0), day(12));
+        var dataset = IncrementalDataset.build(base);
+        assertEquals(10, dataset.findLongest().orElseThrow().getDaysWorked());
+
+        var delta = new AssignmentTable();
+        delta.add("e2", "p0", day(0), day(3));
+        delta.add("e0", "p0", day(0), day(10));
+        delta.add("e3", "p0", day(6), day(30));
+        DeltaResult result = dataset.apply(delta);
+
+        assertEquals(1, result.getRowsAdded());
+        assertEquals(1, result.getRowsUpdated());
+        assertEquals(1, result.getRowsUnchanged());
+        assertEquals(1, result.getProjectsChanged());
+        var longest = dataset.findLongest().orElseThrow();
+        assertEquals("e1", longest.getEmployeeIdFirst());
+        assertEquals("e3", longest.getEmployeeIdSecond());
+        assertEquals(14, longest.getDaysWorked());
+    }
+
+    @Test
+    void shouldMatchFullProcessingOfOverlappingRowsOfEmployee() {
+        var base = new AssignmentTable();
+        base.add("e1", "p0", day(0), day(60));
+        base.add("e1", "p0", day(31), day(91));
+        base.add("e1", "p0", day(40), day(50));
+        base.add("e2", "p0", day(14), day(74));
+        base.add("e3", "p0", day(0), day(70));
+        var dataset = IncrementalDataset.build(base);
+        assertEquals(processed(base), daysPerPair(dataset.buildRecords()
+                                                         .toModels()));
+        var longest = dataset.findLongest().orElseThrow();
+        assertEquals("e1", longest.getEmployeeIdFirst());
+        assertEquals("e3", longest.getEmployeeIdSecond());
+        assertEquals(70, longest.getDaysWorked());
+
+        var delta = new AssignmentTable();
+        delta.add("e1", "p0", day(31), day(45));
+        delta.add("e1", "p0", day(55), day(80));
+        dataset.apply(delta);
+        var rows = new AssignmentTable();
+        rows.add("e1", "p0", day(0), day(60));
+        rows.add("e1", "p0", day(31), day(45));
+        rows.add("e1", "p0", day(40), day(50));
+        rows.add("e1", "p0", day(55), day(80));
+        rows.add("e2", "p0", day(14), day(74));
+        rows.add("e3", "p0", day(0), day(70));
+        assertEquals(processed(rows), daysPerPair(dataset.buildRecords()
+                                                         .toModels()));
+        assertEquals(Map.of("e1-e2@p0", 60L, "e1-e3@p0", 70L,
+                            "e2-e3@p0", 56L), processed(rows));
+    }
+
+    @Test
+    void shouldMatchFullRecomputation() {
+        var random = new Random(5);
+        Map<String, int[]> assignments = new LinkedHashMap<>();
+        for (int i = 0; i < 400; i++) {
+            put(assignments, random);
+        }
+        var dataset = IncrementalDataset.build(toTable(assignments));
+
+        for (int round = 0; round < 20; round++) {
+            var delta = new AssignmentTable();
+            for (int i = 0; i < 15; i++) {
+                int[] row = random.nextBoolean()
+                            ? put(assignments, random)
+                            : update(assignments, random);
+                delta.add("e" + row[0], "p" + row[1], day(row[2]),
+                          day(row[3]));
+            }
+            dataset.apply(delta);
+
+            var expected = IncrementalDataset.build(toTable(assignments));
+            var records = daysPerPair(dataset.buildRecords().toModels());
+            assertEquals(daysPerPair(expected.buildRecords().toModels()),
+                         records);
+            assertEquals(processed(toTable(assignments)), records);
+            assertEquals(expected.findLongest().orElseThrow().getDaysWorked(),
+                         dataset.findLongest().orElseThrow().getDaysWorked());
+        }
+    }
+
+    private static int[] put(Map<String, int[]> assignments, Random random) {
+        int from = random.nextInt(300);
+        int[] row = {random.nextInt(25), random.nextInt(6), from,
+                     from + random.nextInt(60)};
+        assignments.put(row[0] + "/" + row[1] + "/" + row[2], row);
+        return row;
+    }
+
+    private static int[] update(Map<String, int[]> assignments,
+                                Random random) {
+        int[] row = assignments.values().stream()
+                               .skip(random.nextInt(assignments.size()))
+                               .findFirst().orElseThrow();
+        row[3] = row[2] + random.nextInt(80);
+        return row.clone();
+    }
+
+    private static AssignmentTable toTable(Map<String, int[]> assignments) {
+        var table = new AssignmentTable();
+        assignments.values().forEach(row -> table.add(
+            "e" + row[0], "p" + row[1], day(row[2]), day(row[3])));
+        return table;
+    }
+
+    /**
+     * Returns the days per pair and project of the full processing of the
+     * rows, which coalesces the rows of each employee first.
+     */
+    private static Map<String, Long> processed(AssignmentTable table) {
+        var rows = table.copy();
+        rows.coalesce();
+        var groups = rows.groupByProject();
+        var collector = new PairCollector(rows, true);
+        var engine = new SweepLineOverlapEngine();
+        for (int project = 0; project < groups.projectCount(); project++) {
+            groups.sortByStart(rows, project);
+            engine.findOverlaps(rows, groups.getRows(), groups.start(project),
+                                groups.end(project), collector);
+        }
+        return daysPerPair(collector.buildRecords().toModels());
+    }
+
+    private static Map<String, Long> daysPerPair(List<PairPerProject> pairs) {
+        Map<String, Long> days = new TreeMap<>();
+        for (PairPerProject pair : pairs) {
+            String first = pair.getEmployeeIdFirst();
+            String second = pair.getEmployeeIdSecond();
+            String key = first.compareTo(second) < 0
+                         ? first + "-" + second
+                         : second + "-" + first;
+            days.merge(key + "@" + pair.getProjectId(), pair.getDaysWorked(),
+                       Long::sum);
+        }
+        return days;
+    }
+}
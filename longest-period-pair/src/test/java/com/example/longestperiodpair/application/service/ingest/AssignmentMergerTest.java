@@ -0,0 +1,37 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static com.example.longestperiodpair.application.service.TestFixtures.day;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link AssignmentMerger}.
+ */
+class AssignmentMergerTest {
+
+    @Test
+    void shouldMergeWithoutDuplicates() {
+        var first = new AssignmentTable();
+        first.add("e1", "p1", day(0), day(10));
+        first.add("e2", "p1", day(5), day(15));
+        var second = new AssignmentTable();
+        second.add("e3", "p2", day(0), day(10));
+        second.add("e2", "p1", day(5), day(15));
+        second.add("e2", "p1", day(5), day(16));
+        second.add("e1", "p2", day(0), day(10));
+
+        var merger = new AssignmentMerger(4);
+        merger.addAll(first);
+        merger.addAll(second);
+
+        AssignmentTable merged = merger.getMerged();
+        assertEquals(5, merged.size());
+        assertEquals(1, merger.getDuplicates());
+        assertEquals(3, merged.getEmployees().size());
+        assertEquals(2, merged.getProjects().size());
+        assertEquals("e3", merged.getEmployees().get(merged.employeeId(2)));
+        assertEquals("p2", merged.getProjects().get(merged.projectId(2)));
+        assertEquals(day(16).toEpochDay(), merged.dateTo(3));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static com.example.longestperiodpair.application.service.TestFixtures.day;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link AssignmentTable}.
+ */
+class AssignmentTableTest {
+
+    @Test
+    void shouldCoalesceOverlappingAndAdjacentRows() {
+        var table = new AssignmentTable();
+        table.add("e1", "p1", day(15), day(20));
+        table.add("e1", "p1", day(0), day(10));
+        table.add("e2", "p1", day(0), day(10));
+        table.add("e1", "p1", day(5), day(15));
+        table.add("e1", "p2", day(0), day(10));
+        table.add("e1", "p1", day(30), day(40));
+        table.add("e1", "p1", day(50), day(50));
+        table.add("e1", "p1", day(6), day(8));
+
+        assertEquals(3, table.coalesce());
+        assertEquals(5, table.size());
+        assertEquals(0, table.dateFrom(0));
+        assertEquals(20, table.dateTo(0));
+        assertEquals("e2", table.getEmployees().get(table.employeeId(1)));
+        assertEquals("p2", table.getProjects().get(table.projectId(2)));
+        assertEquals(10, table.dateTo(2));
+        assertEquals(30, table.dateFrom(3));
+        assertEquals(40, table.dateTo(3));
+        assertEquals(50, table.dateTo(4));
+        assertEquals(0, table.coalesce());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import com.example.longestperiodpair.application.util.EndDateMode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link CsvScanner} and {@link AssignmentRowParser}.
+ */
+class CsvScannerTest {
+
+    private static final LocalDate AS_OF = LocalDate.of(2021, 9, 1);
+
+    private static final String CONTENT = "\uFEFFEmpID, ProjectID, DateFrom, "
+                                          + "DateTo\r\n"
+                                          + "143, 12, 2013-11-01, 2014-01-05\r\n"
+                                          + "\r\n"
+                                          + "\"21,8\", \"1\"\"0\", 2009-01-01,"
+                                          + " NULL\n"
+                                          + "  218 ,10,2012-05-16,2020-02-30";
+
+    @Test
+    void shouldFindFieldsOfQuotedAndCrlfRows() throws IOException {
+        List<String> rows = new ArrayList<>();
+        new CsvScanner(row -> {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < row.fieldCount(); i++) {
+                fields.add(row.field(i));
+            }
+            rows.add(row.getLineNumber() + ":" + String.join("|", fields));
+        }).scan(new ByteArrayInputStream(
+            CONTENT.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of("1:EmpID|ProjectID|DateFrom|DateTo",
+                             "2:143|12|2013-11-01|2014-01-05",
+                             "4:21,8|1\"0|2009-01-01|NULL",
+                             "5:218|10|2012-05-16|2020-02-30"), rows);
+    }
+
+    @Test
+    void shouldParseSameRowsWhenFedByteByByte() {
+        var table = new AssignmentTable();
+        var scanner = new CsvScanner(new AssignmentRowParser(table,
+            EpochDayParser.forPattern(EpochDayParser.ISO_PATTERN), AS_OF));
+        for (byte value : CONTENT.getBytes(StandardCharsets.UTF_8)) {
+            scanner.feed(new byte[] {value}, 0, 1);
+        }
+        scanner.finish();
+
+        assertEquals(3, table.size());
+        assertEquals("143", table.getEmployees().get(table.employeeId(0)));
+        assertEquals("1\"0", table.getProjects().get(table.projectId(1)));
+        assertEquals(LocalDate.of(2013, 11, 1).toEpochDay(),
+                     table.dateFrom(0));
+        assertEquals(AS_OF.toEpochDay(), table.dateTo(1));
+        assertEquals(LocalDate.of(2020, 2, 29).toEpochDay(),
+                     table.dateTo(2));
+        assertEquals(table.employeeId(0), table.getEmployees().intern("143"));
+    }
+
+    @Test
+    void shouldConvertInclusiveEndDates() throws IOException {
+        var table = new AssignmentTable();
+        new CsvScanner(new AssignmentRowParser(table, new DateParserRegistry(),
+                                               EpochDayParser.ISO_PATTERN,
+                                               false, EndDateMode.INCLUSIVE,
+                                               AS_OF))
+            .scan(new ByteArrayInputStream(
+                CONTENT.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(LocalDate.of(2014, 1, 6).toEpochDay(), table.dateTo(0));
+        assertEquals(AS_OF.plusDays(1).toEpochDay(), table.dateTo(1));
+    }
+
+    @Test
+    void shouldParseCustomPattern() {
+        var parser = EpochDayParser.forPattern("dd/MM/yyyy");
+        var bytes = "15/04/2020".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(LocalDate.of(2020, 4, 15).toEpochDay(),
+                     parser.parse(bytes, 0, bytes.length));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests {@link DateParserRegistry} and {@link FixedWidthDateParser}.
+ */
+class DateParserRegistryTest {
+
+    private final DateParserRegistry registry = new DateParserRegistry();
+
+    @Test
+    void shouldMatchFormatterForCommonPatterns() {
+        var date = LocalDate.of(1999, 12, 31);
+        for (String pattern : DateParserRegistry.DEFAULT_CANDIDATE_PATTERNS) {
+            var bytes = date.format(DateTimeFormatter.ofPattern(pattern))
+                            .getBytes(StandardCharsets.US_ASCII);
+            var parser = registry.get(pattern);
+
+            assertEquals(FixedWidthDateParser.class, parser.getClass());
+            assertEquals(date.toEpochDay(), parser.parse(bytes, 0,
+                                                         bytes.length));
+            assertSame(parser, registry.get(pattern));
+        }
+    }
+
+    @Test
+    void shouldFallBackToFormatter() {
+        assertNull(FixedWidthDateParser.compile("d MMM yyyy"));
+        var bytes = "5 Jan 2021".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(LocalDate.of(2021, 1, 5).toEpochDay(),
+                     registry.get("d MMM yyyy").parse(bytes, 0,
+                                                      bytes.length));
+    }
+
+    @Test
+    void shouldDetectPattern() {
+        assertEquals("dd/MM/yyyy", registry.detect("MM/dd/yyyy",
+            List.of("01/02/2020", "25/02/2020")));
+        assertEquals("MM/dd/yyyy", registry.detect("MM/dd/yyyy",
+            List.of("01/02/2020", "02/03/2020")));
+    }
+
+    @Test
+    void shouldParseFileWithWronglySelectedPattern() throws IOException {
+        var table = new AssignmentTable();
+        var parser = new AssignmentRowParser(table, registry, "yyyy-MM-dd",
+                                             true, LocalDate.of(2021, 9, 1));
+        new CsvScanner(parser).scan(new ByteArrayInputStream(
+            "1,1,15/04/2020,NULL\n2,1,16/04/2020,20/04/2020"
+                .getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("dd/MM/yyyy", parser.getPattern());
+        assertEquals(2, table.size());
+        assertEquals(LocalDate.of(2020, 4, 20).toEpochDay(), table.dateTo(1));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.longestperiodpair.application.service.ingest;
+
+import com.example.longestperiodpair.application.model.LineError;
+import com.example.longestperiodpair.application.util.EndDateMode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests {@link LineErrors} with the {@link AssignmentRowParser}.
+ */
+class LineErrorsTest {
+
+    private static final String CONTENT = "EmpID,ProjectID,DateFrom,DateTo\n"
+                                          + "1,10,2020-01-01,2020-03-01\n"
+                                          + "2,10\n"
+                                          + "3,10,2020-13-01,NULL\n"
+                                          + "4,10,2020-02-01,2020-04-01\n"
+                                          + "5,10,2020-02-01,01/04/2020\n";
+
+    @Test
+    void shouldSkipRejectedLinesInLenientMode() throws IOException {
+        var table = new AssignmentTable();
+        var lineErrors = LineErrors.lenient(0.75, 2);
+        parse(table, lineErrors, false);
+
+        assertEquals(2, table.size());
+        assertEquals("4", table.getEmployees().get(table.employeeId(1)));
+        assertEquals(3, lineErrors.getRejectedLines());
+        assertEquals(List.of(
+            LineError.builder().lineNumber(3).line("2,10")
+                     .reason("Unexpected line format").build(),
+            LineError.builder().lineNumber(4).line("3,10,2020-13-01,NULL")
+                     .reason("Invalid start date '2020-13-01' for the "
+                             + "pattern 'yyyy-MM-dd'").build()),
+                     lineErrors.getErrors());
+    }
+
+    @Test
+    void shouldRejectSampledLinesAfterDetection() throws IOException {
+        var table = new AssignmentTable();
+        var lineErrors = LineErrors.lenient(0.75, 10);
+        parse(table, lineErrors, true);
+
+        assertEquals(2, table.size());
+        assertEquals(List.of(3L, 4L, 6L),
+                     lineErrors.getErrors().stream()
+                               .map(LineError::getLineNumber)
+                               .collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldFailWhenShareIsExceeded() {
+        var e = assertThrows(LineErrorsException.class,
+                             () -> parse(new AssignmentTable(),
+                                         LineErrors.lenient(0.2, 1), false));
+        assertEquals(3, e.getRejectedLines());
+        assertEquals(1, e.getErrors().size());
+    }
+
+    @Test
+    void shouldFailFastAfterMaxErrorsInStrictMode() {
+        var table = new AssignmentTable();
+        var e = assertThrows(LineErrorsException.class,
+                             () -> parse(table, LineErrors.strict(2, 10),
+                                         false));
+        assertEquals(2, e.getRejectedLines());
+        assertEquals("Line 3: Unexpected line format (2 lines rejected)",
+                     e.getMessage());
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void shouldFailAtEndWithFewerThanMaxErrorsInStrictMode() {
+        var table = new AssignmentTable();
+        var e = assertThrows(LineErrorsException.class,
+                             () -> parse(table, LineErrors.strict(5, 10),
+                                         false));
+        assertEquals(3, e.getRejectedLines());
+        assertEquals(List.of(3L, 4L, 6L),
+                     e.getErrors().stream().map(LineError::getLineNumber)
+                      .collect(Collectors.toList()));
+        assertEquals(2, table.size());
+    }
+
+    private static void parse(AssignmentTable table, LineErrors lineErrors,
+                              boolean detectPattern) throws IOException {
+        new CsvScanner(new AssignmentRowParser(table, new DateParserRegistry(),
+                                               EpochDayParser.ISO_PATTERN,
+                                               detectPattern,
+                                               EndDateMode.EXCLUSIVE,
+                                               lineErrors,
+                                               LocalDate.of(2021, 9, 1)))
+            .scan(new ByteArrayInputStream(
+                CONTENT.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.longestperiodpair.application.service.job;
+
+import com.example.longestperiodpair.application.model.ProcessingPhase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link ProcessingProgress}.
+ */
+class ProcessingProgressTest {
+
+    @Test
+    void shouldEstimateRemainingTimeFromParsingRate()
+            throws InterruptedException {
+        var progress = new ProcessingProgress(100);
+        assertNull(progress.estimateRemainingMillis());
+
+        progress.enterPhase(ProcessingPhase.PARSING);
+        assertNull(progress.estimateRemainingMillis());
+        Thread.sleep(20);
+        progress.updateParsing(25, 3);
+        // three times the time taken by the first quarter
+        assertTrue(progress.estimateRemainingMillis() >= 60);
+
+        progress.updateParsing(100, 12);
+        assertEquals(0, progress.estimateRemainingMillis());
+        progress.enterPhase(ProcessingPhase.GROUPING);
+        assertNull(progress.estimateRemainingMillis());
+    }
+
+    @Test
+    void shouldNotEstimateUnknownSize() {
+        var progress = new ProcessingProgress(-1);
+        progress.enterPhase(ProcessingPhase.PARSING);
+        progress.updateParsing(25, 3);
+        assertNull(progress.estimateRemainingMillis());
+    }
+
+    @Test
+    void shouldRecordTimeOfFinishedPhases() {
+        var progress = new ProcessingProgress(100);
+        progress.enterPhase(ProcessingPhase.PARSING);
+        progress.enterPhase(ProcessingPhase.COMPLETED);
+
+        assertEquals(ProcessingPhase.COMPLETED, progress.getPhase());
+        assertEquals(2, progress.getPhaseNanos().size());
+        assertTrue(progress.getPhaseNanos()
+                           .containsKey(ProcessingPhase.PARSING));
+    }
+}
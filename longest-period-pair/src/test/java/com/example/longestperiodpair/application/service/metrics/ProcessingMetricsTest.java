@@ -0,0 +1,94 @@
+package com.example.longestperiodpair.application.service.metrics;
+
+import com.example.longestperiodpair.application.model.ProcessingPhase;
+import com.example.longestperiodpair.application.service.impl.AttachmentProcessingFixture;
+import com.example.longestperiodpair.application.service.impl.AttachmentProcessingServiceImpl;
+import com.example.longestperiodpair.application.service.job.ProcessingProgress;
+import com.example.longestperiodpair.application.service.store.InMemoryProcessedResultStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link ProcessingMetrics}.
+ */
+class ProcessingMetricsTest {
+
+    private static final String CONTENT = "EmpID,ProjectID,DateFrom,DateTo\n"
+                                          + "1,10,2020-01-01,2020-01-11\n"
+                                          + "2,10,2020-01-06,2020-01-21\n"
+                                          + "3,10,2020-01-08,NULL\n";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AttachmentProcessingFixture fixture
+        = new AttachmentProcessingFixture(registry);
+    private final InMemoryProcessedResultStore resultStore
+        = fixture.getResultStore();
+    private final AttachmentProcessingServiceImpl service
+        = fixture.getService();
+
+    @AfterEach
+    void closeFixture() {
+        fixture.close();
+    }
+
+    @Test
+    void shouldRecordProcessedAndReusedFiles() throws IOException {
+        ProcessingProgress progress = process("a.csv", CONTENT);
+        process("b.csv", CONTENT);
+
+        assertEquals(1, duration("processed"));
+        assertEquals(1, duration("reused"));
+        assertEquals(3, registry.get("processing.rows").counter().count());
+        assertEquals(3, registry.get("processing.pairs").counter().count());
+        assertEquals(CONTENT.length(),
+                     registry.get("processing.bytes").counter().count());
+        assertEquals(2, registry.get("processing.phase").tag("phase", "hashing")
+                                .timer().count());
+        assertEquals(1, registry.get("processing.phase").tag("phase", "overlap")
+                                .timer().count());
+        assertEquals(1, registry.get("processing.store.entries").gauge()
+                                .value());
+
+        Map<ProcessingPhase, Long> phases = progress.getPhaseMillis();
+        assertTrue(phases.keySet().containsAll(
+            List.of(ProcessingPhase.HASHING, ProcessingPhase.PARSING,
+                    ProcessingPhase.GROUPING, ProcessingPhase.OVERLAP,
+                    ProcessingPhase.AGGREGATING, ProcessingPhase.PERSISTING)));
+    }
+
+    @Test
+    void shouldRecordFailedFiles() {
+        assertThrows(RuntimeException.class,
+                     () -> process("c.csv", "1,10,2020-01-01\n"));
+
+        assertEquals(1, duration("failed"));
+        assertEquals(1, registry.get("processing.lines.rejected").counter()
+                                .count());
+        assertEquals(0, registry.get("processing.rows").counter().count());
+    }
+
+    private ProcessingProgress process(String fileName, String content)
+            throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        ProcessingProgress progress = new ProcessingProgress(bytes.length);
+        service.process(fileName, new ByteArrayResource(bytes), "yyyy-MM-dd",
+                        progress);
+        return progress;
+    }
+
+    private long duration(String outcome) {
+        return registry.get("processing.duration").tag("outcome", outcome)
+                       .timer().count();
+    }
+}
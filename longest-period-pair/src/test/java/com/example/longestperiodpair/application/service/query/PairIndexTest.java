@@ -0,0 +1,135 @@
+package com.example.longestperiodpair.application.service.query;
+
+import com.example.longestperiodpair.application.model.PairPage;
+import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.model.PairQuery;
+import com.example.longestperiodpair.application.service.store.ArrayPairRecords;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.example.longestperiodpair.application.service.TestFixtures.pair;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests {@link PairIndex}.
+ */
+class PairIndexTest {
+
+    @Test
+    void shouldReturnLongestPairsFirst() {
+        var models = List.of(pair("1", "2", "10", 5), pair("1", "3", "10", 30),
+                             pair("2", "3", "11", 30), pair("4", "1", "11", 0));
+        var index = PairIndex.build(ArrayPairRecords.of(models));
+
+        PairPage page = index.query(PairQuery.builder().limit(2).build());
+        assertEquals(List.of(models.get(1), models.get(2)), page.getPairs());
+        assertEquals(2, page.getNextOffset());
+
+        page = index.query(PairQuery.builder().offset(2).limit(2).minDays(1)
+                                    .build());
+        assertEquals(List.of(models.get(0)), page.getPairs());
+        assertNull(page.getNextOffset());
+
+        page = index.query(PairQuery.builder().offset(Integer.MAX_VALUE)
+                                    .limit(2).build());
+        assertEquals(List.of(), page.getPairs());
+        assertNull(page.getNextOffset());
+    }
+
+    @Test
+    void shouldMatchFilteredAndSortedModels() {
+        var random = new Random(11);
+        var models = IntStream.range(0, 500)
+                              .mapToObj(i -> pair(
+                                  String.valueOf(random.nextInt(30)),
+                                  String.valueOf(30 + random.nextInt(30)),
+                                  String.valueOf(random.nextInt(12)),
+                                  random.nextInt(50)))
+                              .collect(Collectors.toList());
+        var index = PairIndex.build(ArrayPairRecords.of(models));
+
+        for (PairSort sort : PairSort.values()) {
+            for (String employeeId : new String[] {null, "3", "42", "x"}) {
+                for (String projectId : new String[] {null, "5", "x"}) {
+                    for (long minDays : new long[] {0, 25}) {
+                        var query = PairQuery.builder().employeeId(employeeId)
+                                             .projectId(projectId)
+                                             .minDays(minDays).sort(sort)
+                                             .limit(7).build();
+                        assertEquals(expected(models, query),
+                                     readAll(index, query),
+                                     query.toString());
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<PairPerProject> readAll(PairIndex index,
+                                                PairQuery query) {
+        List<PairPerProject> pairs = new ArrayList<>();
+        Integer offset = 0;
+        while (offset != null) {
+            query.setOffset(offset);
+            PairPage page = index.query(query);
+            pairs.addAll(page.getPairs());
+            offset = page.getNextOffset();
+        }
+        return pairs;
+    }
+
+    private static List<PairPerProject> expected(List<PairPerProject> models,
+                                                 PairQuery query) {
+        Comparator<Integer> byDays = Comparator.comparingLong(
+            i -> -models.get(i).getDaysWorked());
+        Comparator<Integer> order;
+        switch (query.getSort()) {
+            case DAYS_ASC:
+                order = byDays.thenComparing(i -> i).reversed();
+                break;
+            case EMPLOYEE:
+                order = Comparator.<Integer, String>comparing(
+                                      i -> models.get(i).getEmployeeIdFirst())
+                                  .thenComparing(
+                                      i -> models.get(i).getEmployeeIdSecond())
+                                  .thenComparing(
+                                      i -> models.get(i).getProjectId())
+                                  .thenComparing(byDays)
+                                  .thenComparing(i -> i);
+                break;
+            case PROJECT:
+                order = Comparator.<Integer, String>comparing(
+                                      i -> models.get(i).getProjectId())
+                                  .thenComparing(
+                                      i -> models.get(i).getEmployeeIdFirst())
+                                  .thenComparing(
+                                      i -> models.get(i).getEmployeeIdSecond())
+                                  .thenComparing(byDays)
+                                  .thenComparing(i -> i);
+                break;
+            default:
+                order = byDays.thenComparing(i -> i);
+        }
+        return IntStream.range(0, models.size()).boxed()
+                        .filter(i -> matches(models.get(i), query))
+                        .sorted(order).map(models::get)
+                        .collect(Collectors.toList());
+    }
+
+    private static boolean matches(PairPerProject model, PairQuery query) {
+        String employeeId = query.getEmployeeId();
+        return (employeeId == null
+                || employeeId.equals(model.getEmployeeIdFirst())
+                || employeeId.equals(model.getEmployeeIdSecond()))
+               && (query.getProjectId() == null
+                   || query.getProjectId().equals(model.getProjectId()))
+               && model.getDaysWorked() >= query.getMinDays();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.longestperiodpair.application.service.store;
+
+import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.model.StoreStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link InMemoryProcessedResultStore}.
+ */
+class InMemoryProcessedResultStoreTest {
+
+    @Test
+    void shouldStorePendingResultWhenRead() {
+        var store = new InMemoryProcessedResultStore(1 << 20,
+                                                     Duration.ofHours(1));
+        var calls = new AtomicInteger();
+        store.put(result("a"));
+        store.alias("a.csv", "a");
+        store.putPending("a", () -> {
+            calls.incrementAndGet();
+            return result("a");
+        });
+        assertEquals(0, calls.get());
+
+        assertTrue(store.getByName("a.csv").isPresent());
+        assertTrue(store.get("a").isPresent());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldKeepResultRegisteredWhileBuilding() {
+        var store = new InMemoryProcessedResultStore(1 << 20,
+                                                     Duration.ofHours(1));
+        store.putPending("a", () -> {
+            store.putPending("a", () -> result("a", 20));
+            return result("a", 10);
+        });
+
+        assertEquals(10, daysOf(store.get("a").orElseThrow()));
+        assertEquals(20, daysOf(store.get("a").orElseThrow()));
+    }
+
+    @Test
+    void shouldWaitForPendingResultBeingBuilt() throws Exception {
+        var store = new InMemoryProcessedResultStore(1 << 20,
+                                                     Duration.ofHours(1));
+        var building = new CountDownLatch(1);
+        var built = new CountDownLatch(1);
+        store.putPending("a", () -> {
+            building.countDown();
+            try {
+                built.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result("a");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> first = executor.submit(
+                () -> store.get("a").isPresent());
+            building.await();
+            Future<Boolean> second = executor.submit(
+                () -> store.get("a").isPresent());
+            Thread.sleep(50);
+            assertFalse(second.isDone());
+
+            built.countDown();
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertTrue(second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedResults() {
+        long size = result("a").estimateBytes();
+        var store = new InMemoryProcessedResultStore(2 * size,
+                                                     Duration.ofHours(1));
+        store.put(result("a"));
+        store.put(result("b"));
+        store.get("a");
+        store.put(result("c"));
+
+        assertTrue(store.get("a").isPresent());
+        assertFalse(store.get("b").isPresent());
+        assertTrue(store.get("c").isPresent());
+        StoreStats stats = store.getStats();
+        assertEquals(1, stats.getEvictions());
+        assertEquals(2, stats.getEntries());
+        assertEquals(2 * size, stats.getBytes());
+        assertEquals(3, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void shouldExpireResults() {
+        var clock = new MutableClock();
+        var store = new InMemoryProcessedResultStore(1 << 20,
+                                                     Duration.ofMinutes(1),
+                                                     clock);
+        store.put(result("a"));
+        store.alias("file.csv", "a");
+        assertTrue(store.getByName("file.csv").isPresent());
+
+        clock.millis += Duration.ofMinutes(2).toMillis();
+        assertFalse(store.getByName("file.csv").isPresent());
+        assertEquals(0, store.getStats().getEntries());
+    }
+
+    @Test
+    void shouldKeyByContentAndPattern() throws IOException {
+        var content = new ByteArrayResource(
+            "1,1,2020-01-01,NULL".getBytes(StandardCharsets.UTF_8));
+        var other = new ByteArrayResource(
+            "1,2,2020-01-01,NULL".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(ContentKeys.of(content, "yyyy-MM-dd"),
+                     ContentKeys.of(content, "yyyy-MM-dd"));
+        assertNotEquals(ContentKeys.of(content, "yyyy-MM-dd"),
+                        ContentKeys.of(content, "dd/MM/yyyy"));
+        assertNotEquals(ContentKeys.of(content, "yyyy-MM-dd"),
+                        ContentKeys.of(other, "yyyy-MM-dd"));
+    }
+
+    private static ProcessedResult result(String key) {
+        return result(key, 10);
+    }
+
+    private static ProcessedResult result(String key, long days) {
+        var pair = PairPerProject.builder().employeeIdFirst("1")
+                                 .employeeIdSecond("2").projectId(key)
+                                 .daysWorked(days).build();
+        return ProcessedResult.builder().key(key).fileName(key)
+                              .pairs(ArrayPairRecords.of(List.of(pair)))
+                              .build();
+    }
+
+    private static long daysOf(ProcessedResult result) {
+        return result.getPairs().toModels().get(0).getDaysWorked();
+    }
+
+    /**
+     * Clock whose time is moved by the tests.
+     */
+    private static final class MutableClock extends Clock {
+
+        private long millis;
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
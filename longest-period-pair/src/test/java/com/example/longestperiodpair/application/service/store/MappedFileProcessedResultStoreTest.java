@@ -0,0 +1,76 @@
+package com.example.longestperiodpair.application.service.store;
+
+import com.example.longestperiodpair.application.model.LineError;
+import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.model.WorkingPair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.example.longestperiodpair.application.service.TestFixtures.pair;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests {@link MappedFileProcessedResultStore}.
+ */
+class MappedFileProcessedResultStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReopenStoredResults() {
+        List<PairPerProject> models = List.of(
+            pair("1", "2", "10", 19), pair("3", "1", "11", 30),
+            pair("2", "3", "10", 0), pair("ä", "1", "12", 5));
+        var longest = WorkingPair.builder().employeeIdFirst("1")
+                                 .employeeIdSecond("3").daysWorked(30)
+                                 .build();
+        var errors = List.of(LineError.builder().lineNumber(3).line("1,ä")
+                                      .reason("Unexpected line format")
+                                      .build(),
+                             LineError.builder().lineNumber(1).line("x")
+                                      .reason("Unexpected line format")
+                                      .fileName("b.csv").build());
+        var store = new MappedFileProcessedResultStore(directory);
+        store.put(ProcessedResult.builder().key("abc/yyyy-MM-dd")
+                                 .fileName("file.csv").pattern("yyyy-MM-dd")
+                                 .pairs(ArrayPairRecords.of(models))
+                                 .longestPair(longest).rowCount(6)
+                                 .duplicateRows(4).rejectedLines(2).lineErrors(errors)
+                                 .asOfDate(LocalDate.of(2021, 9, 1)).build());
+        store.put(ProcessedResult.builder().key("empty").fileName("empty.csv")
+                                 .pairs(ArrayPairRecords.of(List.of()))
+                                 .build());
+        store.alias("file.csv", "abc/yyyy-MM-dd");
+        store.alias("copy.csv", "abc/yyyy-MM-dd");
+
+        var reopened = new MappedFileProcessedResultStore(directory);
+        var result = reopened.getByName("copy.csv").orElseThrow();
+        assertEquals("abc/yyyy-MM-dd", result.getKey());
+        assertEquals("file.csv", result.getFileName());
+        assertEquals("yyyy-MM-dd", result.getPattern());
+        assertEquals(6, result.getRowCount());
+        assertEquals(4, result.getDuplicateRows());
+        assertEquals(longest, result.getLongestPair());
+        assertEquals(2, result.getRejectedLines());
+        assertEquals(errors, result.getLineErrors());
+        assertEquals(LocalDate.of(2021, 9, 1), result.getAsOfDate());
+        assertEquals(models, result.getPairs().toModels());
+        assertEquals(models.subList(2, 4), result.getPairs().toModels(2, 5));
+
+        var empty = reopened.get("empty").orElseThrow();
+        assertEquals(0, empty.getPairs().size());
+        assertNull(empty.getPattern());
+        assertNull(empty.getLongestPair());
+        assertEquals(List.of(), empty.getLineErrors());
+        assertNull(empty.getAsOfDate());
+        assertFalse(reopened.getByName("empty.csv").isPresent());
+        assertEquals(2, reopened.getStats().getEntries());
+    }
+}
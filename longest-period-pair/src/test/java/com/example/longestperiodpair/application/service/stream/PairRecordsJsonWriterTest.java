@@ -0,0 +1,57 @@
+package com.example.longestperiodpair.application.service.stream;
+
+import com.example.longestperiodpair.application.model.PairPerProject;
+import com.example.longestperiodpair.application.service.store.ArrayPairRecords;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link PairRecordsJsonWriter}.
+ */
+class PairRecordsJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PairRecordsJsonWriter writer
+        = new PairRecordsJsonWriter(objectMapper);
+
+    private final List<PairPerProject> models = List.of(
+        PairPerProject.builder().employeeIdFirst("1").employeeIdSecond("2")
+                      .projectId("10").daysWorked(19).build(),
+        PairPerProject.builder().employeeIdFirst("3").employeeIdSecond("\"1\"")
+                      .projectId("11").daysWorked(30).build());
+
+    @Test
+    void shouldWriteJsonArray() throws IOException {
+        String json = write(StreamFormat.JSON, models);
+
+        assertEquals(objectMapper.writeValueAsString(models), json);
+        assertEquals("[]", write(StreamFormat.JSON, List.of()));
+    }
+
+    @Test
+    void shouldWriteOneObjectPerLine() throws IOException {
+        String ndjson = write(StreamFormat.NDJSON, models);
+
+        StringBuilder expected = new StringBuilder();
+        for (PairPerProject model : models) {
+            expected.append(objectMapper.writeValueAsString(model))
+                    .append('\n');
+        }
+        assertEquals(expected.toString(), ndjson);
+        assertEquals("", write(StreamFormat.NDJSON, List.of()));
+    }
+
+    private String write(StreamFormat format, List<PairPerProject> pairs)
+            throws IOException {
+        var out = new ByteArrayOutputStream();
+        writer.write(ArrayPairRecords.of(pairs), format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.longestperiodpair.application.service.timeline;
+
+import com.example.longestperiodpair.application.model.WorkingPair;
+import com.example.longestperiodpair.application.service.ingest.AssignmentTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link TimelineIndex}.
+ */
+class TimelineIndexTest {
+
+    @Test
+    void shouldClipOverlapsToWindow() {
+        var table = new AssignmentTable();
+        add(table, "e1", "p1", 0, 100);
+        add(table, "e2", "p1", 50, 200);
+        add(table, "e3", "p2", 0, 300);
+        add(table, "e2", "p2", 250, 400);
+        var index = TimelineIndex.build(table);
+
+        var window = index.query(60, 260, null);
+        assertEquals(2, window.getTotals().pairCount());
+        WorkingPair longest = window.getTotals().findLongest().orElseThrow();
+        assertEquals("e1", longest.getEmployeeIdFirst());
+        assertEquals("e2", longest.getEmployeeIdSecond());
+        assertEquals(40, longest.getDaysWorked());
+
+        assertEquals(0, index.query(100, 250, null).getTotals().pairCount());
+        assertEquals(1, index.query(0, 400, "e3").getTotals().pairCount());
+        assertEquals(0, index.query(0, 400, "e9").getTotals().pairCount());
+    }
+
+    @Test
+    void shouldMatchBruteForce() {
+        var random = new Random(17);
+        var table = new AssignmentTable();
+        for (int i = 0; i < 2000; i++) {
+            int from = random.nextInt(3000);
+            // a few long assignments spanning most of the period
+            int length = random.nextInt(20) == 0 ? 2500 : random.nextInt(120);
+            add(table, "e" + random.nextInt(200), "p" + random.nextInt(10),
+                from, from + length);
+        }
+        // the rows of an employee on a project are coalesced before indexing
+        table.coalesce();
+        int[][] rows = new int[table.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new int[]{id(table.getEmployees().get(
+                                    table.employeeId(i))),
+                                table.projectId(i), table.dateFrom(i),
+                                table.dateTo(i)};
+        }
+        var index = TimelineIndex.build(table);
+
+        for (int query = 0; query < 20; query++) {
+            int from = random.nextInt(3200) - 100;
+            int to = from + random.nextInt(600);
+            Map<String, Long> expected = new TreeMap<>();
+            for (int i = 0; i < rows.length; i++) {
+                for (int j = i + 1; j < rows.length; j++) {
+                    if (rows[i][1] != rows[j][1]
+                        || rows[i][0] == rows[j][0]) {
+                        continue;
+                    }
+                    long days = Math.min(Math.min(rows[i][3], rows[j][3]), to)
+                                - Math.max(Math.max(rows[i][2], rows[j][2]),
+                                           from);
+                    if (days > 0) {
+                        expected.merge(key(rows[i][0], rows[j][0]), days,
+                                       Long::sum);
+                    }
+                }
+            }
+
+            Map<String, Long> actual = new TreeMap<>();
+            var totals = index.query(from, to, null).getTotals();
+            for (WorkingPair pair : totals.findTop(totals.pairCount())) {
+                actual.put(key(id(pair.getEmployeeIdFirst()),
+                               id(pair.getEmployeeIdSecond())),
+                           pair.getDaysWorked());
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static int id(String employeeId) {
+        return Integer.parseInt(employeeId.substring(1));
+    }
+
+    private static String key(int first, int second) {
+        return Math.min(first, second) + "-" + Math.max(first, second);
+    }
+
+    private static void add(AssignmentTable table, String employee,
+                            String project, int from, int to) {
+        table.add(table.getEmployees().intern(employee),
+                  table.getProjects().intern(project), from, to);
+    }
+}
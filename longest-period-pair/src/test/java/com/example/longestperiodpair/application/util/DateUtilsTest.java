@@ -48,4 +48,30 @@ class DateUtilsTest {
             .findIntervalOverlapInDays(firstStart, firstEnd, secondStart,
                 secondEnd));
     }
+
+    @Test
+    void shouldCountOverlapOfEpochDays() {
+        assertEquals(2, DateUtils.overlapDays(16, 18, 15, 18));
+        assertEquals(0, DateUtils.overlapDays(15, 20, 20, 23));
+        assertEquals(0, DateUtils.overlapDays(15, 17, 20, 23));
+        assertEquals(2L, DateUtils.overlapDays(16L, 18L, 15L, 18L));
+    }
+
+    @Test
+    void shouldCountOverlapWithInclusiveEndDates() {
+        assertEquals(1, DateUtils.overlapDays(15, 20, 20, 23,
+                                              EndDateMode.INCLUSIVE));
+        assertEquals(0, DateUtils.overlapDays(15, 20, 20, 23,
+                                              EndDateMode.EXCLUSIVE));
+        assertEquals(0, DateUtils.overlapDays(15, 19, 20, 23,
+                                              EndDateMode.INCLUSIVE));
+    }
+
+    @Test
+    void shouldNotCountDisjointIntervals() {
+        assertEquals(0, DateUtils
+            .findIntervalOverlapInDays(LocalDate.of(2020, 4, 15),
+                LocalDate.of(2020, 4, 17), LocalDate.of(2020, 4, 20),
+                LocalDate.of(2020, 4, 23)));
+    }
 }
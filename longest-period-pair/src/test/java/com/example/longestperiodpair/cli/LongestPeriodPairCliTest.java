@@ -0,0 +1,70 @@
+package com.example.longestperiodpair.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link LongestPeriodPairCli}.
+ */
+class LongestPeriodPairCliTest {
+
+    private static final String CONTENT = "EmpID,ProjectID,DateFrom,DateTo\n"
+                                          + "1,10,2020-01-01,2020-03-01\n"
+                                          + "1,10,2020-02-01,2020-04-01\n"
+                                          + "2,10,2020-01-15,2020-03-15\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldCountOverlappingRowsOfEmployeeOnceInParallel()
+            throws IOException {
+        assertEquals("1,2,60" + System.lineSeparator(),
+                     run("--top=5", write()));
+    }
+
+    @Test
+    void shouldCountOverlappingRowsOfEmployeeOnceSequentially()
+            throws IOException {
+        assertEquals("1,2,60" + System.lineSeparator(),
+                     run("--top=5", "--sequential", write()));
+    }
+
+    @Test
+    void shouldEndOpenEndedRowsOnAsOfDate() throws IOException {
+        assertEquals("1,2,40" + System.lineSeparator(),
+                     run("--as-of=2020-02-10", write(
+                         "1,10,2020-01-01,NULL\n2,10,2020-01-01,NULL\n")));
+    }
+
+    private String write() throws IOException {
+        return write(CONTENT);
+    }
+
+    private String write(String content) throws IOException {
+        Path file = directory.resolve("rows.csv");
+        Files.writeString(file, content);
+        return file.toString();
+    }
+
+    private static String run(String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream previous = System.out;
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            LongestPeriodPairCli.main(args);
+        } finally {
+            System.setOut(previous);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}